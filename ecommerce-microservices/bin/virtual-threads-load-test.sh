@@ -0,0 +1,117 @@
+#!/usr/bin/env bash
+# Compares product-service throughput on platform threads and on virtual threads.
+#
+# Starts the service once per execution mode, seeds it with products, and drives closed-loop
+# GET load at each concurrency level with HttpLoadDriver. Results are written as CSV and
+# printed as a table. Virtual threads need a Java 21+ runtime; on older JVMs that mode is
+# skipped, since the service would fall back to platform threads.
+#
+# Usage: bin/virtual-threads-load-test.sh [concurrency levels...]   (default: 50 200 800 2000)
+#
+# Environment:
+#   PROFILE       Spring profile of the service (default dev)
+#   PORT          port the service listens on (default 8081)
+#   DURATION      measured seconds per level (default 30)
+#   WARMUP        warm-up seconds per level (default 10)
+#   PRODUCTS      products seeded before the first level (default 1000)
+#   MODES         execution modes to compare (default "platform virtual")
+#   SERVICE_ARGS  extra arguments passed to the service
+#   RESULTS       CSV file for the results (default product-service/target/virtual-threads-load-test.csv)
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+SERVICE_DIR="$ROOT/product-service"
+DRIVER="$SERVICE_DIR/src/test/java/com/ecommerce/product/loadtest/HttpLoadDriver.java"
+
+PROFILE="${PROFILE:-dev}"
+PORT="${PORT:-8081}"
+DURATION="${DURATION:-30}"
+WARMUP="${WARMUP:-10}"
+PRODUCTS="${PRODUCTS:-1000}"
+MODES="${MODES:-platform virtual}"
+SERVICE_ARGS="${SERVICE_ARGS:-}"
+RESULTS="${RESULTS:-$SERVICE_DIR/target/virtual-threads-load-test.csv}"
+LEVELS=("$@")
+if [ ${#LEVELS[@]} -eq 0 ]; then
+    LEVELS=(50 200 800 2000)
+fi
+
+URL="http://localhost:$PORT"
+SERVICE_PID=""
+
+java_feature_version() {
+    java -XshowSettings:properties -version 2>&1 | awk -F' = ' '/java.specification.version/ {print $2}'
+}
+
+stop_service() {
+    if [ -n "$SERVICE_PID" ] && kill -0 "$SERVICE_PID" 2>/dev/null; then
+        kill "$SERVICE_PID"
+        wait "$SERVICE_PID" 2>/dev/null || true
+    fi
+    SERVICE_PID=""
+}
+trap stop_service EXIT
+
+start_service() {
+    local mode="$1"
+    local virtual=false
+    if [ "$mode" = "virtual" ]; then
+        virtual=true
+    fi
+    echo "Starting product-service with $mode threads..."
+    # shellcheck disable=SC2086
+    VIRTUAL_THREADS_ENABLED="$virtual" java -jar "$JAR" \
+        --spring.profiles.active="$PROFILE" --server.port="$PORT" $SERVICE_ARGS \
+        > "$SERVICE_DIR/target/load-test-$mode.log" 2>&1 &
+    SERVICE_PID=$!
+    for _ in $(seq 1 180); do
+        if curl -fs "$URL/actuator/health" > /dev/null 2>&1; then
+            return 0
+        fi
+        if ! kill -0 "$SERVICE_PID" 2>/dev/null; then
+            echo "The service exited during startup; see target/load-test-$mode.log" >&2
+            exit 1
+        fi
+        sleep 1
+    done
+    echo "The service did not become healthy within 180 seconds" >&2
+    exit 1
+}
+
+seed_products() {
+    local body="["
+    for i in $(seq 1 "$PRODUCTS"); do
+        [ "$i" -gt 1 ] && body+=","
+        body+="{\"name\":\"Load test product $i\",\"description\":\"Seeded for the load test\",\"price\":$((i % 500 + 1)).99,\"categoryId\":$((i % 20 + 1)),\"stockQuantity\":1000}"
+    done
+    body+="]"
+    curl -fs -o /dev/null -X POST -H "Content-Type: application/json" --data "$body" "$URL/api/products/batch"
+}
+
+cd "$SERVICE_DIR"
+echo "Building product-service..."
+mvn -B -q package -DskipTests
+JAR="$(ls target/product-service-*.jar | grep -v original | head -n 1)"
+
+JAVA_VERSION="$(java_feature_version)"
+echo "label,concurrency,requests,errors,throughput_rps,p50_ms,p99_ms,max_ms" > "$RESULTS"
+
+for mode in $MODES; do
+    if [ "$mode" = "virtual" ] && [ "${JAVA_VERSION%%.*}" -lt 21 ]; then
+        echo "Skipping virtual threads: they need Java 21 or later, found $JAVA_VERSION"
+        continue
+    fi
+    start_service "$mode"
+    seed_products
+    for level in "${LEVELS[@]}"; do
+        echo "  $mode threads, $level concurrent clients..."
+        java "$DRIVER" --url "$URL" --label "$mode" --concurrency "$level" \
+            --duration "$DURATION" --warmup "$WARMUP" --ids "$PRODUCTS" >> "$RESULTS"
+    done
+    stop_service
+done
+
+echo
+awk -F, '{ printf "%-10s %12s %10s %8s %15s %9s %9s %9s\n", $1, $2, $3, $4, $5, $6, $7, $8 }' "$RESULTS"
+echo
+echo "Results written to $RESULTS"
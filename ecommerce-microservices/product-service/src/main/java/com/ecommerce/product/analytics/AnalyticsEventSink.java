@@ -0,0 +1,17 @@
+package com.ecommerce.product.analytics;
+
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+
+import java.util.List;
+
+/**
+ * Receives the events of the product-analytics topic, one consumer poll at a time.
+ * Batches are delivered on the listener thread; implementations must not block it.
+ */
+public interface AnalyticsEventSink {
+
+    /**
+     * @param events Events of one poll, in partition order; never contains nulls
+     */
+    void accept(List<EnhancedProductEvent> events);
+}
@@ -0,0 +1,129 @@
+package com.ecommerce.product.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Distinct users and sessions per product over one time window: an open-addressing table
+ * from product id to a pair of {@link HyperLogLog} counters, allocated on the product's first
+ * event in the window.
+ * <p>
+ * Not thread-safe; {@link #copy()} gives an independent copy for concurrent readers.
+ */
+final class CardinalityWindow {
+
+    private static final long EMPTY = 0;
+
+    private final int precision;
+    private long start = -1;
+    private long[] productIds;
+    private HyperLogLog[] users;
+    private HyperLogLog[] sessions;
+    private int size;
+
+    CardinalityWindow(int precision, int expectedProducts) {
+        this.precision = precision;
+        allocate(Integer.highestOneBit(Math.max(8, expectedProducts * 2 - 1)) << 1);
+    }
+
+    long start() {
+        return start;
+    }
+
+    /**
+     * Empties the window for reuse from the given start.
+     */
+    void reset(long start) {
+        if (size > 0) {
+            Arrays.fill(productIds, EMPTY);
+            Arrays.fill(users, null);
+            Arrays.fill(sessions, null);
+            size = 0;
+        }
+        this.start = start;
+    }
+
+    /**
+     * @param userHash    Hash of the user id, or 0 if the event has none
+     * @param sessionHash Hash of the session id, or 0 if the event has none
+     */
+    void record(long productId, long userHash, long sessionHash) {
+        int slot = slotOf(productId);
+        if (productIds[slot] == EMPTY) {
+            productIds[slot] = productId;
+            users[slot] = new HyperLogLog(precision);
+            sessions[slot] = new HyperLogLog(precision);
+            if (++size * 2 > productIds.length) {
+                grow();
+                slot = slotOf(productId);
+            }
+        }
+        if (userHash != 0) {
+            users[slot].addHash(userHash);
+        }
+        if (sessionHash != 0) {
+            sessions[slot].addHash(sessionHash);
+        }
+    }
+
+    /**
+     * Distinct users of the product in the window, or null if it had no events.
+     */
+    HyperLogLog users(long productId) {
+        int slot = slotOf(productId);
+        return productIds[slot] == EMPTY ? null : users[slot];
+    }
+
+    /**
+     * Distinct sessions of the product in the window, or null if it had no events.
+     */
+    HyperLogLog sessions(long productId) {
+        int slot = slotOf(productId);
+        return productIds[slot] == EMPTY ? null : sessions[slot];
+    }
+
+    CardinalityWindow copy() {
+        CardinalityWindow copy = new CardinalityWindow(precision, 0);
+        copy.start = start;
+        copy.size = size;
+        copy.productIds = productIds.clone();
+        copy.users = new HyperLogLog[users.length];
+        copy.sessions = new HyperLogLog[sessions.length];
+        for (int slot = 0; slot < productIds.length; slot++) {
+            if (productIds[slot] != EMPTY) {
+                copy.users[slot] = users[slot].copy();
+                copy.sessions[slot] = sessions[slot].copy();
+            }
+        }
+        return copy;
+    }
+
+    private int slotOf(long productId) {
+        int mask = productIds.length - 1;
+        int slot = (int) ((productId * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (productIds[slot] != EMPTY && productIds[slot] != productId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldProductIds = productIds;
+        HyperLogLog[] oldUsers = users;
+        HyperLogLog[] oldSessions = sessions;
+        allocate(oldProductIds.length * 2);
+        for (int i = 0; i < oldProductIds.length; i++) {
+            if (oldProductIds[i] != EMPTY) {
+                int slot = slotOf(oldProductIds[i]);
+                productIds[slot] = oldProductIds[i];
+                users[slot] = oldUsers[i];
+                sessions[slot] = oldSessions[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        productIds = new long[capacity];
+        users = new HyperLogLog[capacity];
+        sessions = new HyperLogLog[capacity];
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.product.analytics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Count-Min Sketch of product ids: approximate counts in a fixed {@code depth x width} table
+ * of counters, whatever the number of distinct products.
+ * <p>
+ * Estimates never undercount. For a sketch built with {@link #withErrorBounds(double, double)},
+ * width is {@code ceil(e / epsilon)} and depth {@code ceil(ln(1 / delta))}, and an estimate
+ * exceeds the true count by more than {@code epsilon * N}, N being the total of all counts
+ * added, with probability at most {@code delta}.
+ * <p>
+ * Row hashes are fixed, so sketches of the same dimensions built on different instances can be
+ * {@link #merge(CountMinSketch) merged} by adding their tables, with the same bounds over the
+ * combined total. Not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private static final long[] ROW_SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L};
+
+    private final int width;
+    private final int depth;
+    private final int[] table;
+    private long totalCount;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1 || depth > ROW_SEEDS.length) {
+            throw new IllegalArgumentException("Invalid sketch dimensions " + depth + "x" + width);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.table = new int[width * depth];
+    }
+
+    /**
+     * @param epsilon Overcount bound as a fraction of the total count
+     * @param delta   Probability of an estimate exceeding that bound
+     */
+    public static CountMinSketch withErrorBounds(double epsilon, double delta) {
+        return new CountMinSketch((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    public void add(long item, int count) {
+        for (int row = 0; row < depth; row++) {
+            table[row * width + column(item, row)] += count;
+        }
+        totalCount += count;
+    }
+
+    public long estimate(long item) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row * width + column(item, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Adds the counts of a sketch of the same dimensions to this one.
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge a " + other.depth + "x" + other.width
+                    + " sketch into a " + depth + "x" + width + " sketch");
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    public long totalCount() {
+        return totalCount;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public void clear() {
+        if (totalCount != 0) {
+            Arrays.fill(table, 0);
+            totalCount = 0;
+        }
+    }
+
+    public int serializedSize() {
+        return 2 * Integer.BYTES + Long.BYTES + table.length * Integer.BYTES;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(width).putInt(depth).putLong(totalCount);
+        for (int counter : table) {
+            buffer.putInt(counter);
+        }
+    }
+
+    public static CountMinSketch readFrom(ByteBuffer buffer) {
+        CountMinSketch sketch = new CountMinSketch(buffer.getInt(), buffer.getInt());
+        sketch.totalCount = buffer.getLong();
+        for (int i = 0; i < sketch.table.length; i++) {
+            sketch.table[i] = buffer.getInt();
+        }
+        return sketch;
+    }
+
+    private int column(long item, int row) {
+        long hash = (item ^ ROW_SEEDS[row]) * 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 31;
+        hash *= 0x94D049BB133111EBL;
+        hash ^= hash >>> 29;
+        return (int) Long.remainderUnsigned(hash, width);
+    }
+}
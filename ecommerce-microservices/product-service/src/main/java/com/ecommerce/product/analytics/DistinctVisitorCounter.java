@@ -0,0 +1,196 @@
+package com.ecommerce.product.analytics;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Distinct users and sessions per product and window, estimated with {@link HyperLogLog}
+ * counters from the user and session ids of the product-analytics stream.
+ * <p>
+ * Events are counted into a ring of {@link CardinalityWindow}s under the listener's lock.
+ * Every snapshot interval the windows that changed are copied into an immutable snapshot,
+ * which queries read without locking, so a query costs a few register scans whatever the
+ * event rate, at the price of lagging the stream by up to one snapshot interval.
+ * Events stamped later than the local clock are counted as future events and dropped, as
+ * their window would reset one still retained.
+ */
+@Component
+@EnableScheduling
+@Conditional(KafkaCondition.class)
+public class DistinctVisitorCounter implements AnalyticsEventSink {
+
+    private final long windowMs;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final CardinalityWindow[] windows;
+    private final boolean[] changed;
+    private final CardinalityWindow[] copies;
+    private volatile List<CardinalityWindow> snapshot = List.of();
+
+    private final Counter lateEvents;
+    private final Counter futureEvents;
+    private final Timer snapshotTimer;
+
+    public DistinctVisitorCounter(ApplicationFeatureProperties featureProperties, MeterRegistry meterRegistry) {
+        ApplicationFeatureProperties.AnalyticsProperties.VisitorProperties properties =
+                featureProperties.getAnalytics().getVisitors();
+        this.windowMs = Math.max(1000, properties.getWindowMs());
+        int retained = Math.max(1, properties.getRetainedWindows());
+        this.windows = new CardinalityWindow[retained];
+        this.changed = new boolean[retained];
+        this.copies = new CardinalityWindow[retained];
+        for (int i = 0; i < retained; i++) {
+            windows[i] = new CardinalityWindow(properties.getPrecision(), featureProperties.getAnalytics().getBufferSize());
+        }
+        this.lateEvents = Counter.builder("product.visitors.late.events")
+                .description("Analytics events older than the retained visitor windows")
+                .register(meterRegistry);
+        this.futureEvents = Counter.builder("product.visitors.future.events")
+                .description("Analytics events stamped later than the local clock")
+                .register(meterRegistry);
+        this.snapshotTimer = Timer.builder("product.visitors.snapshot")
+                .description("Time taken to copy changed visitor windows into the query snapshot")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void accept(List<EnhancedProductEvent> events) {
+        long now = System.currentTimeMillis();
+        long oldestRetained = now - now % windowMs - (windows.length - 1) * windowMs;
+        for (EnhancedProductEvent event : events) {
+            if (event.getUserId() == null && event.getSessionId() == null) {
+                continue;
+            }
+            long time = event.getTimestamp() == null
+                    ? now
+                    : event.getTimestamp().atZone(zone).toInstant().toEpochMilli();
+            if (time > now) {
+                futureEvents.increment();
+                continue;
+            }
+            long start = time - Math.floorMod(time, windowMs);
+            int index = (int) Math.floorMod(start / windowMs, (long) windows.length);
+            CardinalityWindow window = windows[index];
+            if (start < oldestRetained || start < window.start()) {
+                lateEvents.increment();
+                continue;
+            }
+            if (window.start() != start) {
+                window.reset(start);
+            }
+            window.record(event.getProductId(),
+                    event.getUserId() == null ? 0 : HyperLogLog.hash(event.getUserId()),
+                    event.getSessionId() == null ? 0 : HyperLogLog.hash(event.getSessionId()));
+            changed[index] = true;
+        }
+    }
+
+    /**
+     * Copies the windows changed since the last snapshot and publishes the new snapshot.
+     */
+    @Scheduled(fixedDelayString = "${application.features.analytics.visitors.snapshot-interval-ms:10000}")
+    public void snapshot() {
+        snapshotTimer.record(() -> {
+            List<CardinalityWindow> published = new ArrayList<>(windows.length);
+            synchronized (this) {
+                for (int i = 0; i < windows.length; i++) {
+                    if (changed[i]) {
+                        copies[i] = windows[i].copy();
+                        changed[i] = false;
+                    }
+                    if (copies[i] != null) {
+                        published.add(copies[i]);
+                    }
+                }
+            }
+            published.sort(Comparator.comparingLong(CardinalityWindow::start).reversed());
+            snapshot = List.copyOf(published);
+        });
+    }
+
+    /**
+     * Estimated distinct users and sessions of a product in each of the latest windows.
+     *
+     * @param windowCount Number of windows, the current one included
+     */
+    public ProductVisitorCounts visitors(long productId, int windowCount) {
+        HyperLogLog users = null;
+        HyperLogLog sessions = null;
+        List<ProductVisitorCounts.Window> counts = new ArrayList<>();
+        for (CardinalityWindow window : latest(windowCount)) {
+            HyperLogLog windowUsers = window.users(productId);
+            if (windowUsers == null) {
+                continue;
+            }
+            HyperLogLog windowSessions = window.sessions(productId);
+            counts.add(new ProductVisitorCounts.Window(window.start(), window.start() + windowMs,
+                    windowUsers.estimate(), windowSessions.estimate()));
+            users = union(users, windowUsers);
+            sessions = union(sessions, windowSessions);
+        }
+        return new ProductVisitorCounts(productId,
+                users == null ? 0 : users.estimate(),
+                sessions == null ? 0 : sessions.estimate(),
+                counts);
+    }
+
+    /**
+     * Serialized users and sessions counters of a product over the latest windows, for
+     * merging with those of other instances: two length-prefixed {@link HyperLogLog} byte
+     * forms, each of length zero if the product had no events.
+     */
+    public byte[] registers(long productId, int windowCount) {
+        HyperLogLog users = null;
+        HyperLogLog sessions = null;
+        for (CardinalityWindow window : latest(windowCount)) {
+            HyperLogLog windowUsers = window.users(productId);
+            if (windowUsers != null) {
+                users = union(users, windowUsers);
+                sessions = union(sessions, window.sessions(productId));
+            }
+        }
+        byte[] userBytes = users == null ? new byte[0] : users.toByteArray();
+        byte[] sessionBytes = sessions == null ? new byte[0] : sessions.toByteArray();
+        return ByteBuffer.allocate(2 * Integer.BYTES + userBytes.length + sessionBytes.length)
+                .putInt(userBytes.length).put(userBytes)
+                .putInt(sessionBytes.length).put(sessionBytes)
+                .array();
+    }
+
+    /**
+     * Windows of the snapshot among the latest {@code windowCount}, newest first.
+     */
+    private List<CardinalityWindow> latest(int windowCount) {
+        long now = System.currentTimeMillis();
+        long oldest = now - now % windowMs - (long) (Math.min(windowCount, windows.length) - 1) * windowMs;
+        List<CardinalityWindow> latest = new ArrayList<>();
+        for (CardinalityWindow window : snapshot) {
+            if (window.start() >= oldest) {
+                latest.add(window);
+            }
+        }
+        return latest;
+    }
+
+    private static HyperLogLog union(HyperLogLog merged, HyperLogLog counter) {
+        if (merged == null) {
+            return counter.copy();
+        }
+        merged.merge(counter);
+        return merged;
+    }
+}
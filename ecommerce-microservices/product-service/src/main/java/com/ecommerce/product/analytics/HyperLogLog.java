@@ -0,0 +1,227 @@
+package com.ecommerce.product.analytics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog estimate of the number of distinct values, in {@code 2^precision} one-byte
+ * registers. The standard error of an estimate is about {@code 1.04 / sqrt(2^precision)},
+ * 2.3% at precision 11; small cardinalities are corrected by linear counting.
+ * <p>
+ * A counter starts sparse, holding only the registers that were set in a small hash table,
+ * and switches to the dense byte array once that table would be as large. Most products see
+ * few visitors in a window, so most counters stay a few dozen bytes.
+ * <p>
+ * Counters of equal precision are {@link #merge(HyperLogLog) mergeable} by taking the larger
+ * of each register, which gives the count of the union of their values, for example across
+ * windows, partitions or instances. Not thread-safe.
+ */
+public final class HyperLogLog {
+
+    private static final byte SPARSE = 0;
+    private static final byte DENSE = 1;
+    private static final int INITIAL_SPARSE_CAPACITY = 8;
+
+    private final int precision;
+    private final int registerCount;
+
+    // Sparse entries are (register index << 6 | value), 0 marking an empty entry
+    private int[] sparse;
+    private int sparseSize;
+    private byte[] dense;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.sparse = new int[INITIAL_SPARSE_CAPACITY];
+    }
+
+    /**
+     * Adds a value given its 64-bit hash; see {@link #hash(CharSequence)}.
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Leading zeros of the remaining bits, plus one; a guard bit caps it at 64 - precision + 1
+        int value = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        setRegister(index, value);
+    }
+
+    public long estimate() {
+        double sum;
+        int zeros;
+        if (dense != null) {
+            sum = 0;
+            zeros = 0;
+            for (byte register : dense) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            zeros = registerCount - sparseSize;
+            sum = zeros;
+            for (int entry : sparse) {
+                if (entry != 0) {
+                    sum += 1.0 / (1L << (entry & 0x3F));
+                }
+            }
+        }
+        double estimate = alpha() * registerCount * registerCount / sum;
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Makes this counter count the union of its values and those of a counter of equal precision.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge precision " + other.precision + " into " + precision);
+        }
+        if (other.dense != null) {
+            toDense();
+            for (int i = 0; i < registerCount; i++) {
+                if (other.dense[i] > dense[i]) {
+                    dense[i] = other.dense[i];
+                }
+            }
+            return;
+        }
+        for (int entry : other.sparse) {
+            if (entry != 0) {
+                setRegister(entry >>> 6, entry & 0x3F);
+            }
+        }
+    }
+
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        copy.sparse = sparse == null ? null : sparse.clone();
+        copy.sparseSize = sparseSize;
+        copy.dense = dense == null ? null : dense.clone();
+        return copy;
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public byte[] toByteArray() {
+        if (dense != null) {
+            return ByteBuffer.allocate(2 + registerCount).put((byte) precision).put(DENSE).put(dense).array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(2 + Integer.BYTES * (1 + sparseSize))
+                .put((byte) precision).put(SPARSE).putInt(sparseSize);
+        for (int entry : sparse) {
+            if (entry != 0) {
+                buffer.putInt(entry);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static HyperLogLog fromByteArray(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        HyperLogLog counter = new HyperLogLog(buffer.get());
+        if (buffer.get() == DENSE) {
+            counter.toDense();
+            buffer.get(counter.dense);
+        } else {
+            int size = buffer.getInt();
+            for (int i = 0; i < size; i++) {
+                int entry = buffer.getInt();
+                counter.setRegister(entry >>> 6, entry & 0x3F);
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * 64-bit hash of a string for {@link #addHash(long)}: FNV-1a over its characters,
+     * finished with the MurmurHash3 mixer so every bit depends on every character.
+     */
+    public static long hash(CharSequence value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private void setRegister(int index, int value) {
+        if (dense != null) {
+            if (value > dense[index]) {
+                dense[index] = (byte) value;
+            }
+            return;
+        }
+        int mask = sparse.length - 1;
+        int position = (index * 0x9E3779B9 >>> 16) & mask;
+        while (sparse[position] != 0) {
+            if (sparse[position] >>> 6 == index) {
+                if (value > (sparse[position] & 0x3F)) {
+                    sparse[position] = index << 6 | value;
+                }
+                return;
+            }
+            position = (position + 1) & mask;
+        }
+        sparse[position] = index << 6 | value;
+        if (++sparseSize * 2 > sparse.length) {
+            // The dense array costs a byte per register; the sparse table four per entry
+            if (sparse.length * 2 * Integer.BYTES >= registerCount) {
+                toDense();
+            } else {
+                int[] entries = sparse;
+                sparse = new int[entries.length * 2];
+                sparseSize = 0;
+                for (int entry : entries) {
+                    if (entry != 0) {
+                        setRegister(entry >>> 6, entry & 0x3F);
+                    }
+                }
+            }
+        }
+    }
+
+    private void toDense() {
+        if (dense != null) {
+            return;
+        }
+        byte[] registers = new byte[registerCount];
+        for (int entry : sparse) {
+            if (entry != 0) {
+                registers[entry >>> 6] = (byte) (entry & 0x3F);
+            }
+        }
+        dense = registers;
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private double alpha() {
+        return switch (registerCount) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / registerCount);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog[precision=" + precision + ", estimate=" + estimate()
+                + (dense != null ? ", dense" : ", sparse=" + sparseSize) + "]";
+    }
+}
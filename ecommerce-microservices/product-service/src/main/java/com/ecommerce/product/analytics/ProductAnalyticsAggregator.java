@@ -0,0 +1,241 @@
+package com.ecommerce.product.analytics;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.event.ProductAnalyticsAggregate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Real-time aggregation of the product-analytics stream into tumbling and sliding windows
+ * per product and interaction type: event counts, revenue from quantity times price,
+ * average rating and average view duration.
+ * <p>
+ * Events are assigned to panes of the tumbling window length by their event time. The panes
+ * form a ring covering the sliding window, each a {@link WindowAggregates} table on primitive
+ * keys that is cleared and reused when the ring comes round, so steady-state aggregation
+ * allocates nothing per event. Every flush interval, panes that closed at least one flush
+ * interval ago are published once as TUMBLING aggregates, and the panes overlapping the
+ * trailing sliding window are merged and published as SLIDING aggregates. Events older than
+ * the ring are counted as late and dropped. Events stamped later than the local clock are
+ * counted at the current time, so a producer whose clock runs ahead cannot start a pane
+ * that would recycle one still in use.
+ */
+@Slf4j
+@Component
+@EnableScheduling
+@Conditional(KafkaCondition.class)
+public class ProductAnalyticsAggregator implements AnalyticsEventSink {
+
+    static final String[] EVENT_TYPES = {"VIEW", "SEARCH", "PURCHASE", "REVIEW", "ADD_TO_CART", "WISHLIST_ADD"};
+    private static final int OTHER_TYPE = EVENT_TYPES.length;
+
+    private final KafkaTemplate<String, ProductAnalyticsAggregate> aggregateKafkaTemplate;
+    private final String aggregatesTopic;
+    private final long paneMs;
+    private final long slidingWindowMs;
+    private final long flushIntervalMs;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Pane[] panes;
+    private final WindowAggregates slidingScratch;
+    private final List<ProductAnalyticsAggregate> closedPanes = new ArrayList<>();
+
+    private final Counter aggregatedEvents;
+    private final Counter lateEvents;
+    private final Counter publishedAggregates;
+    private final Counter failedAggregates;
+
+    public ProductAnalyticsAggregator(KafkaTemplate<String, ProductAnalyticsAggregate> aggregateKafkaTemplate,
+                                      @Value("${spring.kafka.topics.product-analytics-aggregates:product-analytics-aggregates}")
+                                      String aggregatesTopic,
+                                      ApplicationFeatureProperties featureProperties,
+                                      MeterRegistry meterRegistry) {
+        ApplicationFeatureProperties.AnalyticsProperties properties = featureProperties.getAnalytics();
+        this.aggregateKafkaTemplate = aggregateKafkaTemplate;
+        this.aggregatesTopic = aggregatesTopic;
+        this.paneMs = Math.max(1000, properties.getTumblingWindowMs());
+        this.slidingWindowMs = Math.max(paneMs, properties.getSlidingWindowMs());
+        this.flushIntervalMs = properties.getFlushIntervalMs();
+
+        // Panes of the sliding window, the pane in progress and one awaiting its tumbling flush
+        int paneCount = (int) ((slidingWindowMs + paneMs - 1) / paneMs) + 2;
+        this.panes = new Pane[paneCount];
+        for (int i = 0; i < paneCount; i++) {
+            panes[i] = new Pane(properties.getBufferSize());
+        }
+        this.slidingScratch = new WindowAggregates(properties.getBufferSize());
+
+        this.aggregatedEvents = Counter.builder("product.analytics.events")
+                .description("Analytics events folded into window aggregates")
+                .register(meterRegistry);
+        this.lateEvents = Counter.builder("product.analytics.late.events")
+                .description("Analytics events dropped because their window was no longer held")
+                .register(meterRegistry);
+        this.publishedAggregates = Counter.builder("product.analytics.aggregates.published")
+                .description("Window aggregates published for dashboards")
+                .register(meterRegistry);
+        this.failedAggregates = Counter.builder("product.analytics.aggregates.failed")
+                .description("Window aggregates the producer did not accept")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void accept(List<EnhancedProductEvent> events) {
+        long now = System.currentTimeMillis();
+        long oldestHeld = now - (long) (panes.length - 1) * paneMs;
+        int aggregated = 0;
+        for (EnhancedProductEvent event : events) {
+            long time = event.getTimestamp() == null ? now : Math.min(epochMillis(event.getTimestamp()), now);
+            long start = time - Math.floorMod(time, paneMs);
+            Pane pane = panes[(int) Math.floorMod(start / paneMs, (long) panes.length)];
+            if (start < oldestHeld || start < pane.start) {
+                lateEvents.increment();
+                continue;
+            }
+            if (pane.start != start) {
+                recycle(pane, start);
+            }
+            pane.aggregates.record(
+                    WindowAggregates.key(event.getProductId(), typeIndex(event.getEventType())),
+                    revenue(event),
+                    event.getRating() == null ? 0 : event.getRating(),
+                    event.getViewDurationSeconds() == null ? 0 : event.getViewDurationSeconds());
+            aggregated++;
+        }
+        aggregatedEvents.increment(aggregated);
+    }
+
+    /**
+     * Publishes closed tumbling windows and the current sliding window.
+     */
+    @Scheduled(fixedDelayString = "${application.features.analytics.flush-interval-ms:5000}")
+    public void flush() {
+        List<ProductAnalyticsAggregate> aggregates;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            aggregates = new ArrayList<>(closedPanes);
+            closedPanes.clear();
+            for (Pane pane : panes) {
+                // Late events are still accepted for one flush interval after a pane ends
+                if (pane.start >= 0 && !pane.published && pane.start + paneMs + flushIntervalMs <= now) {
+                    collect(pane.aggregates, ProductAnalyticsAggregate.WindowType.TUMBLING,
+                            pane.start, pane.start + paneMs, aggregates);
+                    pane.published = true;
+                }
+            }
+
+            long windowStart = now - slidingWindowMs;
+            long coveredFrom = Long.MAX_VALUE;
+            slidingScratch.clear();
+            for (Pane pane : panes) {
+                if (pane.start >= 0 && pane.start + paneMs > windowStart && pane.start <= now) {
+                    slidingScratch.addAll(pane.aggregates);
+                    coveredFrom = Math.min(coveredFrom, pane.start);
+                }
+            }
+            if (!slidingScratch.isEmpty()) {
+                collect(slidingScratch, ProductAnalyticsAggregate.WindowType.SLIDING, coveredFrom, now, aggregates);
+            }
+        }
+
+        // One aggregate the producer refuses must not cost the others of the flush
+        int failed = 0;
+        Exception firstFailure = null;
+        for (ProductAnalyticsAggregate aggregate : aggregates) {
+            try {
+                aggregateKafkaTemplate.send(aggregatesTopic, aggregate.getProductId().toString(), aggregate);
+                publishedAggregates.increment();
+            } catch (Exception e) {
+                failed++;
+                if (firstFailure == null) {
+                    firstFailure = e;
+                }
+            }
+        }
+        if (failed > 0) {
+            failedAggregates.increment(failed);
+            log.warn("Failed to publish {} of {} analytics aggregates: {}",
+                    failed, aggregates.size(), firstFailure.getMessage());
+        } else if (!aggregates.isEmpty()) {
+            log.debug("Published {} analytics aggregates", aggregates.size());
+        }
+    }
+
+    /**
+     * Starts a pane over for a new window, keeping its tumbling aggregates if they were not
+     * flushed yet.
+     */
+    private void recycle(Pane pane, long start) {
+        if (pane.start >= 0 && !pane.published) {
+            collect(pane.aggregates, ProductAnalyticsAggregate.WindowType.TUMBLING,
+                    pane.start, pane.start + paneMs, closedPanes);
+        }
+        pane.aggregates.clear();
+        pane.start = start;
+        pane.published = false;
+    }
+
+    private static void collect(WindowAggregates window, ProductAnalyticsAggregate.WindowType windowType,
+                                long windowStart, long windowEnd, List<ProductAnalyticsAggregate> into) {
+        window.forEach((key, count, revenue, averageRating, averageViewDuration) -> into.add(
+                new ProductAnalyticsAggregate(
+                        WindowAggregates.productId(key),
+                        typeName(WindowAggregates.typeIndex(key)),
+                        windowType,
+                        windowStart,
+                        windowEnd,
+                        count,
+                        revenue,
+                        averageRating,
+                        averageViewDuration)));
+    }
+
+    private long epochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private static double revenue(EnhancedProductEvent event) {
+        if (event.getQuantity() == null || event.getPrice() == null) {
+            return 0;
+        }
+        return event.getQuantity() * event.getPrice();
+    }
+
+    static int typeIndex(String eventType) {
+        for (int i = 0; i < EVENT_TYPES.length; i++) {
+            if (EVENT_TYPES[i].equals(eventType)) {
+                return i;
+            }
+        }
+        return OTHER_TYPE;
+    }
+
+    static String typeName(int typeIndex) {
+        return typeIndex < EVENT_TYPES.length ? EVENT_TYPES[typeIndex] : "OTHER";
+    }
+
+    private static final class Pane {
+
+        private final WindowAggregates aggregates;
+        private long start = -1;
+        private boolean published;
+
+        Pane(int expectedKeys) {
+            this.aggregates = new WindowAggregates(expectedKeys);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.product.analytics;
+
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumes the product-analytics topic in batches and hands every batch to each
+ * {@link AnalyticsEventSink}, so the stream is read and deserialized once however many
+ * in-service analytics consume it. Records are keyed by product id, so all events of a
+ * product reach the same instance; analytics keyed otherwise, such as sessions, re-key the
+ * stream through a topic of their own.
+ */
+@Slf4j
+@Component
+@Conditional(KafkaCondition.class)
+public class ProductAnalyticsListener {
+
+    private final List<AnalyticsEventSink> sinks;
+
+    public ProductAnalyticsListener(List<AnalyticsEventSink> sinks) {
+        this.sinks = sinks;
+    }
+
+    @KafkaListener(
+            id = "product-analytics-listener",
+            topics = "${spring.kafka.topics.product-analytics:product-analytics}",
+            groupId = "${spring.application.name}-analytics",
+            containerFactory = "analyticsListenerContainerFactory",
+            autoStartup = "${application.features.analytics.real-time-enabled:true}")
+    public void onAnalyticsEvents(List<EnhancedProductEvent> records) {
+        List<EnhancedProductEvent> events = new ArrayList<>(records.size());
+        for (EnhancedProductEvent event : records) {
+            // Records that failed to deserialize arrive as nulls; product ids start at 1, and
+            // the sinks' tables rely on that
+            if (event == null || event.getProductId() == null || event.getEventType() == null) {
+                continue;
+            }
+            if (event.getProductId() <= 0) {
+                log.debug("Dropping analytics event {} for invalid product id {}", event.getEventId(), event.getProductId());
+                continue;
+            }
+            events.add(event);
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        for (AnalyticsEventSink sink : sinks) {
+            try {
+                sink.accept(events);
+            } catch (RuntimeException e) {
+                log.error("Analytics sink {} failed on a batch of {} events", sink.getClass().getSimpleName(),
+                        events.size(), e);
+            }
+        }
+    }
+}
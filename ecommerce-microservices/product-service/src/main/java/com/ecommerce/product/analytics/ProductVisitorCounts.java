@@ -0,0 +1,14 @@
+package com.ecommerce.product.analytics;
+
+import java.util.List;
+
+/**
+ * Estimated distinct users and sessions of a product over the requested windows, newest
+ * first, and over all of them together; a user seen in several windows counts once in the
+ * total. Estimates carry the standard error of the configured HyperLogLog precision.
+ */
+public record ProductVisitorCounts(long productId, long uniqueUsers, long uniqueSessions, List<Window> windows) {
+
+    public record Window(long windowStart, long windowEnd, long uniqueUsers, long uniqueSessions) {
+    }
+}
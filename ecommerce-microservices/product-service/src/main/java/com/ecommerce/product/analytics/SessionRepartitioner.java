@@ -0,0 +1,55 @@
+package com.ecommerce.product.analytics;
+
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Re-keys the product-analytics stream by session id. The stream is keyed by product id, so
+ * the events of one session are spread over the partitions, and the instances, of every
+ * product it touched; {@link SessionWindowProcessor} reads the repartition topic instead, on
+ * which every event of a session reaches the same instance in order.
+ */
+@Slf4j
+@Component
+@Conditional(KafkaCondition.class)
+public class SessionRepartitioner implements AnalyticsEventSink {
+
+    private final KafkaTemplate<String, EnhancedProductEvent> sessionRepartitionKafkaTemplate;
+    private final String repartitionTopic;
+    private final Counter forwardFailures;
+
+    public SessionRepartitioner(KafkaTemplate<String, EnhancedProductEvent> sessionRepartitionKafkaTemplate,
+                                @Value("${spring.kafka.topics.product-analytics-by-session:product-analytics-by-session}")
+                                String repartitionTopic,
+                                MeterRegistry meterRegistry) {
+        this.sessionRepartitionKafkaTemplate = sessionRepartitionKafkaTemplate;
+        this.repartitionTopic = repartitionTopic;
+        this.forwardFailures = Counter.builder("product.sessions.repartition.failed")
+                .description("Analytics events that could not be handed to the producer for the session repartition topic")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void accept(List<EnhancedProductEvent> events) {
+        for (EnhancedProductEvent event : events) {
+            if (event.getSessionId() == null) {
+                continue;
+            }
+            try {
+                sessionRepartitionKafkaTemplate.send(repartitionTopic, event.getSessionId(), event);
+            } catch (Exception e) {
+                forwardFailures.increment();
+                log.debug("Failed to repartition event of session {}: {}", event.getSessionId(), e.getMessage());
+            }
+        }
+    }
+}
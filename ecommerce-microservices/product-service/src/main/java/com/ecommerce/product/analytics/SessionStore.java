@@ -0,0 +1,239 @@
+package com.ecommerce.product.analytics;
+
+import com.ecommerce.product.kafka.event.SessionSummary;
+
+/**
+ * Open sessions in a fixed number of records, allocated once.
+ * <p>
+ * Each record is a run of longs in one slab array: the session id hash, first and last event
+ * time, the time of the last update, event and purchase counts, a 128-bit bitmap of the
+ * products touched and the links of a doubly linked list ordering records from least to most
+ * recently updated. Sessions are found through an open-addressing index on the id hash.
+ * Opening, updating and closing a session therefore allocate nothing, and the whole state is
+ * a few large arrays however many sessions are open. Only the id strings of the session and
+ * its user are referenced, to name the session in its summary.
+ * <p>
+ * Not thread-safe.
+ */
+final class SessionStore {
+
+    static final int NONE = -1;
+
+    private static final int STRIDE = 8;
+    private static final int KEY = 0;
+    private static final int FIRST_EVENT = 1;
+    private static final int LAST_EVENT = 2;
+    private static final int LAST_UPDATE = 3;
+    private static final int COUNTS = 4;       // events << 32 | purchases
+    private static final int PRODUCTS_LOW = 5;
+    private static final int PRODUCTS_HIGH = 6;
+    private static final int LINKS = 7;        // previous << 32 | next, as record + 1
+    private static final int PRODUCT_BITS = 128;
+
+    private final int capacity;
+    private final long[] slab;
+    private final String[] sessionIds;
+    private final String[] userIds;
+    private final int[] index;  // record + 1, 0 marking an empty entry
+    private int size;
+    private int free;           // head of the free list, linked through LINKS
+    private int oldest = NONE;
+    private int newest = NONE;
+
+    SessionStore(int capacity) {
+        this.capacity = capacity;
+        this.slab = new long[capacity * STRIDE];
+        this.sessionIds = new String[capacity];
+        this.userIds = new String[capacity];
+        this.index = new int[Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1];
+        for (int record = 0; record < capacity; record++) {
+            setNext(record, record + 1 < capacity ? record + 1 : NONE);
+        }
+        this.free = capacity > 0 ? 0 : NONE;
+    }
+
+    /**
+     * 64-bit key of a session id; never 0.
+     */
+    static long key(String sessionId) {
+        long key = HyperLogLog.hash(sessionId);
+        return key == 0 ? 1 : key;
+    }
+
+    int find(long key) {
+        int entry = index[position(key)];
+        return entry == 0 ? NONE : entry - 1;
+    }
+
+    /**
+     * Opens a session; the store must not be full.
+     */
+    int open(long key, String sessionId, String userId, long eventTime) {
+        int record = free;
+        free = next(record);
+        int base = record * STRIDE;
+        slab[base + KEY] = key;
+        slab[base + FIRST_EVENT] = eventTime;
+        slab[base + LAST_EVENT] = eventTime;
+        slab[base + COUNTS] = 0;
+        slab[base + PRODUCTS_LOW] = 0;
+        slab[base + PRODUCTS_HIGH] = 0;
+        sessionIds[record] = sessionId;
+        userIds[record] = userId;
+        index[position(key)] = record + 1;
+        size++;
+        link(record);
+        return record;
+    }
+
+    /**
+     * Counts an event into a session and makes it the most recently updated.
+     */
+    void record(int record, long productId, long eventTime, boolean purchase, long now) {
+        int base = record * STRIDE;
+        slab[base + FIRST_EVENT] = Math.min(slab[base + FIRST_EVENT], eventTime);
+        slab[base + LAST_EVENT] = Math.max(slab[base + LAST_EVENT], eventTime);
+        slab[base + LAST_UPDATE] = now;
+        slab[base + COUNTS] += (1L << 32) + (purchase ? 1 : 0);
+        long bit = (productId * 0x9E3779B97F4A7C15L) >>> 57;
+        slab[base + (bit < 64 ? PRODUCTS_LOW : PRODUCTS_HIGH)] |= 1L << bit;
+        if (newest != record) {
+            unlink(record);
+            link(record);
+        }
+    }
+
+    /**
+     * Closes a session, returning its summary.
+     */
+    SessionSummary close(int record, SessionSummary.CloseReason reason) {
+        int base = record * STRIDE;
+        int events = (int) (slab[base + COUNTS] >>> 32);
+        int purchases = (int) slab[base + COUNTS];
+        SessionSummary summary = new SessionSummary(sessionIds[record], userIds[record],
+                slab[base + FIRST_EVENT], slab[base + LAST_EVENT], events,
+                productsTouched(slab[base + PRODUCTS_LOW], slab[base + PRODUCTS_HIGH]),
+                purchases, purchases > 0, reason);
+        removeFromIndex(slab[base + KEY]);
+        unlink(record);
+        sessionIds[record] = null;
+        userIds[record] = null;
+        setNext(record, free);
+        free = record;
+        size--;
+        return summary;
+    }
+
+    /**
+     * The least recently updated session, or {@link #NONE}.
+     */
+    int oldest() {
+        return oldest;
+    }
+
+    long firstEventTime(int record) {
+        return slab[record * STRIDE + FIRST_EVENT];
+    }
+
+    long lastEventTime(int record) {
+        return slab[record * STRIDE + LAST_EVENT];
+    }
+
+    long lastUpdate(int record) {
+        return slab[record * STRIDE + LAST_UPDATE];
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Linear-counting estimate of the distinct products behind the bitmap; exact with high
+     * probability for the handful of products most sessions touch.
+     */
+    private static int productsTouched(long low, long high) {
+        int zeros = PRODUCT_BITS - Long.bitCount(low) - Long.bitCount(high);
+        if (zeros == 0) {
+            zeros = 1;
+        }
+        return (int) Math.round(-PRODUCT_BITS * Math.log((double) zeros / PRODUCT_BITS));
+    }
+
+    private int position(long key) {
+        int mask = index.length - 1;
+        int position = (int) (key >>> 32) & mask;
+        while (index[position] != 0 && slab[(index[position] - 1) * STRIDE + KEY] != key) {
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    /**
+     * Removes a key from the linear-probing index, shifting back the entries that probed
+     * past it so no tombstones are needed.
+     */
+    private void removeFromIndex(long key) {
+        int mask = index.length - 1;
+        int hole = position(key);
+        index[hole] = 0;
+        int position = (hole + 1) & mask;
+        while (index[position] != 0) {
+            int home = (int) (slab[(index[position] - 1) * STRIDE + KEY] >>> 32) & mask;
+            if (((position - home) & mask) >= ((position - hole) & mask)) {
+                index[hole] = index[position];
+                index[position] = 0;
+                hole = position;
+            }
+            position = (position + 1) & mask;
+        }
+    }
+
+    private void link(int record) {
+        setLinks(record, newest, NONE);
+        if (newest != NONE) {
+            setNext(newest, record);
+        } else {
+            oldest = record;
+        }
+        newest = record;
+    }
+
+    private void unlink(int record) {
+        int previous = previous(record);
+        int next = next(record);
+        if (previous != NONE) {
+            setNext(previous, next);
+        } else {
+            oldest = next;
+        }
+        if (next != NONE) {
+            setPrevious(next, previous);
+        } else {
+            newest = previous;
+        }
+    }
+
+    private int previous(int record) {
+        return (int) (slab[record * STRIDE + LINKS] >>> 32) - 1;
+    }
+
+    private int next(int record) {
+        return (int) slab[record * STRIDE + LINKS] - 1;
+    }
+
+    private void setLinks(int record, int previous, int next) {
+        slab[record * STRIDE + LINKS] = ((long) (previous + 1) << 32) | (next + 1);
+    }
+
+    private void setPrevious(int record, int previous) {
+        setLinks(record, previous, next(record));
+    }
+
+    private void setNext(int record, int next) {
+        setLinks(record, previous(record), next);
+    }
+}
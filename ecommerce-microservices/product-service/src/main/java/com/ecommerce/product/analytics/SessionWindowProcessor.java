@@ -0,0 +1,212 @@
+package com.ecommerce.product.analytics;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.event.SessionSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Session windows over the product-analytics stream, keyed by session id.
+ * <p>
+ * Events are read from the repartition topic {@link SessionRepartitioner} writes, keyed by
+ * session id, so each session is windowed by exactly one instance, whatever products it
+ * touched, and sees its events in the order they were produced.
+ * <p>
+ * A session closes when no event arrives within the inactivity gap, when its events span the
+ * maximum session length, or when its state is evicted, least recently active first, to make
+ * room for a new session once {@code maxSessions} are open. Each closed session is published
+ * as a {@link SessionSummary} on the product-sessions topic, keyed by session id.
+ * <p>
+ * Open sessions live in a {@link SessionStore} allocated once at startup, so the number of
+ * open sessions has no effect on allocation rate or on the number of objects the collector
+ * traces. Inactivity is judged against the time a session was last updated rather than its
+ * event time, so replayed or delayed events do not close sessions early.
+ */
+@Slf4j
+@Component
+@EnableScheduling
+@Conditional(KafkaCondition.class)
+public class SessionWindowProcessor {
+
+    private final KafkaTemplate<String, SessionSummary> sessionSummaryKafkaTemplate;
+    private final String sessionsTopic;
+    private final long inactivityGapMs;
+    private final long maxSessionLengthMs;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final SessionStore store;
+    private final List<SessionSummary> closed = new ArrayList<>();
+
+    private final Map<SessionSummary.CloseReason, Counter> closedSessions =
+            new EnumMap<>(SessionSummary.CloseReason.class);
+    private final Counter publishFailures;
+
+    public SessionWindowProcessor(KafkaTemplate<String, SessionSummary> sessionSummaryKafkaTemplate,
+                                  @Value("${spring.kafka.topics.product-sessions:product-sessions}") String sessionsTopic,
+                                  ApplicationFeatureProperties featureProperties,
+                                  MeterRegistry meterRegistry) {
+        ApplicationFeatureProperties.AnalyticsProperties.SessionProperties properties =
+                featureProperties.getAnalytics().getSessions();
+        this.sessionSummaryKafkaTemplate = sessionSummaryKafkaTemplate;
+        this.sessionsTopic = sessionsTopic;
+        this.inactivityGapMs = properties.getInactivityGapMs();
+        this.maxSessionLengthMs = properties.getMaxSessionLengthMs();
+        this.store = new SessionStore(Math.max(1, properties.getMaxSessions()));
+
+        for (SessionSummary.CloseReason reason : SessionSummary.CloseReason.values()) {
+            closedSessions.put(reason, Counter.builder("product.sessions.closed")
+                    .tag("reason", reason.name().toLowerCase())
+                    .description("Sessions closed and summarized")
+                    .register(meterRegistry));
+        }
+        this.publishFailures = Counter.builder("product.sessions.publish.failed")
+                .description("Session summaries that could not be handed to the producer")
+                .register(meterRegistry);
+        Gauge.builder("product.sessions.open", this, SessionWindowProcessor::openSessions)
+                .description("Sessions currently open")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(
+            id = "product-sessions-listener",
+            topics = "${spring.kafka.topics.product-analytics-by-session:product-analytics-by-session}",
+            groupId = "${spring.application.name}-sessions",
+            containerFactory = "analyticsListenerContainerFactory",
+            autoStartup = "${application.features.analytics.real-time-enabled:true}")
+    public void onSessionEvents(List<EnhancedProductEvent> records) {
+        List<EnhancedProductEvent> events = new ArrayList<>(records.size());
+        for (EnhancedProductEvent event : records) {
+            // Records that failed to deserialize arrive as nulls
+            if (event != null && event.getProductId() != null && event.getSessionId() != null) {
+                events.add(event);
+            }
+        }
+        if (!events.isEmpty()) {
+            accept(events);
+        }
+    }
+
+    void accept(List<EnhancedProductEvent> events) {
+        List<SessionSummary> summaries;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            closeInactive(now);
+            for (EnhancedProductEvent event : events) {
+                record(event, now);
+            }
+            summaries = drainClosed();
+        }
+        publish(summaries);
+    }
+
+    /**
+     * Closes the sessions that went quiet while no events arrived.
+     */
+    @Scheduled(fixedDelayString = "${application.features.analytics.sessions.sweep-interval-ms:1000}")
+    public void sweep() {
+        List<SessionSummary> summaries;
+        synchronized (this) {
+            closeInactive(System.currentTimeMillis());
+            summaries = drainClosed();
+        }
+        publish(summaries);
+    }
+
+    /**
+     * Summarizes the sessions still open, which would otherwise be lost with the process.
+     */
+    @PreDestroy
+    public void closeAll() {
+        List<SessionSummary> summaries;
+        synchronized (this) {
+            while (store.oldest() != SessionStore.NONE) {
+                close(store.oldest(), SessionSummary.CloseReason.SHUTDOWN);
+            }
+            summaries = drainClosed();
+        }
+        publish(summaries);
+        sessionSummaryKafkaTemplate.flush();
+    }
+
+    public synchronized int openSessions() {
+        return store.size();
+    }
+
+    private void record(EnhancedProductEvent event, long now) {
+        long eventTime = event.getTimestamp() == null
+                ? now
+                : event.getTimestamp().atZone(zone).toInstant().toEpochMilli();
+        long key = SessionStore.key(event.getSessionId());
+        int session = store.find(key);
+        if (session != SessionStore.NONE) {
+            if (eventTime - store.firstEventTime(session) >= maxSessionLengthMs) {
+                close(session, SessionSummary.CloseReason.MAX_LENGTH);
+                session = SessionStore.NONE;
+            } else if (eventTime - store.lastEventTime(session) >= inactivityGapMs) {
+                close(session, SessionSummary.CloseReason.INACTIVE);
+                session = SessionStore.NONE;
+            }
+        }
+        if (session == SessionStore.NONE) {
+            if (store.isFull()) {
+                close(store.oldest(), SessionSummary.CloseReason.EVICTED);
+            }
+            session = store.open(key, event.getSessionId(), event.getUserId(), eventTime);
+        }
+        store.record(session, event.getProductId(), eventTime, "PURCHASE".equals(event.getEventType()), now);
+    }
+
+    /**
+     * Closes sessions from the least recently updated until one is still within the gap.
+     */
+    private void closeInactive(long now) {
+        int session = store.oldest();
+        while (session != SessionStore.NONE && store.lastUpdate(session) + inactivityGapMs <= now) {
+            close(session, SessionSummary.CloseReason.INACTIVE);
+            session = store.oldest();
+        }
+    }
+
+    private void close(int session, SessionSummary.CloseReason reason) {
+        closed.add(store.close(session, reason));
+        closedSessions.get(reason).increment();
+    }
+
+    private List<SessionSummary> drainClosed() {
+        if (closed.isEmpty()) {
+            return List.of();
+        }
+        List<SessionSummary> summaries = new ArrayList<>(closed);
+        closed.clear();
+        return summaries;
+    }
+
+    private void publish(List<SessionSummary> summaries) {
+        for (SessionSummary summary : summaries) {
+            try {
+                sessionSummaryKafkaTemplate.send(sessionsTopic, summary.getSessionId(), summary);
+            } catch (Exception e) {
+                publishFailures.increment();
+                log.debug("Failed to publish summary of session {}: {}", summary.getSessionId(), e.getMessage());
+            }
+        }
+    }
+}
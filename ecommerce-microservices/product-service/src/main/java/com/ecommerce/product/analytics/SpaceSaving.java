@@ -0,0 +1,265 @@
+package com.ecommerce.product.analytics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter summary of product ids with a fixed number of counters.
+ * <p>
+ * Once the counters are taken, an unseen product replaces the one with the smallest count and
+ * inherits that count as its error. With {@code m} counters over a stream of total count N,
+ * every product occurring more than {@code N / m} times holds a counter, each count
+ * overestimates the true count by at most its error, and every error is at most
+ * {@code N / m}; {@code count - error} is a guaranteed lower bound.
+ * <p>
+ * Summaries of equal capacity are {@link #merge(SpaceSaving) mergeable}: a product missing
+ * from a full summary is assumed to have that summary's minimum count, which keeps both the
+ * overestimate and the {@code N / m} bound over the combined total. Not thread-safe.
+ */
+public final class SpaceSaving {
+
+    private static final int NO_SLOT = -1;
+
+    private final int capacity;
+    private final long[] items;
+    private final long[] counts;
+    private final long[] errors;
+    private int size;
+
+    // Min-heap of slots ordered by count, and the heap position of each slot
+    private final int[] heap;
+    private final int[] heapIndex;
+
+    // Open-addressing index from product id to slot
+    private final long[] indexKeys;
+    private final int[] indexSlots;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.items = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapIndex = new int[capacity];
+        int indexSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.indexKeys = new long[indexSize];
+        this.indexSlots = new int[indexSize];
+        Arrays.fill(indexSlots, NO_SLOT);
+    }
+
+    public void offer(long item, long count) {
+        int position = indexPosition(item);
+        int slot = indexSlots[position];
+        if (slot != NO_SLOT) {
+            counts[slot] += count;
+            siftDown(heapIndex[slot]);
+            return;
+        }
+        if (size < capacity) {
+            slot = size++;
+            items[slot] = item;
+            counts[slot] = count;
+            errors[slot] = 0;
+            heap[slot] = slot;
+            heapIndex[slot] = slot;
+            indexKeys[position] = item;
+            indexSlots[position] = slot;
+            siftUp(slot);
+            return;
+        }
+        slot = heap[0];
+        removeFromIndex(items[slot]);
+        long minimum = counts[slot];
+        items[slot] = item;
+        errors[slot] = minimum;
+        counts[slot] = minimum + count;
+        position = indexPosition(item);
+        indexKeys[position] = item;
+        indexSlots[position] = slot;
+        siftDown(0);
+    }
+
+    /**
+     * Returns up to {@code k} products with the highest counts, highest first.
+     */
+    public List<Counter> top(int k) {
+        Integer[] slots = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, (a, b) -> Long.compare(counts[b], counts[a]));
+        int n = Math.min(k, size);
+        List<Counter> top = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int slot = slots[i];
+            top.add(new Counter(items[slot], counts[slot], errors[slot]));
+        }
+        return top;
+    }
+
+    /**
+     * Merges a summary of the same capacity into this one, keeping the highest counts.
+     */
+    public void merge(SpaceSaving other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Cannot merge a summary of " + other.capacity
+                    + " counters into one of " + capacity);
+        }
+        long minimum = minimumCount();
+        long otherMinimum = other.minimumCount();
+        Map<Long, long[]> merged = new HashMap<>((size + other.size) * 2);
+        for (int slot = 0; slot < size; slot++) {
+            merged.put(items[slot], new long[]{counts[slot] + otherMinimum, errors[slot] + otherMinimum});
+        }
+        for (int slot = 0; slot < other.size; slot++) {
+            long[] counter = merged.get(other.items[slot]);
+            if (counter == null) {
+                merged.put(other.items[slot], new long[]{
+                        other.counts[slot] + minimum, other.errors[slot] + minimum});
+            } else {
+                // Replace the assumed minimum of the other summary with its actual counter
+                counter[0] += other.counts[slot] - otherMinimum;
+                counter[1] += other.errors[slot] - otherMinimum;
+            }
+        }
+
+        List<Map.Entry<Long, long[]>> entries = new ArrayList<>(merged.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        clear();
+        for (int i = 0; i < Math.min(capacity, entries.size()); i++) {
+            Map.Entry<Long, long[]> entry = entries.get(i);
+            offer(entry.getKey(), entry.getValue()[0]);
+            errors[indexSlots[indexPosition(entry.getKey())]] = entry.getValue()[1];
+        }
+    }
+
+    /**
+     * The count an unseen product is assumed to have: the smallest count once every counter is
+     * taken, zero before.
+     */
+    public long minimumCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(indexSlots, NO_SLOT);
+        size = 0;
+    }
+
+    public int serializedSize() {
+        return 2 * Integer.BYTES + size * 3 * Long.BYTES;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(capacity).putInt(size);
+        for (int slot = 0; slot < size; slot++) {
+            buffer.putLong(items[slot]).putLong(counts[slot]).putLong(errors[slot]);
+        }
+    }
+
+    public static SpaceSaving readFrom(ByteBuffer buffer) {
+        SpaceSaving summary = new SpaceSaving(buffer.getInt());
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            long item = buffer.getLong();
+            summary.offer(item, buffer.getLong());
+            summary.errors[summary.indexSlots[summary.indexPosition(item)]] = buffer.getLong();
+        }
+        return summary;
+    }
+
+    /**
+     * Position of the item in the index, or of the empty entry where it belongs.
+     */
+    private int indexPosition(long item) {
+        int mask = indexKeys.length - 1;
+        int position = (int) ((item * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (indexSlots[position] != NO_SLOT && indexKeys[position] != item) {
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    /**
+     * Removes an item from the linear-probing index, shifting back the entries that probed
+     * past it so no tombstones are needed.
+     */
+    private void removeFromIndex(long item) {
+        int mask = indexKeys.length - 1;
+        int hole = indexPosition(item);
+        indexSlots[hole] = NO_SLOT;
+        int position = (hole + 1) & mask;
+        while (indexSlots[position] != NO_SLOT) {
+            int home = (int) ((indexKeys[position] * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            // Move the entry into the hole if the hole lies on its probe path
+            if (((position - home) & mask) >= ((position - hole) & mask)) {
+                indexKeys[hole] = indexKeys[position];
+                indexSlots[hole] = indexSlots[position];
+                indexSlots[position] = NO_SLOT;
+                hole = position;
+            }
+            position = (position + 1) & mask;
+        }
+    }
+
+    private void siftUp(int position) {
+        int slot = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) {
+                break;
+            }
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(slot, position);
+    }
+
+    private void siftDown(int position) {
+        int slot = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[heap[child]] >= counts[slot]) {
+                break;
+            }
+            place(heap[child], position);
+            position = child;
+        }
+        place(slot, position);
+    }
+
+    private void place(int slot, int position) {
+        heap[position] = slot;
+        heapIndex[slot] = position;
+    }
+
+    /**
+     * A monitored product: its count, which overestimates the true count by at most its error.
+     */
+    public record Counter(long item, long count, long error) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.product.analytics;
+
+/**
+ * A trending product with bounds on its true event count in the window: it occurred at
+ * least {@code guaranteedCount} and at most {@code estimatedCount} times.
+ */
+public record TrendingProduct(long productId, long estimatedCount, long guaranteedCount) {
+}
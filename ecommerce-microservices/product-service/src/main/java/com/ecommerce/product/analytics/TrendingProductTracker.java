@@ -0,0 +1,137 @@
+package com.ecommerce.product.analytics;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Trending products per event type over a trailing window, from the product-analytics stream.
+ * <p>
+ * Each event type keeps a ring of panes, each a {@link TrendingSummary} of fixed size, so
+ * memory depends on the configured error bounds and counter capacity only, never on the
+ * size of the catalog. A query merges the panes overlapping the window; the window therefore
+ * advances in steps of one pane. Summaries of a type are allocated on its first event, and
+ * events stamped later than the local clock are counted at the current time.
+ */
+@Component
+@Conditional(KafkaCondition.class)
+public class TrendingProductTracker implements AnalyticsEventSink {
+
+    private final ApplicationFeatureProperties.AnalyticsProperties.TrendingProperties properties;
+    private final long windowMs;
+    private final long paneMs;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final TrendingSummary[][] panes;
+    private final long[][] paneStarts;
+
+    private final Counter lateEvents;
+
+    public TrendingProductTracker(ApplicationFeatureProperties featureProperties, MeterRegistry meterRegistry) {
+        this.properties = featureProperties.getAnalytics().getTrending();
+        int paneCount = Math.max(1, properties.getPanes());
+        this.windowMs = Math.max(paneCount * 1000L, properties.getWindowMs());
+        this.paneMs = windowMs / paneCount;
+        this.panes = new TrendingSummary[ProductAnalyticsAggregator.EVENT_TYPES.length][];
+        this.paneStarts = new long[panes.length][];
+        for (int type = 0; type < panes.length; type++) {
+            // One pane more than the window, as the pane in progress only partly overlaps it
+            paneStarts[type] = new long[paneCount + 1];
+            Arrays.fill(paneStarts[type], -1);
+        }
+        this.lateEvents = Counter.builder("product.trending.late.events")
+                .description("Analytics events older than the trending window")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void accept(List<EnhancedProductEvent> events) {
+        long now = System.currentTimeMillis();
+        for (EnhancedProductEvent event : events) {
+            int type = ProductAnalyticsAggregator.typeIndex(event.getEventType());
+            if (type >= panes.length) {
+                continue;
+            }
+            // Bounded by now: a pane started ahead of the clock would clear one still in the window
+            long time = event.getTimestamp() == null
+                    ? now
+                    : Math.min(event.getTimestamp().atZone(zone).toInstant().toEpochMilli(), now);
+            long start = time - Math.floorMod(time, paneMs);
+            if (start + windowMs + paneMs <= now) {
+                lateEvents.increment();
+                continue;
+            }
+            TrendingSummary[] typePanes = panes[type];
+            if (typePanes == null) {
+                typePanes = allocate(type);
+            }
+            long[] starts = paneStarts[type];
+            int pane = (int) Math.floorMod(start / paneMs, (long) starts.length);
+            if (starts[pane] != start) {
+                if (start < starts[pane]) {
+                    lateEvents.increment();
+                    continue;
+                }
+                typePanes[pane].clear();
+                starts[pane] = start;
+            }
+            typePanes[pane].add(event.getProductId());
+        }
+    }
+
+    /**
+     * Returns up to {@code k} products with the most events of the type in the trailing
+     * window, most first; {@code k} is capped at the configured counter capacity.
+     *
+     * @throws IllegalArgumentException if the event type is not tracked
+     */
+    public List<TrendingProduct> trending(String eventType, int k) {
+        return summary(eventType).top(Math.min(k, properties.getCapacity()));
+    }
+
+    /**
+     * Returns the merged summary of the type over the trailing window, for another instance
+     * to merge with its own.
+     *
+     * @throws IllegalArgumentException if the event type is not tracked
+     */
+    public synchronized TrendingSummary summary(String eventType) {
+        int type = ProductAnalyticsAggregator.typeIndex(eventType);
+        if (type >= panes.length) {
+            throw new IllegalArgumentException("Event type is not tracked: " + eventType);
+        }
+        TrendingSummary merged = newSummary();
+        if (panes[type] == null) {
+            return merged;
+        }
+        long windowStart = System.currentTimeMillis() - windowMs;
+        for (int pane = 0; pane < panes[type].length; pane++) {
+            long start = paneStarts[type][pane];
+            if (start >= 0 && start + paneMs > windowStart) {
+                merged.merge(panes[type][pane]);
+            }
+        }
+        return merged;
+    }
+
+    private TrendingSummary[] allocate(int type) {
+        TrendingSummary[] typePanes = new TrendingSummary[paneStarts[type].length];
+        for (int pane = 0; pane < typePanes.length; pane++) {
+            typePanes[pane] = newSummary();
+        }
+        panes[type] = typePanes;
+        return typePanes;
+    }
+
+    private TrendingSummary newSummary() {
+        return new TrendingSummary(properties.getEpsilon(), properties.getDelta(), properties.getCapacity());
+    }
+}
@@ -0,0 +1,87 @@
+package com.ecommerce.product.analytics;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trending products of one event type over one window: a {@link SpaceSaving} summary
+ * naming the heavy hitters, and a {@link CountMinSketch} tightening their counts.
+ * Both overestimate, so a product's estimate is the smaller of the two, while its
+ * Space-Saving count minus error bounds it from below.
+ * <p>
+ * Memory is fixed by the error bounds and the number of counters, not by the catalog.
+ * Summaries with the same settings merge across panes and across instances; the serialized
+ * form is what instances exchange. Not thread-safe.
+ */
+public final class TrendingSummary {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final CountMinSketch sketch;
+    private final SpaceSaving heavyHitters;
+
+    public TrendingSummary(double epsilon, double delta, int capacity) {
+        this(CountMinSketch.withErrorBounds(epsilon, delta), new SpaceSaving(capacity));
+    }
+
+    private TrendingSummary(CountMinSketch sketch, SpaceSaving heavyHitters) {
+        this.sketch = sketch;
+        this.heavyHitters = heavyHitters;
+    }
+
+    public void add(long productId) {
+        sketch.add(productId, 1);
+        heavyHitters.offer(productId, 1);
+    }
+
+    public void merge(TrendingSummary other) {
+        sketch.merge(other.sketch);
+        heavyHitters.merge(other.heavyHitters);
+    }
+
+    /**
+     * Returns up to {@code k} products with the most events, most first.
+     */
+    public List<TrendingProduct> top(int k) {
+        List<SpaceSaving.Counter> counters = heavyHitters.top(k);
+        List<TrendingProduct> top = new ArrayList<>(counters.size());
+        for (SpaceSaving.Counter counter : counters) {
+            top.add(new TrendingProduct(counter.item(),
+                    Math.min(counter.count(), sketch.estimate(counter.item())),
+                    counter.count() - counter.error()));
+        }
+        top.sort((a, b) -> Long.compare(b.estimatedCount(), a.estimatedCount()));
+        return top;
+    }
+
+    public long totalCount() {
+        return sketch.totalCount();
+    }
+
+    public boolean isEmpty() {
+        return sketch.totalCount() == 0;
+    }
+
+    public void clear() {
+        sketch.clear();
+        heavyHitters.clear();
+    }
+
+    public byte[] toByteArray() {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + sketch.serializedSize() + heavyHitters.serializedSize());
+        buffer.putInt(FORMAT_VERSION);
+        sketch.writeTo(buffer);
+        heavyHitters.writeTo(buffer);
+        return buffer.array();
+    }
+
+    public static TrendingSummary fromByteArray(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported trending summary version " + version);
+        }
+        return new TrendingSummary(CountMinSketch.readFrom(buffer), SpaceSaving.readFrom(buffer));
+    }
+}
@@ -0,0 +1,188 @@
+package com.ecommerce.product.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Aggregates of one time window, keyed by product and interaction type.
+ * <p>
+ * An open-addressing hash table on primitive {@code long} keys with one primitive array per
+ * measure, so recording an event allocates nothing and a window of thousands of products is
+ * a handful of arrays rather than thousands of boxed keys and value objects. Clearing keeps
+ * the arrays for the next window.
+ * <p>
+ * Not thread-safe.
+ */
+final class WindowAggregates {
+
+    private static final long EMPTY = 0;
+
+    /**
+     * Lowest key of a valid product id; a negative key is one whose product id lost its sign.
+     */
+    private static final long MIN_KEY = 1L << 3;
+
+    private long[] keys;
+    private long[] counts;
+    private double[] revenue;
+    private long[] ratingSums;
+    private long[] ratingCounts;
+    private long[] viewSecondSums;
+    private long[] viewCounts;
+    private int size;
+
+    WindowAggregates(int expectedKeys) {
+        allocate(Integer.highestOneBit(Math.max(8, expectedKeys * 2 - 1)) << 1);
+    }
+
+    /**
+     * Key of a product and interaction type; never {@link #EMPTY} for a positive product id.
+     */
+    static long key(long productId, int typeIndex) {
+        return (productId << 3) | typeIndex;
+    }
+
+    static long productId(long key) {
+        return key >>> 3;
+    }
+
+    static int typeIndex(long key) {
+        return (int) (key & 7);
+    }
+
+    /**
+     * Adds an event to the aggregates of its key. Keys of product ids below 1 are ignored,
+     * since one of them is {@link #EMPTY} and would never occupy its slot.
+     */
+    void record(long key, double eventRevenue, int rating, int viewSeconds) {
+        if (key < MIN_KEY) {
+            return;
+        }
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                grow();
+                slot = slotOf(key);
+            }
+        }
+        counts[slot]++;
+        revenue[slot] += eventRevenue;
+        if (rating > 0) {
+            ratingSums[slot] += rating;
+            ratingCounts[slot]++;
+        }
+        if (viewSeconds > 0) {
+            viewSecondSums[slot] += viewSeconds;
+            viewCounts[slot]++;
+        }
+    }
+
+    /**
+     * Adds every aggregate of another window to this one.
+     */
+    void addAll(WindowAggregates other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            long key = other.keys[i];
+            if (key == EMPTY) {
+                continue;
+            }
+            int slot = slotOf(key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                if (++size * 2 > keys.length) {
+                    grow();
+                    slot = slotOf(key);
+                }
+            }
+            counts[slot] += other.counts[i];
+            revenue[slot] += other.revenue[i];
+            ratingSums[slot] += other.ratingSums[i];
+            ratingCounts[slot] += other.ratingCounts[i];
+            viewSecondSums[slot] += other.viewSecondSums[i];
+            viewCounts[slot] += other.viewCounts[i];
+        }
+    }
+
+    /**
+     * Calls the visitor with the aggregates of every key.
+     */
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], counts[i], revenue[i],
+                        ratingCounts[i] == 0 ? null : (double) ratingSums[i] / ratingCounts[i],
+                        viewCounts[i] == 0 ? null : (double) viewSecondSums[i] / viewCounts[i]);
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(counts, 0);
+        Arrays.fill(revenue, 0);
+        Arrays.fill(ratingSums, 0);
+        Arrays.fill(ratingCounts, 0);
+        Arrays.fill(viewSecondSums, 0);
+        Arrays.fill(viewCounts, 0);
+        size = 0;
+    }
+
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        // Fibonacci hashing spreads the consecutive ids of a catalog across the table
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        double[] oldRevenue = revenue;
+        long[] oldRatingSums = ratingSums;
+        long[] oldRatingCounts = ratingCounts;
+        long[] oldViewSecondSums = viewSecondSums;
+        long[] oldViewCounts = viewCounts;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                revenue[slot] = oldRevenue[i];
+                ratingSums[slot] = oldRatingSums[i];
+                ratingCounts[slot] = oldRatingCounts[i];
+                viewSecondSums[slot] = oldViewSecondSums[i];
+                viewCounts[slot] = oldViewCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new long[capacity];
+        revenue = new double[capacity];
+        ratingSums = new long[capacity];
+        ratingCounts = new long[capacity];
+        viewSecondSums = new long[capacity];
+        viewCounts = new long[capacity];
+    }
+
+    @FunctionalInterface
+    interface Visitor {
+        void visit(long key, long count, double revenue, Double averageRating, Double averageViewDurationSeconds);
+    }
+}
@@ -0,0 +1,129 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.model.Product;
+import com.ecommerce.product.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded in-process near-cache in front of product reads.
+ * Reads are served from memory; misses fall through to the repository. Entries are
+ * evicted locally after a write commits and on every instance from the product-updated
+ * topic, with the TTL as a backstop. Hit, miss and eviction counts are exported as
+ * the "cache.*" meters tagged with cache=products.
+ */
+@Component
+public class ProductCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCache.class);
+
+    private static final String CACHE_NAME = "products";
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final Cache<Long, Product> cache;
+
+    public ProductCache(ProductRepository productRepository,
+                        ApplicationFeatureProperties featureProperties,
+                        MeterRegistry meterRegistry) {
+        ApplicationFeatureProperties.CacheProperties properties = featureProperties.getCache();
+        this.productRepository = productRepository;
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getTtlSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        logger.info("Product cache enabled={}, maximumSize={}, ttl={}s",
+                enabled, properties.getMaximumSize(), properties.getTtlSeconds());
+    }
+
+    /**
+     * Returns the product, loading it from the database on a miss.
+     * Absent products are not cached, so a later create is visible immediately.
+     */
+    public Optional<Product> get(Long id) {
+        if (!enabled) {
+            return productRepository.findById(id);
+        }
+        return Optional.ofNullable(cache.get(id, key -> productRepository.findById(key).orElse(null)));
+    }
+
+    /**
+     * Returns the products for the given ids in the same order, loading all misses
+     * with a single query. Ids that no longer exist are skipped.
+     */
+    public List<Product> getAll(List<Long> ids) {
+        Map<Long, Product> found;
+        if (enabled) {
+            found = cache.getAll(ids, this::loadAll);
+        } else {
+            found = loadAll(ids);
+        }
+        List<Product> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    public void put(Product product) {
+        if (enabled && product.getId() != null) {
+            cache.put(product.getId(), product);
+        }
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Evicts the product once the surrounding transaction commits, so a concurrent
+     * read cannot reload the pre-commit row into the cache. Evicts immediately when
+     * called outside a transaction.
+     */
+    public void evictAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(id);
+            }
+        });
+    }
+
+    private Map<Long, Product> loadAll(Collection<? extends Long> ids) {
+        Map<Long, Product> loaded = new HashMap<>();
+        for (Product product : productRepository.findAllById(new ArrayList<>(ids))) {
+            loaded.put(product.getId(), product);
+        }
+        return loaded;
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,64 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.event.RemoteProductEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps every instance's {@link ProductCache} coherent with writes made on any instance.
+ * Each instance is assigned every partition of the product topics outside any consumer
+ * group, so every pod sees every change without leaving a group behind when it stops. It
+ * starts from the latest offset since older changes are already reflected in the database.
+ * <p>
+ * Events are also republished locally as {@link RemoteProductEvent}s so the in-memory
+ * indexes pick up changes made on other instances.
+ */
+@Component
+@Conditional(KafkaCondition.class)
+public class ProductCacheSynchronizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCacheSynchronizer.class);
+
+    private static final String ALL_PARTITIONS = "0-#{${kafka.topics.product-partitions:3} - 1}";
+
+    private final ProductCache productCache;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public ProductCacheSynchronizer(ProductCache productCache,
+                                    ApplicationEventPublisher applicationEventPublisher) {
+        this.productCache = productCache;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @KafkaListener(
+            id = "product-cache-synchronizer",
+            idIsGroup = false,
+            topicPartitions = {
+                    @TopicPartition(topic = "${kafka.topics.product-created}", partitions = ALL_PARTITIONS),
+                    @TopicPartition(topic = "${kafka.topics.product-updated}", partitions = ALL_PARTITIONS)},
+            containerFactory = "productEventListenerContainerFactory",
+            properties = "auto.offset.reset=latest")
+    public void onProductEvent(ProductEvent event) {
+        if (event == null || event.getProductId() == null || event.getEventType() == null) {
+            return;
+        }
+        switch (event.getEventType()) {
+            case UPDATED:
+            case DELETED:
+            case STOCK_CHANGED:
+                logger.debug("Invalidating cached product {} after {}", event.getProductId(), event.getEventType());
+                productCache.evict(event.getProductId());
+                break;
+            default:
+                break;
+        }
+        applicationEventPublisher.publishEvent(new RemoteProductEvent(event));
+    }
+}
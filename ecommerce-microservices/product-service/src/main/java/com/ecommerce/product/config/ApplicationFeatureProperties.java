@@ -1,5 +1,6 @@
 package com.ecommerce.product.config;
 
+import com.ecommerce.product.kafka.publish.OverflowPolicy;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -28,6 +29,56 @@ public class ApplicationFeatureProperties {
      */
     private final AnalyticsProperties analytics = new AnalyticsProperties();
     
+    /**
+     * Configuration properties for the in-process product cache.
+     */
+    private final CacheProperties cache = new CacheProperties();
+    
+    /**
+     * Configuration properties for the in-memory product search index.
+     */
+    private final SearchProperties search = new SearchProperties();
+    
+    /**
+     * Configuration properties for inventory tracking.
+     */
+    private final InventoryProperties inventory = new InventoryProperties();
+    
+    /**
+     * Configuration properties for bulk product operations.
+     */
+    private final BatchProperties batch = new BatchProperties();
+    
+    /**
+     * Configuration properties for the transactional outbox relay.
+     */
+    private final OutboxProperties outbox = new OutboxProperties();
+    
+    /**
+     * Configuration properties for the local spool of events that could not be published.
+     */
+    private final SpoolProperties spool = new SpoolProperties();
+    
+    /**
+     * Configuration properties for the bounded pipeline of events published without waiting.
+     */
+    private final PublishProperties publish = new PublishProperties();
+    
+    /**
+     * Configuration properties for the thread execution mode.
+     */
+    private final ThreadProperties threads = new ThreadProperties();
+    
+    /**
+     * Configuration properties for the read model projected from the product topics.
+     */
+    private final ReadModelProperties readModel = new ReadModelProperties();
+    
+    /**
+     * Configuration properties for restoring product state at startup.
+     */
+    private final WarmStartProperties warmStart = new WarmStartProperties();
+    
     /**
      * Nested properties for the product activity simulator.
      * This demonstrates proper hierarchical configuration management.
@@ -55,6 +106,93 @@ public class ApplicationFeatureProperties {
         private String[] eventTypes = {
                 "VIEW", "SEARCH", "ADD_TO_CART", "PURCHASE", "REVIEW", "WISHLIST_ADD"
         };
+        
+        /**
+         * Load-generation mode, which replaces the periodic batches when enabled.
+         */
+        private final LoadProperties load = new LoadProperties();
+        
+        /**
+         * Nested properties for generating sustained load on the publishing path.
+         */
+        @Data
+        public static class LoadProperties {
+            /**
+             * Whether load-generation mode is enabled.
+             */
+            private boolean enabled = false;
+            
+            /**
+             * Events per second to generate across all threads.
+             */
+            private int targetEventsPerSecond = 5000;
+            
+            /**
+             * Number of generator threads sharing the target rate.
+             */
+            private int threads = 4;
+            
+            /**
+             * Events published per batch by each thread.
+             */
+            private int batchSize = 100;
+            
+            /**
+             * Interval between reports of the achieved rate and producer back-pressure.
+             */
+            private long reportIntervalMs = 5000;
+        }
+        
+        /**
+         * Recording and replay of reproducible workloads.
+         */
+        private final WorkloadProperties workload = new WorkloadProperties();
+        
+        /**
+         * Nested properties for recording a seeded workload to a file and replaying it.
+         */
+        @Data
+        public static class WorkloadProperties {
+            /**
+             * What to do at startup: "off", "record" a workload to the file, or "replay" it.
+             */
+            private String mode = "off";
+            
+            /**
+             * Workload file to write or read.
+             */
+            private String file = System.getProperty("java.io.tmpdir") + "/simulator-workload.bin";
+            
+            /**
+             * Seed of the generator; the same seed and catalog give the same workload.
+             */
+            private long seed = 42;
+            
+            /**
+             * Number of events to record.
+             */
+            private long events = 100000;
+            
+            /**
+             * Mean rate of the recorded events, which sets their spacing at 1x.
+             */
+            private double eventsPerSecond = 1000;
+            
+            /**
+             * Skew of product popularity; 0 is uniform, around 1 a few products take most events.
+             */
+            private double zipfExponent = 1.1;
+            
+            /**
+             * Replay speed as a multiple of the recorded rate, or 0 to replay as fast as possible.
+             */
+            private double speed = 1.0;
+            
+            /**
+             * Maximum number of events published per batch during replay.
+             */
+            private int batchSize = 500;
+        }
     }
     
     /**
@@ -76,5 +214,404 @@ public class ApplicationFeatureProperties {
          * Maximum time to buffer events before flushing in milliseconds.
          */
         private int flushIntervalMs = 5000;
+        
+        /**
+         * Length of the tumbling aggregation windows in milliseconds.
+         */
+        private long tumblingWindowMs = 60000;
+        
+        /**
+         * Length of the trailing sliding aggregation window in milliseconds;
+         * advances in steps of the tumbling window.
+         */
+        private long slidingWindowMs = 300000;
+        
+        /**
+         * Trending products per event type.
+         */
+        private final TrendingProperties trending = new TrendingProperties();
+        
+        /**
+         * Nested properties for the fixed-memory trending products summaries.
+         */
+        @Data
+        public static class TrendingProperties {
+            /**
+             * Length of the trailing window trending products are ranked over.
+             */
+            private long windowMs = 3600000;
+            
+            /**
+             * Number of panes the window is divided into; the window advances one pane at a time.
+             */
+            private int panes = 12;
+            
+            /**
+             * Count-Min Sketch overcount bound, as a fraction of the events in the window.
+             */
+            private double epsilon = 0.001;
+            
+            /**
+             * Probability of a Count-Min Sketch estimate exceeding the epsilon bound.
+             */
+            private double delta = 0.01;
+            
+            /**
+             * Heavy-hitter counters per summary; the largest top-K that can be requested.
+             */
+            private int capacity = 200;
+        }
+        
+        /**
+         * Distinct users and sessions per product.
+         */
+        private final VisitorProperties visitors = new VisitorProperties();
+        
+        /**
+         * Nested properties for the HyperLogLog distinct visitor counters.
+         */
+        @Data
+        public static class VisitorProperties {
+            /**
+             * Length of each counting window.
+             */
+            private long windowMs = 3600000;
+            
+            /**
+             * Number of windows kept, the current one included.
+             */
+            private int retainedWindows = 24;
+            
+            /**
+             * HyperLogLog precision; 2^precision registers, standard error 1.04 / sqrt(2^precision).
+             */
+            private int precision = 11;
+            
+            /**
+             * Interval at which the counters are copied into the snapshot queries read.
+             */
+            private long snapshotIntervalMs = 10000;
+        }
+        
+        /**
+         * Session windows keyed by session id.
+         */
+        private final SessionProperties sessions = new SessionProperties();
+        
+        /**
+         * Nested properties for the session window processor.
+         */
+        @Data
+        public static class SessionProperties {
+            /**
+             * A session closes once no event arrives for this long.
+             */
+            private long inactivityGapMs = 1800000;
+            
+            /**
+             * A session closes once its events span this long; later events open a new session.
+             */
+            private long maxSessionLengthMs = 14400000;
+            
+            /**
+             * Maximum number of open sessions; beyond it the least recently active is evicted.
+             * State for all of them is allocated at startup, 64 bytes each.
+             */
+            private int maxSessions = 100000;
+            
+            /**
+             * Interval between checks for sessions that went quiet.
+             */
+            private long sweepIntervalMs = 1000;
+        }
+    }
+    
+    /**
+     * Nested properties for the product near-cache.
+     * Entries are invalidated from the product-updated topic; the TTL only bounds
+     * staleness if an invalidation is ever missed.
+     */
+    @Data
+    public static class CacheProperties {
+        /**
+         * Whether product reads are served through the cache.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Maximum number of products held per instance.
+         */
+        private long maximumSize = 10000;
+        
+        /**
+         * Time after which a cached product is reloaded from the database, in seconds.
+         */
+        private long ttlSeconds = 300;
+    }
+    
+    /**
+     * Nested properties for the product name search index.
+     */
+    @Data
+    public static class SearchProperties {
+        /**
+         * Whether searches are answered from the in-memory index instead of the database.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Whether product descriptions are indexed as well as names.
+         * Description matches rank below name matches.
+         */
+        private boolean indexDescription = false;
+    }
+    
+    /**
+     * Nested properties for inventory tracking and stock alerts.
+     */
+    @Data
+    public static class InventoryProperties {
+        /**
+         * Stock level at or below which a product is reported as low on stock.
+         * Crossing it in either direction publishes an alert to the low-stock topic.
+         */
+        private int lowStockThreshold = 10;
+        
+        /**
+         * How long a stock reservation is held before it expires and its units are released.
+         */
+        private long reservationTtlSeconds = 600;
+        
+        /**
+         * Interval between write-behind flushes of committed reservations to the database.
+         */
+        private long reservationFlushIntervalMs = 500;
+        
+        /**
+         * How long a product's reservation counter is kept after its last reservation once
+         * nothing is reserved or waiting to be flushed. The next reservation reloads it.
+         */
+        private long reservationCounterIdleSeconds = 300;
+        
+        /**
+         * Stock updates consumed from the inventory-updated topic.
+         */
+        private final UpdatesProperties updates = new UpdatesProperties();
+        
+        /**
+         * Nested properties for the batch consumer of inventory updates.
+         */
+        @Data
+        public static class UpdatesProperties {
+            /**
+             * Whether inventory updates are consumed and applied to product stock.
+             */
+            private boolean enabled = true;
+            
+            /**
+             * Number of consumers sharing the topic's partitions.
+             */
+            private int concurrency = 3;
+            
+            /**
+             * Maximum number of updates coalesced and written per batch.
+             */
+            private int maxPollRecords = 5000;
+            
+            /**
+             * Whether an existing inventory-updated topic is switched to cleanup.policy=delete at
+             * startup. Only needed where the topic was created compacted.
+             */
+            private boolean migrateCleanupPolicy = false;
+        }
+    }
+    
+    /**
+     * Nested properties for the bulk create and update endpoints.
+     * The JDBC batch size itself is hibernate.jdbc.batch_size under spring.jpa.properties.
+     */
+    @Data
+    public static class BatchProperties {
+        /**
+         * Number of products written and committed per transaction.
+         */
+        private int chunkSize = 1000;
+    }
+    
+    /**
+     * Nested properties for relaying outbox events to Kafka.
+     */
+    @Data
+    public static class OutboxProperties {
+        /**
+         * Maximum number of events claimed and published per relay poll.
+         */
+        private int batchSize = 500;
+        
+        /**
+         * Delay between relay polls once the outbox has been drained.
+         */
+        private long pollIntervalMs = 200;
+        
+        /**
+         * How long a batch waits for broker acknowledgements before the rest is retried.
+         */
+        private long sendTimeoutMs = 30000;
+        
+        /**
+         * Failed sends after which an event is moved to the dead-letter table, so it stops
+         * holding back the later events of its product. Failures of the broker itself, such
+         * as timeouts, do not count.
+         */
+        private int maxAttempts = 5;
+    }
+    
+    /**
+     * Nested properties for spooling events to local disk while Kafka is unavailable.
+     */
+    @Data
+    public static class SpoolProperties {
+        /**
+         * Whether circuit breaker fallbacks spool events for replay instead of dropping them.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Directory holding the spool segment files.
+         */
+        private String directory = System.getProperty("java.io.tmpdir") + "/product-event-spool";
+        
+        /**
+         * Size of each memory-mapped segment file.
+         */
+        private int segmentSizeBytes = 16 * 1024 * 1024;
+        
+        /**
+         * Maximum number of segment files; once reached, new events are rejected.
+         */
+        private int maxSegments = 16;
+        
+        /**
+         * Delay between replay runs once the spool has been drained.
+         */
+        private long forwardIntervalMs = 1000;
+        
+        /**
+         * Maximum number of spooled events handed to the producer per replay batch.
+         */
+        private int forwardBatchSize = 500;
+        
+        /**
+         * How long a replay batch waits for broker acknowledgements before the rest is retried.
+         */
+        private long sendTimeoutMs = 30000;
+    }
+    
+    /**
+     * Nested properties for the publish pipeline.
+     */
+    @Data
+    public static class PublishProperties {
+        /**
+         * Total number of events queued across all drainers.
+         */
+        private int capacity = 8192;
+        
+        /**
+         * Number of drainer threads, each with its own share of the queue.
+         */
+        private int drainers = 2;
+        
+        /**
+         * Maximum number of events a drainer takes from its queue and hands to the producer at once.
+         */
+        private int batchSize = 256;
+        
+        /**
+         * What happens to an event arriving while its queue is full.
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        
+        /**
+         * How long a caller waits for room under the BLOCK policy before the event is rejected.
+         */
+        private long blockTimeoutMs = 100;
+    }
+    
+    /**
+     * Nested properties for the thread execution mode.
+     */
+    @Data
+    public static class ThreadProperties {
+        /**
+         * Whether requests, scheduled and asynchronous work run on virtual threads. Needs Java 21;
+         * ignored on older runtimes.
+         */
+        private boolean virtual = false;
+        
+        /**
+         * Value of jdk.tracePinnedThreads when virtual threads are on: short, full or off.
+         */
+        private String pinningDiagnostics = "short";
+        
+        /**
+         * Number of threads running scheduled tasks when virtual threads are on.
+         */
+        private int schedulerPoolSize = 8;
+    }
+    
+    /**
+     * Nested properties for the read model serving catalog reads.
+     */
+    @Data
+    public static class ReadModelProperties {
+        /**
+         * Whether the product topics are projected into the read model and catalog reads
+         * served from it once it has caught up.
+         */
+        private boolean enabled = false;
+        
+        /**
+         * Number of consumers projecting the topics; more than their partition count leaves some idle.
+         */
+        private int concurrency = 3;
+        
+        /**
+         * Maximum number of events each consumer applies per batch.
+         */
+        private int maxPollRecords = 500;
+        
+        /**
+         * Whether the read model is also written to the product_read_model table. PostgreSQL only.
+         */
+        private boolean persistTable = false;
+    }
+    
+    /**
+     * Nested properties for rebuilding the cache and indexes at startup.
+     */
+    @Data
+    public static class WarmStartProperties {
+        /**
+         * Where product state is restored from: "database", streaming the catalog table, or
+         * "topics", replaying the compacted product topics. A replay that fails, or that lags the
+         * database, falls back to the database.
+         */
+        private String source = "database";
+        
+        /**
+         * Number of readers replaying topic partitions in parallel.
+         */
+        private int readers = 4;
+        
+        /**
+         * Maximum number of records each reader fetches per poll.
+         */
+        private int maxPollRecords = 2000;
+        
+        /**
+         * How long the replay may take before startup falls back to the database.
+         */
+        private long timeoutMs = 120000;
     }
 }
@@ -2,6 +2,7 @@ package com.ecommerce.product.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -27,9 +28,16 @@ public class AsyncConfig {
      * - Max pool size: maximum threads during high load
      * - Queue capacity: backlog before rejecting tasks
      * - Thread naming: for better monitoring and debugging
+     * 
+     * In virtual-thread mode every task gets its own virtual thread instead.
      */
     @Bean(name = "asyncTaskExecutor")
-    public Executor asyncTaskExecutor() {
+    public Executor asyncTaskExecutor(ApplicationFeatureProperties featureProperties) {
+        if (featureProperties.getThreads().isVirtual() && VirtualThreads.isSupported()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+            executor.setThreadFactory(VirtualThreads.factory("kafka-async-virtual-"));
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(4);
         executor.setMaxPoolSize(10);
@@ -1,18 +1,32 @@
 package com.ecommerce.product.config;
 
 import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.kafka.config.MonitoringProducerListener;
+import com.ecommerce.product.kafka.serialization.EventRoutingSerializer;
+import com.ecommerce.product.kafka.serialization.EventWireFormat;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -29,38 +43,156 @@ public class KafkaConfig {
     
     @Value("${kafka.topics.product-updated}")
     private String productUpdatedTopic;
+
+    @Value("${kafka.topics.product-partitions:3}")
+    private int productPartitions;
     
     @Value("${kafka.topics.inventory-updated}")
     private String inventoryUpdatedTopic;
+    
+    @Value("${kafka.topics.low-stock:low-stock}")
+    private String lowStockTopic;
+
+    @Value("${spring.kafka.producer.client-id:}")
+    private String clientId;
+
+    @Value("${spring.kafka.producer.acks:all}")
+    private String acks;
+
+    @Value("${spring.kafka.producer.retries:3}")
+    private int retries;
+
+    @Value("${spring.kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${spring.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${spring.kafka.producer.buffer-memory:33554432}")
+    private long bufferMemory;
+
+    @Value("${spring.kafka.producer.compression-type:snappy}")
+    private String compressionType;
+
+    @Value("${spring.kafka.producer.wire-format.product-events:json}")
+    private EventWireFormat productEventFormat;
+
+    @Value("${spring.kafka.producer.wire-format.enhanced-events:json}")
+    private EventWireFormat enhancedEventFormat;
 
     @Bean
     public Map<String, Object> producerConfigs() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        // Enable idempotent producer for exactly-once semantics
+        if (!clientId.isEmpty()) {
+            props.put(ProducerConfig.CLIENT_ID_CONFIG, clientId);
+        }
+        // Idempotence keeps per-partition order with up to 5 requests in flight, so the
+        // producer can pipeline instead of waiting for each request to be acknowledged
         props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
-        props.put(ProducerConfig.ACKS_CONFIG, "all");
-        props.put(ProducerConfig.RETRIES_CONFIG, 3);
+        props.put(ProducerConfig.ACKS_CONFIG, acks);
+        props.put(ProducerConfig.RETRIES_CONFIG, retries);
+        // Every template shares this producer, so records of all streams fill the same batches
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
         return props;
     }
 
+    /**
+     * The one producer of the process. Values of any type are accepted and serialized by
+     * {@link EventRoutingSerializer}; build templates on it with {@link #templateOn}. The
+     * producer's client metrics are bound to the meter registry as it is created.
+     */
+    @Bean
+    public ProducerFactory<String, Object> producerFactory(MeterRegistry meterRegistry) {
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(producerConfigs(),
+                new StringSerializer(), new EventRoutingSerializer(productEventFormat, enhancedEventFormat));
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    /**
+     * Send metrics shared by every template on the producer.
+     */
+    @Bean
+    public MonitoringProducerListener<String, Object> monitoringProducerListener(MeterRegistry meterRegistry) {
+        return new MonitoringProducerListener<>(meterRegistry);
+    }
+
     @Bean
-    public ProducerFactory<String, ProductEvent> producerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
+    public KafkaTemplate<String, ProductEvent> kafkaTemplate(ProducerFactory<String, Object> producerFactory,
+                                                             ProducerListener<String, Object> monitoringProducerListener) {
+        return templateOn(producerFactory, monitoringProducerListener);
     }
 
+    /**
+     * Returns a template for one value type on the shared producer factory, reporting its sends
+     * to the given listener. The template's own observation is turned off, as the listener
+     * records the same sends per partition without allocating a timer sample for each.
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> KafkaTemplate<String, V> templateOn(ProducerFactory<String, Object> producerFactory,
+                                                          ProducerListener<String, Object> producerListener) {
+        KafkaTemplate<String, V> template =
+                new KafkaTemplate<>((ProducerFactory<String, V>) (ProducerFactory<String, ?>) producerFactory);
+        template.setProducerListener((ProducerListener<String, V>) (ProducerListener<String, ?>) producerListener);
+        template.setMicrometerEnabled(false);
+        return template;
+    }
+
+    /**
+     * Consumer side of the product topics. Values are always read as {@link ProductEvent}
+     * regardless of type headers, and records that fail to deserialize are logged and
+     * skipped instead of blocking the partition.
+     */
+    @Bean
+    public ConsumerFactory<String, ProductEvent> productEventConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, ProductEvent.class.getName());
+        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, ProductEvent.class.getPackageName());
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ProductEvent> productEventListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ProductEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(productEventConsumerFactory());
+        // Listeners on these topics are assigned their partitions outside any consumer group,
+        // so there is nowhere to commit offsets to
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    /**
+     * Batch listeners projecting the product topics into the read model, one consumer per
+     * configured thread.
+     */
     @Bean
-    public KafkaTemplate<String, ProductEvent> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public ConcurrentKafkaListenerContainerFactory<String, ProductEvent> readModelListenerContainerFactory(
+            ApplicationFeatureProperties featureProperties) {
+        ConcurrentKafkaListenerContainerFactory<String, ProductEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(productEventConsumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(featureProperties.getReadModel().getConcurrency());
+        // Assigned outside any consumer group, like the factory above
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
     }
 
     // Create topics programmatically
     @Bean
     public NewTopic productCreatedTopic() {
         return TopicBuilder.name(productCreatedTopic)
-                .partitions(3)
+                .partitions(productPartitions)
                 .replicas(3)
                 .compact()
                 .build();
@@ -69,7 +201,7 @@ public class KafkaConfig {
     @Bean
     public NewTopic productUpdatedTopic() {
         return TopicBuilder.name(productUpdatedTopic)
-                .partitions(3)
+                .partitions(productPartitions)
                 .replicas(3)
                 .compact()
                 .build();
@@ -78,6 +210,19 @@ public class KafkaConfig {
     @Bean
     public NewTopic inventoryUpdatedTopic() {
         return TopicBuilder.name(inventoryUpdatedTopic)
+                .partitions(3)
+                .replicas(3)
+                // Deltas carry no state of their own, so every record is kept until retention
+                // rather than compacted down to the last one per product
+                .config(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_DELETE)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "604800000")
+                .build();
+    }
+    
+    // Keyed by product id and compacted, so the topic holds each product's current stock alert
+    @Bean
+    public NewTopic lowStockTopic() {
+        return TopicBuilder.name(lowStockTopic)
                 .partitions(3)
                 .replicas(3)
                 .compact()
@@ -0,0 +1,14 @@
+package com.ecommerce.product.config;
+
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * The opposite of {@link KafkaCondition}, for the local stand-ins of Kafka components
+ */
+public class KafkaDisabledCondition extends KafkaCondition {
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        return !super.matches(context, metadata);
+    }
+}
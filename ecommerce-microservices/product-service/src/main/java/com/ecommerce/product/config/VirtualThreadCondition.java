@@ -0,0 +1,31 @@
+package com.ecommerce.product.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Condition to determine if request handling and scheduled work run on virtual threads.
+ * Requires both the opt-in flag and a JVM that supports them; with the flag on and an older
+ * JVM the service keeps its platform thread pools.
+ */
+public class VirtualThreadCondition implements Condition {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadCondition.class);
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        String virtualThreads = context.getEnvironment().getProperty("application.features.threads.virtual");
+        if (!Boolean.parseBoolean(virtualThreads)) {
+            return false;
+        }
+        if (!VirtualThreads.isSupported()) {
+            logger.warn("Virtual threads requested but not available on Java {}; using platform threads",
+                    Runtime.version().feature());
+            return false;
+        }
+        return true;
+    }
+}
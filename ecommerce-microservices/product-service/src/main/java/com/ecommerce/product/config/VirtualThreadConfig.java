@@ -0,0 +1,73 @@
+package com.ecommerce.product.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Virtual-thread execution mode, enabled with {@code application.features.threads.virtual}.
+ * <p>
+ * Tomcat runs every request on a new virtual thread instead of its bounded worker pool, and
+ * scheduled and asynchronous work runs on virtual threads too. A request blocked on JDBC then
+ * parks a virtual thread rather than holding one of {@code server.tomcat.max-threads}, so the
+ * thread pool no longer limits concurrency: the Hikari pool does, with requests waiting up to
+ * its connection timeout for one of {@code maximum-pool-size} connections.
+ * <p>
+ * Blocking inside a {@code synchronized} block pins the virtual thread to its carrier.
+ * Unless {@code jdk.tracePinnedThreads} is already set, it is set from
+ * {@code pinning-diagnostics} so pinned threads are reported with their stack.
+ */
+@Configuration
+@Conditional(VirtualThreadCondition.class)
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    private final ApplicationFeatureProperties.ThreadProperties properties;
+
+    public VirtualThreadConfig(ApplicationFeatureProperties featureProperties) {
+        this.properties = featureProperties.getThreads();
+        String pinningDiagnostics = properties.getPinningDiagnostics();
+        if (System.getProperty("jdk.tracePinnedThreads") == null && !"off".equals(pinningDiagnostics)) {
+            System.setProperty("jdk.tracePinnedThreads", pinningDiagnostics);
+        }
+        logger.info("Running requests and scheduled work on virtual threads, pinning diagnostics {}",
+                System.getProperty("jdk.tracePinnedThreads", "off"));
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                VirtualThreads.perTaskExecutor(VirtualThreads.factory("http-virtual-")));
+    }
+
+    /**
+     * Scheduler for {@code @Scheduled} methods such as the activity simulator. Its threads are
+     * virtual, so a larger pool costs little and a slow task no longer delays the others.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, properties.getSchedulerPoolSize()));
+        scheduler.setThreadFactory(VirtualThreads.factory("scheduling-virtual-"));
+        return scheduler;
+    }
+
+    /**
+     * Executor for {@code @Async} methods and asynchronous MVC requests, one virtual thread
+     * per task.
+     */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+        executor.setThreadFactory(VirtualThreads.factory("task-virtual-"));
+        return executor;
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.product.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads from code compiled for Java 17.
+ * <p>
+ * Virtual threads are final from Java 21. The service is built for 17, so the factory and
+ * executor are looked up reflectively and are only available when it runs on 21 or later,
+ * or on 19 and 20 with preview features enabled.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Whether the running JVM can create virtual threads.
+     */
+    static boolean isSupported() {
+        try {
+            factory("virtual-probe-");
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Factory of virtual threads named with the prefix and a sequence number.
+     * @throws UnsupportedOperationException if the JVM cannot create virtual threads
+     */
+    static ThreadFactory factory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new UnsupportedOperationException("Virtual threads are not available on Java "
+                    + Runtime.version().feature(), e);
+        }
+    }
+
+    /**
+     * Executor starting a new thread from the factory for every task.
+     * @throws UnsupportedOperationException if the JVM has no thread-per-task executor
+     */
+    static ExecutorService perTaskExecutor(ThreadFactory threadFactory) {
+        try {
+            Method newThreadPerTaskExecutor = java.util.concurrent.Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new UnsupportedOperationException("Thread-per-task executors are not available on Java "
+                    + Runtime.version().feature(), e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.product.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers a write that lost a race for a product row, to another update or to a stock change
+ * such as a reservation, with 409 instead of 500. The row version has moved on since the
+ * product was read, so the client should read it again and retry.
+ */
+@RestControllerAdvice
+public class OptimisticLockingExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticLockingExceptionHandler.class);
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException e) {
+        logger.warn("Rejected concurrent update of {} {}", e.getPersistentClassName(), e.getIdentifier());
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
@@ -1,25 +1,45 @@
 package com.ecommerce.product.controller;
 
 import com.ecommerce.product.model.Product;
+import com.ecommerce.product.model.ProductPage;
+import com.ecommerce.product.readmodel.ProductReadModel;
+import com.ecommerce.product.service.ProductNotFoundException;
 import com.ecommerce.product.service.ProductService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
 
+/**
+ * Product catalog API. Writes go through {@link ProductService}; reads are served from the
+ * {@link ProductReadModel} once it has caught up with the product topics, and from the
+ * service until then or when the read model is disabled.
+ */
 @RestController
 @RequestMapping("/api/products")
 @Validated
@@ -27,25 +47,82 @@ public class ProductController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final int MAX_BATCH_SIZE = 10000;
+
     private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<ProductReadModel> readModel;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ObjectMapper objectMapper,
+                             ObjectProvider<ProductReadModel> readModel) {
         this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.readModel = readModel;
     }
 
     @GetMapping
     @Timed(value = "get.all.products", description = "Time taken to return all products")
     public ResponseEntity<List<Product>> getAllProducts() {
         logger.info("Fetching all products");
-        return ResponseEntity.ok(productService.getAllProducts());
+        return ResponseEntity.ok(readModel().flatMap(ProductReadModel::findAll)
+                .orElseGet(productService::getAllProducts));
+    }
+
+    @GetMapping("/page")
+    @Timed(value = "get.products.page", description = "Time taken to return a page of products")
+    public ResponseEntity<ProductPage> getProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) Integer limit) {
+        logger.info("Fetching products page after cursor: {} (limit {})", cursor, limit);
+        try {
+            return ResponseEntity.ok(readModel().flatMap(model -> model.findPage(cursor, limit))
+                    .orElseGet(() -> productService.getProductsPage(cursor, limit)));
+        } catch (IllegalArgumentException e) {
+            logger.error("Rejected products page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Streams the whole catalog as newline-delimited JSON, one product per line,
+     * writing rows to the response as they are read from the database.
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    @Timed(value = "stream.all.products", description = "Time taken to stream all products")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        logger.info("Streaming all products");
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                productService.streamAllProducts(product -> {
+                    try {
+                        writer.write(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+                outputStream.write('\n');
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
     }
 
     @GetMapping("/{id}")
     @Timed(value = "get.product.by.id", description = "Time taken to return a product by ID")
     public ResponseEntity<Product> getProductById(@PathVariable @Min(1) Long id) {
         logger.info("Fetching product with ID: {}", id);
-        return productService.getProductById(id)
+        // A product missing from the read model may be newer than it, so misses go to the service
+        return readModel().flatMap(model -> model.findById(id))
+                .or(() -> productService.getProductById(id))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -67,12 +144,41 @@ public class ProductController {
         try {
             Product updatedProduct = productService.updateProduct(id, product);
             return ResponseEntity.ok(updatedProduct);
-        } catch (RuntimeException e) {
+        } catch (ProductNotFoundException e) {
             logger.error("Failed to update product: {}", e.getMessage());
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Creates many products in one request. Rows are inserted in JDBC batches and
+     * committed chunk by chunk, so a very large request never holds one long transaction.
+     */
+    @PostMapping("/batch")
+    @Timed(value = "create.products.batch", description = "Time taken to create a batch of products")
+    public ResponseEntity<List<Product>> createProducts(
+            @RequestBody @Size(min = 1, max = MAX_BATCH_SIZE) List<@Valid Product> products) {
+        logger.info("Creating batch of {} products", products.size());
+        List<Product> createdProducts = productService.createProducts(products);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdProducts);
+    }
+
+    /**
+     * Updates many products in one request, each identified by its id.
+     * Products that do not exist are skipped and left out of the response.
+     */
+    @PutMapping("/batch")
+    @Timed(value = "update.products.batch", description = "Time taken to update a batch of products")
+    public ResponseEntity<List<Product>> updateProducts(
+            @RequestBody @Size(min = 1, max = MAX_BATCH_SIZE) List<@Valid Product> products) {
+        if (products.stream().anyMatch(product -> product.getId() == null)) {
+            logger.error("Rejected batch update: every product needs an id");
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Updating batch of {} products", products.size());
+        return ResponseEntity.ok(productService.updateProducts(products));
+    }
+
     @DeleteMapping("/{id}")
     @Timed(value = "delete.product", description = "Time taken to delete a product")
     public ResponseEntity<Void> deleteProduct(@PathVariable @Min(1) Long id) {
@@ -80,24 +186,31 @@ public class ProductController {
         try {
             productService.deleteProduct(id);
             return ResponseEntity.noContent().build();
-        } catch (RuntimeException e) {
+        } catch (ProductNotFoundException e) {
             logger.error("Failed to delete product: {}", e.getMessage());
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Finds products by name substring. Names shorter than three characters cannot use the
+     * search index and are matched by the database instead.
+     */
     @GetMapping("/search")
     @Timed(value = "search.products", description = "Time taken to search products")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String name) {
-        logger.info("Searching products by name: {}", name);
-        return ResponseEntity.ok(productService.searchProducts(name));
+    public ResponseEntity<List<Product>> searchProducts(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) Integer limit) {
+        logger.info("Searching products by name: {} (limit {})", name, limit);
+        return ResponseEntity.ok(productService.searchProducts(name, limit));
     }
 
     @GetMapping("/category/{categoryId}")
     @Timed(value = "get.products.by.category", description = "Time taken to get products by category")
     public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable Long categoryId) {
         logger.info("Fetching products by category ID: {}", categoryId);
-        return ResponseEntity.ok(productService.getProductsByCategory(categoryId));
+        return ResponseEntity.ok(readModel().flatMap(model -> model.findByCategory(categoryId))
+                .orElseGet(() -> productService.getProductsByCategory(categoryId)));
     }
 
     @GetMapping("/price-range")
@@ -106,7 +219,8 @@ public class ProductController {
             @RequestParam @NotNull BigDecimal min,
             @RequestParam @NotNull BigDecimal max) {
         logger.info("Fetching products in price range: {} - {}", min, max);
-        return ResponseEntity.ok(productService.getProductsByPriceRange(min, max));
+        return ResponseEntity.ok(readModel().flatMap(model -> model.findByPriceRange(min, max))
+                .orElseGet(() -> productService.getProductsByPriceRange(min, max)));
     }
 
     @GetMapping("/low-stock")
@@ -114,7 +228,8 @@ public class ProductController {
     public ResponseEntity<List<Product>> getLowStockProducts(
             @RequestParam(defaultValue = "10") Integer threshold) {
         logger.info("Fetching products with stock below threshold: {}", threshold);
-        return ResponseEntity.ok(productService.getLowStockProducts(threshold));
+        return ResponseEntity.ok(readModel().flatMap(model -> model.findAtOrBelowStock(threshold))
+                .orElseGet(() -> productService.getLowStockProducts(threshold)));
     }
 
     @PatchMapping("/{id}/stock")
@@ -137,4 +252,37 @@ public class ProductController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Takes stock in one conditional update, for checkouts racing on the same product.
+     * Responds with the new quantity, or 409 if fewer than delta + expectedMin units were in stock.
+     */
+    @PatchMapping("/{id}/stock/decrement")
+    @Timed(value = "decrement.product.stock", description = "Time taken to decrement product stock")
+    public ResponseEntity<Map<String, Integer>> decrementProductStock(
+            @PathVariable @Min(1) Long id,
+            @RequestBody Map<String, Integer> stockDecrement) {
+
+        Integer delta = stockDecrement.get("delta");
+        Integer expectedMin = stockDecrement.getOrDefault("expectedMin", 0);
+        if (delta == null || delta < 1 || expectedMin == null || expectedMin < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        logger.info("Decrementing stock for product ID: {} by {}", id, delta);
+        try {
+            OptionalInt stockQuantity = productService.decrementProductStock(id, delta, expectedMin);
+            if (stockQuantity.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return ResponseEntity.ok(Map.of("stockQuantity", stockQuantity.getAsInt()));
+        } catch (ProductNotFoundException e) {
+            logger.error("Failed to decrement stock: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private Optional<ProductReadModel> readModel() {
+        return Optional.ofNullable(readModel.getIfAvailable());
+    }
 }
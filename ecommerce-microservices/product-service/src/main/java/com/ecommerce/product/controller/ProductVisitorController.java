@@ -0,0 +1,56 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.analytics.DistinctVisitorCounter;
+import com.ecommerce.product.analytics.ProductVisitorCounts;
+import com.ecommerce.product.config.KafkaCondition;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/**
+ * Estimated distinct users and sessions of a product per analytics window.
+ * Served from periodic snapshots of the counters, so responses lag the event stream by up
+ * to one snapshot interval; the registers endpoint exposes the counters themselves for
+ * merging the counts of several instances.
+ */
+@RestController
+@RequestMapping("/api/products")
+@Validated
+@Conditional(KafkaCondition.class)
+public class ProductVisitorController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductVisitorController.class);
+
+    private final DistinctVisitorCounter distinctVisitorCounter;
+
+    @Autowired
+    public ProductVisitorController(DistinctVisitorCounter distinctVisitorCounter) {
+        this.distinctVisitorCounter = distinctVisitorCounter;
+    }
+
+    @GetMapping("/{id}/visitors")
+    @Timed(value = "get.product.visitors", description = "Time taken to estimate distinct product visitors")
+    public ResponseEntity<ProductVisitorCounts> getProductVisitors(
+            @PathVariable @Min(1) Long id,
+            @RequestParam(defaultValue = "1") @Min(1) @Max(1000) int windows) {
+        logger.debug("Estimating distinct visitors of product ID: {} over {} windows", id, windows);
+        return ResponseEntity.ok(distinctVisitorCounter.visitors(id, windows));
+    }
+
+    @GetMapping(value = "/{id}/visitors/registers", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getProductVisitorRegisters(
+            @PathVariable @Min(1) Long id,
+            @RequestParam(defaultValue = "1") @Min(1) @Max(1000) int windows) {
+        return ResponseEntity.ok(distinctVisitorCounter.registers(id, windows));
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.inventory.StockReservation;
+import com.ecommerce.product.inventory.StockReservationEngine;
+import com.ecommerce.product.service.ProductNotFoundException;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.constraints.Min;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reserve, commit and release endpoints for checkouts of contended products.
+ * Reservations are held in memory by {@link StockReservationEngine} and written
+ * to the products table in periodic batches once committed.
+ */
+@RestController
+@RequestMapping("/api/products")
+@Validated
+public class StockReservationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationController.class);
+
+    private final StockReservationEngine stockReservationEngine;
+
+    @Autowired
+    public StockReservationController(StockReservationEngine stockReservationEngine) {
+        this.stockReservationEngine = stockReservationEngine;
+    }
+
+    @PostMapping("/{id}/reservations")
+    @Timed(value = "reserve.product.stock", description = "Time taken to reserve product stock")
+    public ResponseEntity<StockReservation> reserveStock(
+            @PathVariable @Min(1) Long id,
+            @RequestBody Map<String, Integer> reservationRequest) {
+
+        Integer quantity = reservationRequest.get("quantity");
+        if (quantity == null || quantity < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        logger.debug("Reserving {} units of product ID: {}", quantity, id);
+        try {
+            Optional<StockReservation> reservation = stockReservationEngine.reserve(id, quantity);
+            return reservation
+                    .map(held -> ResponseEntity.status(HttpStatus.CREATED).body(held))
+                    .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+        } catch (ProductNotFoundException e) {
+            logger.error("Failed to reserve stock: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/reservations/{reservationId}/commit")
+    @Timed(value = "commit.stock.reservation", description = "Time taken to commit a stock reservation")
+    public ResponseEntity<Void> commitReservation(@PathVariable String reservationId) {
+        logger.debug("Committing reservation: {}", reservationId);
+        if (stockReservationEngine.commit(reservationId)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    @Timed(value = "release.stock.reservation", description = "Time taken to release a stock reservation")
+    public ResponseEntity<Void> releaseReservation(@PathVariable String reservationId) {
+        logger.debug("Releasing reservation: {}", reservationId);
+        if (stockReservationEngine.release(reservationId)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
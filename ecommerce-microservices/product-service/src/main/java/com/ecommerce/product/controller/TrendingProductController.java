@@ -0,0 +1,64 @@
+package com.ecommerce.product.controller;
+
+import com.ecommerce.product.analytics.TrendingProduct;
+import com.ecommerce.product.analytics.TrendingProductTracker;
+import com.ecommerce.product.config.KafkaCondition;
+
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+import java.util.List;
+
+/**
+ * Trending products per event type over the trailing analytics window.
+ * Counts are approximate within the bounds documented on {@link TrendingProduct}; each
+ * instance ranks the products of the partitions it consumes, and the summary endpoint
+ * exposes its serialized sketch for merging the rankings of several instances.
+ */
+@RestController
+@RequestMapping("/api/products/trending")
+@Validated
+@Conditional(KafkaCondition.class)
+public class TrendingProductController {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingProductController.class);
+
+    private final TrendingProductTracker trendingProductTracker;
+
+    @Autowired
+    public TrendingProductController(TrendingProductTracker trendingProductTracker) {
+        this.trendingProductTracker = trendingProductTracker;
+    }
+
+    @GetMapping
+    @Timed(value = "get.trending.products", description = "Time taken to rank trending products")
+    public ResponseEntity<List<TrendingProduct>> getTrendingProducts(
+            @RequestParam(defaultValue = "VIEW") String type,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(1000) int k) {
+        logger.debug("Fetching top {} trending products by {}", k, type);
+        try {
+            return ResponseEntity.ok(trendingProductTracker.trending(type, k));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/summary", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getTrendingSummary(@RequestParam(defaultValue = "VIEW") String type) {
+        try {
+            return ResponseEntity.ok(trendingProductTracker.summary(type).toByteArray());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.product.controller;
+
+import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers requests whose path variables or parameters break a constraint of a
+ * {@code @Validated} controller, such as {@code @Max} on a limit, with 400 instead of 500.
+ */
+@RestControllerAdvice
+public class ValidationExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationExceptionHandler.class);
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Void> handleConstraintViolation(ConstraintViolationException e) {
+        logger.warn("Rejected request: {}", e.getMessage());
+        return ResponseEntity.badRequest().build();
+    }
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.product.event;
 
+import com.ecommerce.product.model.Product;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -9,7 +11,9 @@ public class ProductEvent {
         CREATED,
         UPDATED,
         DELETED,
-        STOCK_CHANGED
+        STOCK_CHANGED,
+        LOW_STOCK,
+        STOCK_REPLENISHED
     }
 
     private Long productId;
@@ -18,6 +22,15 @@ public class ProductEvent {
     private Integer stockQuantity;
     private EventType eventType;
     private LocalDateTime timestamp;
+    // Catalog fields, carried by every event raised from a product row so its state can be
+    // rebuilt from the topics alone; null on low-stock alerts
+    private String description;
+    private String imageUrl;
+    private Long categoryId;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    // Version of the product row after the change; null on low-stock alerts
+    private Long version;
 
     public ProductEvent() {
         this.timestamp = LocalDateTime.now();
@@ -81,12 +94,113 @@ public class ProductEvent {
         this.timestamp = timestamp;
     }
 
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * An event carrying the whole product row. A deletion is one change past the last
+     * version of the row, so it orders after every update.
+     */
+    public static ProductEvent of(Product product, EventType eventType) {
+        ProductEvent event = new ProductEvent(
+                product.getId(),
+                product.getName(),
+                product.getPrice(),
+                product.getStockQuantity(),
+                eventType);
+        event.setDescription(product.getDescription());
+        event.setImageUrl(product.getImageUrl());
+        event.setCategoryId(product.getCategoryId());
+        event.setCreatedAt(product.getCreatedAt());
+        event.setUpdatedAt(product.getUpdatedAt());
+        Long rowVersion = product.getVersion();
+        if (rowVersion != null && eventType == EventType.DELETED) {
+            rowVersion = rowVersion + 1;
+        }
+        event.setVersion(rowVersion);
+        return event;
+    }
+
+    /**
+     * Row version of the product state this event carries, or -1 for events raised before
+     * rows were versioned. Of two events for a product, the one with the higher version holds
+     * the newer state. Consumers apply an event of equal version too: a redelivered event then
+     * changes nothing, and unversioned events keep their topic order.
+     */
+    public long rowVersion() {
+        return version == null ? -1L : version;
+    }
+
+    /**
+     * The product row this event carries.
+     */
+    public Product toProduct() {
+        Product product = new Product();
+        product.setId(productId);
+        product.setName(productName);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setImageUrl(imageUrl);
+        product.setCategoryId(categoryId);
+        product.setStockQuantity(stockQuantity);
+        product.setCreatedAt(createdAt);
+        product.setUpdatedAt(updatedAt);
+        product.setVersion(version);
+        return product;
+    }
+
     @Override
     public String toString() {
         return "ProductEvent{" +
                 "productId=" + productId +
                 ", productName='" + productName + '\'' +
                 ", eventType=" + eventType +
+                ", version=" + version +
                 ", timestamp=" + timestamp +
                 '}';
     }
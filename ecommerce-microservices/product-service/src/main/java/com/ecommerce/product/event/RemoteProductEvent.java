@@ -0,0 +1,26 @@
+package com.ecommerce.product.event;
+
+/**
+ * A {@link ProductEvent} received from the product topics rather than raised by a write
+ * on this instance. Published locally so in-memory state can follow changes made on other
+ * instances, while side effects such as alerts are left to the instance that made the change.
+ */
+public class RemoteProductEvent {
+
+    private final ProductEvent event;
+
+    public RemoteProductEvent(ProductEvent event) {
+        this.event = event;
+    }
+
+    public ProductEvent getEvent() {
+        return event;
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteProductEvent{" +
+                "event=" + event +
+                '}';
+    }
+}
@@ -0,0 +1,196 @@
+package com.ecommerce.product.index;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.event.RemoteProductEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stock levels of every product ordered by quantity, for low-stock queries.
+ * <p>
+ * A stock change is an O(log n) reposition in a sorted set, and a query for a threshold
+ * is a head-set walk over only the matching products. When a change made on this instance
+ * moves a product across the configured alert threshold, a LOW_STOCK or STOCK_REPLENISHED
+ * event is published to the low-stock topic, so consumers are told instead of polling.
+ * Changes received from other instances update the levels but never raise alerts, so each
+ * crossing is announced once.
+ */
+@Component
+public class LowStockTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockTracker.class);
+
+    private static final Comparator<StockLevel> BY_QUANTITY = Comparator
+            .comparingInt(StockLevel::quantity)
+            .thenComparingLong(StockLevel::productId);
+
+    private final int alertThreshold;
+    private final ObjectProvider<KafkaTemplate<String, ProductEvent>> kafkaTemplate;
+
+    @Value("${kafka.topics.low-stock:low-stock}")
+    private String lowStockTopic;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableSet<StockLevel> levels = new TreeSet<>(BY_QUANTITY);
+    private final Map<Long, Integer> quantityById = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public LowStockTracker(ApplicationFeatureProperties featureProperties,
+                           ObjectProvider<KafkaTemplate<String, ProductEvent>> kafkaTemplate) {
+        this.alertThreshold = featureProperties.getInventory().getLowStockThreshold();
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    /**
+     * Returns the ids of products with at most the given stock, lowest stock first,
+     * or empty if the tracker cannot answer yet and the caller should fall back to the database.
+     */
+    public Optional<List<Long>> findIdsAtOrBelow(int threshold) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            NavigableSet<StockLevel> matching = levels.headSet(new StockLevel(threshold, Long.MAX_VALUE), true);
+            List<Long> ids = new ArrayList<>(matching.size());
+            for (StockLevel level : matching) {
+                ids.add(level.productId());
+            }
+            return Optional.of(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductEvent(ProductEvent event) {
+        apply(event, true);
+    }
+
+    @EventListener
+    public void onRemoteProductEvent(RemoteProductEvent remoteEvent) {
+        apply(remoteEvent.getEvent(), false);
+    }
+
+    /**
+     * Records the stock of a product without raising alerts, used for the initial load.
+     */
+    public void put(Long productId, Integer quantity) {
+        update(productId, quantity);
+    }
+
+    public void markReady() {
+        ready = true;
+        logger.info("Low stock tracker ready with {} products, alert threshold {}", size(), alertThreshold);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return quantityById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(ProductEvent event, boolean local) {
+        if (event.getProductId() == null || event.getEventType() == null) {
+            return;
+        }
+        Integer previous;
+        switch (event.getEventType()) {
+            case DELETED:
+                update(event.getProductId(), null);
+                return;
+            case CREATED:
+            case UPDATED:
+            case STOCK_CHANGED:
+                previous = update(event.getProductId(), event.getStockQuantity());
+                break;
+            default:
+                return;
+        }
+        if (local && ready) {
+            alertOnCrossing(event, previous);
+        }
+    }
+
+    /**
+     * Moves the product to its new stock level and returns the level it had before.
+     * A null quantity removes the product, matching the database query which never
+     * reports products without a stock level.
+     */
+    private Integer update(Long productId, Integer quantity) {
+        if (productId == null) {
+            return null;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer previous = quantity == null ? quantityById.remove(productId) : quantityById.put(productId, quantity);
+            if (previous != null) {
+                levels.remove(new StockLevel(previous, productId));
+            }
+            if (quantity != null) {
+                levels.add(new StockLevel(quantity, productId));
+            }
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void alertOnCrossing(ProductEvent event, Integer previous) {
+        Integer current = event.getStockQuantity();
+        if (current == null) {
+            return;
+        }
+        boolean wasLow = previous != null && previous <= alertThreshold;
+        boolean isLow = current <= alertThreshold;
+        if (wasLow == isLow) {
+            return;
+        }
+        ProductEvent alert = new ProductEvent(
+                event.getProductId(),
+                event.getProductName(),
+                event.getPrice(),
+                current,
+                isLow ? ProductEvent.EventType.LOW_STOCK : ProductEvent.EventType.STOCK_REPLENISHED);
+        KafkaTemplate<String, ProductEvent> template = kafkaTemplate.getIfAvailable();
+        if (template == null) {
+            logger.info("Stock alert (Kafka disabled): {}", alert);
+            return;
+        }
+        try {
+            logger.info("Publishing stock alert to topic {}: {}", lowStockTopic, alert);
+            template.send(lowStockTopic, alert.getProductId().toString(), alert);
+        } catch (Exception e) {
+            logger.error("Error publishing stock alert: {}", e.getMessage(), e);
+        }
+    }
+
+    private record StockLevel(int quantity, long productId) {
+    }
+}
@@ -0,0 +1,214 @@
+package com.ecommerce.product.index;
+
+import com.ecommerce.product.cache.ProductCache;
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.event.RemoteProductEvent;
+import com.ecommerce.product.model.Product;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the in-memory product indexes once the application has started.
+ * By default the catalog is streamed from the database in a single pass that also warms the
+ * product cache; with the topics warm-start source, product state is instead rebuilt by
+ * replaying the compacted product topics, falling back to the database if that fails or
+ * if the topics lag the table, that is if the replayed products differ from it in count or
+ * hold a lower sum of row versions. This runs before readiness is reported, so no traffic
+ * is routed to an instance whose indexes are still empty.
+ * <p>
+ * Writes keep arriving while the load runs, locally and from other instances, and are
+ * applied to the indexes as they commit. The newest row version each one carries is noted
+ * here first, and a loaded product is skipped unless it is newer, so the load never puts
+ * older state over a live update.
+ * <p>
+ * How long the load took is recorded per source and outcome as product.warmstart.duration;
+ * Spring Boot's application.ready.time is measured before it runs and does not include it.
+ */
+@Component
+public class ProductIndexLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductIndexLoader.class);
+
+    private static final String SOURCE_TOPICS = "topics";
+    private static final String SOURCE_DATABASE = "database";
+
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductPriceIndex productPriceIndex;
+    private final LowStockTracker lowStockTracker;
+    private final ObjectProvider<ProductTopicReplay> topicReplay;
+    private final String source;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Newest row version written live per product while the load runs, guarded by itself.
+     * Null once the load is over.
+     */
+    private Map<Long, Long> liveVersions = new HashMap<>();
+
+    public ProductIndexLoader(ProductService productService,
+                              ProductRepository productRepository,
+                              ProductCache productCache,
+                              ProductSearchIndex productSearchIndex,
+                              ProductPriceIndex productPriceIndex,
+                              LowStockTracker lowStockTracker,
+                              ObjectProvider<ProductTopicReplay> topicReplay,
+                              ApplicationFeatureProperties featureProperties,
+                              MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productPriceIndex = productPriceIndex;
+        this.lowStockTracker = lowStockTracker;
+        this.topicReplay = topicReplay;
+        this.source = featureProperties.getWarmStart().getSource();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndexes() {
+        ProductTopicReplay replay = SOURCE_TOPICS.equalsIgnoreCase(source) ? topicReplay.getIfAvailable() : null;
+        if (replay == null || !loadFromTopics(replay)) {
+            loadFromDatabase();
+        }
+        synchronized (this) {
+            liveVersions = null;
+        }
+    }
+
+    /**
+     * Notes the row version of a committed write before the indexes apply it, which they do
+     * in listeners of lower precedence.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductEvent(ProductEvent event) {
+        recordLiveVersion(event);
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onRemoteProductEvent(RemoteProductEvent remoteEvent) {
+        recordLiveVersion(remoteEvent.getEvent());
+    }
+
+    private synchronized void recordLiveVersion(ProductEvent event) {
+        // Low-stock alerts carry no version and change no state
+        if (liveVersions == null || event.getProductId() == null || event.getVersion() == null) {
+            return;
+        }
+        liveVersions.merge(event.getProductId(), event.getVersion(), Math::max);
+    }
+
+    private boolean loadFromTopics(ProductTopicReplay replay) {
+        long start = System.nanoTime();
+        List<Product> products;
+        try {
+            products = replay.replay();
+        } catch (RuntimeException e) {
+            record(SOURCE_TOPICS, "failure", start);
+            logger.error("Failed to rebuild product state from the topics, loading it from the database", e);
+            return false;
+        }
+        long versionSum = 0;
+        for (Product product : products) {
+            versionSum += product.getVersion() == null ? 0 : product.getVersion();
+        }
+        ProductRepository.CatalogVersion database = productRepository.findCatalogVersion();
+        if (products.size() != database.getCount() || versionSum < database.getVersionSum()) {
+            record(SOURCE_TOPICS, "stale", start);
+            logger.warn("The product topics lag the database ({} products with version sum {}, against {} with {}), "
+                            + "loading product state from the database",
+                    products.size(), versionSum, database.getCount(), database.getVersionSum());
+            return false;
+        }
+        long skipped = 0;
+        for (Product product : products) {
+            if (!index(product)) {
+                skipped++;
+            }
+        }
+        markReady();
+        long elapsed = record(SOURCE_TOPICS, "success", start);
+        logger.info("Indexed {} products from the product topics in {} ms, {} already updated live",
+                products.size() - skipped, elapsed, skipped);
+        return true;
+    }
+
+    private void loadFromDatabase() {
+        long start = System.nanoTime();
+        long[] count = new long[1];
+        try {
+            productService.streamAllProducts(product -> {
+                if (index(product)) {
+                    count[0]++;
+                }
+            });
+        } catch (RuntimeException e) {
+            record(SOURCE_DATABASE, "failure", start);
+            logger.error("Failed to build product indexes, reads will fall back to the database", e);
+            return;
+        }
+        markReady();
+        long elapsed = record(SOURCE_DATABASE, "success", start);
+        logger.info("Indexed {} products in {} ms", count[0], elapsed);
+    }
+
+    /**
+     * Indexes a loaded product unless a write of the same or a later version has been applied
+     * live. The check and the puts hold the same lock as {@link #recordLiveVersion}, so a live
+     * write committing meanwhile is applied after them.
+     * @return false if the product was skipped
+     */
+    private synchronized boolean index(Product product) {
+        Long liveVersion = liveVersions.get(product.getId());
+        if (liveVersion != null && (product.getVersion() == null || liveVersion >= product.getVersion())) {
+            return false;
+        }
+        productSearchIndex.index(product);
+        productPriceIndex.put(product.getId(), product.getPrice());
+        lowStockTracker.put(product.getId(), product.getStockQuantity());
+        productCache.put(product);
+        return true;
+    }
+
+    private void markReady() {
+        productSearchIndex.markReady();
+        productPriceIndex.markReady();
+        lowStockTracker.markReady();
+    }
+
+    /**
+     * Records the time since start under the source and outcome, and returns it in milliseconds.
+     */
+    private long record(String source, String outcome, long start) {
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("product.warmstart.duration")
+                .description("Time taken to restore product state at startup")
+                .tag("source", source)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        return TimeUnit.NANOSECONDS.toMillis(elapsed);
+    }
+}
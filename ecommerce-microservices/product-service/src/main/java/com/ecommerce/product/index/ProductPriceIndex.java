@@ -0,0 +1,284 @@
+package com.ecommerce.product.index;
+
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.event.RemoteProductEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sorted in-memory price index for price range queries.
+ * <p>
+ * Prices are held as long minor units (cents) in a pair of parallel primitive arrays
+ * ordered by (price, id), so a range lookup is two binary searches and a copy of the
+ * matching ids with no boxing. Bounds are rounded inwards to whole cents, which is exact
+ * for prices with at most two decimal places; amounts beyond the range of a long are
+ * pinned to its ends.
+ * <p>
+ * The index is filled at startup by {@link ProductIndexLoader} and then maintained from
+ * product events once their transaction commits; until it is ready, queries fall back
+ * to the database. While it is being filled only the price of each product is recorded,
+ * and the arrays are built and sorted once when it is marked ready, so the initial load
+ * costs O(n log n) rather than a shifting insert per product.
+ */
+@Component
+public class ProductPriceIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductPriceIndex.class);
+
+    private static final int MINOR_UNIT_SCALE = 2;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final BigDecimal MAX_PRICE = BigDecimal.valueOf(Long.MAX_VALUE).movePointLeft(MINOR_UNIT_SCALE);
+    private static final BigDecimal MIN_PRICE = BigDecimal.valueOf(Long.MIN_VALUE).movePointLeft(MINOR_UNIT_SCALE);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Current price of every indexed product, used to locate its slot on update or removal,
+     * and the only record of the prices until the index is ready.
+     */
+    private final Map<Long, Long> priceById = new HashMap<>();
+
+    private volatile boolean ready;
+
+    /**
+     * Returns the ids of the products priced between min and max inclusive, cheapest first,
+     * or empty if the index cannot answer yet and the caller should fall back to the database.
+     */
+    public Optional<long[]> findIdsInRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        long min = toMinorUnits(minPrice, RoundingMode.CEILING);
+        long max = toMinorUnits(maxPrice, RoundingMode.FLOOR);
+        if (min > max) {
+            return Optional.of(new long[0]);
+        }
+        lock.readLock().lock();
+        try {
+            int from = firstIndexAtOrAbove(min, Long.MIN_VALUE);
+            int to = firstIndexAtOrAbove(max, Long.MAX_VALUE);
+            return Optional.of(Arrays.copyOfRange(ids, from, to));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a committed product event. Events are idempotent, so the same change may
+     * arrive both locally and from the product topics.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductEvent(ProductEvent event) {
+        apply(event);
+    }
+
+    @EventListener
+    public void onRemoteProductEvent(RemoteProductEvent remoteEvent) {
+        apply(remoteEvent.getEvent());
+    }
+
+    private void apply(ProductEvent event) {
+        if (event.getProductId() == null || event.getEventType() == null) {
+            return;
+        }
+        switch (event.getEventType()) {
+            case DELETED:
+                remove(event.getProductId());
+                break;
+            case CREATED:
+            case UPDATED:
+            case STOCK_CHANGED:
+                put(event.getProductId(), event.getPrice());
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void put(Long id, BigDecimal price) {
+        if (id == null || price == null) {
+            return;
+        }
+        long minor = toMinorUnits(price, RoundingMode.HALF_UP);
+        lock.writeLock().lock();
+        try {
+            Long previous = priceById.put(id, minor);
+            if (!ready) {
+                return;
+            }
+            if (previous != null) {
+                if (previous == minor) {
+                    return;
+                }
+                removeSlot(previous, id);
+            }
+            insertSlot(minor, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Long previous = priceById.remove(id);
+            if (ready && previous != null) {
+                removeSlot(previous, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the sorted arrays from the prices recorded so far; queries and updates use
+     * them from now on.
+     */
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                return;
+            }
+            int capacity = Math.max(INITIAL_CAPACITY, priceById.size());
+            prices = new long[capacity];
+            ids = new long[capacity];
+            size = 0;
+            for (Map.Entry<Long, Long> entry : priceById.entrySet()) {
+                prices[size] = entry.getValue();
+                ids[size] = entry.getKey();
+                size++;
+            }
+            sortSlots();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product price index ready with {} products", size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return priceById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insertSlot(long price, long id) {
+        if (size == prices.length) {
+            prices = Arrays.copyOf(prices, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        int slot = firstIndexAtOrAbove(price, id);
+        System.arraycopy(prices, slot, prices, slot + 1, size - slot);
+        System.arraycopy(ids, slot, ids, slot + 1, size - slot);
+        prices[slot] = price;
+        ids[slot] = id;
+        size++;
+    }
+
+    private void removeSlot(long price, long id) {
+        int slot = firstIndexAtOrAbove(price, id);
+        if (slot < size && prices[slot] == price && ids[slot] == id) {
+            System.arraycopy(prices, slot + 1, prices, slot, size - slot - 1);
+            System.arraycopy(ids, slot + 1, ids, slot, size - slot - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Heapsorts the filled slots by (price, id), in place and without boxing.
+     */
+    private void sortSlots() {
+        for (int root = size / 2 - 1; root >= 0; root--) {
+            siftDown(root, size);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swapSlots(0, end);
+            siftDown(0, end);
+        }
+    }
+
+    private void siftDown(int root, int end) {
+        while (true) {
+            int child = 2 * root + 1;
+            if (child >= end) {
+                return;
+            }
+            if (child + 1 < end && slotLess(child, child + 1)) {
+                child++;
+            }
+            if (!slotLess(root, child)) {
+                return;
+            }
+            swapSlots(root, child);
+            root = child;
+        }
+    }
+
+    private boolean slotLess(int a, int b) {
+        return prices[a] < prices[b] || (prices[a] == prices[b] && ids[a] < ids[b]);
+    }
+
+    private void swapSlots(int a, int b) {
+        long price = prices[a];
+        prices[a] = prices[b];
+        prices[b] = price;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+    }
+
+    /**
+     * Binary search for the first slot whose (price, id) is not less than the given pair.
+     */
+    private int firstIndexAtOrAbove(long price, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price || (prices[mid] == price && ids[mid] < id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Converts to minor units, pinning amounts a long cannot hold to its ends. The range is
+     * checked first, so an absurd bound such as 1E+999999999 is never expanded to its digits.
+     */
+    private static long toMinorUnits(BigDecimal price, RoundingMode roundingMode) {
+        if (price.compareTo(MAX_PRICE) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (price.compareTo(MIN_PRICE) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        return price.movePointRight(MINOR_UNIT_SCALE).setScale(0, roundingMode).longValue();
+    }
+}
@@ -0,0 +1,316 @@
+package com.ecommerce.product.index;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.event.RemoteProductEvent;
+import com.ecommerce.product.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index over product names, and optionally descriptions.
+ * <p>
+ * A query of three or more characters is answered by intersecting the posting lists of
+ * its trigrams and verifying the surviving candidates, which keeps the case-insensitive
+ * substring semantics of {@code findByNameContainingIgnoreCase} without a table scan.
+ * Shorter queries have no trigram to narrow them down and are not answered. Results are
+ * ranked exact match, then name prefix, then word prefix, then substring, then description
+ * match.
+ * <p>
+ * The index is filled at startup by {@link ProductIndexLoader} and kept current from the
+ * write paths of the product service, and from the product topics for writes made on other
+ * instances; until it is ready, searches fall back to the database.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int GRAM_SIZE = 3;
+
+    /**
+     * Shortest query that can be answered without visiting every product.
+     */
+    public static final int MIN_QUERY_LENGTH = GRAM_SIZE;
+
+    private static final int SCORE_EXACT = 100;
+    private static final int SCORE_PREFIX = 80;
+    private static final int SCORE_WORD_PREFIX = 60;
+    private static final int SCORE_SUBSTRING = 40;
+    private static final int SCORE_DESCRIPTION = 10;
+
+    /**
+     * Best first: higher score, then shorter name, then lower id for a stable order.
+     */
+    private static final Comparator<ScoredId> RANKING = Comparator
+            .comparingInt((ScoredId scored) -> -scored.score())
+            .thenComparingInt(scored -> scored.nameLength())
+            .thenComparingLong(scored -> scored.id());
+
+    private final boolean enabled;
+    private final boolean indexDescription;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public ProductSearchIndex(ApplicationFeatureProperties featureProperties) {
+        ApplicationFeatureProperties.SearchProperties properties = featureProperties.getSearch();
+        this.enabled = properties.isEnabled();
+        this.indexDescription = properties.isIndexDescription();
+    }
+
+    /**
+     * Returns the ids of the best matches for the query, best first, or empty if the
+     * index cannot answer and the caller should fall back to the database: before the
+     * index is ready, and for queries shorter than {@link #MIN_QUERY_LENGTH}, which have no
+     * trigram to look up.
+     */
+    public Optional<List<Long>> search(String query, int limit) {
+        if (!enabled || !ready) {
+            return Optional.empty();
+        }
+        String needle = normalize(query);
+        if (needle.length() < MIN_QUERY_LENGTH) {
+            return Optional.empty();
+        }
+
+        PriorityQueue<ScoredId> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(needle)) {
+                IndexedProduct document = documents.get(id);
+                int score = score(document, needle);
+                if (score > 0) {
+                    top.offer(new ScoredId(id, score, document.name().length()));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ScoredId> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (ScoredId scored : ranked) {
+            ids.add(scored.id());
+        }
+        return Optional.of(ids);
+    }
+
+    /**
+     * Follows writes made on other instances. Events carry the name and description, and
+     * indexing the same state twice is harmless, so echoes of local writes are applied too.
+     */
+    @EventListener
+    public void onRemoteProductEvent(RemoteProductEvent remoteEvent) {
+        ProductEvent event = remoteEvent.getEvent();
+        if (event.getProductId() == null || event.getEventType() == null) {
+            return;
+        }
+        switch (event.getEventType()) {
+            case DELETED:
+                remove(event.getProductId());
+                break;
+            case CREATED:
+            case UPDATED:
+            case STOCK_CHANGED:
+                // Events from producers that predate the catalog fields carry no name to index
+                if (event.getProductName() != null) {
+                    index(event.toProduct());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void index(Product product) {
+        if (!enabled || product.getId() == null) {
+            return;
+        }
+        IndexedProduct document = new IndexedProduct(
+                normalize(product.getName()),
+                indexDescription ? normalize(product.getDescription()) : "");
+        lock.writeLock().lock();
+        try {
+            IndexedProduct previous = documents.put(product.getId(), document);
+            if (previous != null) {
+                unpost(product.getId(), previous);
+            }
+            post(product.getId(), document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            IndexedProduct previous = documents.remove(id);
+            if (previous != null) {
+                unpost(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the product once the surrounding transaction commits, so rolled back
+     * writes never become searchable.
+     */
+    public void indexAfterCommit(Product product) {
+        afterCommit(() -> index(product));
+    }
+
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> remove(id));
+    }
+
+    /**
+     * Marks the initial build as complete; searches are served from memory from now on.
+     */
+    public void markReady() {
+        ready = true;
+        logger.info("Product search index ready with {} products and {} trigrams", size(), gramCount());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int gramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Intersects the posting lists of the query's trigrams, smallest first.
+     */
+    private Iterable<Long> candidates(String needle) {
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static int score(IndexedProduct document, String needle) {
+        String name = document.name();
+        if (name.equals(needle)) {
+            return SCORE_EXACT;
+        }
+        if (name.startsWith(needle)) {
+            return SCORE_PREFIX;
+        }
+        int position = name.indexOf(needle);
+        if (position > 0) {
+            return Character.isLetterOrDigit(name.charAt(position - 1)) ? SCORE_SUBSTRING : SCORE_WORD_PREFIX;
+        }
+        if (document.description().contains(needle)) {
+            return SCORE_DESCRIPTION;
+        }
+        return 0;
+    }
+
+    private void post(Long id, IndexedProduct document) {
+        for (String gram : documentGrams(document)) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void unpost(Long id, IndexedProduct document) {
+        for (String gram : documentGrams(document)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> documentGrams(IndexedProduct document) {
+        Set<String> grams = grams(document.name());
+        grams.addAll(grams(document.description()));
+        return grams;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record IndexedProduct(String name, String description) {
+    }
+
+    private record ScoredId(long id, int score, int nameLength) {
+    }
+}
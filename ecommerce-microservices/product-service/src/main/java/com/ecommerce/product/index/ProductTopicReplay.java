@@ -0,0 +1,219 @@
+package com.ecommerce.product.index;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rebuilds the latest state of every product from the compacted product topics, as the
+ * startup alternative to streaming the catalog from the database.
+ * <p>
+ * The end offsets of every partition of product-created and product-updated are taken first,
+ * and the partitions are spread over a few readers, each with its own consumer assigned to its
+ * partitions from the beginning, outside any consumer group. A reader keeps only the newest
+ * event per product, by {@link ProductEvent#rowVersion()}, and stops once it reaches the end
+ * offsets. The readers' results are merged the same way, since the creation and the updates
+ * of a product sit in different topics, and products whose newest event is a deletion are
+ * dropped. Compaction keeps that cost at about one record per product and topic.
+ */
+@Component
+@Conditional(KafkaCondition.class)
+public class ProductTopicReplay {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductTopicReplay.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final ConsumerFactory<String, ProductEvent> consumerFactory;
+    private final ApplicationFeatureProperties.WarmStartProperties properties;
+    private final Counter recordsRead;
+
+    @Value("${kafka.topics.product-created}")
+    private String productCreatedTopic;
+
+    @Value("${kafka.topics.product-updated}")
+    private String productUpdatedTopic;
+
+    public ProductTopicReplay(ConsumerFactory<String, ProductEvent> productEventConsumerFactory,
+                              ApplicationFeatureProperties featureProperties,
+                              MeterRegistry meterRegistry) {
+        this.consumerFactory = productEventConsumerFactory;
+        this.properties = featureProperties.getWarmStart();
+        this.recordsRead = Counter.builder("product.warmstart.records")
+                .description("Records read from the product topics to rebuild product state at startup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reads the product topics up to their current end and returns the products that exist.
+     * @throws IllegalStateException if the topics cannot be read to the end within the timeout
+     */
+    public List<Product> replay() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getTimeoutMs());
+        Map<TopicPartition, Long> endOffsets = endOffsets();
+        List<TopicPartition> partitions = new ArrayList<>();
+        endOffsets.forEach((partition, end) -> {
+            if (end > 0) {
+                partitions.add(partition);
+            }
+        });
+        if (partitions.isEmpty()) {
+            return List.of();
+        }
+
+        int readerCount = Math.max(1, Math.min(properties.getReaders(), partitions.size()));
+        List<List<TopicPartition>> assignments = new ArrayList<>(readerCount);
+        for (int i = 0; i < readerCount; i++) {
+            assignments.add(new ArrayList<>());
+        }
+        for (int i = 0; i < partitions.size(); i++) {
+            assignments.get(i % readerCount).add(partitions.get(i));
+        }
+        logger.info("Replaying {} partitions of the product topics with {} readers", partitions.size(), readerCount);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService readers = Executors.newFixedThreadPool(readerCount, task -> {
+            Thread thread = new Thread(task, "warm-start-reader-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Map<Long, ProductEvent>>> results = new ArrayList<>(readerCount);
+            for (int i = 0; i < readerCount; i++) {
+                List<TopicPartition> assignment = assignments.get(i);
+                String clientIdSuffix = "-" + i;
+                results.add(readers.submit(() -> read(assignment, endOffsets, clientIdSuffix, deadline)));
+            }
+            Map<Long, ProductEvent> latest = new HashMap<>();
+            for (Future<Map<Long, ProductEvent>> result : results) {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                for (ProductEvent event : result.get(remaining, TimeUnit.NANOSECONDS).values()) {
+                    keepNewest(latest, event);
+                }
+            }
+            List<Product> products = new ArrayList<>(latest.size());
+            for (ProductEvent event : latest.values()) {
+                if (event.getEventType() != ProductEvent.EventType.DELETED) {
+                    products.add(event.toProduct());
+                }
+            }
+            return products;
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Product topics not replayed within " + properties.getTimeoutMs() + " ms", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to replay the product topics", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying the product topics", e);
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    private Map<TopicPartition, Long> endOffsets() {
+        try (Consumer<String, ProductEvent> consumer = createConsumer("-offsets")) {
+            List<TopicPartition> all = new ArrayList<>();
+            for (String topic : List.of(productCreatedTopic, productUpdatedTopic)) {
+                for (PartitionInfo info : consumer.partitionsFor(topic)) {
+                    all.add(new TopicPartition(info.topic(), info.partition()));
+                }
+            }
+            return consumer.endOffsets(all);
+        }
+    }
+
+    private Map<Long, ProductEvent> read(List<TopicPartition> assignment,
+                                         Map<TopicPartition, Long> endOffsets,
+                                         String clientIdSuffix,
+                                         long deadline) {
+        Map<Long, ProductEvent> latest = new HashMap<>();
+        try (Consumer<String, ProductEvent> consumer = createConsumer(clientIdSuffix)) {
+            consumer.assign(assignment);
+            consumer.seekToBeginning(assignment);
+            Set<TopicPartition> behind = new HashSet<>(assignment);
+            while (!behind.isEmpty()) {
+                if (System.nanoTime() > deadline || Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException(behind.size() + " partitions not replayed to the end in time");
+                }
+                int count = 0;
+                for (ConsumerRecord<String, ProductEvent> record : consumer.poll(POLL_TIMEOUT)) {
+                    count++;
+                    // Null when the value could not be deserialized; the deserializer has logged it
+                    if (record.value() != null && carriesState(record.value())) {
+                        keepNewest(latest, record.value());
+                    }
+                }
+                recordsRead.increment(count);
+                List<TopicPartition> caughtUp = new ArrayList<>();
+                for (TopicPartition partition : behind) {
+                    if (consumer.position(partition) >= endOffsets.get(partition)) {
+                        caughtUp.add(partition);
+                    }
+                }
+                // Later records are left to the cache synchronizer, which reads them live
+                consumer.pause(caughtUp);
+                caughtUp.forEach(behind::remove);
+            }
+        }
+        return latest;
+    }
+
+    private Consumer<String, ProductEvent> createConsumer(String clientIdSuffix) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, properties.getMaxPollRecords());
+        // Bounds the metadata and offset lookups too, so an unreachable broker fails within the timeout
+        overrides.put(ConsumerConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, (int) Math.min(Integer.MAX_VALUE, properties.getTimeoutMs()));
+        return consumerFactory.createConsumer(null, "warm-start", clientIdSuffix, overrides);
+    }
+
+    private static boolean carriesState(ProductEvent event) {
+        if (event.getProductId() == null || event.getEventType() == null) {
+            return false;
+        }
+        switch (event.getEventType()) {
+            case CREATED:
+            case UPDATED:
+            case STOCK_CHANGED:
+            case DELETED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void keepNewest(Map<Long, ProductEvent> latest, ProductEvent event) {
+        latest.merge(event.getProductId(), event,
+                (current, candidate) -> candidate.rowVersion() >= current.rowVersion() ? candidate : current);
+    }
+}
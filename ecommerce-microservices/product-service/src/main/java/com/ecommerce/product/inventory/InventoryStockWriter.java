@@ -0,0 +1,210 @@
+package com.ecommerce.product.inventory;
+
+import com.ecommerce.product.cache.ProductCache;
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.service.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Writes batches of inventory updates to the products table.
+ * <p>
+ * The rows of the changed products are locked and read first, in id order, and each
+ * product's updates are applied to its stock in the order they were published. An update
+ * that would take the stock beyond the range of an integer is skipped on its own and counted
+ * as rejected; a product whose stock would end below zero is set to zero and counted as
+ * clamped, since it has been oversold. The resulting quantities are then written, on
+ * PostgreSQL by a single {@code UPDATE ... FROM (VALUES ...)} joining the products to one
+ * row per changed product, elsewhere as one JDBC batch of single-row updates. In the same
+ * transaction a STOCK_CHANGED event is published for every product updated, so caches,
+ * indexes and read models follow.
+ */
+@Component
+public class InventoryStockWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryStockWriter.class);
+
+    private static final int MAX_ROWS_PER_STATEMENT = 10000;
+
+    private static final String LOCK_STOCK_PREFIX = "SELECT id, stock_quantity FROM products WHERE id IN (";
+
+    private static final String LOCK_STOCK_SUFFIX = ") ORDER BY id FOR UPDATE";
+
+    private static final String UPDATE_FROM_VALUES_PREFIX =
+            "UPDATE products AS p SET stock_quantity = v.quantity, updated_at = ?, version = p.version + 1 "
+                    + "FROM (VALUES ";
+
+    private static final String UPDATE_FROM_VALUES_ROW = "(?::bigint, ?::integer)";
+
+    private static final String UPDATE_FROM_VALUES_SUFFIX =
+            ") AS v(id, quantity) WHERE p.id = v.id";
+
+    private static final String UPDATE_ONE_SQL =
+            "UPDATE products SET stock_quantity = ?, updated_at = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ProductCache productCache;
+    private final Counter rejected;
+    private final Counter clamped;
+    private boolean postgres;
+
+    public InventoryStockWriter(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ProductRepository productRepository,
+                                ProductService productService,
+                                ProductCache productCache,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.productCache = productCache;
+        this.rejected = Counter.builder("product.inventory.updates.rejected")
+                .description("Inventory updates skipped because they would take the stock out of range")
+                .register(meterRegistry);
+        this.clamped = Counter.builder("product.inventory.updates.clamped")
+                .description("Product stock updates that would have gone below zero and were set to zero")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void detectDatabase() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        postgres = "PostgreSQL".equals(database);
+    }
+
+    /**
+     * Applies each product's changes, in the order given, in one transaction.
+     * @return number of products updated; changes for unknown products are ignored
+     */
+    public int write(SortedMap<Long, List<StockChange>> changes) {
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        return transactionTemplate.execute(status -> {
+            SortedMap<Long, Integer> quantities = apply(changes, lockStock(changes.keySet()));
+            if (quantities.isEmpty()) {
+                return 0;
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            int updated = postgres ? updateFromValues(quantities, now) : updateEach(quantities, now);
+
+            List<ProductEvent> events = new ArrayList<>(quantities.size());
+            for (ProductRepository.StockSnapshot snapshot : productRepository.findStockSnapshotsByIdIn(quantities.keySet())) {
+                productCache.evictAfterCommit(snapshot.getId());
+                events.add(snapshot.toEvent(ProductEvent.EventType.STOCK_CHANGED));
+            }
+            productService.publishProductEvents(events);
+            return updated;
+        });
+    }
+
+    /**
+     * Locks the rows of the given products, in id order so concurrent batches cannot
+     * deadlock, and returns their current stock. Products that do not exist are left out.
+     */
+    private Map<Long, Integer> lockStock(Collection<Long> ids) {
+        Map<Long, Integer> stock = new TreeMap<>();
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Long> chunk = all.subList(from, Math.min(all.size(), from + MAX_ROWS_PER_STATEMENT));
+            String sql = LOCK_STOCK_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), "?")) + LOCK_STOCK_SUFFIX;
+            jdbcTemplate.query(sql, resultSet -> {
+                int quantity = resultSet.getInt(2);
+                stock.put(resultSet.getLong(1), resultSet.wasNull() ? 0 : quantity);
+            }, chunk.toArray());
+        }
+        return stock;
+    }
+
+    /**
+     * Works out the new stock of every existing product from its current stock and its
+     * changes, skipping the changes that would overflow and clamping the result at zero.
+     */
+    private SortedMap<Long, Integer> apply(SortedMap<Long, List<StockChange>> changes, Map<Long, Integer> stock) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (Map.Entry<Long, Integer> current : stock.entrySet()) {
+            long quantity = current.getValue();
+            boolean changed = false;
+            for (StockChange change : changes.get(current.getKey())) {
+                long next = change.applyTo(quantity);
+                if (next > Integer.MAX_VALUE || next < Integer.MIN_VALUE) {
+                    rejected.increment();
+                    logger.warn("Skipping inventory update {} of product {}: stock {} would be out of range",
+                            change, current.getKey(), next);
+                    continue;
+                }
+                quantity = next;
+                changed = true;
+            }
+            if (!changed) {
+                continue;
+            }
+            if (quantity < 0) {
+                clamped.increment();
+                logger.debug("Product {} oversold by {}, setting its stock to zero", current.getKey(), -quantity);
+                quantity = 0;
+            }
+            quantities.put(current.getKey(), (int) quantity);
+        }
+        return quantities;
+    }
+
+    private int updateFromValues(SortedMap<Long, Integer> quantities, Timestamp now) {
+        int updated = 0;
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(quantities.entrySet());
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Map.Entry<Long, Integer>> chunk =
+                    entries.subList(from, Math.min(entries.size(), from + MAX_ROWS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder(UPDATE_FROM_VALUES_PREFIX.length()
+                    + chunk.size() * (UPDATE_FROM_VALUES_ROW.length() + 2) + UPDATE_FROM_VALUES_SUFFIX.length());
+            sql.append(UPDATE_FROM_VALUES_PREFIX);
+            Object[] args = new Object[1 + chunk.size() * 2];
+            args[0] = now;
+            int arg = 1;
+            for (Map.Entry<Long, Integer> entry : chunk) {
+                if (arg > 1) {
+                    sql.append(", ");
+                }
+                sql.append(UPDATE_FROM_VALUES_ROW);
+                args[arg++] = entry.getKey();
+                args[arg++] = entry.getValue();
+            }
+            sql.append(UPDATE_FROM_VALUES_SUFFIX);
+            updated += jdbcTemplate.update(sql.toString(), args);
+        }
+        return updated;
+    }
+
+    private int updateEach(SortedMap<Long, Integer> quantities, Timestamp now) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> args.add(new Object[] {quantity, now, id}));
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(UPDATE_ONE_SQL, args)) {
+            updated += Math.max(count, 0);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ecommerce.product.inventory;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.TopicConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Moves an existing inventory-updated topic from compaction to the delete cleanup policy.
+ * <p>
+ * The topic used to be declared compacted, and topic declarations only apply to topics that
+ * do not exist yet, so a topic created back then keeps compacting deltas away. When enabled,
+ * this sets cleanup.policy=delete on that one topic at startup, if it is not set already, and
+ * leaves its other configs and every other topic alone. It can be switched off again once
+ * every environment has been migrated.
+ */
+@Component
+@Conditional(KafkaCondition.class)
+public class InventoryTopicPolicyMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryTopicPolicyMigration.class);
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private final boolean enabled;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${kafka.topics.inventory-updated}")
+    private String inventoryUpdatedTopic;
+
+    public InventoryTopicPolicyMigration(ApplicationFeatureProperties featureProperties) {
+        this.enabled = featureProperties.getInventory().getUpdates().isMigrateCleanupPolicy();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        ConfigResource topic = new ConfigResource(ConfigResource.Type.TOPIC, inventoryUpdatedTopic);
+        try (AdminClient admin = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers))) {
+            ConfigEntry policy = admin.describeConfigs(List.of(topic)).all()
+                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .get(topic)
+                    .get(TopicConfig.CLEANUP_POLICY_CONFIG);
+            if (policy != null && TopicConfig.CLEANUP_POLICY_DELETE.equals(policy.value())) {
+                logger.debug("{} already has cleanup.policy=delete", inventoryUpdatedTopic);
+                return;
+            }
+            AlterConfigOp delete = new AlterConfigOp(
+                    new ConfigEntry(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_DELETE),
+                    AlterConfigOp.OpType.SET);
+            admin.incrementalAlterConfigs(Map.of(topic, List.of(delete))).all().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            logger.info("Changed cleanup.policy of {} from {} to delete", inventoryUpdatedTopic,
+                    policy == null ? "the broker default" : policy.value());
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Could not change the cleanup policy of {}: {}", inventoryUpdatedTopic, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecommerce.product.inventory;
+
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.ProductEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Applies the stock updates of the inventory-updated topic, such as warehouse feeds, in
+ * batches.
+ * <p>
+ * An update either sets a product's quantity (quantityAvailable) or adjusts it
+ * (quantityDelta). The updates of a poll are grouped by product, in the order they were
+ * published, and {@link InventoryStockWriter} applies them to the current stock, so however
+ * many updates a product receives the batch writes it once, and the whole batch is one
+ * statement on PostgreSQL. The instances share one consumer group, so each update is
+ * applied by one of them. Deltas are not idempotent, so the topic keeps every record until
+ * its retention expires rather than being compacted.
+ * <p>
+ * Records that are not valid stock updates, such as unreadable values or negative
+ * quantities, are skipped one by one, as are updates that would overflow the stock; the
+ * rest of the batch is still applied. Offsets are committed only after the batch has been
+ * written. A batch that fails, on a deadlock for instance, is rolled back and redelivered.
+ * Delivery is at least once: if an instance stops between the database commit and the
+ * offset commit, the deltas of that batch are applied again.
+ */
+@Component
+@Conditional(KafkaCondition.class)
+public class InventoryUpdateListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryUpdateListener.class);
+
+    private static final String INVENTORY_UPDATED = "PRODUCT_INVENTORY_UPDATED";
+
+    private final InventoryStockWriter stockWriter;
+    private final Counter received;
+    private final Counter ignored;
+    private final DistributionSummary productsPerBatch;
+    private final Timer writeTime;
+
+    public InventoryUpdateListener(InventoryStockWriter stockWriter, MeterRegistry meterRegistry) {
+        this.stockWriter = stockWriter;
+        this.received = Counter.builder("product.inventory.updates.received")
+                .description("Inventory updates received from the inventory-updated topic")
+                .register(meterRegistry);
+        this.ignored = Counter.builder("product.inventory.updates.ignored")
+                .description("Inventory-updated records that were not valid stock updates")
+                .register(meterRegistry);
+        this.productsPerBatch = DistributionSummary.builder("product.inventory.updates.batch.products")
+                .description("Products written per batch of inventory updates, after coalescing")
+                .register(meterRegistry);
+        this.writeTime = Timer.builder("product.inventory.updates.write")
+                .description("Time taken to write a coalesced batch of inventory updates")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(
+            id = "inventory-updates",
+            topics = "${kafka.topics.inventory-updated}",
+            groupId = "${spring.application.name}-inventory",
+            containerFactory = "inventoryListenerContainerFactory",
+            autoStartup = "${application.features.inventory.updates.enabled:true}")
+    public void onInventoryUpdates(List<ConsumerRecord<String, ProductEvent>> records) {
+        received.increment(records.size());
+        SortedMap<Long, List<StockChange>> changes = new TreeMap<>();
+        for (ConsumerRecord<String, ProductEvent> record : records) {
+            StockChange change = toChange(record.value());
+            if (change == null) {
+                ignored.increment();
+                logger.debug("Ignoring inventory update at {}-{}@{}", record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            changes.computeIfAbsent(record.value().getProductId(), id -> new ArrayList<>()).add(change);
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        productsPerBatch.record(changes.size());
+        int updated = writeTime.record(() -> stockWriter.write(changes));
+        logger.debug("Applied {} inventory updates to {} products ({} found)", records.size(), changes.size(), updated);
+    }
+
+    /**
+     * The change an update makes, or null if the record is not a valid stock update.
+     */
+    private static StockChange toChange(ProductEvent event) {
+        // Null when the value could not be deserialized; the error handler has logged it
+        if (event == null || event.getProductId() == null || !INVENTORY_UPDATED.equals(event.getEventType())) {
+            return null;
+        }
+        if (event.getQuantityDelta() != null) {
+            return StockChange.adjustBy(event.getQuantityDelta());
+        }
+        if (event.getQuantityAvailable() != null && event.getQuantityAvailable() >= 0) {
+            return StockChange.setTo(event.getQuantityAvailable());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.product.inventory;
+
+/**
+ * What one inventory update does to a product's stock: set it to a new quantity, or add a
+ * delta to the current one.
+ */
+record StockChange(boolean absolute, int quantity) {
+
+    static StockChange setTo(int quantity) {
+        return new StockChange(true, quantity);
+    }
+
+    static StockChange adjustBy(int delta) {
+        return new StockChange(false, delta);
+    }
+
+    /**
+     * The quantity after applying this change to the given one, widened so a delta cannot
+     * overflow.
+     */
+    long applyTo(long current) {
+        return absolute ? quantity : current + quantity;
+    }
+}
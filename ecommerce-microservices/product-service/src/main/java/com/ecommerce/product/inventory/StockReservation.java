@@ -0,0 +1,13 @@
+package com.ecommerce.product.inventory;
+
+import java.time.Instant;
+
+/**
+ * Units of a product held for a caller until they are committed, released, or expire.
+ */
+public record StockReservation(String reservationId, long productId, int quantity, Instant expiresAt) {
+
+    boolean isExpired(Instant now) {
+        return expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,450 @@
+package com.ecommerce.product.inventory;
+
+import com.ecommerce.product.cache.ProductCache;
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.service.ProductNotFoundException;
+import com.ecommerce.product.service.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory stock reservations for products under heavy checkout contention.
+ * <p>
+ * The first reservation of a product loads its stock into a counter that becomes the
+ * authority for that product's available and reserved units. Reserving is a compare-and-set
+ * on the counter, so concurrent checkouts of a hot product never wait on a database row lock.
+ * Committed reservations are accumulated as a net decrement per product and written behind
+ * in one JDBC batch per flush, which also publishes a single STOCK_CHANGED per product
+ * however many units were taken in between. Reservations not committed within their TTL are
+ * released. Counters with nothing reserved or pending are dropped once idle, and reloaded
+ * by the next reservation.
+ * <p>
+ * Stock changes made through the other write paths of this instance are folded into the
+ * counters from their product events. Counters are per instance, so reservations for a
+ * product must be routed to one instance for the counts to be authoritative.
+ */
+@Component
+@EnableScheduling
+public class StockReservationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationEngine.class);
+
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, updated_at = ?, version = version + 1"
+            + " WHERE id = ? AND stock_quantity >= ?";
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ProductCache productCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration reservationTtl;
+    private final Duration counterIdleTimeout;
+
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, StockReservation> reservations = new ConcurrentHashMap<>();
+
+    private final Counter flushedUnits;
+    private final Counter expiredReservations;
+    private final Counter shortfallUnits;
+    private final Counter evictedCounters;
+
+    public StockReservationEngine(ProductRepository productRepository,
+                                  ProductService productService,
+                                  ProductCache productCache,
+                                  JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  ApplicationFeatureProperties featureProperties,
+                                  MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.productCache = productCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.reservationTtl = Duration.ofSeconds(featureProperties.getInventory().getReservationTtlSeconds());
+        this.counterIdleTimeout = Duration.ofSeconds(featureProperties.getInventory().getReservationCounterIdleSeconds());
+
+        Gauge.builder("product.stock.reservations.active", reservations, Map::size)
+                .description("Reservations currently holding stock")
+                .register(meterRegistry);
+        Gauge.builder("product.stock.reservations.counters", counters, Map::size)
+                .description("Products whose stock is tracked in memory")
+                .register(meterRegistry);
+        Gauge.builder("product.stock.reservations.pending.units", counters, StockReservationEngine::pendingUnits)
+                .description("Committed units not yet written to the database")
+                .register(meterRegistry);
+        this.flushedUnits = Counter.builder("product.stock.reservations.flushed.units")
+                .description("Committed units written to the database")
+                .register(meterRegistry);
+        this.expiredReservations = Counter.builder("product.stock.reservations.expired")
+                .description("Reservations released because their TTL elapsed")
+                .register(meterRegistry);
+        this.shortfallUnits = Counter.builder("product.stock.reservations.shortfall.units")
+                .description("Committed units not written because the stored stock was lower")
+                .register(meterRegistry);
+        this.evictedCounters = Counter.builder("product.stock.reservations.counters.evicted")
+                .description("Counters dropped after standing idle")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Holds quantity units of the product for the reservation TTL.
+     * @return The reservation, or empty if fewer units are available
+     * @throws ProductNotFoundException if the product does not exist
+     */
+    public Optional<StockReservation> reserve(Long productId, int quantity) {
+        while (true) {
+            switch (counterFor(productId).tryReserve(quantity)) {
+                case RESERVED:
+                    StockReservation reservation = new StockReservation(
+                            UUID.randomUUID().toString(), productId, quantity, Instant.now().plus(reservationTtl));
+                    reservations.put(reservation.reservationId(), reservation);
+                    return Optional.of(reservation);
+                case UNAVAILABLE:
+                    return Optional.empty();
+                default:
+                    // Evicted while idle; the next lookup loads a fresh counter
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Turns a reservation into a sale; the units are written to the database on the next flush.
+     * @return false if the reservation is unknown, already settled, or expired
+     */
+    public boolean commit(String reservationId) {
+        StockReservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        StockCounter counter = counters.get(reservation.productId());
+        if (counter == null) {
+            // The product was deleted while the reservation was open
+            return false;
+        }
+        if (reservation.isExpired(Instant.now())) {
+            counter.release(reservation.quantity());
+            expiredReservations.increment();
+            return false;
+        }
+        counter.commit(reservation.quantity());
+        return true;
+    }
+
+    /**
+     * Returns the units of a reservation to the available stock.
+     * @return false if the reservation is unknown or already settled
+     */
+    public boolean release(String reservationId) {
+        StockReservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        StockCounter counter = counters.get(reservation.productId());
+        if (counter != null) {
+            counter.release(reservation.quantity());
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void releaseExpiredReservations() {
+        Instant now = Instant.now();
+        for (StockReservation reservation : reservations.values()) {
+            if (reservation.isExpired(now) && reservations.remove(reservation.reservationId(), reservation)) {
+                StockCounter counter = counters.get(reservation.productId());
+                if (counter != null) {
+                    counter.release(reservation.quantity());
+                }
+                expiredReservations.increment();
+            }
+        }
+    }
+
+    /**
+     * Writes the units committed since the last flush to the products table, one batched
+     * statement per product in id order, and publishes one STOCK_CHANGED per product. Counters
+     * left idle are evicted afterwards, while no flush of theirs can be in flight.
+     */
+    @Scheduled(fixedDelayString = "${application.features.inventory.reservation-flush-interval-ms:500}")
+    public void flush() {
+        List<PendingDecrement> pending = new ArrayList<>();
+        for (StockCounter counter : counters.values()) {
+            int units = counter.pendingDecrement.getAndSet(0);
+            if (units > 0) {
+                pending.add(new PendingDecrement(counter, units));
+            }
+        }
+        if (!pending.isEmpty()) {
+            writePending(pending);
+        }
+        evictIdleCounters();
+    }
+
+    private void writePending(List<PendingDecrement> pending) {
+        // A consistent lock order keeps concurrent flushers and writers from deadlocking
+        pending.sort(Comparator.comparingLong(decrement -> decrement.counter().productId));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBehind(pending));
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush {} stock decrements, retrying on the next flush", pending.size(), e);
+            for (PendingDecrement decrement : pending) {
+                decrement.counter().restore(decrement.units(), decrement.flushed);
+            }
+            return;
+        }
+        for (PendingDecrement decrement : pending) {
+            if (decrement.flushed) {
+                flushedUnits.increment(decrement.units());
+            } else {
+                decrement.counter().dropped(decrement.units());
+                shortfallUnits.increment(decrement.units());
+            }
+        }
+    }
+
+    private void evictIdleCounters() {
+        long idleSince = System.nanoTime() - counterIdleTimeout.toNanos();
+        for (StockCounter counter : counters.values()) {
+            if (counter.lastReservedAt - idleSince < 0 && counter.tryRetire()) {
+                counters.remove(counter.productId, counter);
+                evictedCounters.increment();
+            }
+        }
+    }
+
+    /**
+     * Folds committed stock changes from the other write paths into the counters.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductEvent(ProductEvent event) {
+        if (event.getProductId() == null || event.getEventType() == null) {
+            return;
+        }
+        StockCounter counter = counters.get(event.getProductId());
+        if (counter == null) {
+            return;
+        }
+        switch (event.getEventType()) {
+            case DELETED:
+                counters.remove(event.getProductId());
+                break;
+            case CREATED:
+            case UPDATED:
+            case STOCK_CHANGED:
+                if (event.getStockQuantity() != null) {
+                    counter.rebase(event.getStockQuantity());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void writeBehind(List<PendingDecrement> pending) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(pending.size());
+        for (PendingDecrement decrement : pending) {
+            args.add(new Object[] {decrement.units(), now, decrement.counter().productId, decrement.units()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, args);
+        for (int i = 0; i < pending.size(); i++) {
+            PendingDecrement decrement = pending.get(i);
+            if (updated[i] == 0) {
+                // The stored stock no longer covers the units sold here, as when another instance
+                // sold them too. The counter gives them up once committed and follows the store.
+                logger.warn("Stock of product {} is below the {} units committed since the last flush, not writing them",
+                        decrement.counter().productId, decrement.units());
+                continue;
+            }
+            // Before commit, so the STOCK_CHANGED below is measured against the flushed level
+            decrement.counter().flushed(decrement.units());
+            decrement.flushed = true;
+        }
+
+        List<Long> productIds = pending.stream().map(decrement -> decrement.counter().productId).toList();
+        List<ProductEvent> events = new ArrayList<>(productIds.size());
+        for (ProductRepository.StockSnapshot snapshot : productRepository.findStockSnapshotsByIdIn(productIds)) {
+            productCache.evictAfterCommit(snapshot.getId());
+            events.add(snapshot.toEvent(ProductEvent.EventType.STOCK_CHANGED));
+        }
+        productService.publishProductEvents(events);
+    }
+
+    private StockCounter counterFor(Long productId) {
+        StockCounter counter = counters.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        // Loaded outside the map, so the query does not hold up other products' counters
+        StockCounter loaded = loadCounter(productId);
+        StockCounter raced = counters.putIfAbsent(productId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private StockCounter loadCounter(Long productId) {
+        ProductRepository.StockSnapshot snapshot = productRepository.findStockSnapshotById(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId));
+        int stock = snapshot.getStockQuantity() == null ? 0 : snapshot.getStockQuantity();
+        logger.info("Tracking reservations for product {} from stock {}", productId, stock);
+        return new StockCounter(productId, stock);
+    }
+
+    private static double pendingUnits(Map<Long, StockCounter> counters) {
+        long units = 0;
+        for (StockCounter counter : counters.values()) {
+            units += counter.pendingDecrement.get();
+        }
+        return units;
+    }
+
+    private enum ReserveOutcome { RESERVED, UNAVAILABLE, RETIRED }
+
+    /**
+     * Stock of one product. Reserve, commit and release are lock-free; only rebasing on a
+     * stored quantity, which is rare, takes the counter's monitor.
+     * <p>
+     * Eviction retires a counter before removing it. A reservation raises reserved before it
+     * checks for retirement and retiring checks reserved after raising the flag, so either the
+     * reservation sees the flag and retries on a new counter, or the eviction sees the
+     * reservation and keeps the counter.
+     */
+    private static final class StockCounter {
+
+        private final long productId;
+        private final AtomicInteger available;
+        private final AtomicInteger reserved = new AtomicInteger();
+        private final AtomicInteger pendingDecrement = new AtomicInteger();
+        private volatile boolean retired;
+        private volatile long lastReservedAt = System.nanoTime();
+
+        /**
+         * Stock quantity the database holds as far as this counter knows, flushes included.
+         */
+        private int storedQuantity;
+
+        StockCounter(long productId, int stock) {
+            this.productId = productId;
+            this.available = new AtomicInteger(stock);
+            this.storedQuantity = stock;
+        }
+
+        ReserveOutcome tryReserve(int quantity) {
+            reserved.addAndGet(quantity);
+            if (retired) {
+                reserved.addAndGet(-quantity);
+                return ReserveOutcome.RETIRED;
+            }
+            lastReservedAt = System.nanoTime();
+            int current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    reserved.addAndGet(-quantity);
+                    return ReserveOutcome.UNAVAILABLE;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            return ReserveOutcome.RESERVED;
+        }
+
+        void commit(int quantity) {
+            // Units leave reserved last, so a counter with nothing reserved has nothing in between
+            pendingDecrement.addAndGet(quantity);
+            reserved.addAndGet(-quantity);
+        }
+
+        void release(int quantity) {
+            available.addAndGet(quantity);
+            reserved.addAndGet(-quantity);
+        }
+
+        /**
+         * Marks the counter as evicted if nothing is reserved or waiting to be flushed.
+         */
+        boolean tryRetire() {
+            retired = true;
+            if (reserved.get() == 0 && pendingDecrement.get() == 0) {
+                return true;
+            }
+            retired = false;
+            return false;
+        }
+
+        synchronized void flushed(int units) {
+            storedQuantity -= units;
+        }
+
+        /**
+         * Gives up units the stored stock could not cover, so available is again the stored
+         * quantity less what is reserved and pending.
+         */
+        void dropped(int units) {
+            available.addAndGet(units);
+        }
+
+        /**
+         * Puts back the units of a flush that rolled back, so the next flush writes them again.
+         */
+        synchronized void restore(int units, boolean flushed) {
+            pendingDecrement.addAndGet(units);
+            if (flushed) {
+                storedQuantity += units;
+            }
+        }
+
+        /**
+         * Applies a change of the stored quantity made outside this engine, such as a restock.
+         */
+        synchronized void rebase(int quantity) {
+            int change = quantity - storedQuantity;
+            storedQuantity = quantity;
+            available.addAndGet(change);
+        }
+    }
+
+    private static final class PendingDecrement {
+
+        private final StockCounter counter;
+        private final int units;
+        private boolean flushed;
+
+        PendingDecrement(StockCounter counter, int units) {
+            this.counter = counter;
+            this.units = units;
+        }
+
+        StockCounter counter() {
+            return counter;
+        }
+
+        int units() {
+            return units;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.product.kafka.config;
+
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.config.KafkaConfig;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.event.ProductAnalyticsAggregate;
+import com.ecommerce.product.kafka.event.SessionSummary;
+import com.ecommerce.product.kafka.serialization.BinaryEnhancedProductEventDeserializer;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka configuration of the in-service analytics: a batch consumer of the product-analytics
+ * topic and of its repartition by session, and templates on the shared producer for that
+ * repartition, for the window aggregates dashboards read instead of raw events and for the
+ * session summaries.
+ */
+@Configuration
+@Conditional(KafkaCondition.class)
+public class AnalyticsKafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.topics.product-analytics-aggregates:product-analytics-aggregates}")
+    private String aggregatesTopic;
+
+    @Value("${spring.kafka.topics.product-sessions:product-sessions}")
+    private String sessionsTopic;
+
+    @Value("${spring.kafka.topics.product-analytics-by-session:product-analytics-by-session}")
+    private String sessionRepartitionTopic;
+
+    @Value("${application.features.analytics.buffer-size:100}")
+    private int bufferSize;
+
+    /**
+     * Consumer of the product-analytics topic. Values are read in either wire format, a poll
+     * returns at most buffer-size records, and records that fail to deserialize are handed
+     * over as nulls instead of blocking the partition.
+     */
+    @Bean
+    public ConsumerFactory<String, EnhancedProductEvent> analyticsConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, BinaryEnhancedProductEventDeserializer.class);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, bufferSize);
+        // Aggregates are a live view; a new consumer group starts from the present
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EnhancedProductEvent> analyticsListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, EnhancedProductEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(analyticsConsumerFactory());
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, ProductAnalyticsAggregate> aggregateKafkaTemplate(
+            ProducerFactory<String, Object> producerFactory,
+            ProducerListener<String, Object> monitoringProducerListener) {
+        return KafkaConfig.templateOn(producerFactory, monitoringProducerListener);
+    }
+
+    @Bean
+    public KafkaTemplate<String, EnhancedProductEvent> sessionRepartitionKafkaTemplate(
+            ProducerFactory<String, Object> producerFactory,
+            ProducerListener<String, Object> monitoringProducerListener) {
+        return KafkaConfig.templateOn(producerFactory, monitoringProducerListener);
+    }
+
+    @Bean
+    public KafkaTemplate<String, SessionSummary> sessionSummaryKafkaTemplate(
+            ProducerFactory<String, Object> producerFactory,
+            ProducerListener<String, Object> monitoringProducerListener) {
+        return KafkaConfig.templateOn(producerFactory, monitoringProducerListener);
+    }
+
+    // Keyed by product id; not compacted, since closed tumbling windows are the dashboard history
+    @Bean
+    public NewTopic productAnalyticsAggregatesTopic() {
+        return TopicBuilder.name(aggregatesTopic)
+                .partitions(6)
+                .replicas(3)
+                .config("retention.ms", "604800000")
+                .build();
+    }
+
+    // Analytics events keyed by session id; only read while sessions are open, so kept briefly
+    @Bean
+    public NewTopic productAnalyticsBySessionTopic() {
+        return TopicBuilder.name(sessionRepartitionTopic)
+                .partitions(6)
+                .replicas(3)
+                .config("retention.ms", "86400000")
+                .build();
+    }
+
+    // Keyed by session id; one summary per closed session
+    @Bean
+    public NewTopic productSessionsTopic() {
+        return TopicBuilder.name(sessionsTopic)
+                .partitions(6)
+                .replicas(3)
+                .config("retention.ms", "604800000")
+                .build();
+    }
+}
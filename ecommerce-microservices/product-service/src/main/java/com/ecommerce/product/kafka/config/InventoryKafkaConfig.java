@@ -0,0 +1,67 @@
+package com.ecommerce.product.kafka.config;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.ProductEvent;
+import com.ecommerce.product.kafka.serialization.BinaryProductEventDeserializer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka configuration of the batch consumer applying inventory-updated records to product stock.
+ */
+@Configuration
+@Conditional(KafkaCondition.class)
+public class InventoryKafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    /**
+     * Consumer of the inventory-updated topic. Values are read in either wire format, a poll
+     * returns at most max-poll-records updates, and records that fail to deserialize are
+     * handed over as nulls instead of blocking the partition. Offsets are never committed
+     * automatically.
+     */
+    @Bean
+    public ConsumerFactory<String, ProductEvent> inventoryConsumerFactory(ApplicationFeatureProperties featureProperties) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, BinaryProductEventDeserializer.class);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, featureProperties.getInventory().getUpdates().getMaxPollRecords());
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // Every update counts; a new consumer group starts from the oldest one retained
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * Batch listeners whose offsets are committed once the listener has returned, that is
+     * after the batch has been written to the database.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ProductEvent> inventoryListenerContainerFactory(
+            ApplicationFeatureProperties featureProperties) {
+        ConcurrentKafkaListenerContainerFactory<String, ProductEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(inventoryConsumerFactory(featureProperties));
+        factory.setBatchListener(true);
+        factory.setConcurrency(featureProperties.getInventory().getUpdates().getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+}
@@ -1,72 +1,27 @@
 package com.ecommerce.product.kafka.config;
 
 import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.config.KafkaConfig;
 import com.ecommerce.product.kafka.event.ProductEvent;
-import org.apache.kafka.clients.producer.ProducerConfig;
-import org.apache.kafka.common.serialization.StringSerializer;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
-
-import java.util.HashMap;
-import java.util.Map;
+import org.springframework.kafka.support.ProducerListener;
 
 @Configuration
 @Conditional(KafkaCondition.class)
 @org.springframework.context.annotation.Profile("!dev,!postgres")
 public class KafkaProducerConfig {
 
-    @Value("${spring.kafka.bootstrap-servers}")
-    private String bootstrapServers;
-
-    @Value("${spring.kafka.producer.client-id}")
-    private String clientId;
-
-    @Value("${spring.kafka.producer.acks}")
-    private String acks;
-
-    @Value("${spring.kafka.producer.retries}")
-    private int retries;
-
-    @Value("${spring.kafka.producer.batch-size}")
-    private int batchSize;
-
-    @Value("${spring.kafka.producer.buffer-memory}")
-    private int bufferMemory;
-
-    @Value("${spring.kafka.producer.compression-type}")
-    private String compressionType;
-
-    @Bean("enhancedProducerConfigs")
-    public Map<String, Object> enhancedProducerConfigs() {
-        Map<String, Object> props = new HashMap<>();
-        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        props.put(ProducerConfig.CLIENT_ID_CONFIG, clientId);
-        props.put(ProducerConfig.ACKS_CONFIG, acks);
-        props.put(ProducerConfig.RETRIES_CONFIG, retries);
-        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
-        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
-        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
-        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
-        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1);
-        
-        return props;
-    }
-
-    @Bean("enhancedProducerFactory")
-    public ProducerFactory<String, ProductEvent> enhancedProducerFactory() {
-        return new DefaultKafkaProducerFactory<>(enhancedProducerConfigs());
-    }
-
+    /**
+     * Template for product events, on the shared producer; the value format follows
+     * {@code spring.kafka.producer.wire-format.product-events}.
+     */
     @Bean("extendedKafkaTemplate")
-    public KafkaTemplate<String, ProductEvent> extendedKafkaTemplate() {
-        return new KafkaTemplate<>(enhancedProducerFactory());
+    public KafkaTemplate<String, ProductEvent> extendedKafkaTemplate(ProducerFactory<String, Object> producerFactory,
+            ProducerListener<String, Object> monitoringProducerListener) {
+        return KafkaConfig.templateOn(producerFactory, monitoringProducerListener);
     }
 }
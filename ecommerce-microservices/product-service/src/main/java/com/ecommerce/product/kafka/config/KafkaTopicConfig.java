@@ -3,6 +3,7 @@ package com.ecommerce.product.kafka.config;
 import com.ecommerce.product.config.KafkaCondition;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
@@ -27,6 +28,9 @@ public class KafkaTopicConfig {
     @Value("${spring.kafka.topics.product-updated}")
     private String productUpdatedTopic;
 
+    @Value("${kafka.topics.product-partitions:3}")
+    private int productPartitions;
+
     @Value("${spring.kafka.topics.product-deleted}")
     private String productDeletedTopic;
 
@@ -43,7 +47,7 @@ public class KafkaTopicConfig {
     @Bean
     public NewTopic productCreatedTopic() {
         return TopicBuilder.name(productCreatedTopic)
-                .partitions(3)
+                .partitions(productPartitions)
                 .replicas(3)
                 .compact()
                 .build();
@@ -52,7 +56,7 @@ public class KafkaTopicConfig {
     @Bean
     public NewTopic productUpdatedTopic() {
         return TopicBuilder.name(productUpdatedTopic)
-                .partitions(3)
+                .partitions(productPartitions)
                 .replicas(3)
                 .compact()
                 .build();
@@ -72,7 +76,10 @@ public class KafkaTopicConfig {
         return TopicBuilder.name(inventoryUpdatedTopic)
                 .partitions(3)
                 .replicas(3)
-                .compact()
+                // Deltas carry no state of their own, so every record is kept until retention
+                // rather than compacted down to the last one per product
+                .config(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_DELETE)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "604800000")
                 .build();
     }
 }
@@ -8,17 +8,27 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.springframework.kafka.support.ProducerListener;
 
-import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Custom Kafka producer listener that integrates with Micrometer metrics
- * for comprehensive monitoring and alerting capabilities.
- * 
- * This demonstrates enterprise-grade observability patterns essential
- * for production microservices deployments.
+ * Producer listener recording send outcomes and latency per topic and partition.
+ * <p>
+ * Meters are resolved once per topic and partition, on the first acknowledgement from it, and
+ * kept in an array indexed by partition, so an acknowledged send costs a map lookup on the
+ * topic name, a counter increment and a timer record, and allocates nothing. Latency runs
+ * from the producer-assigned create time of the record to its acknowledgement, which covers
+ * the time spent waiting in the accumulator as well as the broker round trip. Records carrying
+ * a caller-supplied timestamp are counted but not timed, as their timestamp need not be the
+ * send time. Percentiles are computed in-process on HdrHistogram-backed distributions.
+ * Totals are the sums of the per-partition and per-topic counters; separate total counters
+ * would share their names once exported to Prometheus.
+ * <p>
+ * The producer's own metrics (record-queue-time, batch-size-avg, records-per-request,
+ * buffer-available-bytes and the rest) are bound separately on the producer factory.
  *
  * @param <K> Key type
  * @param <V> Value type
@@ -27,74 +37,85 @@ import java.util.concurrent.TimeUnit;
 public class MonitoringProducerListener<K, V> implements ProducerListener<K, V> {
 
     private final MeterRegistry meterRegistry;
-    private final ConcurrentMap<String, Timer> sendTimers = new ConcurrentHashMap<>();
-    private final Counter totalMessagesSent;
-    private final Counter failedMessages;
+    private final ConcurrentMap<String, TopicMeters> topics = new ConcurrentHashMap<>();
 
     public MonitoringProducerListener(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
-        
-        // Register global metrics
-        this.totalMessagesSent = Counter.builder("kafka.producer.messages.sent.total")
-                .description("Total number of messages sent")
-                .register(meterRegistry);
-                
-        this.failedMessages = Counter.builder("kafka.producer.messages.failed.total")
-                .description("Total number of messages that failed to send")
-                .register(meterRegistry);
     }
 
     @Override
     public void onSuccess(ProducerRecord<K, V> record, RecordMetadata recordMetadata) {
-        String topic = record.topic();
-        
-        // Track total successful messages
-        totalMessagesSent.increment();
-        
-        // Track per-topic latency
-        getOrCreateTimer(topic).record(
-                Duration.ofMillis(System.currentTimeMillis() - record.timestamp())
-        );
-        
-        // Additional per-topic counter
-        Counter.builder("kafka.producer.messages.sent")
-               .tag("topic", topic)
-               .register(meterRegistry)
-               .increment();
-               
-        log.debug("Message sent to topic={}, partition={}, offset={}", 
-                 topic, recordMetadata.partition(), recordMetadata.offset());
+        PartitionMeters meters = topicMeters(record.topic()).partition(recordMetadata.partition());
+        meters.sent().increment();
+        if (record.timestamp() == null && recordMetadata.hasTimestamp()) {
+            meters.latency().record(System.currentTimeMillis() - recordMetadata.timestamp(), TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public void onError(ProducerRecord<K, V> record, RecordMetadata recordMetadata, Exception exception) {
-        String topic = record.topic();
-        
-        // Track failed messages
-        failedMessages.increment();
-        
-        // Track per-topic failures
-        Counter.builder("kafka.producer.messages.failed")
-               .tag("topic", topic)
-               .tag("error_type", exception.getClass().getSimpleName())
-               .register(meterRegistry)
-               .increment();
-               
-        log.error("Error sending message to topic={}: {}", topic, exception.getMessage(), exception);
+        topicMeters(record.topic()).failed(exception.getClass()).increment();
+        log.error("Error sending message to topic={}: {}", record.topic(), exception.getMessage(), exception);
+    }
+
+    private TopicMeters topicMeters(String topic) {
+        TopicMeters meters = topics.get(topic);
+        return meters != null ? meters : topics.computeIfAbsent(topic, TopicMeters::new);
+    }
+
+    private record PartitionMeters(Counter sent, Timer latency) {
     }
 
     /**
-     * Gets or creates a timer for tracking message send latency per topic.
-     * This provides granular performance metrics for different event types.
+     * Meters of one topic. Partitions are added under the lock and published by replacing
+     * the array, so readers see either the old or the new array, never a partial one.
      */
-    private Timer getOrCreateTimer(String topic) {
-        return sendTimers.computeIfAbsent(topic, t -> 
-            Timer.builder("kafka.producer.message.latency")
-                 .tag("topic", t)
-                 .description("Latency of sending Kafka messages")
-                 .publishPercentiles(0.5, 0.95, 0.99)
-                 .publishPercentileHistogram()
-                 .register(meterRegistry)
-        );
+    private final class TopicMeters {
+
+        private final String topic;
+        private volatile PartitionMeters[] partitions = new PartitionMeters[0];
+        private final Map<Class<?>, Counter> failures = new ConcurrentHashMap<>();
+
+        TopicMeters(String topic) {
+            this.topic = topic;
+        }
+
+        PartitionMeters partition(int partition) {
+            PartitionMeters[] current = partitions;
+            if (partition < current.length && current[partition] != null) {
+                return current[partition];
+            }
+            return register(partition);
+        }
+
+        Counter failed(Class<?> errorType) {
+            return failures.computeIfAbsent(errorType, type -> Counter.builder("kafka.producer.messages.failed")
+                    .tag("topic", topic)
+                    .tag("error_type", type.getSimpleName())
+                    .register(meterRegistry));
+        }
+
+        private synchronized PartitionMeters register(int partition) {
+            PartitionMeters[] current = partitions;
+            if (partition < current.length && current[partition] != null) {
+                return current[partition];
+            }
+            String partitionTag = Integer.toString(partition);
+            PartitionMeters meters = new PartitionMeters(
+                    Counter.builder("kafka.producer.messages.sent")
+                            .tag("topic", topic)
+                            .tag("partition", partitionTag)
+                            .register(meterRegistry),
+                    Timer.builder("kafka.producer.message.latency")
+                            .tag("topic", topic)
+                            .tag("partition", partitionTag)
+                            .description("Time from send to acknowledgement of Kafka messages")
+                            .publishPercentiles(0.5, 0.95, 0.99, 0.999)
+                            .register(meterRegistry));
+            PartitionMeters[] grown = Arrays.copyOf(current, Math.max(current.length, partition + 1));
+            grown[partition] = meters;
+            partitions = grown;
+            return meters;
+        }
     }
 }
@@ -0,0 +1,36 @@
+package com.ecommerce.product.kafka.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pre-aggregated activity of one product and interaction type over a time window,
+ * published in place of the raw analytics events for dashboards to read.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductAnalyticsAggregate {
+
+    public enum WindowType {
+        /**
+         * A closed, non-overlapping window; published once.
+         */
+        TUMBLING,
+        /**
+         * The trailing window up to the flush; republished on every flush while active.
+         */
+        SLIDING
+    }
+
+    private Long productId;
+    private String eventType;
+    private WindowType windowType;
+    private long windowStart; // epoch millis, inclusive
+    private long windowEnd;   // epoch millis, exclusive
+    private long count;
+    private double revenue;   // sum of quantity * price
+    private Double averageRating;
+    private Double averageViewDurationSeconds;
+}
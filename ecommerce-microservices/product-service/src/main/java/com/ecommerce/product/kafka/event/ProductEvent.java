@@ -34,6 +34,11 @@ public class ProductEvent implements Serializable {
     
     private String userId;
     
+    /**
+     * Change in stock carried by an inventory update instead of the new quantityAvailable.
+     */
+    private Integer quantityDelta;
+    
     public static ProductEvent created(Long productId, String name, String description, 
                                       BigDecimal price, Integer quantity, String category, 
                                       String sku, String userId) {
@@ -91,6 +96,17 @@ public class ProductEvent implements Serializable {
                 .build();
     }
     
+    public static ProductEvent inventoryAdjusted(Long productId, Integer delta, String userId) {
+        return ProductEvent.builder()
+                .eventId(UUID.randomUUID())
+                .eventType("PRODUCT_INVENTORY_UPDATED")
+                .productId(productId)
+                .quantityDelta(delta)
+                .timestamp(LocalDateTime.now())
+                .userId(userId)
+                .build();
+    }
+    
     public static ProductEvent priceChanged(Long productId, BigDecimal price, String userId) {
         return ProductEvent.builder()
                 .eventId(UUID.randomUUID())
@@ -0,0 +1,44 @@
+package com.ecommerce.product.kafka.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A closed shopping session: the enhanced events sharing a session id, from the first
+ * until the session timed out, reached its maximum length or was evicted.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SessionSummary {
+
+    public enum CloseReason {
+        /**
+         * No event arrived within the inactivity gap.
+         */
+        INACTIVE,
+        /**
+         * The session reached its maximum length; later events open a new session.
+         */
+        MAX_LENGTH,
+        /**
+         * The session state was evicted to make room for a new session.
+         */
+        EVICTED,
+        /**
+         * The service was shutting down.
+         */
+        SHUTDOWN
+    }
+
+    private String sessionId;
+    private String userId;
+    private long sessionStart; // epoch millis of the first event
+    private long sessionEnd;   // epoch millis of the last event
+    private int eventCount;
+    private int productsTouched; // distinct products, estimated beyond a handful
+    private int purchases;
+    private boolean converted;
+    private CloseReason closeReason;
+}
@@ -0,0 +1,320 @@
+package com.ecommerce.product.kafka.publish;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.config.KafkaConfig;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.event.ProductEvent;
+import com.ecommerce.product.kafka.spool.EventSpool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishing pipeline for events that callers hand off without waiting for the send, such
+ * as the analytics copies of enhanced events.
+ * <p>
+ * Events are queued in one of a few bounded {@link PublishRingBuffer}s, chosen by key so the
+ * events of a product stay in order, and each ring is drained by its own thread, which hands
+ * whole batches to the shared producer. When a ring is full, the configured
+ * {@link OverflowPolicy} decides whether the caller waits, the oldest event is dropped or the
+ * event is spilled to the local spool. A burst therefore costs bounded memory and shows up in
+ * the queue depth, wait time and overflow metrics instead of piling up as pending tasks.
+ * <p>
+ * A ring that spills is paused, moves its queued events to the spool first and keeps spilling
+ * until the spool has been replayed. Its drainer hands each batch to the producer under the ring's
+ * handoff lock, which the spilling caller takes too, so no queued or spilled event of a
+ * product can overtake an earlier one.
+ */
+@Slf4j
+@Component
+@Conditional(KafkaCondition.class)
+public class EventPublishPipeline {
+
+    private static final long DRAIN_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventSpool eventSpool;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final int batchSize;
+
+    private final PublishRingBuffer[] rings;
+    private final ReentrantLock[] handoffs;
+    private final Thread[] drainers;
+
+    private final Timer queueWait;
+    private final DistributionSummary drainedBatchSize;
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Counter rejected;
+    private final Counter sendFailures;
+
+    public EventPublishPipeline(ProducerFactory<String, Object> producerFactory,
+                                ProducerListener<String, Object> monitoringProducerListener,
+                                EventSpool eventSpool,
+                                ApplicationFeatureProperties featureProperties,
+                                MeterRegistry meterRegistry) {
+        ApplicationFeatureProperties.PublishProperties properties = featureProperties.getPublish();
+        this.kafkaTemplate = KafkaConfig.templateOn(producerFactory, monitoringProducerListener);
+        this.eventSpool = eventSpool;
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getBlockTimeoutMs());
+        this.batchSize = Math.max(1, properties.getBatchSize());
+
+        int drainerCount = Math.max(1, properties.getDrainers());
+        int ringCapacity = Math.max(1, properties.getCapacity() / drainerCount);
+        this.rings = new PublishRingBuffer[drainerCount];
+        this.handoffs = new ReentrantLock[drainerCount];
+        this.drainers = new Thread[drainerCount];
+        for (int i = 0; i < drainerCount; i++) {
+            rings[i] = new PublishRingBuffer(ringCapacity);
+            handoffs[i] = new ReentrantLock();
+        }
+
+        Gauge.builder("product.publish.queue.depth", this, EventPublishPipeline::queueDepth)
+                .description("Events queued for the producer")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("product.publish.queue.wait")
+                .description("Time events spent queued before being handed to the producer")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.drainedBatchSize = DistributionSummary.builder("product.publish.drain.batch.size")
+                .description("Events handed to the producer per drained batch")
+                .register(meterRegistry);
+        this.dropped = overflowCounter(meterRegistry, "dropped", "Queued events discarded to make room for newer ones");
+        this.spilled = overflowCounter(meterRegistry, "spilled", "Events spooled because the queue was full");
+        this.rejected = overflowCounter(meterRegistry, "rejected", "Events refused because the queue stayed full or was closed");
+        this.sendFailures = Counter.builder("product.publish.send.failed")
+                .description("Queued events the producer refused or failed to deliver")
+                .register(meterRegistry);
+
+        for (int i = 0; i < drainerCount; i++) {
+            int shard = i;
+            drainers[i] = new Thread(() -> drain(shard), "publish-drainer-" + i);
+            drainers[i].setDaemon(true);
+            drainers[i].start();
+        }
+        log.info("Publish pipeline started with {} drainers, {} slots each, overflow policy {}",
+                drainerCount, ringCapacity, overflowPolicy);
+    }
+
+    /**
+     * Queues an event for the producer.
+     * @return false if the event was neither queued nor spilled and is lost
+     */
+    public boolean publish(String topic, String key, Object value) {
+        int shard = key == null ? 0 : (key.hashCode() & Integer.MAX_VALUE) % rings.length;
+        PublishRingBuffer ring = rings[shard];
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                int outcome = ring.offerDroppingOldest(topic, key, value);
+                if (outcome > 0) {
+                    dropped.increment();
+                }
+                if (outcome < 0) {
+                    rejected.increment();
+                    return false;
+                }
+                return true;
+            }
+            case SPILL -> {
+                if (offer(ring, topic, key, value, 0)) {
+                    return true;
+                }
+                if (spillInOrder(shard, topic, key, value)) {
+                    return true;
+                }
+                rejected.increment();
+                return false;
+            }
+            default -> {
+                if (offer(ring, topic, key, value, blockTimeoutNanos)) {
+                    return true;
+                }
+                rejected.increment();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Whether {@link #publish} may make the caller wait: for room under the block policy, or
+     * while a queue is handed to the spool under the spill policy.
+     */
+    public boolean mayBlock() {
+        return overflowPolicy != OverflowPolicy.DROP_OLDEST;
+    }
+
+    public int queueDepth() {
+        int depth = 0;
+        for (PublishRingBuffer ring : rings) {
+            depth += ring.size();
+        }
+        return depth;
+    }
+
+    /**
+     * Stops accepting events and waits for the drainers to hand the queued ones to the
+     * producer, then flushes it.
+     */
+    @PreDestroy
+    public void close() {
+        for (PublishRingBuffer ring : rings) {
+            ring.close();
+        }
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MS;
+        try {
+            for (Thread drainer : drainers) {
+                drainer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int left = queueDepth();
+        if (left > 0) {
+            log.warn("Publish pipeline closed with {} events still queued", left);
+        }
+        kafkaTemplate.flush();
+    }
+
+    private boolean offer(PublishRingBuffer ring, String topic, String key, Object value, long timeoutNanos) {
+        try {
+            return ring.offer(topic, key, value, timeoutNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Queues the event if its ring is not paused and has room, and spools it otherwise. A ring
+     * that starts spilling is paused, so no caller can queue behind the events it then moves to
+     * the spool, and resumes once the spool has been replayed.
+     * @return false if the event was neither queued nor spilled and is lost
+     */
+    private boolean spillInOrder(int shard, String topic, String key, Object value) {
+        if (!eventSpool.isEnabled()) {
+            return false;
+        }
+        PublishRingBuffer ring = rings[shard];
+        handoffs[shard].lock();
+        try {
+            if (ring.isPaused() && eventSpool.pendingRecords() == 0) {
+                ring.resume();
+            }
+            if (!ring.isPaused()) {
+                if (offer(ring, topic, key, value, 0)) {
+                    return true;
+                }
+                ring.pause();
+                spillQueued(ring);
+            }
+            if (spill(topic, key, value)) {
+                spilled.increment();
+                return true;
+            }
+            return false;
+        } finally {
+            handoffs[shard].unlock();
+        }
+    }
+
+    /**
+     * Moves every queued event of the ring to the spool, oldest first. Called with the ring's
+     * handoff lock held, so its drainer is not sending a batch meanwhile.
+     */
+    private void spillQueued(PublishRingBuffer ring) {
+        PublishRingBuffer.Batch batch = new PublishRingBuffer.Batch(batchSize);
+        int count;
+        try {
+            while ((count = ring.drainTo(batch, 0)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    if (spill(batch.topics[i], batch.keys[i], batch.values[i])) {
+                        spilled.increment();
+                    } else {
+                        rejected.increment();
+                    }
+                }
+                batch.clear(count);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean spill(String topic, String key, Object value) {
+        if (value instanceof EnhancedProductEvent enhancedEvent) {
+            return eventSpool.append(topic, key, enhancedEvent);
+        }
+        if (value instanceof ProductEvent productEvent) {
+            return eventSpool.append(topic, key, productEvent);
+        }
+        return false;
+    }
+
+    private void drain(int shard) {
+        PublishRingBuffer ring = rings[shard];
+        PublishRingBuffer.Batch batch = new PublishRingBuffer.Batch(batchSize);
+        while (true) {
+            int count;
+            try {
+                if (ring.awaitRecords(DRAIN_WAIT_NANOS) < 0) {
+                    return;
+                }
+                handoffs[shard].lock();
+                try {
+                    count = ring.drainTo(batch, 0);
+                    handOff(batch, count);
+                } finally {
+                    handoffs[shard].unlock();
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (count > 0) {
+                drainedBatchSize.record(count);
+                batch.clear(count);
+            }
+        }
+    }
+
+    private void handOff(PublishRingBuffer.Batch batch, int count) {
+        long now = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            queueWait.record(now - batch.queuedAt[i], TimeUnit.NANOSECONDS);
+            String topic = batch.topics[i];
+            try {
+                kafkaTemplate.send(topic, batch.keys[i], batch.values[i]).whenComplete((result, e) -> {
+                    if (e != null) {
+                        sendFailures.increment();
+                        log.debug("Failed to publish event to topic {}: {}", topic, e.getMessage());
+                    }
+                });
+            } catch (Exception e) {
+                sendFailures.increment();
+                log.debug("Failed to hand event for topic {} to the producer: {}", topic, e.getMessage());
+            }
+        }
+    }
+
+    private static Counter overflowCounter(MeterRegistry meterRegistry, String outcome, String description) {
+        return Counter.builder("product.publish.overflow")
+                .tag("outcome", outcome)
+                .description(description)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.product.kafka.publish;
+
+/**
+ * What the publish pipeline does with an event that arrives while its queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Wait for room up to the block timeout, then reject the event. Slows callers down to
+     * the rate the producer sustains.
+     */
+    BLOCK,
+    /**
+     * Discard the oldest queued event to make room. Callers never wait; the queue holds the
+     * most recent events.
+     */
+    DROP_OLDEST,
+    /**
+     * Write the event to the local spool, from which the spool forwarder replays it. The
+     * events already queued are moved to the spool ahead of it, and later events follow them
+     * there until the spool has been replayed, so a product's events keep their order.
+     * Callers wait only while the queue is handed to the producer.
+     */
+    SPILL
+}
@@ -0,0 +1,237 @@
+package com.ecommerce.product.kafka.publish;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded ring of records waiting for the producer, filled by any number of threads and
+ * drained by one.
+ * <p>
+ * Records are held in parallel arrays allocated once, with the time each was queued, so
+ * queueing allocates nothing. Producers hold the lock only to write one slot; the drainer
+ * takes it once per batch and copies out up to a whole batch, so contention does not grow
+ * with the event rate.
+ */
+final class PublishRingBuffer {
+
+    private final String[] topics;
+    private final String[] keys;
+    private final Object[] values;
+    private final long[] queuedAt;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private int head;
+    private int size;
+    private boolean closed;
+    private boolean paused;
+
+    PublishRingBuffer(int capacity) {
+        this.topics = new String[capacity];
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.queuedAt = new long[capacity];
+    }
+
+    /**
+     * Queues a record, waiting up to the given time for room.
+     * @return false if the ring stayed full, is paused or is closed
+     */
+    boolean offer(String topic, String key, Object value, long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            if (paused) {
+                return false;
+            }
+            while (size == values.length && !closed) {
+                if (timeoutNanos <= 0) {
+                    return false;
+                }
+                timeoutNanos = notFull.awaitNanos(timeoutNanos);
+            }
+            if (closed) {
+                return false;
+            }
+            put(topic, key, value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues a record, discarding the oldest one if the ring is full.
+     * @return 1 if a record was discarded, 0 if not, -1 if the ring is closed
+     */
+    int offerDroppingOldest(String topic, String key, Object value) {
+        lock.lock();
+        try {
+            if (closed) {
+                return -1;
+            }
+            int dropped = 0;
+            if (size == values.length) {
+                clear(head);
+                head = (head + 1) % values.length;
+                size--;
+                dropped = 1;
+            }
+            put(topic, key, value);
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits up to the given time for a record to be queued, without taking any.
+     * @return 1 if records are queued, 0 if none arrived in time, -1 once the ring is closed and empty
+     */
+    int awaitRecords(long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            while (size == 0) {
+                if (closed) {
+                    return -1;
+                }
+                if (timeoutNanos <= 0) {
+                    return 0;
+                }
+                timeoutNanos = notEmpty.awaitNanos(timeoutNanos);
+            }
+            return 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves up to a batch of records into the given batch, waiting up to the given time for
+     * the first one.
+     * @return number of records moved, or -1 once the ring is closed and empty
+     */
+    int drainTo(Batch batch, long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            while (size == 0) {
+                if (closed) {
+                    return -1;
+                }
+                if (timeoutNanos <= 0) {
+                    return 0;
+                }
+                timeoutNanos = notEmpty.awaitNanos(timeoutNanos);
+            }
+            int count = Math.min(size, batch.values.length);
+            for (int i = 0; i < count; i++) {
+                int slot = (head + i) % values.length;
+                batch.topics[i] = topics[slot];
+                batch.keys[i] = keys[slot];
+                batch.values[i] = values[slot];
+                batch.queuedAt[i] = queuedAt[slot];
+                clear(slot);
+            }
+            head = (head + count) % values.length;
+            size -= count;
+            notFull.signalAll();
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Refuses records offered from now on until {@link #resume()}; those queued can still be
+     * drained.
+     */
+    void pause() {
+        lock.lock();
+        try {
+            paused = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void resume() {
+        lock.lock();
+        try {
+            paused = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isPaused() {
+        lock.lock();
+        try {
+            return paused;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting records; those queued are still drained.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String topic, String key, Object value) {
+        int slot = (head + size) % values.length;
+        topics[slot] = topic;
+        keys[slot] = key;
+        values[slot] = value;
+        queuedAt[slot] = System.nanoTime();
+        size++;
+        notEmpty.signal();
+    }
+
+    private void clear(int slot) {
+        topics[slot] = null;
+        keys[slot] = null;
+        values[slot] = null;
+    }
+
+    /**
+     * Records drained in one go, reused by the draining thread from batch to batch.
+     */
+    static final class Batch {
+
+        final String[] topics;
+        final String[] keys;
+        final Object[] values;
+        final long[] queuedAt;
+
+        Batch(int capacity) {
+            this.topics = new String[capacity];
+            this.keys = new String[capacity];
+            this.values = new Object[capacity];
+            this.queuedAt = new long[capacity];
+        }
+
+        void clear(int count) {
+            Arrays.fill(topics, 0, count, null);
+            Arrays.fill(keys, 0, count, null);
+            Arrays.fill(values, 0, count, null);
+        }
+    }
+}
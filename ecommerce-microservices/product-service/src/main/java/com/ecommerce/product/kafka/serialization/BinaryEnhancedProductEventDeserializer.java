@@ -0,0 +1,92 @@
+package com.ecommerce.product.kafka.serialization;
+
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import static com.ecommerce.product.kafka.serialization.BinaryEventFormat.INTERACTION_TYPES;
+import static com.ecommerce.product.kafka.serialization.BinaryEventFormat.REFERRERS;
+import static com.ecommerce.product.kafka.serialization.BinaryEventFormat.USER_AGENTS;
+import static com.ecommerce.product.kafka.serialization.BinaryEventFormat.isPresent;
+
+/**
+ * Reads {@link EnhancedProductEvent}s written by {@link BinaryEnhancedProductEventSerializer}.
+ * Records that are not in the binary format are read as JSON, so a topic can be consumed
+ * while its producers move from one format to the other.
+ */
+public class BinaryEnhancedProductEventDeserializer implements Deserializer<EnhancedProductEvent> {
+
+    private final JsonDeserializer<EnhancedProductEvent> jsonDeserializer =
+            new JsonDeserializer<>(EnhancedProductEvent.class, false);
+
+    @Override
+    public EnhancedProductEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!BinaryEventFormat.isBinary(data)) {
+            return jsonDeserializer.deserialize(topic, data);
+        }
+        BinaryEventReader reader = new BinaryEventReader(data);
+        long presence = BinaryEventFormat.readHeader(reader);
+
+        EnhancedProductEvent event = new EnhancedProductEvent();
+        if (isPresent(presence, 0)) {
+            event.setEventId(BinaryEventFormat.readId(reader));
+        }
+        if (isPresent(presence, 1)) {
+            event.setEventType(reader.readDictionaryString(INTERACTION_TYPES));
+        }
+        if (isPresent(presence, 2)) {
+            event.setProductId(reader.readVarLong());
+        }
+        if (isPresent(presence, 3)) {
+            event.setProductName(reader.readString());
+        }
+        if (isPresent(presence, 4)) {
+            event.setUserId(reader.readString());
+        }
+        if (isPresent(presence, 5)) {
+            event.setTimestamp(reader.readTimestamp());
+        }
+        if (isPresent(presence, 6)) {
+            event.setUserAgent(reader.readDictionaryString(USER_AGENTS));
+        }
+        if (isPresent(presence, 7)) {
+            event.setIpAddress(BinaryEventFormat.readIpAddress(reader));
+        }
+        if (isPresent(presence, 8)) {
+            event.setSessionId(reader.readString());
+        }
+        if (isPresent(presence, 9)) {
+            event.setReferrer(reader.readDictionaryString(REFERRERS));
+        }
+        if (isPresent(presence, 10)) {
+            event.setQuantity(reader.readVarInt());
+        }
+        if (isPresent(presence, 11)) {
+            event.setPrice(reader.readDouble());
+        }
+        if (isPresent(presence, 12)) {
+            event.setRating(reader.readVarInt());
+        }
+        if (isPresent(presence, 13)) {
+            event.setComment(reader.readString());
+        }
+        if (isPresent(presence, 14)) {
+            event.setViewDurationSeconds(reader.readVarInt());
+        }
+        return event;
+    }
+
+    @Override
+    public EnhancedProductEvent deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.product.kafka.serialization;
+
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+import static com.ecommerce.product.kafka.serialization.BinaryEventFormat.INTERACTION_TYPES;
+import static com.ecommerce.product.kafka.serialization.BinaryEventFormat.REFERRERS;
+import static com.ecommerce.product.kafka.serialization.BinaryEventFormat.USER_AGENTS;
+
+/**
+ * Writes {@link EnhancedProductEvent}s in the compact binary format of {@link BinaryEventFormat}.
+ */
+public class BinaryEnhancedProductEventSerializer implements Serializer<EnhancedProductEvent> {
+
+    @Override
+    public byte[] serialize(String topic, EnhancedProductEvent event) {
+        if (event == null) {
+            return null;
+        }
+        BinaryEventWriter writer = BinaryEventFormat.newRecord(BinaryEventFormat.presence(
+                event.getEventId(), event.getEventType(), event.getProductId(), event.getProductName(),
+                event.getUserId(), event.getTimestamp(), event.getUserAgent(), event.getIpAddress(),
+                event.getSessionId(), event.getReferrer(), event.getQuantity(), event.getPrice(),
+                event.getRating(), event.getComment(), event.getViewDurationSeconds()));
+
+        if (event.getEventId() != null) {
+            BinaryEventFormat.writeId(writer, event.getEventId());
+        }
+        if (event.getEventType() != null) {
+            writer.writeDictionaryString(event.getEventType(), INTERACTION_TYPES);
+        }
+        if (event.getProductId() != null) {
+            writer.writeVarLong(event.getProductId());
+        }
+        if (event.getProductName() != null) {
+            writer.writeString(event.getProductName());
+        }
+        if (event.getUserId() != null) {
+            writer.writeString(event.getUserId());
+        }
+        if (event.getTimestamp() != null) {
+            writer.writeTimestamp(event.getTimestamp());
+        }
+        if (event.getUserAgent() != null) {
+            writer.writeDictionaryString(event.getUserAgent(), USER_AGENTS);
+        }
+        if (event.getIpAddress() != null) {
+            BinaryEventFormat.writeIpAddress(writer, event.getIpAddress());
+        }
+        if (event.getSessionId() != null) {
+            writer.writeString(event.getSessionId());
+        }
+        if (event.getReferrer() != null) {
+            writer.writeDictionaryString(event.getReferrer(), REFERRERS);
+        }
+        if (event.getQuantity() != null) {
+            writer.writeVarInt(event.getQuantity());
+        }
+        if (event.getPrice() != null) {
+            writer.writeDouble(event.getPrice());
+        }
+        if (event.getRating() != null) {
+            writer.writeVarInt(event.getRating());
+        }
+        if (event.getComment() != null) {
+            writer.writeString(event.getComment());
+        }
+        if (event.getViewDurationSeconds() != null) {
+            writer.writeVarInt(event.getViewDurationSeconds());
+        }
+        return writer.toByteArray();
+    }
+}
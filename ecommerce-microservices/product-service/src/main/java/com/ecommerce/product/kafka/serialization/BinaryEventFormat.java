@@ -0,0 +1,176 @@
+package com.ecommerce.product.kafka.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.UUID;
+
+/**
+ * Layout shared by the binary event serializers.
+ * <p>
+ * A record is the magic byte, the schema version, a varint bitmap with one bit per field
+ * that is present, and then the present fields in declaration order. Frequent values are
+ * dictionary coded, UUIDs and IPv4 addresses are written as raw bytes when they parse as
+ * such, and everything else falls back to a tagged literal, so any value round-trips.
+ * <p>
+ * The magic byte can never start a JSON document, which lets deserializers accept both
+ * formats while producers are switched over.
+ */
+final class BinaryEventFormat {
+
+    static final byte MAGIC = (byte) 0xB1;
+    /**
+     * Version 2 writes timestamps to the nanosecond; version 1 records, with millisecond
+     * timestamps, are still read.
+     */
+    static final int SCHEMA_VERSION = 2;
+
+    static final int TAG_LITERAL = 0;
+    static final int TAG_PACKED = 1;
+
+    /**
+     * Interaction types produced by the activity simulator.
+     */
+    static final EventDictionary INTERACTION_TYPES = new EventDictionary(
+            "VIEW", "SEARCH", "ADD_TO_CART", "PURCHASE", "REVIEW", "WISHLIST_ADD");
+
+    static final EventDictionary PRODUCT_EVENT_TYPES = new EventDictionary(
+            "PRODUCT_CREATED", "PRODUCT_UPDATED", "PRODUCT_DELETED",
+            "PRODUCT_INVENTORY_UPDATED", "PRODUCT_PRICE_CHANGED");
+
+    static final EventDictionary USER_AGENTS = new EventDictionary(
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15",
+            "Mozilla/5.0 (iPhone; CPU iPhone OS 14_0 like Mac OS X) AppleWebKit/605.1.15",
+            "Mozilla/5.0 (iPad; CPU OS 14_0 like Mac OS X) AppleWebKit/605.1.15",
+            "Mozilla/5.0 (Android 10; Mobile) AppleWebKit/537.36");
+
+    static final EventDictionary REFERRERS = new EventDictionary(
+            "https://www.google.com", "https://www.bing.com", "https://www.facebook.com",
+            "https://www.instagram.com", "https://www.twitter.com", "https://www.linkedin.com",
+            "https://www.youtube.com", "Direct", "Email", "Mobile App");
+
+    private BinaryEventFormat() {
+    }
+
+    static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    static BinaryEventWriter newRecord(long presence) {
+        BinaryEventWriter writer = new BinaryEventWriter(128);
+        writer.writeByte(MAGIC);
+        writer.writeByte(SCHEMA_VERSION);
+        writer.writeUnsignedVarLong(presence);
+        return writer;
+    }
+
+    /**
+     * Checks the header of a binary record and returns its presence bitmap.
+     */
+    static long readHeader(BinaryEventReader reader) {
+        if ((byte) reader.readByte() != MAGIC) {
+            throw new SerializationException("Not a binary event record");
+        }
+        int version = reader.readByte();
+        if (version < 1 || version > SCHEMA_VERSION) {
+            throw new SerializationException("Unsupported binary event schema version " + version);
+        }
+        reader.setSchemaVersion(version);
+        return reader.readUnsignedVarLong();
+    }
+
+    static long presence(Object... fields) {
+        long presence = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                presence |= 1L << i;
+            }
+        }
+        return presence;
+    }
+
+    static boolean isPresent(long presence, int field) {
+        return (presence & (1L << field)) != 0;
+    }
+
+    static void writeId(BinaryEventWriter writer, String id) {
+        UUID uuid = parseUuid(id);
+        if (uuid != null) {
+            writer.writeByte(TAG_PACKED);
+            writer.writeUuid(uuid);
+        } else {
+            writer.writeByte(TAG_LITERAL);
+            writer.writeString(id);
+        }
+    }
+
+    static String readId(BinaryEventReader reader) {
+        return reader.readByte() == TAG_PACKED ? reader.readUuid().toString() : reader.readString();
+    }
+
+    static void writeIpAddress(BinaryEventWriter writer, String address) {
+        long packed = parseIpv4(address);
+        if (packed >= 0) {
+            writer.writeByte(TAG_PACKED);
+            writer.writeUnsignedVarLong(packed);
+        } else {
+            writer.writeByte(TAG_LITERAL);
+            writer.writeString(address);
+        }
+    }
+
+    static String readIpAddress(BinaryEventReader reader) {
+        if (reader.readByte() != TAG_PACKED) {
+            return reader.readString();
+        }
+        long packed = reader.readUnsignedVarLong();
+        return ((packed >>> 24) & 0xFF) + "." + ((packed >>> 16) & 0xFF) + "."
+                + ((packed >>> 8) & 0xFF) + "." + (packed & 0xFF);
+    }
+
+    /**
+     * Parses the canonical lower-case form only, so the packed value always decodes to the same string.
+     */
+    private static UUID parseUuid(String id) {
+        if (id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the address as an unsigned 32-bit value, or -1 unless it is a canonical dotted quad.
+     */
+    private static long parseIpv4(String address) {
+        long packed = 0;
+        int octets = 0;
+        int value = -1;
+        for (int i = 0; i <= address.length(); i++) {
+            char c = i < address.length() ? address.charAt(i) : '.';
+            if (c == '.') {
+                if (value < 0 || ++octets > 4) {
+                    return -1;
+                }
+                packed = (packed << 8) | value;
+                value = -1;
+            } else if (c >= '0' && c <= '9') {
+                // Leading zeros would not survive the round trip
+                if (value == 0) {
+                    return -1;
+                }
+                value = value < 0 ? c - '0' : value * 10 + (c - '0');
+                if (value > 255) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+        }
+        return octets == 4 ? packed : -1;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecommerce.product.kafka.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Reads the primitive encodings written by {@link BinaryEventWriter}.
+ */
+final class BinaryEventReader {
+
+    private final byte[] buffer;
+    private int position;
+    private int schemaVersion = BinaryEventFormat.SCHEMA_VERSION;
+
+    BinaryEventReader(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    void setSchemaVersion(int schemaVersion) {
+        this.schemaVersion = schemaVersion;
+    }
+
+    int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    long readUnsignedVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint at offset " + position);
+    }
+
+    long readVarLong() {
+        long raw = readUnsignedVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    int readVarInt() {
+        long value = readVarLong();
+        if (value != (int) value) {
+            throw new SerializationException("Varint out of int range at offset " + position);
+        }
+        return (int) value;
+    }
+
+    long readLong() {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    byte[] readBytes() {
+        int length = readLength();
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    String readString() {
+        int length = readLength();
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    String readDictionaryString(EventDictionary dictionary) {
+        long code = readUnsignedVarLong();
+        if (code == EventDictionary.LITERAL) {
+            return readString();
+        }
+        if (code < 0 || code > Integer.MAX_VALUE) {
+            throw new SerializationException("Unknown dictionary code " + Long.toUnsignedString(code));
+        }
+        return dictionary.valueOf((int) code);
+    }
+
+    UUID readUuid() {
+        return new UUID(readLong(), readLong());
+    }
+
+    LocalDateTime readTimestamp() {
+        if (schemaVersion == 1) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(readVarLong()), ZoneOffset.UTC);
+        }
+        long epochSecond = readVarLong();
+        long nano = readUnsignedVarLong();
+        if (nano > 999_999_999L) {
+            throw new SerializationException("Malformed timestamp at offset " + position);
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, (int) nano, ZoneOffset.UTC);
+    }
+
+    BigDecimal readBigDecimal() {
+        int scale = readVarInt();
+        return new BigDecimal(new BigInteger(readBytes()), scale);
+    }
+
+    /**
+     * Reads a length prefix and checks that that many bytes follow it.
+     */
+    private int readLength() {
+        long length = readUnsignedVarLong();
+        if (length < 0 || length > buffer.length - position) {
+            throw new SerializationException("Truncated binary event: need " + Long.toUnsignedString(length)
+                    + " bytes at offset " + position + " of " + buffer.length);
+        }
+        return (int) length;
+    }
+
+    private void require(int length) {
+        if (length < 0 || length > buffer.length - position) {
+            throw new SerializationException("Truncated binary event: need " + length
+                    + " bytes at offset " + position + " of " + buffer.length);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.product.kafka.serialization;
+
+import com.ecommerce.product.kafka.event.ProductEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import static com.ecommerce.product.kafka.serialization.BinaryEventFormat.PRODUCT_EVENT_TYPES;
+import static com.ecommerce.product.kafka.serialization.BinaryEventFormat.isPresent;
+
+/**
+ * Reads {@link ProductEvent}s written by {@link BinaryProductEventSerializer},
+ * falling back to JSON for records that are not in the binary format.
+ */
+public class BinaryProductEventDeserializer implements Deserializer<ProductEvent> {
+
+    private final JsonDeserializer<ProductEvent> jsonDeserializer =
+            new JsonDeserializer<>(ProductEvent.class, false);
+
+    @Override
+    public ProductEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!BinaryEventFormat.isBinary(data)) {
+            return jsonDeserializer.deserialize(topic, data);
+        }
+        BinaryEventReader reader = new BinaryEventReader(data);
+        long presence = BinaryEventFormat.readHeader(reader);
+
+        ProductEvent event = new ProductEvent();
+        if (isPresent(presence, 0)) {
+            event.setEventId(reader.readUuid());
+        }
+        if (isPresent(presence, 1)) {
+            event.setEventType(reader.readDictionaryString(PRODUCT_EVENT_TYPES));
+        }
+        if (isPresent(presence, 2)) {
+            event.setProductId(reader.readVarLong());
+        }
+        if (isPresent(presence, 3)) {
+            event.setProductName(reader.readString());
+        }
+        if (isPresent(presence, 4)) {
+            event.setDescription(reader.readString());
+        }
+        if (isPresent(presence, 5)) {
+            event.setPrice(reader.readBigDecimal());
+        }
+        if (isPresent(presence, 6)) {
+            event.setQuantityAvailable(reader.readVarInt());
+        }
+        if (isPresent(presence, 7)) {
+            event.setCategory(reader.readString());
+        }
+        if (isPresent(presence, 8)) {
+            event.setSku(reader.readString());
+        }
+        if (isPresent(presence, 9)) {
+            event.setTimestamp(reader.readTimestamp());
+        }
+        if (isPresent(presence, 10)) {
+            event.setUserId(reader.readString());
+        }
+        if (isPresent(presence, 11)) {
+            event.setQuantityDelta(reader.readVarInt());
+        }
+        return event;
+    }
+
+    @Override
+    public ProductEvent deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.product.kafka.serialization;
+
+import com.ecommerce.product.kafka.event.ProductEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+import static com.ecommerce.product.kafka.serialization.BinaryEventFormat.PRODUCT_EVENT_TYPES;
+
+/**
+ * Writes {@link ProductEvent}s in the compact binary format of {@link BinaryEventFormat}.
+ */
+public class BinaryProductEventSerializer implements Serializer<ProductEvent> {
+
+    @Override
+    public byte[] serialize(String topic, ProductEvent event) {
+        if (event == null) {
+            return null;
+        }
+        BinaryEventWriter writer = BinaryEventFormat.newRecord(BinaryEventFormat.presence(
+                event.getEventId(), event.getEventType(), event.getProductId(), event.getProductName(),
+                event.getDescription(), event.getPrice(), event.getQuantityAvailable(), event.getCategory(),
+                event.getSku(), event.getTimestamp(), event.getUserId(), event.getQuantityDelta()));
+
+        if (event.getEventId() != null) {
+            writer.writeUuid(event.getEventId());
+        }
+        if (event.getEventType() != null) {
+            writer.writeDictionaryString(event.getEventType(), PRODUCT_EVENT_TYPES);
+        }
+        if (event.getProductId() != null) {
+            writer.writeVarLong(event.getProductId());
+        }
+        if (event.getProductName() != null) {
+            writer.writeString(event.getProductName());
+        }
+        if (event.getDescription() != null) {
+            writer.writeString(event.getDescription());
+        }
+        if (event.getPrice() != null) {
+            writer.writeBigDecimal(event.getPrice());
+        }
+        if (event.getQuantityAvailable() != null) {
+            writer.writeVarInt(event.getQuantityAvailable());
+        }
+        if (event.getCategory() != null) {
+            writer.writeString(event.getCategory());
+        }
+        if (event.getSku() != null) {
+            writer.writeString(event.getSku());
+        }
+        if (event.getTimestamp() != null) {
+            writer.writeTimestamp(event.getTimestamp());
+        }
+        if (event.getUserId() != null) {
+            writer.writeString(event.getUserId());
+        }
+        if (event.getQuantityDelta() != null) {
+            writer.writeVarInt(event.getQuantityDelta());
+        }
+        return writer.toByteArray();
+    }
+}
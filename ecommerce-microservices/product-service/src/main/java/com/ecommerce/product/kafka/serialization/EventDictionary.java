@@ -0,0 +1,38 @@
+package com.ecommerce.product.kafka.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed table of frequent string values, each written as a small integer code.
+ * Codes are part of the wire format: new values may only be appended, and only
+ * together with a new schema version.
+ */
+final class EventDictionary {
+
+    static final int LITERAL = 0;
+
+    private final String[] values;
+    private final Map<String, Integer> codes;
+
+    EventDictionary(String... values) {
+        this.values = values;
+        this.codes = new HashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            codes.put(values[i], i + 1);
+        }
+    }
+
+    int codeOf(String value) {
+        return codes.getOrDefault(value, LITERAL);
+    }
+
+    String valueOf(int code) {
+        if (code < 1 || code > values.length) {
+            throw new SerializationException("Unknown dictionary code " + code);
+        }
+        return values[code - 1];
+    }
+}
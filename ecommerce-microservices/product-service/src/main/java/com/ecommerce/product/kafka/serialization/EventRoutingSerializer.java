@@ -0,0 +1,56 @@
+package com.ecommerce.product.kafka.serialization;
+
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.event.ProductEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Value serializer of the shared producer, choosing the codec by the type of each value:
+ * product events and enhanced events in their configured {@link EventWireFormat}, and any
+ * other value as JSON. Letting every template share one producer this way gives the whole
+ * process a single batch accumulator, buffer pool and network thread.
+ * <p>
+ * JSON values carry no type headers; the consumers of these topics know their value types.
+ */
+public class EventRoutingSerializer implements Serializer<Object> {
+
+    private final Serializer<ProductEvent> productEventSerializer;
+    private final Serializer<EnhancedProductEvent> enhancedEventSerializer;
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>().noTypeInfo();
+
+    public EventRoutingSerializer(EventWireFormat productEventFormat, EventWireFormat enhancedEventFormat) {
+        this.productEventSerializer = productEventFormat.serializer(new BinaryProductEventSerializer());
+        this.enhancedEventSerializer = enhancedEventFormat.serializer(new BinaryEnhancedProductEventSerializer());
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data instanceof EnhancedProductEvent event) {
+            return enhancedEventSerializer.serialize(topic, event);
+        }
+        if (data instanceof ProductEvent event) {
+            return productEventSerializer.serialize(topic, event);
+        }
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data instanceof EnhancedProductEvent event) {
+            return enhancedEventSerializer.serialize(topic, headers, event);
+        }
+        if (data instanceof ProductEvent event) {
+            return productEventSerializer.serialize(topic, headers, event);
+        }
+        return jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        productEventSerializer.close();
+        enhancedEventSerializer.close();
+        jsonSerializer.close();
+    }
+}
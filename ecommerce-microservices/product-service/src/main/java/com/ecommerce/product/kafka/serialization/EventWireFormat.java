@@ -0,0 +1,21 @@
+package com.ecommerce.product.kafka.serialization;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Value format of an event type, chosen per type by configuration.
+ * Switch consumers to the binary deserializers first: they read both formats.
+ */
+public enum EventWireFormat {
+    JSON,
+    BINARY;
+
+    /**
+     * Returns a serializer for this format, given the binary serializer of the event type.
+     * JSON values are written without type headers.
+     */
+    public <T> Serializer<T> serializer(Serializer<T> binarySerializer) {
+        return this == BINARY ? binarySerializer : new JsonSerializer<T>().noTypeInfo();
+    }
+}
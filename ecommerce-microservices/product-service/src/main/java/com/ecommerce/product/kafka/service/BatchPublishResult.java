@@ -0,0 +1,36 @@
+package com.ecommerce.product.kafka.service;
+
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.util.List;
+
+/**
+ * Outcome of every record of a batch published through {@link ProductEventPublisher},
+ * in the order the records were given.
+ *
+ * @param <V> Event type
+ */
+public record BatchPublishResult<V>(List<Outcome<V>> outcomes) {
+
+    public long successCount() {
+        return outcomes.stream().filter(Outcome::isSuccess).count();
+    }
+
+    public long failureCount() {
+        return outcomes.size() - successCount();
+    }
+
+    public List<Outcome<V>> failures() {
+        return outcomes.stream().filter(outcome -> !outcome.isSuccess()).toList();
+    }
+
+    /**
+     * Where a record was written, or why it was not.
+     */
+    public record Outcome<V>(V event, RecordMetadata metadata, Throwable error) {
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+}
@@ -3,18 +3,35 @@ package com.ecommerce.product.kafka.service;
 import com.ecommerce.product.config.KafkaCondition;
 import com.ecommerce.product.kafka.event.EnhancedProductEvent;
 import com.ecommerce.product.kafka.event.ProductEvent;
+import com.ecommerce.product.kafka.publish.EventPublishPipeline;
+import com.ecommerce.product.kafka.spool.EventSpool;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Slf4j
 @Service
@@ -24,10 +41,16 @@ public class ProductEventPublisher {
 
     private final KafkaTemplate<String, ProductEvent> kafkaTemplate;
     
-    @Qualifier("extendedKafkaTemplate")
-    private final KafkaTemplate<String, ProductEvent> extendedKafkaTemplate;
-    
     private final KafkaTemplate<String, EnhancedProductEvent> enhancedKafkaTemplate;
+    
+    private final MeterRegistry meterRegistry;
+    
+    private final EventSpool eventSpool;
+    
+    private final EventPublishPipeline publishPipeline;
+    
+    // Resolved by name: queues analytics copies where the pipeline may make the caller wait
+    private final Executor asyncTaskExecutor;
 
     @Value("${spring.kafka.topics.product-created}")
     private String productCreatedTopic;
@@ -46,6 +69,23 @@ public class ProductEventPublisher {
     
     @Value("${spring.kafka.topics.product-analytics:product-analytics}")
     private String productAnalyticsTopic;
+    
+    private BatchMeters productBatchMeters;
+    private BatchMeters enhancedBatchMeters;
+    private Counter analyticsFailures;
+    private Counter analyticsRejections;
+    
+    @PostConstruct
+    void registerBatchMeters() {
+        productBatchMeters = new BatchMeters("product");
+        enhancedBatchMeters = new BatchMeters("enhanced");
+        analyticsFailures = Counter.builder("product.events.analytics.failed")
+                .description("Analytics copies of enhanced events that could not be handed to the producer")
+                .register(meterRegistry);
+        analyticsRejections = Counter.builder("product.events.analytics.rejected")
+                .description("Analytics copies of enhanced events refused by the full async executor")
+                .register(meterRegistry);
+    }
 
     /**
      * Publishes a standard product event to Kafka.
@@ -57,7 +97,7 @@ public class ProductEventPublisher {
         String topic = determineTopic(event.getEventType());
         String key = event.getProductId().toString();
         
-        log.info("Publishing event to topic {}: {}", topic, event);
+        log.debug("Publishing event to topic {}: {}", topic, event);
         
         CompletableFuture<SendResult<String, ProductEvent>> future = kafkaTemplate.send(topic, key, event);
         
@@ -65,7 +105,7 @@ public class ProductEventPublisher {
             if (ex != null) {
                 log.error("Failed to send message to topic {}: {}", topic, ex.getMessage(), ex);
             } else {
-                log.info("Message sent successfully to topic {}: offset=[{}]", 
+                log.debug("Message sent successfully to topic {}: offset=[{}]", 
                          topic, result.getRecordMetadata().offset());
             }
         });
@@ -87,20 +127,7 @@ public class ProductEventPublisher {
         String topic = determineEnhancedTopic(event.getEventType());
         String key = event.getProductId().toString();
         
-        log.info("Publishing enhanced event to topic {}: {}", topic, event);
-        
-        // Also publish to analytics topic for real-time dashboards
-        if (isAnalyticsEvent(event.getEventType())) {
-            CompletableFuture.runAsync(() -> {
-                try {
-                    // Use the correct kafka template for the event type
-                    extendedKafkaTemplate.send(productAnalyticsTopic, key, event.toStandardEvent());
-                    log.debug("Analytics event published successfully: {}", event.getEventId());
-                } catch (Exception e) {
-                    log.warn("Failed to publish analytics event: {}", e.getMessage());
-                }
-            });
-        }
+        log.debug("Publishing enhanced event to topic {}: {}", topic, event);
         
         CompletableFuture<SendResult<String, EnhancedProductEvent>> future = enhancedKafkaTemplate.send(topic, key, event);
         
@@ -108,12 +135,172 @@ public class ProductEventPublisher {
             if (ex != null) {
                 log.error("Failed to send enhanced message to topic {}: {}", topic, ex.getMessage(), ex);
             } else {
-                log.info("Enhanced message sent successfully to topic {}: offset=[{}]", 
+                log.debug("Enhanced message sent successfully to topic {}: offset=[{}]", 
                         topic, result.getRecordMetadata().offset());
             }
         });
         
-        return future;
+        if (!needsAnalyticsCopy(event.getEventType())) {
+            return future;
+        }
+        // Also publish to analytics topic for real-time dashboards, through the bounded pipeline.
+        // Only once the event itself is written: a failed attempt is retried or spooled with
+        // its copy, so queueing the copy up front would send it once per attempt.
+        if (!publishPipeline.mayBlock()) {
+            return future.thenApply(result -> {
+                publishAnalyticsCopy(key, event);
+                return result;
+            });
+        }
+        // Queueing may wait for room, so it runs on the bounded async executor rather than the
+        // producer's network thread; a copy the executor has no room for is counted and lost
+        CompletableFuture<SendResult<String, EnhancedProductEvent>> copied = new CompletableFuture<>();
+        future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                copied.completeExceptionally(ex);
+                return;
+            }
+            try {
+                asyncTaskExecutor.execute(() -> {
+                    publishAnalyticsCopy(key, event);
+                    copied.complete(result);
+                });
+            } catch (RejectedExecutionException e) {
+                analyticsRejections.increment();
+                analyticsFailures.increment();
+                copied.complete(result);
+            }
+        });
+        return copied;
+    }
+    
+    private void publishAnalyticsCopy(String key, EnhancedProductEvent event) {
+        if (!publishPipeline.publish(productAnalyticsTopic, key, event)) {
+            analyticsFailures.increment();
+        }
+    }
+    
+    /**
+     * Publishes a batch of standard product events with a single circuit breaker and retry
+     * evaluation for the whole batch. Every record is handed to the producer before any of them
+     * completes, so they share the producer's batches.
+     * <p>
+     * The returned future completes with the outcome of each record once all of them are known,
+     * and completes exceptionally only if no record of the batch could be written, which is what
+     * the circuit breaker counts as a failure and what a retry resends. When only some records
+     * fail, exactly those are spooled for replay.
+     */
+    @CircuitBreaker(name = "kafkaPublisher", fallbackMethod = "fallbackPublishAll")
+    @Retry(name = "kafkaPublisher")
+    public CompletableFuture<BatchPublishResult<ProductEvent>> publishAllProductEvents(Collection<ProductEvent> events) {
+        return sendAll(kafkaTemplate, events, event -> determineTopic(event.getEventType()), event -> null,
+                productBatchMeters);
+    }
+    
+    /**
+     * Publishes a batch of enhanced product events, and the analytics copies of those that
+     * feed the dashboards, with a single circuit breaker and retry evaluation for the whole batch.
+     * Completion follows {@link #publishAllProductEvents(Collection)}.
+     */
+    @CircuitBreaker(name = "enhancedPublisher", fallbackMethod = "fallbackEnhancedPublishAll")
+    @Retry(name = "enhancedPublisher")
+    public CompletableFuture<BatchPublishResult<EnhancedProductEvent>> publishAllEnhancedEvents(
+            Collection<EnhancedProductEvent> events) {
+        return sendAll(enhancedKafkaTemplate, events, event -> determineEnhancedTopic(event.getEventType()),
+                event -> needsAnalyticsCopy(event.getEventType()) ? productAnalyticsTopic : null,
+                enhancedBatchMeters);
+    }
+    
+    /**
+     * Hands every record of the batch, and the copies of those that have one, to the producer,
+     * then folds their completions into one result with an outcome per event.
+     * <p>
+     * If nothing at all could be written the returned future fails, and the retry or the
+     * fallback deals with the whole batch. Otherwise every event or copy that failed is spooled
+     * here, and nothing that was written is sent again.
+     */
+    private <V> CompletableFuture<BatchPublishResult<V>> sendAll(KafkaTemplate<String, V> template,
+                                                                Collection<V> events,
+                                                                Function<V, String> topicFor,
+                                                                Function<V, String> copyTopicFor,
+                                                                BatchMeters meters) {
+        long start = System.nanoTime();
+        List<V> batch = List.copyOf(events);
+        List<PendingSend<V>> sends = new ArrayList<>(batch.size());
+        List<PendingSend<V>> copies = new ArrayList<>();
+        for (V event : batch) {
+            String copyTopic = copyTopicFor.apply(event);
+            if (copyTopic != null) {
+                copies.add(send(template, copyTopic, event));
+            }
+            sends.add(send(template, topicFor.apply(event), event));
+        }
+        
+        List<CompletableFuture<?>> all = new ArrayList<>(sends.size() + copies.size());
+        sends.forEach(send -> all.add(send.future()));
+        copies.forEach(copy -> all.add(copy.future()));
+        return CompletableFuture.allOf(all.toArray(CompletableFuture[]::new))
+                .handle((ignored, ignoredError) -> {
+                    List<BatchPublishResult.Outcome<V>> outcomes = new ArrayList<>(batch.size());
+                    for (PendingSend<V> send : sends) {
+                        Throwable error = send.error();
+                        outcomes.add(new BatchPublishResult.Outcome<>(send.event(),
+                                error == null ? send.future().join().getRecordMetadata() : null, error));
+                    }
+                    BatchPublishResult<V> result = new BatchPublishResult<>(outcomes);
+                    meters.record(result, System.nanoTime() - start);
+                    return result;
+                })
+                .thenCompose(result -> {
+                    List<PendingSend<V>> failedCopies = copies.stream().filter(copy -> copy.error() != null).toList();
+                    if (!batch.isEmpty() && result.successCount() == 0 && failedCopies.size() == copies.size()) {
+                        return CompletableFuture.failedFuture(new KafkaException(
+                                "All " + batch.size() + " records of the batch failed",
+                                result.outcomes().get(0).error()));
+                    }
+                    analyticsFailures.increment(failedCopies.size());
+                    long failed = result.failureCount() + failedCopies.size();
+                    if (failed > 0) {
+                        int lost = 0;
+                        for (PendingSend<V> send : sends) {
+                            if (send.error() != null && !spool(send.topic(), send.event())) {
+                                lost++;
+                            }
+                        }
+                        for (PendingSend<V> copy : failedCopies) {
+                            if (!spool(copy.topic(), copy.event())) {
+                                lost++;
+                            }
+                        }
+                        log.warn("{} of {} records of the batch failed and were spooled ({} lost), first error: {}",
+                                failed, sends.size() + copies.size(), lost, firstError(sends, failedCopies).getMessage());
+                    }
+                    return CompletableFuture.completedFuture(result);
+                });
+    }
+    
+    private <V> PendingSend<V> send(KafkaTemplate<String, V> template, String topic, V event) {
+        try {
+            return new PendingSend<>(topic, event, template.send(topic, keyOf(event), event));
+        } catch (Exception e) {
+            return new PendingSend<>(topic, event, CompletableFuture.failedFuture(e));
+        }
+    }
+    
+    private static <V> Throwable firstError(List<PendingSend<V>> sends, List<PendingSend<V>> failedCopies) {
+        for (PendingSend<V> send : sends) {
+            if (send.error() != null) {
+                return send.error();
+            }
+        }
+        return failedCopies.get(0).error();
+    }
+    
+    private static String keyOf(Object event) {
+        if (event instanceof EnhancedProductEvent enhancedEvent) {
+            return enhancedEvent.getProductId().toString();
+        }
+        return ((ProductEvent) event).getProductId().toString();
     }
     
     /**
@@ -157,41 +344,166 @@ public class ProductEventPublisher {
                eventType.equals("REVIEW");
     }
     
+    /**
+     * Whether an analytics event needs a copy on the analytics topic, because it is not
+     * routed there in the first place. The copy is the full enhanced event, so the
+     * in-service aggregation sees quantities, prices, ratings and view durations.
+     */
+    private boolean needsAnalyticsCopy(String eventType) {
+        return isAnalyticsEvent(eventType) && !productAnalyticsTopic.equals(determineEnhancedTopic(eventType));
+    }
+    
     /**
      * Fallback method for standard event publishing failures.
-     * Demonstrates circuit breaker pattern implementation.
+     * Spools the event to local disk for replay once the circuit breaker closes; the returned
+     * future then completes without a send result, and only fails if the event could not be
+     * spooled, so retries do not spool it twice.
      */
     private CompletableFuture<SendResult<String, ProductEvent>> fallbackPublish(ProductEvent event, Throwable ex) {
-        log.error("Circuit breaker triggered for publishing event: {}", event, ex);
-        // Implement fallback strategy - e.g. save to a database for later retry or send to a dead letter queue
-        // Here just returning a failed future for simplicity
-        CompletableFuture<SendResult<String, ProductEvent>> future = new CompletableFuture<>();
-        future.completeExceptionally(ex);
-        return future;
+        if (spool(event)) {
+            log.warn("Circuit breaker triggered, spooled event {} for replay: {}", event.getEventId(), ex.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        log.error("Circuit breaker triggered, event lost: {}", event, ex);
+        return CompletableFuture.failedFuture(ex);
     }
     
     /**
      * Fallback method for enhanced event publishing failures.
-     * Implements a more sophisticated recovery strategy with store-and-forward pattern.
+     * Implements the store-and-forward pattern: the event, and its analytics copy, are spooled
+     * to local disk and replayed once the circuit breaker closes. The copy is only queued
+     * once the event is written, so no attempt that ends here has sent it.
      */
     private CompletableFuture<SendResult<String, EnhancedProductEvent>> fallbackEnhancedPublish(EnhancedProductEvent event, Throwable ex) {
-        log.error("Circuit breaker triggered for enhanced event: {}", event, ex);
+        if (spool(event)) {
+            log.warn("Circuit breaker triggered, spooled enhanced event {} for replay: {}", event.getEventId(), ex.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        log.error("Circuit breaker triggered, enhanced event lost: {}", event, ex);
+        return CompletableFuture.failedFuture(ex);
+    }
+    
+    /**
+     * Fallback for batch publishing of standard events; spools the batch and logs once for it.
+     * Completes with every record failed with the cause, or fails if any could not be spooled.
+     */
+    private CompletableFuture<BatchPublishResult<ProductEvent>> fallbackPublishAll(Collection<ProductEvent> events,
+                                                                                  Throwable ex) {
+        return spoolAll(events, this::spool, ex);
+    }
+    
+    /**
+     * Fallback for batch publishing of enhanced events; spools the batch, with the analytics
+     * copies, and logs once for it. Reached only when none of them was written, so nothing is
+     * spooled that was also sent. Completes with every record failed with the cause, or fails
+     * if any could not be spooled.
+     */
+    private CompletableFuture<BatchPublishResult<EnhancedProductEvent>> fallbackEnhancedPublishAll(
+            Collection<EnhancedProductEvent> events, Throwable ex) {
+        return spoolAll(events, this::spool, ex);
+    }
+    
+    private <V> CompletableFuture<BatchPublishResult<V>> spoolAll(Collection<V> events,
+                                                                 Predicate<V> spool,
+                                                                 Throwable ex) {
+        List<BatchPublishResult.Outcome<V>> outcomes = new ArrayList<>(events.size());
+        int lost = 0;
+        for (V event : events) {
+            if (!spool.test(event)) {
+                lost++;
+            }
+            outcomes.add(new BatchPublishResult.Outcome<>(event, null, ex));
+        }
+        if (lost > 0) {
+            log.error("Circuit breaker triggered for a batch of {} events, {} could not be spooled and are lost: {}",
+                    events.size(), lost, ex.getMessage());
+            return CompletableFuture.failedFuture(ex);
+        }
+        log.warn("Circuit breaker triggered, spooled a batch of {} events for replay: {}", events.size(), ex.getMessage());
+        return CompletableFuture.completedFuture(new BatchPublishResult<>(outcomes));
+    }
+    
+    private boolean spool(String topic, Object event) {
+        if (event instanceof EnhancedProductEvent enhancedEvent) {
+            return eventSpool.append(topic, enhancedEvent.getProductId().toString(), enhancedEvent);
+        }
+        ProductEvent productEvent = (ProductEvent) event;
+        return eventSpool.append(topic, productEvent.getProductId().toString(), productEvent);
+    }
+    
+    private boolean spool(ProductEvent event) {
+        return eventSpool.append(determineTopic(event.getEventType()), event.getProductId().toString(), event);
+    }
+    
+    private boolean spool(EnhancedProductEvent event) {
+        String key = event.getProductId().toString();
+        if (needsAnalyticsCopy(event.getEventType())) {
+            eventSpool.append(productAnalyticsTopic, key, event);
+        }
+        return eventSpool.append(determineEnhancedTopic(event.getEventType()), key, event);
+    }
+    
+    /**
+     * A record handed to the producer, with the topic it was sent to.
+     */
+    private record PendingSend<V>(String topic, V event, CompletableFuture<SendResult<String, V>> future) {
         
-        // In a real implementation, we would persist to a local store for later retry
-        // This demonstrates the store-and-forward enterprise integration pattern
+        /**
+         * The cause of the failed send, or null if it succeeded; only valid once the future is done.
+         */
+        Throwable error() {
+            if (!future.isCompletedExceptionally()) {
+                return null;
+            }
+            try {
+                future.join();
+                return null;
+            } catch (CompletionException e) {
+                return e.getCause() != null ? e.getCause() : e;
+            } catch (CancellationException e) {
+                return e;
+            }
+        }
+    }
+    
+    /**
+     * Per-batch publishing metrics of one event stream, resolved once so recording a batch
+     * costs a handful of counter updates however large it is.
+     */
+    private final class BatchMeters {
         
-        // For demo purposes, we attempt to publish a simpler version of the event
-        try {
-            // Convert to standard event as a fallback strategy
-            ProductEvent standardEvent = event.toStandardEvent();
-            publishProductEvent(standardEvent);
-            log.info("Successfully published fallback standard event");
-        } catch (Exception e) {
-            log.error("Failed to publish fallback standard event", e);
+        private final Counter succeeded;
+        private final Counter failed;
+        private final DistributionSummary batchSize;
+        private final Timer batchDuration;
+        
+        BatchMeters(String stream) {
+            this.succeeded = Counter.builder("product.events.published")
+                    .tag("stream", stream)
+                    .tag("outcome", "success")
+                    .description("Records acknowledged by the broker")
+                    .register(meterRegistry);
+            this.failed = Counter.builder("product.events.published")
+                    .tag("stream", stream)
+                    .tag("outcome", "failure")
+                    .description("Records that could not be written")
+                    .register(meterRegistry);
+            this.batchSize = DistributionSummary.builder("product.events.batch.size")
+                    .tag("stream", stream)
+                    .description("Records per published batch")
+                    .register(meterRegistry);
+            this.batchDuration = Timer.builder("product.events.batch.duration")
+                    .tag("stream", stream)
+                    .description("Time from enqueueing a batch until every record completed")
+                    .register(meterRegistry);
         }
         
-        CompletableFuture<SendResult<String, EnhancedProductEvent>> future = new CompletableFuture<>();
-        future.completeExceptionally(ex);
-        return future;
+        void record(BatchPublishResult<?> result, long elapsedNanos) {
+            long successes = result.successCount();
+            succeeded.increment(successes);
+            failed.increment(result.outcomes().size() - successes);
+            batchSize.record(result.outcomes().size());
+            batchDuration.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
     }
 }
@@ -0,0 +1,166 @@
+package com.ecommerce.product.kafka.simulator;
+
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.event.RemoteProductEvent;
+import com.ecommerce.product.service.ProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The products the simulator generates activity for, as an immutable snapshot shared by
+ * every generator thread.
+ * <p>
+ * The catalog is loaded in one streamed pass on first use. After that, product events that
+ * add, remove, rename or reprice products are applied to it in memory, keeping the newest
+ * row version per product as the read model does, and the next caller takes a fresh snapshot
+ * of the result, so a burst of writes costs one copy rather than one per event. Events that
+ * arrive while the catalog is loading are applied once it is loaded. Stock changes do not
+ * touch the snapshot.
+ */
+@Slf4j
+@Component
+@Conditional(KafkaCondition.class)
+public class ProductCatalogSnapshot {
+
+    private final ProductService productService;
+    private final Object lock = new Object();
+    // Guarded by lock: the catalog by id, so snapshots keep a stable order, and the row
+    // version applied per product, deleted ones included
+    private final Map<Long, Entry> entries = new TreeMap<>();
+    private final Map<Long, Long> versions = new HashMap<>();
+    private boolean loaded;
+    private List<ProductEvent> pending;
+    private volatile boolean current;
+    private volatile List<Entry> products = List.of();
+
+    public ProductCatalogSnapshot(ProductService productService) {
+        this.productService = productService;
+    }
+
+    /**
+     * @return the current snapshot, loaded or retaken first if a product changed since it was taken
+     */
+    public List<Entry> products() {
+        if (!current) {
+            refresh();
+        }
+        return products;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductEvent(ProductEvent event) {
+        apply(event);
+    }
+
+    @EventListener
+    public void onRemoteProductEvent(RemoteProductEvent remoteEvent) {
+        apply(remoteEvent.getEvent());
+    }
+
+    private void refresh() {
+        synchronized (lock) {
+            if (loaded) {
+                publish();
+                return;
+            }
+            if (pending != null) {
+                // Another caller is loading; keep serving the empty snapshot until it is done
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        load();
+    }
+
+    private void load() {
+        Map<Long, Entry> loadedEntries = new TreeMap<>();
+        Map<Long, Long> loadedVersions = new HashMap<>();
+        try {
+            productService.streamAllProducts(product -> {
+                loadedEntries.put(product.getId(), entry(product.getId(), product.getName(), product.getPrice()));
+                loadedVersions.put(product.getId(), product.getVersion() == null ? -1L : product.getVersion());
+            });
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                pending = null;
+            }
+            log.error("Failed to load the simulator catalog snapshot: {}", e.getMessage());
+            return;
+        }
+        synchronized (lock) {
+            entries.putAll(loadedEntries);
+            versions.putAll(loadedVersions);
+            loaded = true;
+            pending.forEach(this::update);
+            pending = null;
+            publish();
+        }
+        log.debug("Simulator catalog snapshot loaded with {} products", loadedEntries.size());
+    }
+
+    private void apply(ProductEvent event) {
+        if (event.getProductId() == null || event.getEventType() == null) {
+            return;
+        }
+        switch (event.getEventType()) {
+            case CREATED:
+            case UPDATED:
+            case DELETED:
+                break;
+            default:
+                return;
+        }
+        synchronized (lock) {
+            if (pending != null) {
+                pending.add(event);
+            } else if (loaded) {
+                update(event);
+            }
+            // Before the first load there is nothing to update; the load reads the change
+        }
+    }
+
+    // Called with the lock held
+    private void update(ProductEvent event) {
+        Long id = event.getProductId();
+        long version = event.rowVersion();
+        Long applied = versions.get(id);
+        if (applied != null && version < applied) {
+            return;
+        }
+        versions.put(id, version);
+        if (event.getEventType() == ProductEvent.EventType.DELETED) {
+            entries.remove(id);
+        } else {
+            entries.put(id, entry(id, event.getProductName(), event.getPrice()));
+        }
+        current = false;
+    }
+
+    // Called with the lock held
+    private void publish() {
+        products = List.copyOf(entries.values());
+        current = true;
+    }
+
+    private static Entry entry(Long id, String name, BigDecimal price) {
+        return new Entry(id, name, price == null ? 0 : price.doubleValue());
+    }
+
+    /**
+     * What the simulator needs of a product.
+     */
+    public record Entry(long id, String name, double price) {
+    }
+}
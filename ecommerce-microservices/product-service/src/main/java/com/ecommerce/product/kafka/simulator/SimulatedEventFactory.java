@@ -0,0 +1,114 @@
+package com.ecommerce.product.kafka.simulator;
+
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.random.RandomGenerator;
+
+/**
+ * Builds random user interactions with products for the simulator.
+ * <p>
+ * Every random choice, identifiers included, is drawn from the generator passed in, so
+ * callers decide between a per-thread {@link java.util.concurrent.ThreadLocalRandom} for
+ * throughput and a seeded generator for reproducible workloads.
+ */
+final class SimulatedEventFactory {
+
+    static final String[] EVENT_TYPES = {
+            "VIEW", "SEARCH", "ADD_TO_CART", "PURCHASE", "REVIEW", "WISHLIST_ADD"
+    };
+
+    private static final String[] USER_IDS = {
+            "user123", "customer456", "shopper789", "client321", "buyer654",
+            "visitor987", "member741", "guest852", "consumer963", "patron159"
+    };
+
+    private static final String[] USER_AGENTS = {
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15",
+            "Mozilla/5.0 (iPhone; CPU iPhone OS 14_0 like Mac OS X) AppleWebKit/605.1.15",
+            "Mozilla/5.0 (iPad; CPU OS 14_0 like Mac OS X) AppleWebKit/605.1.15",
+            "Mozilla/5.0 (Android 10; Mobile) AppleWebKit/537.36"
+    };
+
+    private static final String[] IP_ADDRESSES = {
+            "192.168.1.100", "172.16.0.50", "10.0.0.25", "8.8.8.8", "203.0.113.42",
+            "198.51.100.23", "172.217.20.142", "151.101.1.195", "104.244.42.1"
+    };
+
+    private static final String[] REFERRERS = {
+            "https://www.google.com", "https://www.bing.com", "https://www.facebook.com",
+            "https://www.instagram.com", "https://www.twitter.com", "https://www.linkedin.com",
+            "https://www.youtube.com", "Direct", "Email", "Mobile App"
+    };
+
+    private SimulatedEventFactory() {
+    }
+
+    /**
+     * Creates a random product event with detailed information for advanced analytics.
+     */
+    static EnhancedProductEvent create(ProductCatalogSnapshot.Entry product, RandomGenerator random) {
+        return create(product, random, LocalDateTime.now());
+    }
+
+    /**
+     * Creates a random product event that happened at the given time.
+     */
+    static EnhancedProductEvent create(ProductCatalogSnapshot.Entry product, RandomGenerator random,
+                                       LocalDateTime timestamp) {
+        String eventType = EVENT_TYPES[random.nextInt(EVENT_TYPES.length)];
+
+        EnhancedProductEvent event = new EnhancedProductEvent();
+        event.setEventId(randomUuid(random).toString());
+        event.setEventType(eventType);
+        event.setProductId(product.id());
+        event.setProductName(product.name());
+        event.setUserId(USER_IDS[random.nextInt(USER_IDS.length)]);
+        event.setTimestamp(timestamp);
+        event.setUserAgent(USER_AGENTS[random.nextInt(USER_AGENTS.length)]);
+        event.setIpAddress(IP_ADDRESSES[random.nextInt(IP_ADDRESSES.length)]);
+        event.setSessionId("session-" + Integer.toHexString(random.nextInt()));
+        event.setReferrer(REFERRERS[random.nextInt(REFERRERS.length)]);
+
+        applyEventTypeStrategy(event, product, eventType, random);
+        return event;
+    }
+
+    /**
+     * Applies different strategies based on event type.
+     */
+    private static void applyEventTypeStrategy(EnhancedProductEvent event, ProductCatalogSnapshot.Entry product,
+                                               String eventType, RandomGenerator random) {
+        switch (eventType) {
+            case "VIEW":
+                event.setViewDurationSeconds(random.nextInt(300) + 5); // 5-305 seconds
+                break;
+            case "PURCHASE":
+                event.setQuantity(random.nextInt(3) + 1); // 1-3 items
+                event.setPrice(product.price());
+                break;
+            case "REVIEW":
+                event.setRating(random.nextInt(5) + 1); // 1-5 stars
+                event.setComment("Sample review comment for " + product.name());
+                break;
+            case "ADD_TO_CART":
+                event.setQuantity(random.nextInt(5) + 1); // 1-5 items
+                break;
+            default:
+                // WISHLIST_ADD and SEARCH carry no additional properties
+                break;
+        }
+    }
+
+    /**
+     * A version 4 UUID from the given generator, without the contended SecureRandom of
+     * {@link UUID#randomUUID()}.
+     */
+    private static UUID randomUuid(RandomGenerator random) {
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(most, least);
+    }
+}
@@ -0,0 +1,194 @@
+package com.ecommerce.product.kafka.simulator;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.service.ProductEventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load-generation mode of the simulator, for finding the saturation point of the publishing
+ * path.
+ * <p>
+ * A configurable number of generator threads share the target rate and publish batches of
+ * simulated events through {@link ProductEventPublisher}, each pacing itself against its own
+ * schedule. Products come from the {@link ProductCatalogSnapshot} and every thread draws from
+ * its own {@link ThreadLocalRandom}, so threads share nothing on the hot path but the
+ * producer. A thread that falls behind publishes back to back without trying to catch up
+ * more than a second, so the achieved rate shows what the pipeline sustains.
+ * <p>
+ * Every report interval the achieved rate is logged and exported together with the time
+ * threads spend inside the publish call, which grows when the producer blocks on exhausted
+ * buffer memory, and the producer's own buffer pool wait ratio and free buffer bytes.
+ */
+@Slf4j
+@Component
+@EnableScheduling
+@Conditional(KafkaCondition.class)
+public class SimulatorLoadGenerator {
+
+    private static final long MAX_BACKLOG_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ProductCatalogSnapshot catalogSnapshot;
+    private final ProductEventPublisher eventPublisher;
+    private final KafkaTemplate<String, EnhancedProductEvent> enhancedKafkaTemplate;
+    private final ApplicationFeatureProperties.SimulatorProperties.LoadProperties properties;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    private final Counter generatedEvents;
+    private final Timer publishCalls;
+    private final AtomicLong achievedRate = new AtomicLong();
+    private long lastReportCount;
+    private long lastReportNanos;
+    private long lastReportCalls;
+    private double lastReportCallNanos;
+
+    public SimulatorLoadGenerator(ProductCatalogSnapshot catalogSnapshot,
+                                  ProductEventPublisher eventPublisher,
+                                  KafkaTemplate<String, EnhancedProductEvent> enhancedKafkaTemplate,
+                                  ApplicationFeatureProperties featureProperties,
+                                  MeterRegistry meterRegistry) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.eventPublisher = eventPublisher;
+        this.enhancedKafkaTemplate = enhancedKafkaTemplate;
+        this.properties = featureProperties.getSimulator().getLoad();
+        this.generatedEvents = Counter.builder("simulator.load.events")
+                .description("Events generated in load-generation mode")
+                .register(meterRegistry);
+        this.publishCalls = Timer.builder("simulator.load.publish.call")
+                .description("Time generator threads spend handing a batch to the publisher, including producer blocking")
+                .register(meterRegistry);
+        Gauge.builder("simulator.load.achieved.rate", achievedRate, AtomicLong::get)
+                .description("Events per second generated over the last report interval")
+                .register(meterRegistry);
+        Gauge.builder("simulator.load.target.rate", properties,
+                        ApplicationFeatureProperties.SimulatorProperties.LoadProperties::getTargetEventsPerSecond)
+                .description("Configured events per second")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        int threadCount = Math.max(1, properties.getThreads());
+        int batchSize = Math.max(1, properties.getBatchSize());
+        double eventsPerSecondPerThread = (double) properties.getTargetEventsPerSecond() / threadCount;
+        long nanosPerBatch = (long) (TimeUnit.SECONDS.toNanos(1) * batchSize / eventsPerSecondPerThread);
+
+        running = true;
+        lastReportNanos = System.nanoTime();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> generate(batchSize, nanosPerBatch), "simulator-load-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        log.info("Load generation started: {} events/s over {} threads in batches of {}",
+                properties.getTargetEventsPerSecond(), threadCount, batchSize);
+    }
+
+    private void generate(int batchSize, long nanosPerBatch) {
+        long nextBatchAt = System.nanoTime();
+        while (running) {
+            List<ProductCatalogSnapshot.Entry> products = catalogSnapshot.products();
+            if (products.isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+                nextBatchAt = System.nanoTime();
+                continue;
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<EnhancedProductEvent> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(SimulatedEventFactory.create(products.get(random.nextInt(products.size())), random));
+            }
+
+            long start = System.nanoTime();
+            try {
+                eventPublisher.publishAllEnhancedEvents(batch);
+            } catch (Exception e) {
+                log.debug("Load generator publish failed: {}", e.getMessage());
+            }
+            long now = System.nanoTime();
+            publishCalls.record(now - start, TimeUnit.NANOSECONDS);
+            generatedEvents.increment(batchSize);
+
+            nextBatchAt += nanosPerBatch;
+            if (nextBatchAt > now) {
+                LockSupport.parkNanos(nextBatchAt - now);
+            } else if (now - nextBatchAt > MAX_BACKLOG_NANOS) {
+                nextBatchAt = now - MAX_BACKLOG_NANOS;
+            }
+        }
+    }
+
+    /**
+     * Logs the achieved rate against the target along with the producer's back-pressure.
+     */
+    @Scheduled(fixedRateString = "${application.features.simulator.load.report-interval-ms:5000}")
+    public synchronized void report() {
+        if (!running) {
+            return;
+        }
+        long now = System.nanoTime();
+        long count = (long) generatedEvents.count();
+        long rate = (long) ((count - lastReportCount) * 1e9 / Math.max(1, now - lastReportNanos));
+        achievedRate.set(rate);
+        long calls = publishCalls.count() - lastReportCalls;
+        double callNanos = publishCalls.totalTime(TimeUnit.NANOSECONDS) - lastReportCallNanos;
+        lastReportCount = count;
+        lastReportNanos = now;
+        lastReportCalls += calls;
+        lastReportCallNanos += callNanos;
+
+        Map<MetricName, ? extends Metric> producerMetrics = enhancedKafkaTemplate.metrics();
+        log.info("Load generation: target {} events/s, achieved {} events/s, publish call mean {} ms, "
+                        + "producer buffer wait ratio {}, buffer available {} bytes",
+                properties.getTargetEventsPerSecond(), rate,
+                String.format("%.2f", calls == 0 ? 0 : callNanos / calls / 1e6),
+                producerMetric(producerMetrics, "bufferpool-wait-ratio"),
+                producerMetric(producerMetrics, "buffer-available-bytes"));
+    }
+
+    private static Object producerMetric(Map<MetricName, ? extends Metric> metrics, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            if (entry.getKey().name().equals(name) && entry.getKey().group().equals("producer-metrics")) {
+                return entry.getValue().metricValue();
+            }
+        }
+        return "n/a";
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+}
@@ -0,0 +1,190 @@
+package com.ecommerce.product.kafka.simulator;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.service.ProductEventPublisher;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records reproducible simulator workloads and replays them through {@link ProductEventPublisher},
+ * so throughput of the publishing path can be compared run against run on identical input.
+ * <p>
+ * Recording draws everything from a {@link SplittableRandom} seeded from configuration: the
+ * product of each event from a Zipf distribution over a seeded shuffle of the catalog, so the
+ * same products are hot in every recording of a catalog, the event itself, and the time to
+ * the next event from an exponential distribution at the configured rate. Two recordings with
+ * the same seed and catalog differ only in their absolute timestamps.
+ * <p>
+ * Replay publishes the recorded events unchanged and in order, keeping their recorded spacing
+ * divided by the speed factor, or back to back in full batches at speed 0. Events that fall
+ * due together are published as one batch.
+ */
+@Slf4j
+@Component
+@Conditional(KafkaCondition.class)
+public class SimulatorWorkloadRunner {
+
+    static final String MODE_RECORD = "record";
+    static final String MODE_REPLAY = "replay";
+
+    private final ProductCatalogSnapshot catalogSnapshot;
+    private final ProductEventPublisher eventPublisher;
+    private final ApplicationFeatureProperties.SimulatorProperties.WorkloadProperties properties;
+
+    private volatile Thread workloadThread;
+
+    public SimulatorWorkloadRunner(ProductCatalogSnapshot catalogSnapshot,
+                                   ProductEventPublisher eventPublisher,
+                                   ApplicationFeatureProperties featureProperties) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.eventPublisher = eventPublisher;
+        this.properties = featureProperties.getSimulator().getWorkload();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        String mode = properties.getMode();
+        Path file = Paths.get(properties.getFile());
+        // Off the event thread, so neither a long recording nor a replay holds up readiness
+        if (MODE_RECORD.equalsIgnoreCase(mode)) {
+            startWorkload(() -> {
+                try {
+                    record(file);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Recording of workload {} failed: {}", file, e.getMessage(), e);
+                }
+            }, "simulator-record");
+        } else if (MODE_REPLAY.equalsIgnoreCase(mode)) {
+            startWorkload(() -> replay(file), "simulator-replay");
+        }
+    }
+
+    private void startWorkload(Runnable workload, String threadName) {
+        Thread thread = new Thread(workload, threadName);
+        thread.setDaemon(true);
+        workloadThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Generates the configured number of events from the seed and writes them to the file.
+     */
+    void record(Path file) throws IOException {
+        List<ProductCatalogSnapshot.Entry> catalog = catalogSnapshot.products();
+        if (catalog.isEmpty()) {
+            log.warn("No products available, no workload recorded");
+            return;
+        }
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+
+        // A seeded shuffle decides which products are hot
+        List<ProductCatalogSnapshot.Entry> ranked = new ArrayList<>(catalog);
+        for (int i = ranked.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            ranked.set(j, ranked.set(i, ranked.get(j)));
+        }
+        ZipfDistribution popularity = new ZipfDistribution(ranked.size(), properties.getZipfExponent());
+        double meanMicrosBetweenEvents = 1e6 / properties.getEventsPerSecond();
+
+        long start = System.nanoTime();
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        long offsetMicros = 0;
+        try (WorkloadFile.Writer writer = new WorkloadFile.Writer(file, properties.getSeed())) {
+            long delay = 0;
+            for (long i = 0; i < properties.getEvents() && workloadThread != null; i++) {
+                ProductCatalogSnapshot.Entry product = ranked.get(popularity.sample(random));
+                EnhancedProductEvent event = SimulatedEventFactory.create(
+                        product, random, timestamp.plus(offsetMicros, ChronoUnit.MICROS));
+                writer.write(delay, event);
+                // Poisson arrivals: exponentially distributed gaps at the configured rate
+                delay = (long) (-Math.log(1 - random.nextDouble()) * meanMicrosBetweenEvents);
+                offsetMicros += delay;
+            }
+            log.info("Recorded {} events over {} products with seed {} to {} in {} ms, spanning {} s at 1x",
+                    writer.count(), ranked.size(), properties.getSeed(), file,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), offsetMicros / 1_000_000);
+        }
+    }
+
+    /**
+     * Publishes the events of the file at the configured speed and logs the achieved rate.
+     */
+    void replay(Path file) {
+        double speed = properties.getSpeed();
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long published = 0;
+        long scheduleNanos = 0;
+        long start = System.nanoTime();
+        try (WorkloadFile.Reader reader = new WorkloadFile.Reader(file)) {
+            log.info("Replaying workload {} recorded with seed {} at {}", file, reader.seed(),
+                    speed > 0 ? speed + "x" : "maximum speed");
+            List<EnhancedProductEvent> batch = new ArrayList<>(batchSize);
+            while (workloadThread != null && reader.next()) {
+                if (speed > 0) {
+                    scheduleNanos += (long) (TimeUnit.MICROSECONDS.toNanos(reader.microsSincePrevious()) / speed);
+                    long wait = start + scheduleNanos - System.nanoTime();
+                    if (wait > 0) {
+                        published += publish(batch);
+                        wait = start + scheduleNanos - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+                }
+                batch.add(reader.event());
+                if (batch.size() >= batchSize) {
+                    published += publish(batch);
+                }
+            }
+            published += publish(batch);
+        } catch (IOException | RuntimeException e) {
+            log.error("Replay of workload {} failed after {} events: {}", file, published, e.getMessage(), e);
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        log.info("Replayed {} events in {} ms: {} events/s, finished {} ms behind the recorded schedule",
+                published, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                (long) (published * 1e9 / Math.max(1, elapsedNanos)),
+                speed > 0 ? Math.max(0, TimeUnit.NANOSECONDS.toMillis(elapsedNanos - scheduleNanos)) : 0);
+    }
+
+    private int publish(List<EnhancedProductEvent> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int size = batch.size();
+        try {
+            eventPublisher.publishAllEnhancedEvents(List.copyOf(batch));
+        } catch (Exception e) {
+            log.debug("Replay publish failed: {}", e.getMessage());
+        }
+        batch.clear();
+        return size;
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = workloadThread;
+        workloadThread = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
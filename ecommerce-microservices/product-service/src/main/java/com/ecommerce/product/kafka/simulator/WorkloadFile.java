@@ -0,0 +1,148 @@
+package com.ecommerce.product.kafka.simulator;
+
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.serialization.BinaryEnhancedProductEventDeserializer;
+import com.ecommerce.product.kafka.serialization.BinaryEnhancedProductEventSerializer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * File format of recorded simulator workloads.
+ * <p>
+ * A header of magic number, version and the seed the workload was generated with, followed
+ * by one entry per event: the microseconds since the previous event and the length of the
+ * event, both as unsigned varints, then the event in the binary wire format. Entries are
+ * read and written sequentially through buffered streams, so a workload of millions of
+ * events is replayed without being held in memory.
+ */
+final class WorkloadFile {
+
+    private static final int MAGIC = 0x504C5744;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private WorkloadFile() {
+    }
+
+    /**
+     * Appends events to a new workload file.
+     */
+    static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private final BinaryEnhancedProductEventSerializer serializer = new BinaryEnhancedProductEventSerializer();
+        private long count;
+
+        Writer(Path file, long seed) throws IOException {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+        }
+
+        void write(long microsSincePrevious, EnhancedProductEvent event) throws IOException {
+            byte[] value = serializer.serialize(null, event);
+            writeUnsignedVarLong(microsSincePrevious);
+            writeUnsignedVarLong(value.length);
+            out.write(value);
+            count++;
+        }
+
+        long count() {
+            return count;
+        }
+
+        private void writeUnsignedVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads the events of a workload file in recorded order.
+     */
+    static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private final BinaryEnhancedProductEventDeserializer deserializer = new BinaryEnhancedProductEventDeserializer();
+        private final long seed;
+        private long microsSincePrevious;
+        private EnhancedProductEvent event;
+
+        Reader(Path file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                in.close();
+                throw new IOException("Not a simulator workload file: " + file);
+            }
+            seed = in.readLong();
+        }
+
+        /**
+         * Advances to the next event.
+         * @return false at the end of the file
+         */
+        boolean next() throws IOException {
+            long delay;
+            try {
+                delay = readUnsignedVarLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            byte[] value = new byte[(int) readUnsignedVarLong()];
+            in.readFully(value);
+            microsSincePrevious = delay;
+            event = deserializer.deserialize(null, value);
+            return true;
+        }
+
+        long seed() {
+            return seed;
+        }
+
+        long microsSincePrevious() {
+            return microsSincePrevious;
+        }
+
+        EnhancedProductEvent event() {
+            return event;
+        }
+
+        private long readUnsignedVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in workload file");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.product.kafka.simulator;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipf distribution over ranks {@code 0..n-1}: rank k is drawn with probability proportional
+ * to {@code 1 / (k + 1)^exponent}. An exponent of 0 is uniform; around 1 a handful of ranks
+ * take most of the draws, as the best sellers of a catalog do.
+ * <p>
+ * Sampling is a binary search of the precomputed cumulative distribution, so it costs
+ * O(log n) and one {@code double} draw, and is reproducible for a seeded generator.
+ */
+final class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    ZipfDistribution(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Zipf distribution needs at least one rank");
+        }
+        cumulative = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = total;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= total;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,326 @@
+package com.ecommerce.product.kafka.spool;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.event.ProductEvent;
+import com.ecommerce.product.kafka.serialization.BinaryEnhancedProductEventSerializer;
+import com.ecommerce.product.kafka.serialization.BinaryProductEventSerializer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Durable local store for events that could not be published while Kafka was unavailable.
+ * <p>
+ * The spool is an append-only log of memory-mapped segment files. Appends are sequential
+ * writes into the active segment's mapping; when it is full, it is sealed and a new segment
+ * is created, up to a bounded number of segments, after which further events are rejected
+ * rather than filling the disk. {@link SpoolForwarder} replays the log in order and the
+ * replay position is kept in each segment's header, so a restart resumes where replay left
+ * off. Segments are deleted once every record in them has been replayed.
+ * <p>
+ * Mapped pages reach the disk when the forwarder forces them, at each of its runs, and on
+ * shutdown; a process crash loses nothing, a host crash at most the last interval.
+ * <p>
+ * Access is serialized by a {@link ReentrantLock} rather than a monitor, so a virtual thread
+ * writing to the mapping while holding it does not pin its carrier thread.
+ */
+@Slf4j
+@Component
+@Conditional(KafkaCondition.class)
+public class EventSpool {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<SpoolSegment> segments = new ArrayDeque<>();
+    private final BinaryProductEventSerializer productEventSerializer = new BinaryProductEventSerializer();
+    private final BinaryEnhancedProductEventSerializer enhancedEventSerializer = new BinaryEnhancedProductEventSerializer();
+    private long nextSegmentId;
+    private boolean dirty;
+    private boolean full;
+
+    private final Counter appendedRecords;
+    private final Counter rejectedRecords;
+
+    public EventSpool(ApplicationFeatureProperties featureProperties, MeterRegistry meterRegistry) {
+        ApplicationFeatureProperties.SpoolProperties properties = featureProperties.getSpool();
+        this.directory = Paths.get(properties.getDirectory());
+        this.segmentSize = properties.getSegmentSizeBytes();
+        this.maxSegments = Math.max(1, properties.getMaxSegments());
+        this.enabled = properties.isEnabled() && open();
+
+        Gauge.builder("product.spool.depth", this, EventSpool::pendingRecords)
+                .description("Events in the spool waiting to be replayed")
+                .register(meterRegistry);
+        Gauge.builder("product.spool.depth.bytes", this, EventSpool::pendingBytes)
+                .description("Bytes of spooled events waiting to be replayed")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("product.spool.segments", this, EventSpool::segmentCount)
+                .description("Segment files currently on disk")
+                .register(meterRegistry);
+        this.appendedRecords = Counter.builder("product.spool.appended")
+                .description("Events written to the spool")
+                .register(meterRegistry);
+        this.rejectedRecords = Counter.builder("product.spool.rejected")
+                .description("Events dropped because the spool was full or disabled")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Maps the segments left by a previous run, oldest first.
+     * @return false if the spool directory cannot be used
+     */
+    private boolean open() {
+        try {
+            Files.createDirectories(directory);
+            TreeMap<Long, Path> existing = new TreeMap<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    existing.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())), file);
+                }
+            }
+            for (var entry : existing.entrySet()) {
+                SpoolSegment segment = SpoolSegment.open(entry.getValue(), entry.getKey());
+                if (segment == null) {
+                    log.warn("Ignoring unreadable spool segment {}", entry.getValue());
+                } else if (segment.isFullyRead()) {
+                    segment.delete();
+                } else {
+                    segments.addLast(segment);
+                }
+            }
+            nextSegmentId = Math.max(System.currentTimeMillis(), existing.isEmpty() ? 0 : existing.lastKey() + 1);
+            // Only a fresh segment is appended to, so recovered ones are never written again
+            segments.forEach(SpoolSegment::seal);
+            if (!segments.isEmpty()) {
+                log.info("Recovered {} spooled events in {} segments from {}", pendingRecords(), segments.size(), directory);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Event spool disabled, cannot use directory {}: {}", directory, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Spools a standard product event.
+     * @return false if the event could not be spooled and is lost
+     */
+    public boolean append(String topic, String key, ProductEvent event) {
+        return append(SpooledRecord.Kind.PRODUCT_EVENT, topic, key, productEventSerializer.serialize(topic, event));
+    }
+
+    /**
+     * Spools an enhanced product event.
+     * @return false if the event could not be spooled and is lost
+     */
+    public boolean append(String topic, String key, EnhancedProductEvent event) {
+        return append(SpooledRecord.Kind.ENHANCED_EVENT, topic, key, enhancedEventSerializer.serialize(topic, event));
+    }
+
+    private boolean append(SpooledRecord.Kind kind, String topic, String key, byte[] value) {
+        if (!enabled) {
+            rejectedRecords.increment();
+            return false;
+        }
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        byte[] keyBytes = key == null ? new byte[0] : key.getBytes(StandardCharsets.UTF_8);
+        int frameSize = SpoolSegment.FRAME_OVERHEAD + 5 + topicBytes.length + keyBytes.length + value.length;
+        if (SpoolSegment.HEADER_SIZE + frameSize > segmentSize) {
+            log.error("Event for topic {} of {} bytes does not fit in a spool segment", topic, frameSize);
+            rejectedRecords.increment();
+            return false;
+        }
+        lock.lock();
+        try {
+            SpoolSegment active = segments.peekLast();
+            if (active == null || !active.append(kind.code(), topicBytes, keyBytes, value)) {
+                active = roll();
+                if (active == null || !active.append(kind.code(), topicBytes, keyBytes, value)) {
+                    rejectedRecords.increment();
+                    return false;
+                }
+            }
+            dirty = true;
+        } catch (RuntimeException e) {
+            log.error("Failed to spool event for topic {}: {}", topic, e.getMessage());
+            rejectedRecords.increment();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+        appendedRecords.increment();
+        return true;
+    }
+
+    /**
+     * Seals the active segment and starts a new one.
+     * @return the new segment, or null if the spool already holds the maximum number of segments
+     */
+    private SpoolSegment roll() {
+        if (segments.size() >= maxSegments) {
+            if (!full) {
+                log.warn("Event spool is full ({} segments of {} bytes), rejecting events", maxSegments, segmentSize);
+                full = true;
+            }
+            return null;
+        }
+        full = false;
+        SpoolSegment previous = segments.peekLast();
+        if (previous != null) {
+            previous.seal();
+        }
+        long id = nextSegmentId++;
+        SpoolSegment segment = SpoolSegment.create(directory.resolve(String.format("%s%019d%s",
+                SEGMENT_PREFIX, id, SEGMENT_SUFFIX)), id, segmentSize);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    /**
+     * Returns up to max of the oldest events not yet replayed, in spool order.
+     */
+    public List<SpooledRecord> peek(int max) {
+        List<SpooledRecord> records = new ArrayList<>();
+        if (!enabled) {
+            return records;
+        }
+        lock.lock();
+        try {
+            releaseReplayedSegments();
+            SpoolSegment head = segments.peekFirst();
+            if (head == null) {
+                return records;
+            }
+            int position = head.readPosition();
+            SpooledRecord record;
+            while (records.size() < max && (record = head.read(position)) != null) {
+                records.add(record);
+                position = record.nextPosition();
+            }
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a prefix of the records last returned by {@link #peek(int)} as replayed.
+     */
+    public void acknowledge(List<SpooledRecord> replayed) {
+        if (replayed.isEmpty()) {
+            return;
+        }
+        SpooledRecord last = replayed.get(replayed.size() - 1);
+        lock.lock();
+        try {
+            SpoolSegment head = segments.peekFirst();
+            if (head == null || head.id() != last.segmentId()) {
+                return;
+            }
+            head.advanceReadPosition(last.nextPosition(), replayed.size());
+            releaseReplayedSegments();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes appended events in the mapped pages to disk.
+     */
+    public void force() {
+        lock.lock();
+        try {
+            if (dirty && !segments.isEmpty()) {
+                segments.peekLast().force();
+                dirty = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long pendingRecords() {
+        lock.lock();
+        try {
+            long records = 0;
+            for (SpoolSegment segment : segments) {
+                records += segment.pendingRecords();
+            }
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long pendingBytes() {
+        lock.lock();
+        try {
+            long bytes = 0;
+            for (SpoolSegment segment : segments) {
+                bytes += segment.pendingBytes();
+            }
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseReplayedSegments() {
+        // The active segment is kept so appends do not roll a new file after every replay
+        while (segments.size() > 1 && segments.peekFirst().isFullyRead()) {
+            segments.pollFirst().delete();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            segments.forEach(SpoolSegment::force);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.ecommerce.product.kafka.spool;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.event.ProductEvent;
+import com.ecommerce.product.kafka.serialization.BinaryEnhancedProductEventDeserializer;
+import com.ecommerce.product.kafka.serialization.BinaryProductEventDeserializer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the {@link EventSpool} to Kafka, in spool order, while the publisher's circuit
+ * breakers are closed.
+ * <p>
+ * Each run hands a batch of spooled events to the producer before waiting on any of them
+ * and then acknowledges the replayed prefix, so an event that fails stops the replay and is
+ * sent again, in order, on the next run. A failed replay is recorded on the circuit breaker
+ * of the event, so a broker that is still unreachable opens the breaker and pauses the
+ * replay instead of being retried on every run. Events published live while the spool
+ * is being replayed may overtake spooled events of the same product.
+ * <p>
+ * A frame that fails its checksum, or whose value cannot be deserialized, would fail the
+ * same way on every run. It is quarantined instead: stepped over, acknowledged with the
+ * records around it, counted and logged, without touching the breakers.
+ */
+@Slf4j
+@Component
+@EnableScheduling
+@Conditional(KafkaCondition.class)
+public class SpoolForwarder {
+
+    static final String PRODUCT_EVENT_BREAKER = "kafkaPublisher";
+    static final String ENHANCED_EVENT_BREAKER = "enhancedPublisher";
+
+    private final EventSpool eventSpool;
+    private final KafkaTemplate<String, ProductEvent> kafkaTemplate;
+    private final KafkaTemplate<String, EnhancedProductEvent> enhancedKafkaTemplate;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+
+    private final BinaryProductEventDeserializer productEventDeserializer = new BinaryProductEventDeserializer();
+    private final BinaryEnhancedProductEventDeserializer enhancedEventDeserializer = new BinaryEnhancedProductEventDeserializer();
+
+    private final Counter replayedRecords;
+    private final Counter failedRecords;
+    private final Counter quarantinedRecords;
+
+    public SpoolForwarder(EventSpool eventSpool,
+                          KafkaTemplate<String, ProductEvent> kafkaTemplate,
+                          KafkaTemplate<String, EnhancedProductEvent> enhancedKafkaTemplate,
+                          CircuitBreakerRegistry circuitBreakerRegistry,
+                          ApplicationFeatureProperties featureProperties,
+                          MeterRegistry meterRegistry) {
+        this.eventSpool = eventSpool;
+        this.kafkaTemplate = kafkaTemplate;
+        this.enhancedKafkaTemplate = enhancedKafkaTemplate;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.batchSize = featureProperties.getSpool().getForwardBatchSize();
+        this.sendTimeoutMs = featureProperties.getSpool().getSendTimeoutMs();
+        this.replayedRecords = Counter.builder("product.spool.replayed")
+                .description("Spooled events published to Kafka")
+                .register(meterRegistry);
+        this.failedRecords = Counter.builder("product.spool.replay.failed")
+                .description("Spooled events left in the spool after a failed replay")
+                .register(meterRegistry);
+        this.quarantinedRecords = Counter.builder("product.spool.quarantined")
+                .description("Corrupt or unreadable spooled events skipped by the replay")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Forces recent appends to disk, then replays batch after batch until the spool is empty,
+     * a breaker is not closed, or a send fails.
+     */
+    @Scheduled(fixedDelayString = "${application.features.spool.forward-interval-ms:1000}")
+    public void forward() {
+        if (!eventSpool.isEnabled()) {
+            return;
+        }
+        eventSpool.force();
+        boolean drained;
+        do {
+            drained = forwardBatch();
+        } while (!drained);
+    }
+
+    /**
+     * @return true if there is nothing more to replay right now
+     */
+    private boolean forwardBatch() {
+        List<SpooledRecord> batch = eventSpool.peek(batchSize);
+        if (batch.isEmpty()) {
+            return true;
+        }
+        CircuitBreaker productBreaker = circuitBreakerRegistry.circuitBreaker(PRODUCT_EVENT_BREAKER);
+        CircuitBreaker enhancedBreaker = circuitBreakerRegistry.circuitBreaker(ENHANCED_EVENT_BREAKER);
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        // Null for a record that is quarantined rather than sent
+        List<String> quarantineReasons = new ArrayList<>(batch.size());
+        for (SpooledRecord record : batch) {
+            if (record.isCorrupt()) {
+                sends.add(CompletableFuture.completedFuture(null));
+                quarantineReasons.add("frame is corrupt");
+                continue;
+            }
+            CircuitBreaker breaker = record.kind() == SpooledRecord.Kind.PRODUCT_EVENT ? productBreaker : enhancedBreaker;
+            if (breaker.getState() != CircuitBreaker.State.CLOSED) {
+                break;
+            }
+            Object event;
+            try {
+                event = deserialize(record);
+            } catch (RuntimeException e) {
+                sends.add(CompletableFuture.completedFuture(null));
+                quarantineReasons.add("value cannot be deserialized: " + e.getMessage());
+                continue;
+            }
+            quarantineReasons.add(null);
+            try {
+                sends.add(send(record, event));
+            } catch (Exception e) {
+                sends.add(CompletableFuture.failedFuture(e));
+                break;
+            }
+        }
+        if (sends.isEmpty()) {
+            return true;
+        }
+
+        List<SpooledRecord> replayed = new ArrayList<>(sends.size());
+        int quarantined = 0;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int i = 0; i < sends.size(); i++) {
+            SpooledRecord record = batch.get(i);
+            if (quarantineReasons.get(i) != null) {
+                log.error("Skipping spooled record of segment {} ending at {}: {}", record.segmentId(),
+                        record.nextPosition(), quarantineReasons.get(i));
+                replayed.add(record);
+                quarantined++;
+                continue;
+            }
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                replayed.add(record);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("Replay of spooled event for topic {} failed, retrying later: {}", record.topic(), e.getMessage());
+                (record.kind() == SpooledRecord.Kind.PRODUCT_EVENT ? productBreaker : enhancedBreaker)
+                        .onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+                break;
+            }
+        }
+
+        eventSpool.acknowledge(replayed);
+        replayedRecords.increment(replayed.size() - quarantined);
+        quarantinedRecords.increment(quarantined);
+        if (replayed.size() < sends.size()) {
+            failedRecords.increment(sends.size() - replayed.size());
+            return true;
+        }
+        log.debug("Replayed {} spooled events", replayed.size());
+        // A breaker that is not closed holds back the rest of the batch
+        return sends.size() < batch.size();
+    }
+
+    /**
+     * Reads the event of a record; a null result counts as unreadable too.
+     */
+    private Object deserialize(SpooledRecord record) {
+        Object event = record.kind() == SpooledRecord.Kind.PRODUCT_EVENT
+                ? productEventDeserializer.deserialize(record.topic(), record.value())
+                : enhancedEventDeserializer.deserialize(record.topic(), record.value());
+        if (event == null) {
+            throw new IllegalStateException("no event in the value");
+        }
+        return event;
+    }
+
+    private CompletableFuture<?> send(SpooledRecord record, Object event) {
+        if (record.kind() == SpooledRecord.Kind.PRODUCT_EVENT) {
+            return kafkaTemplate.send(record.topic(), record.key(), (ProductEvent) event);
+        }
+        return enhancedKafkaTemplate.send(record.topic(), record.key(), (EnhancedProductEvent) event);
+    }
+}
@@ -0,0 +1,242 @@
+package com.ecommerce.product.kafka.spool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped file of the spool.
+ * <p>
+ * The file starts with a header holding a magic number, the format version and the replay
+ * position, followed by frames of {@code [int length][int crc32c][body]}. The body is the
+ * record kind, the topic and key as length-prefixed UTF-8, and the serialized value. Frames
+ * are written straight into the mapping, the length last, so a zero length marks the end of
+ * the log and a torn frame from a crash fails its checksum on recovery.
+ * <p>
+ * Not thread-safe; {@link EventSpool} serializes access.
+ */
+final class SpoolSegment {
+
+    static final int HEADER_SIZE = 16;
+    static final int FRAME_OVERHEAD = 8;
+
+    private static final int MAGIC = 0x53504F4C;
+    private static final int VERSION = 1;
+    private static final int READ_POSITION_OFFSET = 8;
+
+    private final long id;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+
+    private int writePosition;
+    private int readPosition;
+    private int pendingRecords;
+    private boolean sealed;
+
+    private SpoolSegment(long id, Path path, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates and maps a new, empty segment file.
+     */
+    static SpoolSegment create(Path path, long id, int size) {
+        SpoolSegment segment = new SpoolSegment(id, path, map(path, size, true));
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, VERSION);
+        segment.buffer.putLong(READ_POSITION_OFFSET, HEADER_SIZE);
+        segment.writePosition = HEADER_SIZE;
+        segment.readPosition = HEADER_SIZE;
+        return segment;
+    }
+
+    /**
+     * Maps an existing segment file and finds the end of its log.
+     * @return the segment, or null if the file is not a spool segment
+     */
+    static SpoolSegment open(Path path, long id) {
+        int size;
+        try {
+            size = (int) Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (size < HEADER_SIZE) {
+            return null;
+        }
+        SpoolSegment segment = new SpoolSegment(id, path, map(path, size, false));
+        if (segment.buffer.getInt(0) != MAGIC || segment.buffer.getInt(4) != VERSION) {
+            return null;
+        }
+        segment.recover();
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path path, int size, boolean create) {
+        StandardOpenOption[] options = create
+                ? new StandardOpenOption[] {StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void recover() {
+        int position = HEADER_SIZE;
+        int records = 0;
+        long storedReadPosition = buffer.getLong(READ_POSITION_OFFSET);
+        while (true) {
+            int length = frameLength(position);
+            if (length <= 0 || buffer.getInt(position + 4) != checksum(position + FRAME_OVERHEAD, length)) {
+                break;
+            }
+            position += FRAME_OVERHEAD + length;
+            if (position > storedReadPosition) {
+                records++;
+            }
+        }
+        writePosition = position;
+        readPosition = (int) Math.max(HEADER_SIZE, Math.min(storedReadPosition, writePosition));
+        pendingRecords = records;
+        // Whatever follows the last intact frame is a torn write; clear its length so it is not read
+        if (writePosition + 4 <= buffer.capacity()) {
+            buffer.putInt(writePosition, 0);
+        }
+    }
+
+    /**
+     * Appends a frame, or returns false if it does not fit in the remaining space.
+     */
+    boolean append(byte kind, byte[] topic, byte[] key, byte[] value) {
+        int length = 1 + 2 + topic.length + 2 + key.length + value.length;
+        if (sealed || writePosition + FRAME_OVERHEAD + length > buffer.capacity()) {
+            return false;
+        }
+        int body = writePosition + FRAME_OVERHEAD;
+        buffer.position(body);
+        buffer.put(kind);
+        buffer.putShort((short) topic.length).put(topic);
+        buffer.putShort((short) key.length).put(key);
+        buffer.put(value);
+        buffer.putInt(writePosition + 4, checksum(body, length));
+        buffer.putInt(writePosition, length);
+        writePosition = body + length;
+        pendingRecords++;
+        return true;
+    }
+
+    /**
+     * Reads the frame at the given position. A frame that fails its checksum or cannot be
+     * parsed is returned as a {@linkplain SpooledRecord#isCorrupt() corrupt} record, so the
+     * replay can step over it; if its length is unusable too, the step covers the rest of
+     * the log.
+     * @return the record, or null if the position is at the end of the log
+     */
+    SpooledRecord read(int position) {
+        if (position >= writePosition) {
+            return null;
+        }
+        int length = frameLength(position);
+        int next = position + FRAME_OVERHEAD + length;
+        if (length <= 0 || next > writePosition) {
+            return SpooledRecord.corrupt(id, writePosition);
+        }
+        if (buffer.getInt(position + 4) != checksum(position + FRAME_OVERHEAD, length)) {
+            return SpooledRecord.corrupt(id, next);
+        }
+        try {
+            ByteBuffer body = buffer.slice(position + FRAME_OVERHEAD, length);
+            SpooledRecord.Kind kind = SpooledRecord.Kind.fromCode(body.get());
+            String topic = readString(body);
+            String key = readString(body);
+            byte[] value = new byte[body.remaining()];
+            body.get(value);
+            return new SpooledRecord(kind, topic, key, value, id, next);
+        } catch (RuntimeException e) {
+            return SpooledRecord.corrupt(id, next);
+        }
+    }
+
+    /**
+     * Marks every record before the position as replayed, durably across restarts.
+     */
+    void advanceReadPosition(int position, int records) {
+        readPosition = position;
+        // A corrupt frame skipped with the rest of the log may have hidden records from the count
+        pendingRecords = isFullyRead() ? 0 : Math.max(0, pendingRecords - records);
+        buffer.putLong(READ_POSITION_OFFSET, position);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void seal() {
+        sealed = true;
+        force();
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    boolean isFullyRead() {
+        return readPosition >= writePosition;
+    }
+
+    long id() {
+        return id;
+    }
+
+    int readPosition() {
+        return readPosition;
+    }
+
+    int pendingRecords() {
+        return pendingRecords;
+    }
+
+    int pendingBytes() {
+        return writePosition - readPosition;
+    }
+
+    int size() {
+        return buffer.capacity();
+    }
+
+    private int frameLength(int position) {
+        if (position + FRAME_OVERHEAD > buffer.capacity()) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        return position + FRAME_OVERHEAD + length > buffer.capacity() ? 0 : length;
+    }
+
+    private int checksum(int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static String readString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getShort() & 0xFFFF];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.product.kafka.spool;
+
+/**
+ * An event waiting in the spool, with the topic and key it was meant to be published with,
+ * or a corrupt frame standing in for one, which has no kind, topic, key or value and is
+ * only there to be skipped.
+ *
+ * @param value Event serialized in the binary wire format
+ * @param segmentId Segment holding the record
+ * @param nextPosition Position of the following record in the segment
+ */
+public record SpooledRecord(Kind kind, String topic, String key, byte[] value, long segmentId, int nextPosition) {
+
+    static SpooledRecord corrupt(long segmentId, int nextPosition) {
+        return new SpooledRecord(null, null, null, null, segmentId, nextPosition);
+    }
+
+    public boolean isCorrupt() {
+        return kind == null;
+    }
+
+    /**
+     * Event class of the value, which decides the template it is replayed through.
+     */
+    public enum Kind {
+        PRODUCT_EVENT((byte) 1),
+        ENHANCED_EVENT((byte) 2);
+
+        private final byte code;
+
+        Kind(byte code) {
+            this.code = code;
+        }
+
+        byte code() {
+            return code;
+        }
+
+        static Kind fromCode(byte code) {
+            for (Kind kind : values()) {
+                if (kind.code == code) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Unknown spool record kind: " + code);
+        }
+    }
+}
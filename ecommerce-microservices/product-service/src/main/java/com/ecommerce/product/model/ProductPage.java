@@ -0,0 +1,77 @@
+package com.ecommerce.product.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A single keyset page of the product catalog.
+ * Pages are ordered by product id and addressed with an opaque cursor, so a client
+ * walking the catalog sees a stable sequence even while products are inserted or deleted.
+ */
+public class ProductPage {
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private final List<Product> items;
+    private final String next;
+
+    public ProductPage(List<Product> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    /**
+     * Builds a page from the rows returned for a limit, emitting a next cursor only
+     * when the page is full and more rows may follow.
+     */
+    public static ProductPage of(List<Product> items, int limit) {
+        String next = null;
+        if (!items.isEmpty() && items.size() >= limit) {
+            next = encodeCursor(items.get(items.size() - 1).getId());
+        }
+        return new ProductPage(items, next);
+    }
+
+    public static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor into the last id seen by the client.
+     * A null or empty cursor starts from the beginning of the catalog.
+     *
+     * @throws IllegalArgumentException if the cursor was not issued by this service
+     */
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public List<Product> getItems() {
+        return items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductPage{" +
+                "items=" + items.size() +
+                ", next='" + next + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.product.outbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Kafka record waiting to be published, written in the same transaction as the
+ * change it describes.
+ * <p>
+ * Ids come from a pooled sequence, so they follow neither commit order nor write order
+ * across instances. The order of a product's events is its row version instead, which
+ * every write to the row raises while holding the row lock; {@link OutboxRelay} sends a
+ * key's events by version and lets only one relay hold a key at a time.
+ */
+@Entity
+@Table(name = "product_outbox")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_outbox_seq")
+    @SequenceGenerator(name = "product_outbox_seq", sequenceName = "product_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    private String messageKey;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    private Long eventVersion;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Set while a relay is sending the event; an expired claim is taken over by the next poll
+    private LocalDateTime claimedUntil;
+
+    // Sends that failed for a reason of the event's own, as opposed to the broker being unavailable
+    @Column(nullable = false)
+    private int attempts;
+
+    // Default constructor required by JPA
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String topic, String messageKey, String payload, Long eventVersion) {
+        this.topic = topic;
+        this.messageKey = messageKey;
+        this.payload = payload;
+        this.eventVersion = eventVersion;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getMessageKey() {
+        return messageKey;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Long getEventVersion() {
+        return eventVersion;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.product.outbox;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest events no relay holds a claim on, skipping rows another relay is
+     * claiming at the same moment, so several relays can claim in parallel without blocking.
+     * A lock timeout of -2 is Hibernate's SKIP LOCKED.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.claimedUntil IS NULL OR e.claimedUntil < :now ORDER BY e.id")
+    List<OutboxEvent> lockNextBatch(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Every pending event of the given keys, claimed or not, read without locking.
+     */
+    List<OutboxEvent> findByMessageKeyIn(Collection<String> messageKeys);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = :claimedUntil WHERE e.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1 WHERE e.id IN :ids")
+    int recordFailedAttempt(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Copies an event to the dead-letter table, from which it can be inspected and replayed
+     * by hand; the caller deletes it from the outbox.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO product_outbox_dead_letter "
+            + "(id, topic, message_key, payload, event_version, created_at, attempts, failed_at, error) "
+            + "SELECT id, topic, message_key, payload, event_version, created_at, attempts + 1, :failedAt, :error "
+            + "FROM product_outbox WHERE id = :id", nativeQuery = true)
+    int deadLetter(@Param("id") Long id, @Param("failedAt") LocalDateTime failedAt, @Param("error") String error);
+
+    /**
+     * Gives up a claim, unless it has expired and another relay has claimed the events since.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = NULL WHERE e.id IN :ids AND e.claimedUntil = :claimedUntil")
+    int release(@Param("ids") Collection<Long> ids, @Param("claimedUntil") LocalDateTime claimedUntil);
+}
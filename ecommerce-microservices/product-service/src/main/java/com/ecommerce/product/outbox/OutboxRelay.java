@@ -0,0 +1,272 @@
+package com.ecommerce.product.outbox;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.event.ProductEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes outbox events to Kafka and removes them once the broker has acknowledged them.
+ * <p>
+ * Each poll claims a batch in a short transaction: it locks the oldest unclaimed events
+ * with SKIP LOCKED, drops every key another relay holds or has older events for, and stamps
+ * the rest with a lease. The claimed events are then sent with no transaction or row lock
+ * open, each key's in version order, all handed to the producer before waiting on any so
+ * they share its linger batches. A second short transaction deletes the acknowledged events
+ * and releases the others. After a key's first failure its later events are kept back too,
+ * so delivery is at least once and a retry never reorders a product's events. A relay that
+ * dies mid-send loses its claim when the lease expires.
+ * <p>
+ * An event that keeps failing for a reason of its own, such as a payload that cannot be read
+ * or a record the broker refuses, would hold its key back forever. Such failures are counted
+ * per event, and after the configured number of attempts the event is moved to the
+ * product_outbox_dead_letter table, counted and logged as an error, and its key moves on.
+ * Failures of the broker itself, such as timeouts, are retried without limit.
+ */
+@Component
+@EnableScheduling
+@Conditional(KafkaCondition.class)
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final Comparator<OutboxEvent> SEND_ORDER =
+            Comparator.comparing(OutboxEvent::getEventVersion, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(OutboxEvent::getId);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, ProductEvent> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final int maxAttempts;
+
+    private final Counter relayedEvents;
+    private final Counter failedEvents;
+    private final Counter deadLetteredEvents;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, ProductEvent> kafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       ObjectMapper objectMapper,
+                       ApplicationFeatureProperties featureProperties,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = featureProperties.getOutbox().getBatchSize();
+        this.sendTimeoutMs = featureProperties.getOutbox().getSendTimeoutMs();
+        this.maxAttempts = featureProperties.getOutbox().getMaxAttempts();
+        this.relayedEvents = Counter.builder("product.outbox.relayed")
+                .description("Outbox events published and removed from the outbox")
+                .register(meterRegistry);
+        this.failedEvents = Counter.builder("product.outbox.failed")
+                .description("Outbox events left for retry after a failed send")
+                .register(meterRegistry);
+        this.deadLetteredEvents = Counter.builder("product.outbox.dead_lettered")
+                .description("Outbox events moved to the dead-letter table after failing too often")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drains the outbox, batch after batch, until it is empty or a send fails.
+     */
+    @Scheduled(fixedDelayString = "${application.features.outbox.poll-interval-ms:200}")
+    public void relay() {
+        boolean drained;
+        do {
+            drained = relayBatch();
+        } while (!drained);
+    }
+
+    /**
+     * @return true if there is nothing more to relay right now
+     */
+    private boolean relayBatch() {
+        // The lease outlives the acknowledgement wait, so it only expires if this relay dies
+        LocalDateTime claimedUntil = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)
+                .plus(2 * sendTimeoutMs, ChronoUnit.MILLIS);
+        Claim claim = transactionTemplate.execute(status -> claimBatch(claimedUntil));
+        if (claim.events().isEmpty()) {
+            return true;
+        }
+
+        List<OutboxEvent> batch = claim.events();
+        List<CompletableFuture<SendResult<String, ProductEvent>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            sends.add(send(outboxEvent));
+        }
+
+        List<Long> acknowledged = new ArrayList<>(batch.size());
+        List<Long> unacknowledged = new ArrayList<>();
+        List<Long> attemptsFailed = new ArrayList<>();
+        Map<Long, String> deadLetters = new HashMap<>();
+        Set<String> failedKeys = new HashSet<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        boolean interrupted = false;
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent outboxEvent = batch.get(i);
+            if (interrupted || failedKeys.contains(outboxEvent.getMessageKey())) {
+                unacknowledged.add(outboxEvent.getId());
+                continue;
+            }
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acknowledged.add(outboxEvent.getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+                unacknowledged.add(outboxEvent.getId());
+            } catch (Exception e) {
+                failedKeys.add(outboxEvent.getMessageKey());
+                if (isTransient(e)) {
+                    logger.error("Error publishing outbox event {}: {}", outboxEvent.getId(), e.getMessage());
+                    unacknowledged.add(outboxEvent.getId());
+                } else if (outboxEvent.getAttempts() + 1 >= maxAttempts) {
+                    logger.error("Outbox event {} of key {} failed {} times, moving it to the dead-letter table",
+                            outboxEvent.getId(), outboxEvent.getMessageKey(), outboxEvent.getAttempts() + 1, e);
+                    deadLetters.put(outboxEvent.getId(), describe(e));
+                } else {
+                    logger.error("Error publishing outbox event {} (attempt {} of {}): {}", outboxEvent.getId(),
+                            outboxEvent.getAttempts() + 1, maxAttempts, e.getMessage());
+                    attemptsFailed.add(outboxEvent.getId());
+                    unacknowledged.add(outboxEvent.getId());
+                }
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!acknowledged.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(acknowledged);
+            }
+            if (!attemptsFailed.isEmpty()) {
+                outboxEventRepository.recordFailedAttempt(attemptsFailed);
+            }
+            if (!deadLetters.isEmpty()) {
+                LocalDateTime failedAt = LocalDateTime.now();
+                deadLetters.forEach((id, error) -> outboxEventRepository.deadLetter(id, failedAt, error));
+                outboxEventRepository.deleteAllByIdInBatch(deadLetters.keySet());
+            }
+            if (!unacknowledged.isEmpty()) {
+                outboxEventRepository.release(unacknowledged, claimedUntil);
+            }
+        });
+        relayedEvents.increment(acknowledged.size());
+        deadLetteredEvents.increment(deadLetters.size());
+        if (!unacknowledged.isEmpty()) {
+            failedEvents.increment(unacknowledged.size());
+            return true;
+        }
+        logger.debug("Relayed {} outbox events", acknowledged.size());
+        return claim.lockedCount() < batchSize;
+    }
+
+    /**
+     * Claims the oldest unclaimed events whose keys no other relay can be sending, and
+     * returns them in send order.
+     */
+    private Claim claimBatch(LocalDateTime claimedUntil) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> locked = outboxEventRepository.lockNextBatch(now, PageRequest.ofSize(batchSize));
+        if (locked.isEmpty()) {
+            return new Claim(List.of(), 0);
+        }
+
+        Map<String, OutboxEvent> firstByKey = new HashMap<>();
+        Set<Long> lockedIds = new HashSet<>();
+        for (OutboxEvent outboxEvent : locked) {
+            lockedIds.add(outboxEvent.getId());
+            firstByKey.merge(outboxEvent.getMessageKey(), outboxEvent,
+                    (first, candidate) -> SEND_ORDER.compare(candidate, first) < 0 ? candidate : first);
+        }
+
+        // A key is busy if another relay holds one of its events, or if an event this relay
+        // could not lock would have to be sent before the ones it did
+        Set<String> busyKeys = new HashSet<>();
+        for (OutboxEvent pending : outboxEventRepository.findByMessageKeyIn(firstByKey.keySet())) {
+            if (lockedIds.contains(pending.getId())) {
+                continue;
+            }
+            boolean claimed = pending.getClaimedUntil() != null && !pending.getClaimedUntil().isBefore(now);
+            if (claimed || SEND_ORDER.compare(pending, firstByKey.get(pending.getMessageKey())) < 0) {
+                busyKeys.add(pending.getMessageKey());
+            }
+        }
+
+        List<OutboxEvent> claimed = new ArrayList<>(locked.size());
+        for (OutboxEvent outboxEvent : locked) {
+            if (!busyKeys.contains(outboxEvent.getMessageKey())) {
+                claimed.add(outboxEvent);
+            }
+        }
+        if (!claimed.isEmpty()) {
+            outboxEventRepository.claim(claimed.stream().map(OutboxEvent::getId).toList(), claimedUntil);
+        }
+        claimed.sort(Comparator.comparing(OutboxEvent::getMessageKey, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(SEND_ORDER));
+        return new Claim(claimed, locked.size());
+    }
+
+    /**
+     * Whether a send failed because the broker could not be reached or did not answer in
+     * time, rather than because of the event itself.
+     */
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(Throwable failure) {
+        Throwable cause = failure instanceof ExecutionException && failure.getCause() != null ? failure.getCause() : failure;
+        String description = cause.getClass().getName() + ": " + cause.getMessage();
+        return description.length() > 1000 ? description.substring(0, 1000) : description;
+    }
+
+    private CompletableFuture<SendResult<String, ProductEvent>> send(OutboxEvent outboxEvent) {
+        try {
+            ProductEvent event = objectMapper.readValue(outboxEvent.getPayload(), ProductEvent.class);
+            return kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getMessageKey(), event);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * The events a poll claimed, and how many it locked before dropping busy keys.
+     */
+    private record Claim(List<OutboxEvent> events, int lockedCount) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.product.outbox;
+
+import com.ecommerce.product.event.ProductEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Appends product events to the outbox table. Called inside the transaction of the change,
+ * so an event is stored if and only if the change commits; {@link OutboxRelay} publishes it.
+ */
+@Component
+public class ProductEventOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public ProductEventOutbox(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void append(String topic, ProductEvent event) {
+        outboxEventRepository.save(toOutboxEvent(topic, event));
+    }
+
+    /**
+     * Appends the events in order; the inserts are sent to the database as JDBC batches.
+     */
+    public void appendAll(List<ProductEvent> events, Function<ProductEvent, String> topicFor) {
+        List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+        for (ProductEvent event : events) {
+            outboxEvents.add(toOutboxEvent(topicFor.apply(event), event));
+        }
+        outboxEventRepository.saveAll(outboxEvents);
+    }
+
+    private OutboxEvent toOutboxEvent(String topic, ProductEvent event) {
+        try {
+            return new OutboxEvent(topic, event.getProductId().toString(), objectMapper.writeValueAsString(event),
+                    event.getVersion());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize product event " + event, e);
+        }
+    }
+}
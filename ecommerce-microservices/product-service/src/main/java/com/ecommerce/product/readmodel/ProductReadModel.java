@@ -0,0 +1,287 @@
+package com.ecommerce.product.readmodel;
+
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.model.Product;
+import com.ecommerce.product.model.ProductPage;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Denormalized, query-ordered copy of the catalog, projected from the product topics by
+ * {@link ProductReadModelProjector} so catalog reads never touch the write database.
+ * <p>
+ * Products are held by id in key order for listing and keyset paging, with secondary
+ * orderings by category, by (price, id) and by (stock, id), so every read the controller
+ * serves is a map lookup or a range walk. A batch of events is applied under one write lock.
+ * <p>
+ * Events are applied idempotently by {@link ProductEvent#rowVersion()}, the version of the
+ * product row they carry, which every write to the row increments. Every product keeps the
+ * version of the last event applied to it, deleted products included, and an older event is
+ * skipped, so replays of the topics and events arriving out of order across the two topics
+ * leave the model unchanged, and a redelivered event rewrites the same state.
+ * <p>
+ * The model is eventually consistent with the database. Until the projector has caught up
+ * with the topics it is not ready and queries return empty, so callers fall back to the
+ * write side.
+ */
+@Component
+@Conditional(KafkaCondition.class)
+public class ProductReadModel {
+
+    private static final Comparator<PricedId> BY_PRICE = Comparator
+            .comparing(PricedId::price)
+            .thenComparingLong(PricedId::productId);
+
+    private static final Comparator<StockedId> BY_STOCK = Comparator
+            .comparingInt(StockedId::quantity)
+            .thenComparingLong(StockedId::productId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Long, Product> products = new TreeMap<>();
+    private final Map<Long, Long> versions = new HashMap<>();
+    private final Map<Long, NavigableSet<Long>> idsByCategory = new HashMap<>();
+    private final NavigableSet<PricedId> byPrice = new TreeSet<>(BY_PRICE);
+    private final NavigableSet<StockedId> byStock = new TreeSet<>(BY_STOCK);
+
+    private volatile boolean ready;
+
+    /**
+     * Applies a batch of product events.
+     * @return the events that changed the model, in the order applied; the rest were stale
+     */
+    public List<ProductEvent> apply(Collection<ProductEvent> events) {
+        List<ProductEvent> applied = new ArrayList<>(events.size());
+        lock.writeLock().lock();
+        try {
+            for (ProductEvent event : events) {
+                if (apply(event)) {
+                    applied.add(event);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return applied;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every product ordered by id, or empty if the model cannot answer yet.
+     */
+    public Optional<List<Product>> findAll() {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.of(new ArrayList<>(products.values()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The keyset page after the cursor, or empty if the model cannot answer yet.
+     * @throws IllegalArgumentException if the cursor was not issued by this service
+     */
+    public Optional<ProductPage> findPage(String cursor, int limit) {
+        long lastId = ProductPage.decodeCursor(cursor);
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            List<Product> items = new ArrayList<>(Math.min(limit, products.size()));
+            for (Product product : products.tailMap(lastId, false).values()) {
+                if (items.size() == limit) {
+                    break;
+                }
+                items.add(product);
+            }
+            return Optional.of(ProductPage.of(items, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The product with the id, or empty if the model does not hold it or cannot answer yet.
+     */
+    public Optional<Product> findById(Long id) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(products.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products of the category ordered by id, or empty if the model cannot answer yet.
+     */
+    public Optional<List<Product>> findByCategory(Long categoryId) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            NavigableSet<Long> ids = idsByCategory.get(categoryId);
+            return Optional.of(ids == null ? List.of() : productsOf(ids));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products priced between min and max inclusive, cheapest first, or empty if the model
+     * cannot answer yet.
+     */
+    public Optional<List<Product>> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        if (minPrice.compareTo(maxPrice) > 0) {
+            return Optional.of(List.of());
+        }
+        lock.readLock().lock();
+        try {
+            NavigableSet<PricedId> range = byPrice.subSet(
+                    new PricedId(minPrice, Long.MIN_VALUE), true, new PricedId(maxPrice, Long.MAX_VALUE), true);
+            List<Product> result = new ArrayList<>(range.size());
+            for (PricedId entry : range) {
+                result.add(products.get(entry.productId()));
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products with at most the given stock, lowest first, or empty if the model cannot
+     * answer yet.
+     */
+    public Optional<List<Product>> findAtOrBelowStock(int threshold) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            NavigableSet<StockedId> low = byStock.headSet(new StockedId(threshold, Long.MAX_VALUE), true);
+            List<Product> result = new ArrayList<>(low.size());
+            for (StockedId entry : low) {
+                result.add(products.get(entry.productId()));
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean apply(ProductEvent event) {
+        Long id = event.getProductId();
+        if (id == null || event.getEventType() == null) {
+            return false;
+        }
+        switch (event.getEventType()) {
+            case CREATED:
+            case UPDATED:
+            case STOCK_CHANGED:
+            case DELETED:
+                break;
+            default:
+                return false;
+        }
+        long version = event.rowVersion();
+        Long current = versions.get(id);
+        if (current != null && version < current) {
+            return false;
+        }
+        versions.put(id, version);
+        unindex(products.remove(id));
+        if (event.getEventType() != ProductEvent.EventType.DELETED) {
+            Product product = event.toProduct();
+            products.put(id, product);
+            index(product);
+        }
+        return true;
+    }
+
+    private void index(Product product) {
+        if (product.getCategoryId() != null) {
+            idsByCategory.computeIfAbsent(product.getCategoryId(), category -> new TreeSet<>()).add(product.getId());
+        }
+        if (product.getPrice() != null) {
+            byPrice.add(new PricedId(product.getPrice(), product.getId()));
+        }
+        if (product.getStockQuantity() != null) {
+            byStock.add(new StockedId(product.getStockQuantity(), product.getId()));
+        }
+    }
+
+    private void unindex(Product product) {
+        if (product == null) {
+            return;
+        }
+        if (product.getCategoryId() != null) {
+            NavigableSet<Long> ids = idsByCategory.get(product.getCategoryId());
+            if (ids != null && ids.remove(product.getId()) && ids.isEmpty()) {
+                idsByCategory.remove(product.getCategoryId());
+            }
+        }
+        if (product.getPrice() != null) {
+            byPrice.remove(new PricedId(product.getPrice(), product.getId()));
+        }
+        if (product.getStockQuantity() != null) {
+            byStock.remove(new StockedId(product.getStockQuantity(), product.getId()));
+        }
+    }
+
+    private List<Product> productsOf(Collection<Long> ids) {
+        List<Product> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            result.add(products.get(id));
+        }
+        return result;
+    }
+
+    private record PricedId(BigDecimal price, long productId) {
+    }
+
+    private record StockedId(int quantity, long productId) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecommerce.product.readmodel;
+
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.event.ProductEvent;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides when the {@link ProductReadModel} has caught up with the product topics.
+ * <p>
+ * The projecting consumers are assigned their partitions outside any consumer group and read
+ * them from the beginning, since the model starts empty. When the first of them is assigned
+ * its partitions, the end offsets of every partition of both topics are taken as the target,
+ * through a consumer of its own. Each consumer clears the partitions it owns once its
+ * position reaches their target, on assignment and after every batch, and the model is marked
+ * ready when none are left, so reads switch over only once the model reflects everything
+ * published before the instance started.
+ */
+@Component
+@Conditional(KafkaCondition.class)
+public class ProductReadModelCatchUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductReadModelCatchUp.class);
+
+    private final ProductReadModel readModel;
+    private final ConsumerFactory<String, ProductEvent> consumerFactory;
+    private final Map<TopicPartition, Long> target = new ConcurrentHashMap<>();
+    private volatile boolean targetTaken;
+
+    @Value("${kafka.topics.product-created}")
+    private String productCreatedTopic;
+
+    @Value("${kafka.topics.product-updated}")
+    private String productUpdatedTopic;
+
+    public ProductReadModelCatchUp(ProductReadModel readModel,
+                                   ConsumerFactory<String, ProductEvent> productEventConsumerFactory) {
+        this.readModel = readModel;
+        this.consumerFactory = productEventConsumerFactory;
+    }
+
+    /**
+     * Takes the target on the first assignment, then clears the assigned partitions whose
+     * starting position has already reached it, such as empty ones.
+     */
+    public void onPartitionsAssigned(Map<TopicPartition, Long> positions) {
+        if (!targetTaken) {
+            takeTarget();
+        }
+        positions.forEach(this::clearIfReached);
+        markReadyIfCaughtUp();
+    }
+
+    /**
+     * Clears the given partitions of the consumer that have reached their target, and marks
+     * the model ready once no partition is left behind.
+     */
+    public void check(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (readModel.isReady()) {
+            return;
+        }
+        for (TopicPartition partition : partitions) {
+            if (target.containsKey(partition)) {
+                clearIfReached(partition, consumer.position(partition));
+            }
+        }
+        markReadyIfCaughtUp();
+    }
+
+    private void clearIfReached(TopicPartition partition, long position) {
+        Long end = target.get(partition);
+        if (end != null && position >= end) {
+            target.remove(partition);
+        }
+    }
+
+    private synchronized void takeTarget() {
+        if (targetTaken) {
+            return;
+        }
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        try (Consumer<String, ProductEvent> consumer = consumerFactory.createConsumer(null, "read-model", "-offsets", overrides)) {
+            List<TopicPartition> all = new ArrayList<>();
+            for (String topic : List.of(productCreatedTopic, productUpdatedTopic)) {
+                for (PartitionInfo info : consumer.partitionsFor(topic)) {
+                    all.add(new TopicPartition(info.topic(), info.partition()));
+                }
+            }
+            target.putAll(consumer.endOffsets(all));
+            logger.info("Building read model from {} partitions", all.size());
+        }
+        targetTaken = true;
+    }
+
+    private void markReadyIfCaughtUp() {
+        if (targetTaken && target.isEmpty()) {
+            markReady();
+        }
+    }
+
+    private synchronized void markReady() {
+        if (!readModel.isReady()) {
+            readModel.markReady();
+            logger.info("Read model caught up with {} products; serving reads from it", readModel.size());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ecommerce.product.readmodel;
+
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.event.ProductEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Projects the product topics into the {@link ProductReadModel}, and into the
+ * {@link ProductReadTable} when that is enabled.
+ * <p>
+ * Each instance is assigned every partition of both topics outside any consumer group, and
+ * reads them in batches of up to max-poll-records across the configured number of consumers.
+ * As the model lives in memory, every start reads the topics from the beginning, so there are
+ * no offsets to commit and no group is left behind when the instance goes away. Both topics
+ * are compacted, so a replay costs one event per product and topic. A batch that fails is
+ * redelivered and re-applied, which the versioned apply makes harmless.
+ * {@link ProductReadModelCatchUp} marks the model ready once the consumers have reached the
+ * end of the topics as they were at startup.
+ */
+@Component
+@Conditional(KafkaCondition.class)
+public class ProductReadModelProjector implements ConsumerSeekAware {
+
+    private static final String ALL_PARTITIONS = "0-#{${kafka.topics.product-partitions:3} - 1}";
+
+    private final ProductReadModel readModel;
+    private final ProductReadTable readTable;
+    private final ProductReadModelCatchUp catchUp;
+
+    private final Counter applied;
+    private final Counter stale;
+    private final DistributionSummary batchSize;
+
+    public ProductReadModelProjector(ProductReadModel readModel,
+                                     ProductReadTable readTable,
+                                     ProductReadModelCatchUp catchUp,
+                                     MeterRegistry meterRegistry) {
+        this.readModel = readModel;
+        this.readTable = readTable;
+        this.catchUp = catchUp;
+        this.applied = Counter.builder("product.readmodel.events")
+                .tag("outcome", "applied")
+                .description("Product events applied to the read model")
+                .register(meterRegistry);
+        this.stale = Counter.builder("product.readmodel.events")
+                .tag("outcome", "stale")
+                .description("Product events skipped as older than the read model")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("product.readmodel.batch.size")
+                .description("Product events received per read model batch")
+                .register(meterRegistry);
+        Gauge.builder("product.readmodel.products", readModel, ProductReadModel::size)
+                .description("Products held by the read model")
+                .register(meterRegistry);
+        Gauge.builder("product.readmodel.ready", readModel, model -> model.isReady() ? 1 : 0)
+                .description("Whether reads are served from the read model")
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(
+            id = "product-read-model",
+            idIsGroup = false,
+            topicPartitions = {
+                    @TopicPartition(topic = "${kafka.topics.product-created}", partitions = ALL_PARTITIONS),
+                    @TopicPartition(topic = "${kafka.topics.product-updated}", partitions = ALL_PARTITIONS)},
+            containerFactory = "readModelListenerContainerFactory",
+            autoStartup = "${application.features.read-model.enabled:false}",
+            properties = {
+                    "auto.offset.reset=earliest",
+                    "max.poll.records=${application.features.read-model.max-poll-records:500}"
+            })
+    public void onProductEvents(List<ConsumerRecord<String, ProductEvent>> records, Consumer<?, ?> consumer) {
+        batchSize.record(records.size());
+        List<ProductEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, ProductEvent> record : records) {
+            // Null when the value could not be deserialized; the error handler has logged it
+            if (record.value() != null) {
+                events.add(record.value());
+            }
+        }
+        List<ProductEvent> changes = readModel.apply(events);
+        readTable.write(changes);
+        applied.increment(changes.size());
+        stale.increment(events.size() - changes.size());
+        catchUp.check(consumer, consumer.assignment());
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<org.apache.kafka.common.TopicPartition, Long> assignments,
+                                     ConsumerSeekCallback callback) {
+        catchUp.onPartitionsAssigned(assignments);
+    }
+}
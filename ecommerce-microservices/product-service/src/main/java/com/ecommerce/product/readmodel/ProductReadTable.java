@@ -0,0 +1,109 @@
+package com.ecommerce.product.readmodel;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.event.ProductEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional PostgreSQL copy of the read model, for readers outside this service such as
+ * reporting jobs, kept in the {@code product_read_model} table next to the write tables. The
+ * table is created by the V4 migration.
+ * <p>
+ * Rows are upserted with the row version of the event that produced them, and an upsert
+ * never replaces a row holding a newer version, so the table is idempotent under redelivery
+ * just like the in-memory model. Deleted products stay as rows flagged deleted, keeping their
+ * version so an older event replayed later cannot bring them back. The events of a batch are
+ * coalesced to the last one per product and written in one JDBC batch.
+ */
+@Component
+@Conditional(KafkaCondition.class)
+public class ProductReadTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductReadTable.class);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO product_read_model (id, name, description, price, image_url, category_id, "
+                    + "stock_quantity, created_at, updated_at, deleted, version) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (id) DO UPDATE SET "
+                    + "name = EXCLUDED.name, description = EXCLUDED.description, price = EXCLUDED.price, "
+                    + "image_url = EXCLUDED.image_url, category_id = EXCLUDED.category_id, "
+                    + "stock_quantity = EXCLUDED.stock_quantity, created_at = EXCLUDED.created_at, "
+                    + "updated_at = EXCLUDED.updated_at, deleted = EXCLUDED.deleted, version = EXCLUDED.version "
+                    + "WHERE product_read_model.version <= EXCLUDED.version";
+
+    private final JdbcTemplate jdbcTemplate;
+    private boolean enabled;
+
+    public ProductReadTable(JdbcTemplate jdbcTemplate, ApplicationFeatureProperties featureProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = featureProperties.getReadModel().isEnabled() && featureProperties.getReadModel().isPersistTable();
+    }
+
+    @PostConstruct
+    void checkDatabase() {
+        if (!enabled) {
+            return;
+        }
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            logger.warn("Read model table needs PostgreSQL, not {}; keeping the read model in memory only", database);
+            enabled = false;
+            return;
+        }
+        logger.info("Persisting the read model to product_read_model");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Writes the events applied to the in-memory model, the last one per product.
+     */
+    public void write(List<ProductEvent> applied) {
+        if (!enabled || applied.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductEvent> latest = new LinkedHashMap<>();
+        for (ProductEvent event : applied) {
+            latest.put(event.getProductId(), event);
+        }
+        List<Object[]> rows = new ArrayList<>(latest.size());
+        for (ProductEvent event : latest.values()) {
+            rows.add(new Object[] {
+                    event.getProductId(),
+                    event.getProductName(),
+                    event.getDescription(),
+                    event.getPrice(),
+                    event.getImageUrl(),
+                    event.getCategoryId(),
+                    event.getStockQuantity(),
+                    toTimestamp(event.getCreatedAt()),
+                    toTimestamp(event.getUpdatedAt()),
+                    event.getEventType() == ProductEvent.EventType.DELETED,
+                    event.rowVersion()
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime == null ? null : Timestamp.valueOf(dateTime);
+    }
+}
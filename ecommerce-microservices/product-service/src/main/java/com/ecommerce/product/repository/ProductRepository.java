@@ -1,19 +1,30 @@
 package com.ecommerce.product.repository;
 
+import com.ecommerce.product.event.ProductEvent;
 import com.ecommerce.product.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
     List<Product> findByNameContainingIgnoreCase(String name);
     
+    List<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
+    
     List<Product> findByCategoryId(Long categoryId);
     
     List<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
@@ -23,4 +34,68 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     @Query("SELECT p FROM Product p WHERE p.stockQuantity > 0")
     List<Product> findAvailableProducts();
+    
+    /**
+     * Keyset page: the rows strictly after the given id, in id order.
+     * Served by the primary key index regardless of how deep the client has paged.
+     */
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long lastId, Pageable pageable);
+    
+    /**
+     * Streams the whole catalog in id order with a server-side cursor.
+     * Must be consumed inside a transaction; rows are fetched in chunks of the fetch size.
+     */
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Product> streamAllByOrderByIdAsc();
+    
+    /**
+     * Reads the event fields of a product without loading the entity.
+     */
+    Optional<StockSnapshot> findStockSnapshotById(Long id);
+    
+    List<StockSnapshot> findStockSnapshotsByIdIn(Collection<Long> ids);
+    
+    /**
+     * Counts the products and sums their row versions. Every write raises the sum and every
+     * create or delete changes the count, so a copy of the catalog that matches both holds
+     * no older state than the table.
+     */
+    @Query("SELECT COUNT(p) AS count, COALESCE(SUM(p.version), 0) AS versionSum FROM Product p")
+    CatalogVersion findCatalogVersion();
+    
+    interface CatalogVersion {
+        long getCount();
+        long getVersionSum();
+    }
+    
+    interface StockSnapshot {
+        Long getId();
+        String getName();
+        String getDescription();
+        BigDecimal getPrice();
+        String getImageUrl();
+        Long getCategoryId();
+        Integer getStockQuantity();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+        Long getVersion();
+        
+        /**
+         * Builds an event carrying the whole row, as a full product would.
+         */
+        default ProductEvent toEvent(ProductEvent.EventType eventType) {
+            ProductEvent event = new ProductEvent(getId(), getName(), getPrice(), getStockQuantity(), eventType);
+            event.setDescription(getDescription());
+            event.setImageUrl(getImageUrl());
+            event.setCategoryId(getCategoryId());
+            event.setCreatedAt(getCreatedAt());
+            event.setUpdatedAt(getUpdatedAt());
+            event.setVersion(getVersion());
+            return event;
+        }
+    }
 }
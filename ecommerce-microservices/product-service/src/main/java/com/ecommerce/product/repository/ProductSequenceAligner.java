@@ -0,0 +1,49 @@
+package com.ecommerce.product.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves the product id sequence past the existing rows of a PostgreSQL database.
+ * <p>
+ * Product ids used to come from an identity column. When the pooled {@code products_seq}
+ * sequence is first created over a table that already holds products, it starts at 1 and
+ * would hand out ids that are taken. This advances it beyond the highest id, and only
+ * when it is behind, so restarts never move a sequence that other instances are using.
+ */
+@Component
+public class ProductSequenceAligner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSequenceAligner.class);
+
+    private static final String ALIGN_SEQUENCE_SQL =
+            "SELECT setval('products_seq', m.max_id + 50) "
+                    + "FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM products) m, products_seq s "
+                    + "WHERE s.last_value < m.max_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        List<Long> aligned = jdbcTemplate.queryForList(ALIGN_SEQUENCE_SQL, Long.class);
+        if (!aligned.isEmpty()) {
+            logger.info("Advanced products_seq to {} past existing product ids", aligned.get(0));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecommerce.product.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Takes stock and reads back the row it produced in a single statement.
+ * <p>
+ * PostgreSQL returns the updated row with {@code UPDATE ... RETURNING}; H2 has no RETURNING
+ * clause and selects it from the {@code FINAL TABLE} of the same update instead. Either way
+ * the decrement, its stock check and the read of the new quantity are one round trip under
+ * one row lock.
+ */
+@Component
+public class ProductStockDecrementer {
+
+    private static final String RETURNED_COLUMNS =
+            "id, name, description, price, image_url, category_id, stock_quantity, created_at, updated_at, version";
+
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, updated_at = ?, version = version + 1 "
+                    + "WHERE id = ? AND stock_quantity >= ?";
+
+    private static final String DECREMENT_RETURNING_SQL = DECREMENT_SQL + " RETURNING " + RETURNED_COLUMNS;
+
+    private static final String DECREMENT_FINAL_TABLE_SQL =
+            "SELECT " + RETURNED_COLUMNS + " FROM FINAL TABLE (" + DECREMENT_SQL + ")";
+
+    private static final RowMapper<ProductRepository.StockSnapshot> SNAPSHOT_MAPPER = (rs, rowNum) -> new Snapshot(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getBigDecimal("price"),
+            rs.getString("image_url"),
+            rs.getObject("category_id", Long.class),
+            rs.getObject("stock_quantity", Integer.class),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("updated_at", LocalDateTime.class),
+            rs.getObject("version", Long.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private String decrementSql;
+
+    public ProductStockDecrementer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void detectDatabase() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        decrementSql = "PostgreSQL".equals(database) ? DECREMENT_RETURNING_SQL : DECREMENT_FINAL_TABLE_SQL;
+    }
+
+    /**
+     * Takes delta units of stock, provided at least minRemaining units are left afterwards.
+     * The stock needed is computed as a long, so delta + minRemaining cannot overflow.
+     * @return the row as the decrement left it, or empty if the product is missing or has
+     *         too little stock
+     */
+    public Optional<ProductRepository.StockSnapshot> decrement(Long id, int delta, int minRemaining, LocalDateTime updatedAt) {
+        long required = (long) delta + minRemaining;
+        List<ProductRepository.StockSnapshot> rows = jdbcTemplate.query(
+                decrementSql, SNAPSHOT_MAPPER, delta, Timestamp.valueOf(updatedAt), id, required);
+        return rows.stream().findFirst();
+    }
+
+    private record Snapshot(Long id,
+                            String name,
+                            String description,
+                            BigDecimal price,
+                            String imageUrl,
+                            Long categoryId,
+                            Integer stockQuantity,
+                            LocalDateTime createdAt,
+                            LocalDateTime updatedAt,
+                            Long version) implements ProductRepository.StockSnapshot {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        @Override
+        public String getImageUrl() {
+            return imageUrl;
+        }
+
+        @Override
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        @Override
+        public Integer getStockQuantity() {
+            return stockQuantity;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        @Override
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+
+        @Override
+        public Long getVersion() {
+            return version;
+        }
+    }
+}
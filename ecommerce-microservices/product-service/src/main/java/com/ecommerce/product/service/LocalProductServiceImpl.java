@@ -1,38 +1,82 @@
 package com.ecommerce.product.service;
 
-import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.cache.ProductCache;
+import com.ecommerce.product.index.LowStockTracker;
+import com.ecommerce.product.index.ProductPriceIndex;
+import com.ecommerce.product.index.ProductSearchIndex;
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaDisabledCondition;
 import com.ecommerce.product.event.ProductEvent;
 import com.ecommerce.product.model.Product;
+import com.ecommerce.product.model.ProductPage;
 import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.ProductStockDecrementer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Conditional;
-import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * This is a simplified implementation of ProductService that doesn't require Kafka.
  * It will be used in local development when Kafka is disabled.
  */
 @Service
-@Primary
-@Conditional(value = KafkaCondition.class)
+@Conditional(value = KafkaDisabledCondition.class)
 public class LocalProductServiceImpl implements ProductService {
 
     private static final Logger logger = LoggerFactory.getLogger(LocalProductServiceImpl.class);
     
     private final ProductRepository productRepository;
+    private final ProductStockDecrementer productStockDecrementer;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductPriceIndex productPriceIndex;
+    private final LowStockTracker lowStockTracker;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchChunkSize;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     @Autowired
-    public LocalProductServiceImpl(ProductRepository productRepository) {
+    public LocalProductServiceImpl(ProductRepository productRepository,
+                                   ProductStockDecrementer productStockDecrementer,
+                                   ProductCache productCache,
+                                   ProductSearchIndex productSearchIndex,
+                                   ProductPriceIndex productPriceIndex,
+                                   LowStockTracker lowStockTracker,
+                                   ApplicationEventPublisher applicationEventPublisher,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationFeatureProperties featureProperties) {
         this.productRepository = productRepository;
+        this.productStockDecrementer = productStockDecrementer;
+        this.productCache = productCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productPriceIndex = productPriceIndex;
+        this.lowStockTracker = lowStockTracker;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.batchChunkSize = featureProperties.getBatch().getChunkSize();
     }
     
     @Override
@@ -40,29 +84,46 @@ public class LocalProductServiceImpl implements ProductService {
         return productRepository.findAll();
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPage getProductsPage(String cursor, int limit) {
+        long lastId = ProductPage.decodeCursor(cursor);
+        List<Product> items = productRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.ofSize(limit));
+        return ProductPage.of(items, limit);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAllByOrderByIdAsc()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                // Detach so the persistence context does not grow with the catalog
+                entityManager.detach(product);
+            });
+        }
+    }
+    
     @Override
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productCache.get(id);
     }
     
     @Override
     @Transactional
     public Product createProduct(Product product) {
+        // A client supplied version would make the insert look like a merge of an existing row
+        product.setVersion(null);
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
         
         Product savedProduct = productRepository.save(product);
+        productSearchIndex.indexAfterCommit(savedProduct);
         
-        // Log event instead of publishing to Kafka
-        ProductEvent event = new ProductEvent(
-            savedProduct.getId(), 
-            savedProduct.getName(),
-            savedProduct.getPrice(),
-            savedProduct.getStockQuantity(),
-            ProductEvent.EventType.CREATED
-        );
+        // Publish event locally instead of to Kafka
+        ProductEvent event = ProductEvent.of(savedProduct, ProductEvent.EventType.CREATED);
         
-        logProductEvent(event);
+        publishProductEvent(event);
         
         return savedProduct;
     }
@@ -79,47 +140,111 @@ public class LocalProductServiceImpl implements ProductService {
                 existingProduct.setCategoryId(product.getCategoryId());
                 existingProduct.setUpdatedAt(LocalDateTime.now());
                 
-                Product updatedProduct = productRepository.save(existingProduct);
+                // Flushed so the event carries the version this update gave the row
+                Product updatedProduct = productRepository.saveAndFlush(existingProduct);
+                productCache.evictAfterCommit(id);
+                productSearchIndex.indexAfterCommit(updatedProduct);
                 
-                // Log event instead of publishing to Kafka
-                ProductEvent event = new ProductEvent(
-                    updatedProduct.getId(), 
-                    updatedProduct.getName(),
-                    updatedProduct.getPrice(),
-                    updatedProduct.getStockQuantity(),
-                    ProductEvent.EventType.UPDATED
-                );
+                // Publish event locally instead of to Kafka
+                ProductEvent event = ProductEvent.of(updatedProduct, ProductEvent.EventType.UPDATED);
                 
-                logProductEvent(event);
+                publishProductEvent(event);
                 
                 return updatedProduct;
             })
-            .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+            .orElseThrow(() -> new ProductNotFoundException(id));
+    }
+    
+    @Override
+    public List<Product> createProducts(List<Product> products) {
+        List<Product> created = new ArrayList<>(products.size());
+        for (List<Product> chunk : chunks(products)) {
+            created.addAll(transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (Product product : chunk) {
+                    // Always insert; a client supplied id would turn the insert into a merge
+                    product.setId(null);
+                    product.setVersion(null);
+                    product.setCreatedAt(now);
+                    product.setUpdatedAt(now);
+                }
+                List<Product> savedProducts = productRepository.saveAll(chunk);
+                entityManager.flush();
+                entityManager.clear();
+                
+                List<ProductEvent> events = new ArrayList<>(savedProducts.size());
+                for (Product savedProduct : savedProducts) {
+                    productSearchIndex.indexAfterCommit(savedProduct);
+                    events.add(ProductEvent.of(savedProduct, ProductEvent.EventType.CREATED));
+                }
+                publishProductEvents(events);
+                return savedProducts;
+            }));
+        }
+        return created;
+    }
+    
+    @Override
+    public List<Product> updateProducts(List<Product> products) {
+        List<Product> updated = new ArrayList<>(products.size());
+        for (List<Product> chunk : chunks(products)) {
+            updated.addAll(transactionTemplate.execute(status -> {
+                Map<Long, Product> changes = new LinkedHashMap<>();
+                for (Product product : chunk) {
+                    changes.put(product.getId(), product);
+                }
+                List<Product> existingProducts = productRepository.findAllById(changes.keySet());
+                if (existingProducts.size() < changes.size()) {
+                    logger.warn("Skipping {} products not found in batch update", changes.size() - existingProducts.size());
+                }
+                
+                LocalDateTime now = LocalDateTime.now();
+                for (Product existingProduct : existingProducts) {
+                    Product product = changes.get(existingProduct.getId());
+                    existingProduct.setName(product.getName());
+                    existingProduct.setDescription(product.getDescription());
+                    existingProduct.setPrice(product.getPrice());
+                    existingProduct.setImageUrl(product.getImageUrl());
+                    existingProduct.setCategoryId(product.getCategoryId());
+                    existingProduct.setUpdatedAt(now);
+                }
+                entityManager.flush();
+                entityManager.clear();
+                
+                List<ProductEvent> events = new ArrayList<>(existingProducts.size());
+                for (Product updatedProduct : existingProducts) {
+                    productCache.evictAfterCommit(updatedProduct.getId());
+                    productSearchIndex.indexAfterCommit(updatedProduct);
+                    events.add(ProductEvent.of(updatedProduct, ProductEvent.EventType.UPDATED));
+                }
+                publishProductEvents(events);
+                return existingProducts;
+            }));
+        }
+        return updated;
     }
     
     @Override
     @Transactional
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+            .orElseThrow(() -> new ProductNotFoundException(id));
             
         productRepository.deleteById(id);
+        productCache.evictAfterCommit(id);
+        productSearchIndex.removeAfterCommit(id);
         
-        // Log event instead of publishing to Kafka
-        ProductEvent event = new ProductEvent(
-            product.getId(), 
-            product.getName(),
-            product.getPrice(),
-            product.getStockQuantity(),
-            ProductEvent.EventType.DELETED
-        );
+        // Publish event locally instead of to Kafka
+        ProductEvent event = ProductEvent.of(product, ProductEvent.EventType.DELETED);
         
-        logProductEvent(event);
+        publishProductEvent(event);
     }
     
     @Override
-    public List<Product> searchProducts(String nameQuery) {
-        return productRepository.findByNameContainingIgnoreCase(nameQuery);
+    public List<Product> searchProducts(String nameQuery, int limit) {
+        return productSearchIndex.search(nameQuery, limit)
+            .map(productCache::getAll)
+            .orElseGet(() -> productRepository.findByNameContainingIgnoreCase(nameQuery, PageRequest.ofSize(limit)));
     }
     
     @Override
@@ -129,12 +254,16 @@ public class LocalProductServiceImpl implements ProductService {
     
     @Override
     public List<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return productRepository.findByPriceBetween(minPrice, maxPrice);
+        return productPriceIndex.findIdsInRange(minPrice, maxPrice)
+            .map(ids -> productCache.getAll(Arrays.stream(ids).boxed().toList()))
+            .orElseGet(() -> productRepository.findByPriceBetween(minPrice, maxPrice));
     }
     
     @Override
     public List<Product> getLowStockProducts(Integer threshold) {
-        return productRepository.findLowStockProducts(threshold);
+        return lowStockTracker.findIdsAtOrBelow(threshold)
+            .map(productCache::getAll)
+            .orElseGet(() -> productRepository.findLowStockProducts(threshold));
     }
     
     @Override
@@ -145,31 +274,70 @@ public class LocalProductServiceImpl implements ProductService {
                 product.setStockQuantity(quantity);
                 product.setUpdatedAt(LocalDateTime.now());
                 
-                Product updatedProduct = productRepository.save(product);
+                Product updatedProduct = productRepository.saveAndFlush(product);
+                productCache.evictAfterCommit(productId);
                 
-                // Log event instead of publishing to Kafka
-                ProductEvent event = new ProductEvent(
-                    updatedProduct.getId(), 
-                    updatedProduct.getName(),
-                    updatedProduct.getPrice(),
-                    updatedProduct.getStockQuantity(),
-                    ProductEvent.EventType.STOCK_CHANGED
-                );
+                // Publish event locally instead of to Kafka
+                ProductEvent event = ProductEvent.of(updatedProduct, ProductEvent.EventType.STOCK_CHANGED);
                 
-                logProductEvent(event);
+                publishProductEvent(event);
                 
                 return true;
             })
             .orElse(false);
     }
     
+    @Override
+    @Transactional
+    public OptionalInt decrementProductStock(Long productId, int delta, int expectedMin) {
+        // The decrement returns the row it produced, so success costs one round trip
+        Optional<ProductRepository.StockSnapshot> decremented =
+            productStockDecrementer.decrement(productId, delta, expectedMin, LocalDateTime.now());
+        if (decremented.isEmpty()) {
+            if (!productRepository.existsById(productId)) {
+                throw new ProductNotFoundException(productId);
+            }
+            return OptionalInt.empty();
+        }
+        ProductRepository.StockSnapshot snapshot = decremented.get();
+        productCache.evictAfterCommit(productId);
+        
+        // Publish event for stock change
+        ProductEvent event = snapshot.toEvent(ProductEvent.EventType.STOCK_CHANGED);
+        
+        publishProductEvent(event);
+        
+        return OptionalInt.of(snapshot.getStockQuantity());
+    }
+    
     @Override
     public void publishProductEvent(ProductEvent event) {
+        // Keep in-memory indexes current; they apply the event once the transaction commits
+        applicationEventPublisher.publishEvent(event);
         // In local mode, we just log the event instead of publishing to Kafka
         logProductEvent(event);
     }
     
+    @Override
+    public void publishProductEvents(List<ProductEvent> events) {
+        for (ProductEvent event : events) {
+            applicationEventPublisher.publishEvent(event);
+        }
+        logger.info("LOCAL MODE - {} product events (not published to Kafka)", events.size());
+    }
+    
     private void logProductEvent(ProductEvent event) {
         logger.info("LOCAL MODE - Product Event (not published to Kafka): {}", event);
     }
+    
+    /**
+     * Splits a bulk request into the slices written and committed together.
+     */
+    private List<List<Product>> chunks(List<Product> products) {
+        List<List<Product>> chunks = new ArrayList<>();
+        for (int from = 0; from < products.size(); from += batchChunkSize) {
+            chunks.add(products.subList(from, Math.min(from + batchChunkSize, products.size())));
+        }
+        return chunks;
+    }
 }
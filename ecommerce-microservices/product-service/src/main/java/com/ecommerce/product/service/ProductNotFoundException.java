@@ -0,0 +1,11 @@
+package com.ecommerce.product.service;
+
+/**
+ * Thrown when a write targets a product that does not exist.
+ */
+public class ProductNotFoundException extends RuntimeException {
+
+    public ProductNotFoundException(Long id) {
+        super("Product not found with id: " + id);
+    }
+}
@@ -1,25 +1,63 @@
 package com.ecommerce.product.service;
 
 import com.ecommerce.product.model.Product;
+import com.ecommerce.product.model.ProductPage;
 import com.ecommerce.product.event.ProductEvent;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
 
 public interface ProductService {
     
     List<Product> getAllProducts();
     
+    /**
+     * Returns the page of products that follows the given cursor.
+     * @param cursor The next token of the previous page, or null for the first page
+     * @param limit Maximum number of products in the page
+     */
+    ProductPage getProductsPage(String cursor, int limit);
+    
+    /**
+     * Streams every product, in id order, to the consumer as rows are read from the database.
+     * Entities are detached once consumed so memory stays flat regardless of catalog size.
+     * @param consumer Receives each product exactly once
+     */
+    void streamAllProducts(Consumer<Product> consumer);
+    
     Optional<Product> getProductById(Long id);
     
     Product createProduct(Product product);
     
     Product updateProduct(Long id, Product product);
     
+    /**
+     * Creates the products using JDBC-batched inserts, committing every chunk in its own transaction.
+     * A failure rolls back only the chunk being written; earlier chunks stay committed.
+     * @param products Products to create; any ids supplied are ignored
+     * @return The created products with their generated ids, in request order
+     */
+    List<Product> createProducts(List<Product> products);
+    
+    /**
+     * Updates the products using JDBC-batched updates, committing every chunk in its own transaction.
+     * Products whose id does not exist are skipped.
+     * @param products Products to update, identified by their id
+     * @return The products that were updated
+     */
+    List<Product> updateProducts(List<Product> products);
+    
     void deleteProduct(Long id);
     
-    List<Product> searchProducts(String nameQuery);
+    /**
+     * Finds products whose name contains the query, ignoring case, best matches first.
+     * @param nameQuery Substring to look for
+     * @param limit Maximum number of products returned
+     */
+    List<Product> searchProducts(String nameQuery, int limit);
     
     List<Product> getProductsByCategory(Long categoryId);
     
@@ -30,8 +68,24 @@ public interface ProductService {
     boolean updateProductStock(Long productId, Integer quantity);
     
     /**
-     * Publishes product events to Kafka topic
+     * Atomically takes delta units of stock, provided at least expectedMin units remain afterwards.
+     * @param productId The product to take stock from
+     * @param delta Units to take, at least 1
+     * @param expectedMin Minimum stock that must be left after the decrement
+     * @return The new stock quantity, or empty if there was not enough stock and nothing changed
+     * @throws ProductNotFoundException if the product does not exist
+     */
+    OptionalInt decrementProductStock(Long productId, int delta, int expectedMin);
+    
+    /**
+     * Publishes product events to Kafka topic, once the surrounding transaction commits
      * @param event The product event to publish
      */
     void publishProductEvent(ProductEvent event);
+    
+    /**
+     * Publishes a batch of product events to Kafka together, once the surrounding transaction commits
+     * @param events The product events to publish
+     */
+    void publishProductEvents(List<ProductEvent> events);
 }
@@ -1,29 +1,66 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.product.cache.ProductCache;
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.config.KafkaCondition;
+import com.ecommerce.product.index.LowStockTracker;
+import com.ecommerce.product.index.ProductPriceIndex;
+import com.ecommerce.product.index.ProductSearchIndex;
 import com.ecommerce.product.model.Product;
+import com.ecommerce.product.model.ProductPage;
+import com.ecommerce.product.outbox.ProductEventOutbox;
 import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.repository.ProductStockDecrementer;
 import com.ecommerce.product.event.ProductEvent;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Product service used whenever Kafka is enabled. Every event is appended to the outbox in
+ * the transaction of its change and published to the product topics by the outbox relay.
+ */
 @Service
+@Conditional(KafkaCondition.class)
 public class ProductServiceImpl implements ProductService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
     
     private final ProductRepository productRepository;
-    private final KafkaTemplate<String, ProductEvent> kafkaTemplate;
+    private final ProductStockDecrementer productStockDecrementer;
+    private final ProductCache productCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductPriceIndex productPriceIndex;
+    private final LowStockTracker lowStockTracker;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchChunkSize;
+    private final ProductEventOutbox productEventOutbox;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
     
     @Value("${kafka.topics.product-created}")
     private String productCreatedTopic;
@@ -32,10 +69,26 @@ public class ProductServiceImpl implements ProductService {
     private String productUpdatedTopic;
     
     @Autowired
-    public ProductServiceImpl(ProductRepository productRepository, 
-                             KafkaTemplate<String, ProductEvent> kafkaTemplate) {
+    public ProductServiceImpl(ProductRepository productRepository,
+                             ProductStockDecrementer productStockDecrementer,
+                             ProductCache productCache,
+                             ProductSearchIndex productSearchIndex,
+                             ProductPriceIndex productPriceIndex,
+                             LowStockTracker lowStockTracker,
+                             ApplicationEventPublisher applicationEventPublisher,
+                             TransactionTemplate transactionTemplate,
+                             ApplicationFeatureProperties featureProperties,
+                             ProductEventOutbox productEventOutbox) {
         this.productRepository = productRepository;
-        this.kafkaTemplate = kafkaTemplate;
+        this.productStockDecrementer = productStockDecrementer;
+        this.productCache = productCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productPriceIndex = productPriceIndex;
+        this.lowStockTracker = lowStockTracker;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.batchChunkSize = featureProperties.getBatch().getChunkSize();
+        this.productEventOutbox = productEventOutbox;
     }
     
     @Override
@@ -43,27 +96,44 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findAll();
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPage getProductsPage(String cursor, int limit) {
+        long lastId = ProductPage.decodeCursor(cursor);
+        List<Product> items = productRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.ofSize(limit));
+        return ProductPage.of(items, limit);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAllByOrderByIdAsc()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                // Detach so the persistence context does not grow with the catalog
+                entityManager.detach(product);
+            });
+        }
+    }
+    
     @Override
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productCache.get(id);
     }
     
     @Override
     @Transactional
     public Product createProduct(Product product) {
+        // A client supplied version would make the insert look like a merge of an existing row
+        product.setVersion(null);
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
         
         Product savedProduct = productRepository.save(product);
+        productSearchIndex.indexAfterCommit(savedProduct);
         
         // Publish event for product creation
-        ProductEvent event = new ProductEvent(
-            savedProduct.getId(), 
-            savedProduct.getName(),
-            savedProduct.getPrice(),
-            savedProduct.getStockQuantity(),
-            ProductEvent.EventType.CREATED
-        );
+        ProductEvent event = ProductEvent.of(savedProduct, ProductEvent.EventType.CREATED);
         
         publishProductEvent(event);
         
@@ -82,47 +152,111 @@ public class ProductServiceImpl implements ProductService {
                 existingProduct.setCategoryId(product.getCategoryId());
                 existingProduct.setUpdatedAt(LocalDateTime.now());
                 
-                Product updatedProduct = productRepository.save(existingProduct);
+                // Flushed so the event carries the version this update gave the row
+                Product updatedProduct = productRepository.saveAndFlush(existingProduct);
+                productCache.evictAfterCommit(id);
+                productSearchIndex.indexAfterCommit(updatedProduct);
                 
                 // Publish event for product update
-                ProductEvent event = new ProductEvent(
-                    updatedProduct.getId(), 
-                    updatedProduct.getName(),
-                    updatedProduct.getPrice(),
-                    updatedProduct.getStockQuantity(),
-                    ProductEvent.EventType.UPDATED
-                );
+                ProductEvent event = ProductEvent.of(updatedProduct, ProductEvent.EventType.UPDATED);
                 
                 publishProductEvent(event);
                 
                 return updatedProduct;
             })
-            .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+            .orElseThrow(() -> new ProductNotFoundException(id));
+    }
+    
+    @Override
+    public List<Product> createProducts(List<Product> products) {
+        List<Product> created = new ArrayList<>(products.size());
+        for (List<Product> chunk : chunks(products)) {
+            created.addAll(transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (Product product : chunk) {
+                    // Always insert; a client supplied id would turn the insert into a merge
+                    product.setId(null);
+                    product.setVersion(null);
+                    product.setCreatedAt(now);
+                    product.setUpdatedAt(now);
+                }
+                List<Product> savedProducts = productRepository.saveAll(chunk);
+                entityManager.flush();
+                entityManager.clear();
+                
+                List<ProductEvent> events = new ArrayList<>(savedProducts.size());
+                for (Product savedProduct : savedProducts) {
+                    productSearchIndex.indexAfterCommit(savedProduct);
+                    events.add(ProductEvent.of(savedProduct, ProductEvent.EventType.CREATED));
+                }
+                publishProductEvents(events);
+                return savedProducts;
+            }));
+        }
+        return created;
+    }
+    
+    @Override
+    public List<Product> updateProducts(List<Product> products) {
+        List<Product> updated = new ArrayList<>(products.size());
+        for (List<Product> chunk : chunks(products)) {
+            updated.addAll(transactionTemplate.execute(status -> {
+                Map<Long, Product> changes = new LinkedHashMap<>();
+                for (Product product : chunk) {
+                    changes.put(product.getId(), product);
+                }
+                List<Product> existingProducts = productRepository.findAllById(changes.keySet());
+                if (existingProducts.size() < changes.size()) {
+                    logger.warn("Skipping {} products not found in batch update", changes.size() - existingProducts.size());
+                }
+                
+                LocalDateTime now = LocalDateTime.now();
+                for (Product existingProduct : existingProducts) {
+                    Product product = changes.get(existingProduct.getId());
+                    existingProduct.setName(product.getName());
+                    existingProduct.setDescription(product.getDescription());
+                    existingProduct.setPrice(product.getPrice());
+                    existingProduct.setImageUrl(product.getImageUrl());
+                    existingProduct.setCategoryId(product.getCategoryId());
+                    existingProduct.setUpdatedAt(now);
+                }
+                entityManager.flush();
+                entityManager.clear();
+                
+                List<ProductEvent> events = new ArrayList<>(existingProducts.size());
+                for (Product updatedProduct : existingProducts) {
+                    productCache.evictAfterCommit(updatedProduct.getId());
+                    productSearchIndex.indexAfterCommit(updatedProduct);
+                    events.add(ProductEvent.of(updatedProduct, ProductEvent.EventType.UPDATED));
+                }
+                publishProductEvents(events);
+                return existingProducts;
+            }));
+        }
+        return updated;
     }
     
     @Override
     @Transactional
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+            .orElseThrow(() -> new ProductNotFoundException(id));
             
         productRepository.deleteById(id);
+        productCache.evictAfterCommit(id);
+        productSearchIndex.removeAfterCommit(id);
         
         // Publish event for product deletion
-        ProductEvent event = new ProductEvent(
-            product.getId(), 
-            product.getName(),
-            product.getPrice(),
-            product.getStockQuantity(),
-            ProductEvent.EventType.DELETED
-        );
+        ProductEvent event = ProductEvent.of(product, ProductEvent.EventType.DELETED);
         
         publishProductEvent(event);
     }
     
     @Override
-    public List<Product> searchProducts(String nameQuery) {
-        return productRepository.findByNameContainingIgnoreCase(nameQuery);
+    public List<Product> searchProducts(String nameQuery, int limit) {
+        return productSearchIndex.search(nameQuery, limit)
+            .map(productCache::getAll)
+            .orElseGet(() -> productRepository.findByNameContainingIgnoreCase(nameQuery, PageRequest.ofSize(limit)));
     }
     
     @Override
@@ -132,12 +266,16 @@ public class ProductServiceImpl implements ProductService {
     
     @Override
     public List<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return productRepository.findByPriceBetween(minPrice, maxPrice);
+        return productPriceIndex.findIdsInRange(minPrice, maxPrice)
+            .map(ids -> productCache.getAll(Arrays.stream(ids).boxed().toList()))
+            .orElseGet(() -> productRepository.findByPriceBetween(minPrice, maxPrice));
     }
     
     @Override
     public List<Product> getLowStockProducts(Integer threshold) {
-        return productRepository.findLowStockProducts(threshold);
+        return lowStockTracker.findIdsAtOrBelow(threshold)
+            .map(productCache::getAll)
+            .orElseGet(() -> productRepository.findLowStockProducts(threshold));
     }
     
     @Override
@@ -148,16 +286,11 @@ public class ProductServiceImpl implements ProductService {
                 product.setStockQuantity(quantity);
                 product.setUpdatedAt(LocalDateTime.now());
                 
-                Product updatedProduct = productRepository.save(product);
+                Product updatedProduct = productRepository.saveAndFlush(product);
+                productCache.evictAfterCommit(productId);
                 
                 // Publish event for stock change
-                ProductEvent event = new ProductEvent(
-                    updatedProduct.getId(), 
-                    updatedProduct.getName(),
-                    updatedProduct.getPrice(),
-                    updatedProduct.getStockQuantity(),
-                    ProductEvent.EventType.STOCK_CHANGED
-                );
+                ProductEvent event = ProductEvent.of(updatedProduct, ProductEvent.EventType.STOCK_CHANGED);
                 
                 publishProductEvent(event);
                 
@@ -167,29 +300,70 @@ public class ProductServiceImpl implements ProductService {
     }
     
     @Override
-    public void publishProductEvent(ProductEvent event) {
-        try {
-            String topic;
-            
-            switch (event.getEventType()) {
-                case CREATED:
-                    topic = productCreatedTopic;
-                    break;
-                case UPDATED:
-                case STOCK_CHANGED:
-                case DELETED:
-                    topic = productUpdatedTopic;
-                    break;
-                default:
-                    topic = productUpdatedTopic;
+    @Transactional
+    public OptionalInt decrementProductStock(Long productId, int delta, int expectedMin) {
+        // The decrement returns the row it produced, so success costs one round trip
+        Optional<ProductRepository.StockSnapshot> decremented =
+            productStockDecrementer.decrement(productId, delta, expectedMin, LocalDateTime.now());
+        if (decremented.isEmpty()) {
+            if (!productRepository.existsById(productId)) {
+                throw new ProductNotFoundException(productId);
             }
-            
-            logger.info("Publishing product event to topic {}: {}", topic, event);
-            kafkaTemplate.send(topic, event.getProductId().toString(), event);
-        } catch (Exception e) {
-            logger.error("Error publishing product event: {}", e.getMessage(), e);
-            // For resilience, we don't want to fail the transaction if event publishing fails
-            // In a production system, we might use an outbox pattern or retry mechanism
+            return OptionalInt.empty();
+        }
+        ProductRepository.StockSnapshot snapshot = decremented.get();
+        productCache.evictAfterCommit(productId);
+        
+        // Publish event for stock change
+        ProductEvent event = snapshot.toEvent(ProductEvent.EventType.STOCK_CHANGED);
+        
+        publishProductEvent(event);
+        
+        return OptionalInt.of(snapshot.getStockQuantity());
+    }
+    
+    @Override
+    public void publishProductEvent(ProductEvent event) {
+        // Keep in-memory indexes current; they apply the event once the transaction commits
+        applicationEventPublisher.publishEvent(event);
+        
+        // Stored with the change in the same transaction and published to Kafka by the
+        // outbox relay, so the event is sent if and only if the change commits
+        productEventOutbox.append(topicFor(event), event);
+    }
+    
+    @Override
+    public void publishProductEvents(List<ProductEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        for (ProductEvent event : events) {
+            applicationEventPublisher.publishEvent(event);
+        }
+        productEventOutbox.appendAll(events, this::topicFor);
+    }
+    
+    private String topicFor(ProductEvent event) {
+        switch (event.getEventType()) {
+            case CREATED:
+                return productCreatedTopic;
+            case UPDATED:
+            case STOCK_CHANGED:
+            case DELETED:
+                return productUpdatedTopic;
+            default:
+                return productUpdatedTopic;
+        }
+    }
+    
+    /**
+     * Splits a bulk request into the slices written and committed together.
+     */
+    private List<List<Product>> chunks(List<Product> products) {
+        List<List<Product>> chunks = new ArrayList<>();
+        for (int from = 0; from < products.size(); from += batchChunkSize) {
+            chunks.add(products.subList(from, Math.min(from + batchChunkSize, products.size())));
         }
+        return chunks;
     }
 }
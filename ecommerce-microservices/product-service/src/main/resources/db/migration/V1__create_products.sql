@@ -0,0 +1,15 @@
+-- The products table as Hibernate generated it before schema migrations were introduced.
+-- Every statement is idempotent, so databases created that way are migrated in place.
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS products (
+    id             BIGINT         NOT NULL PRIMARY KEY,
+    name           VARCHAR(255),
+    description    VARCHAR(255),
+    price          NUMERIC(38, 2),
+    image_url      VARCHAR(255),
+    category_id    BIGINT,
+    stock_quantity INTEGER,
+    created_at     TIMESTAMP(6),
+    updated_at     TIMESTAMP(6)
+);
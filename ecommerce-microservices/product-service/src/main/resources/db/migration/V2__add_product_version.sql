@@ -0,0 +1,2 @@
+-- Raised by every write to a product, so its events can be ordered per product
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
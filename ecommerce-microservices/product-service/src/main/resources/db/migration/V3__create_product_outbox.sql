@@ -0,0 +1,13 @@
+CREATE SEQUENCE IF NOT EXISTS product_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS product_outbox (
+    id            BIGINT         NOT NULL PRIMARY KEY,
+    topic         VARCHAR(255)   NOT NULL,
+    message_key   VARCHAR(255),
+    payload       VARCHAR(4000)  NOT NULL,
+    event_version BIGINT,
+    created_at    TIMESTAMP(6)   NOT NULL,
+    claimed_until TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS product_outbox_message_key_idx ON product_outbox (message_key);
@@ -0,0 +1,20 @@
+-- Copy of the read model for readers outside the service, written only when
+-- application.features.read-model.persist-table is on. Every statement is idempotent, so tables
+-- the service created itself before this migration are kept as they are.
+CREATE TABLE IF NOT EXISTS product_read_model (
+    id             BIGINT         NOT NULL PRIMARY KEY,
+    name           VARCHAR(255),
+    description    VARCHAR(255),
+    price          NUMERIC(38, 2),
+    image_url      VARCHAR(255),
+    category_id    BIGINT,
+    stock_quantity INTEGER,
+    created_at     TIMESTAMP(6),
+    updated_at     TIMESTAMP(6),
+    deleted        BOOLEAN        DEFAULT FALSE NOT NULL,
+    version        BIGINT         NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS product_read_model_category_idx ON product_read_model (category_id, id);
+
+CREATE INDEX IF NOT EXISTS product_read_model_price_idx ON product_read_model (price, id);
@@ -0,0 +1,14 @@
+-- Failed sends counted per event, so one that can never be sent stops holding back its key
+ALTER TABLE product_outbox ADD COLUMN IF NOT EXISTS attempts INTEGER DEFAULT 0 NOT NULL;
+
+CREATE TABLE IF NOT EXISTS product_outbox_dead_letter (
+    id            BIGINT         NOT NULL PRIMARY KEY,
+    topic         VARCHAR(255)   NOT NULL,
+    message_key   VARCHAR(255),
+    payload       VARCHAR(4000)  NOT NULL,
+    event_version BIGINT,
+    created_at    TIMESTAMP(6)   NOT NULL,
+    attempts      INTEGER        NOT NULL,
+    failed_at     TIMESTAMP(6)   NOT NULL,
+    error         VARCHAR(1000)
+);
@@ -0,0 +1,137 @@
+package com.ecommerce.product.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Error bounds, merging and the byte form of {@link CountMinSketch}, over a skewed stream of
+ * product ids from a seeded generator.
+ */
+class CountMinSketchTest {
+
+    private static final double EPSILON = 0.001;
+    private static final double DELTA = 0.01;
+
+    @Test
+    void dimensionsFollowFromTheErrorBounds() {
+        CountMinSketch sketch = CountMinSketch.withErrorBounds(EPSILON, DELTA);
+
+        assertThat(sketch.width()).isEqualTo(2719);
+        assertThat(sketch.depth()).isEqualTo(5);
+    }
+
+    @Test
+    void neverUndercountsAndRarelyOvercountsBeyondTheBound() {
+        CountMinSketch sketch = CountMinSketch.withErrorBounds(EPSILON, DELTA);
+        Map<Long, Integer> exact = addSkewedStream(sketch, new Random(7), 200_000);
+
+        int beyondBound = 0;
+        for (Map.Entry<Long, Integer> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertThat(estimate).as("estimate of product %d", entry.getKey()).isGreaterThanOrEqualTo(entry.getValue());
+            if (estimate - entry.getValue() > EPSILON * sketch.totalCount()) {
+                beyondBound++;
+            }
+        }
+        assertThat((double) beyondBound / exact.size()).isLessThanOrEqualTo(DELTA);
+        assertThat(sketch.totalCount()).isEqualTo(200_000);
+    }
+
+    @Test
+    void addsCountsGreaterThanOne() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        sketch.add(1, 5);
+        sketch.add(1, 7);
+
+        assertThat(sketch.estimate(1)).isEqualTo(12);
+        assertThat(sketch.estimate(2)).isZero();
+        assertThat(sketch.totalCount()).isEqualTo(12);
+    }
+
+    @Test
+    void mergeGivesTheSketchOfTheCombinedStream() {
+        CountMinSketch first = CountMinSketch.withErrorBounds(EPSILON, DELTA);
+        CountMinSketch second = CountMinSketch.withErrorBounds(EPSILON, DELTA);
+        CountMinSketch combined = CountMinSketch.withErrorBounds(EPSILON, DELTA);
+        addSkewedStream(first, new Random(1), 50_000);
+        addSkewedStream(second, new Random(2), 30_000);
+        addSkewedStream(combined, new Random(1), 50_000);
+        addSkewedStream(combined, new Random(2), 30_000);
+
+        first.merge(second);
+
+        assertThat(first.totalCount()).isEqualTo(80_000);
+        for (long item = 1; item <= 5000; item++) {
+            assertThat(first.estimate(item)).isEqualTo(combined.estimate(item));
+        }
+    }
+
+    @Test
+    void refusesToMergeSketchesOfOtherDimensions() {
+        CountMinSketch sketch = new CountMinSketch(100, 4);
+
+        assertThatThrownBy(() -> sketch.merge(new CountMinSketch(200, 4))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sketch.merge(new CountMinSketch(100, 3))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void roundTripsThroughABuffer() {
+        CountMinSketch sketch = CountMinSketch.withErrorBounds(0.01, DELTA);
+        addSkewedStream(sketch, new Random(3), 10_000);
+        ByteBuffer buffer = ByteBuffer.allocate(sketch.serializedSize());
+
+        sketch.writeTo(buffer);
+        assertThat(buffer.hasRemaining()).isFalse();
+        CountMinSketch restored = CountMinSketch.readFrom(buffer.flip());
+
+        assertThat(restored.width()).isEqualTo(sketch.width());
+        assertThat(restored.depth()).isEqualTo(sketch.depth());
+        assertThat(restored.totalCount()).isEqualTo(sketch.totalCount());
+        for (long item = 1; item <= 5000; item++) {
+            assertThat(restored.estimate(item)).isEqualTo(sketch.estimate(item));
+        }
+    }
+
+    @Test
+    void clearForgetsAllCounts() {
+        CountMinSketch sketch = new CountMinSketch(64, 2);
+        sketch.add(9, 3);
+
+        sketch.clear();
+
+        assertThat(sketch.estimate(9)).isZero();
+        assertThat(sketch.totalCount()).isZero();
+    }
+
+    @Test
+    void rejectsInvalidDimensions() {
+        assertThatThrownBy(() -> new CountMinSketch(0, 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CountMinSketch(10, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CountMinSketch(10, 9)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Adds a stream over 5000 products in which low ids are far more frequent, as views of a
+     * catalog are, and returns the exact counts.
+     */
+    static Map<Long, Integer> addSkewedStream(CountMinSketch sketch, Random random, int events) {
+        Map<Long, Integer> exact = new HashMap<>();
+        for (int i = 0; i < events; i++) {
+            long item = skewedItem(random);
+            sketch.add(item, 1);
+            exact.merge(item, 1, Integer::sum);
+        }
+        return exact;
+    }
+
+    static long skewedItem(Random random) {
+        return 1 + (long) (5000 * Math.pow(random.nextDouble(), 3));
+    }
+}
@@ -0,0 +1,168 @@
+package com.ecommerce.product.analytics;
+
+import com.ecommerce.product.config.ApplicationFeatureProperties;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Windowed distinct counts of {@link DistinctVisitorCounter} with the default one-hour
+ * windows, fed directly rather than from the analytics stream.
+ */
+class DistinctVisitorCounterTest {
+
+    private static final long PRODUCT_ID = 42;
+    private static final double TOLERANCE = 4 * 1.04 / Math.sqrt(1 << 11);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DistinctVisitorCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = newCounter();
+    }
+
+    @Test
+    void estimatesDistinctUsersAndSessionsOfTheCurrentWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        counter.accept(events(PRODUCT_ID, 0, 3000, 2, now));
+        counter.snapshot();
+
+        ProductVisitorCounts counts = counter.visitors(PRODUCT_ID, 1);
+
+        assertThat((double) counts.uniqueUsers()).isCloseTo(3000, within(TOLERANCE * 3000));
+        assertThat((double) counts.uniqueSessions()).isCloseTo(6000, within(TOLERANCE * 6000));
+        assertThat(counts.windows()).hasSize(1);
+    }
+
+    @Test
+    void answersFromTheLastSnapshotOnly() {
+        counter.accept(events(PRODUCT_ID, 0, 100, 1, LocalDateTime.now()));
+
+        assertThat(counter.visitors(PRODUCT_ID, 1).uniqueUsers()).isZero();
+
+        counter.snapshot();
+        assertThat(counter.visitors(PRODUCT_ID, 1).uniqueUsers()).isPositive();
+    }
+
+    @Test
+    void countsUsersSeenInSeveralWindowsOnceInTheTotal() {
+        LocalDateTime now = LocalDateTime.now();
+        counter.accept(events(PRODUCT_ID, 0, 2000, 1, now.minusHours(1)));
+        counter.accept(events(PRODUCT_ID, 1000, 3000, 1, now));
+        counter.snapshot();
+
+        ProductVisitorCounts counts = counter.visitors(PRODUCT_ID, 2);
+
+        assertThat(counts.windows()).hasSize(2);
+        assertThat(counts.windows().get(0).windowStart()).isGreaterThan(counts.windows().get(1).windowStart());
+        assertThat((double) counts.uniqueUsers()).isCloseTo(3000, within(TOLERANCE * 3000));
+        assertThat(counter.visitors(PRODUCT_ID, 1).windows()).hasSize(1);
+    }
+
+    @Test
+    void keepsProductsApart() {
+        LocalDateTime now = LocalDateTime.now();
+        counter.accept(events(PRODUCT_ID, 0, 500, 1, now));
+        counter.accept(events(PRODUCT_ID + 1, 0, 10, 1, now));
+        counter.snapshot();
+
+        assertThat(counter.visitors(PRODUCT_ID + 1, 1).uniqueUsers()).isEqualTo(10);
+        assertThat(counter.visitors(PRODUCT_ID + 2, 1).uniqueUsers()).isZero();
+        assertThat(counter.visitors(PRODUCT_ID + 2, 1).windows()).isEmpty();
+    }
+
+    @Test
+    void dropsFutureAndAnonymousEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EnhancedProductEvent> events = new ArrayList<>(events(PRODUCT_ID, 0, 50, 1, now.plusHours(1)));
+        EnhancedProductEvent anonymous = event(PRODUCT_ID, null, null, now);
+        events.add(anonymous);
+
+        counter.accept(events);
+        counter.snapshot();
+
+        assertThat(counter.visitors(PRODUCT_ID, 1).uniqueUsers()).isZero();
+        assertThat(meterRegistry.counter("product.visitors.future.events").count()).isEqualTo(50);
+    }
+
+    @Test
+    void dropsEventsOlderThanTheRetainedWindows() {
+        counter.accept(events(PRODUCT_ID, 0, 20, 1, LocalDateTime.now().minusDays(2)));
+        counter.snapshot();
+
+        assertThat(counter.visitors(PRODUCT_ID, 24).uniqueUsers()).isZero();
+        assertThat(meterRegistry.counter("product.visitors.late.events").count()).isEqualTo(20);
+    }
+
+    @Test
+    void registersOfTwoInstancesMergeIntoTheUnion() {
+        DistinctVisitorCounter other = newCounter();
+        LocalDateTime now = LocalDateTime.now();
+        counter.accept(events(PRODUCT_ID, 0, 4000, 1, now));
+        other.accept(events(PRODUCT_ID, 2000, 6000, 1, now));
+        counter.snapshot();
+        other.snapshot();
+
+        HyperLogLog users = usersOf(counter.registers(PRODUCT_ID, 1));
+        users.merge(usersOf(other.registers(PRODUCT_ID, 1)));
+
+        assertThat((double) users.estimate()).isCloseTo(6000, within(TOLERANCE * 6000));
+    }
+
+    @Test
+    void registersOfAnUnseenProductAreEmpty() {
+        counter.snapshot();
+
+        ByteBuffer registers = ByteBuffer.wrap(counter.registers(PRODUCT_ID, 1));
+
+        assertThat(registers.getInt()).isZero();
+        assertThat(registers.getInt()).isZero();
+        assertThat(registers.hasRemaining()).isFalse();
+    }
+
+    private DistinctVisitorCounter newCounter() {
+        return new DistinctVisitorCounter(new ApplicationFeatureProperties(), meterRegistry);
+    }
+
+    private static HyperLogLog usersOf(byte[] registers) {
+        ByteBuffer buffer = ByteBuffer.wrap(registers);
+        byte[] users = new byte[buffer.getInt()];
+        buffer.get(users);
+        return HyperLogLog.fromByteArray(users);
+    }
+
+    /**
+     * Events of users {@code from} until {@code to}, each in the given number of sessions.
+     */
+    private static List<EnhancedProductEvent> events(long productId, int from, int to, int sessionsPerUser,
+                                                     LocalDateTime timestamp) {
+        List<EnhancedProductEvent> events = new ArrayList<>();
+        for (int user = from; user < to; user++) {
+            for (int session = 0; session < sessionsPerUser; session++) {
+                events.add(event(productId, "user-" + user, "session-" + user + "-" + session, timestamp));
+            }
+        }
+        return events;
+    }
+
+    private static EnhancedProductEvent event(long productId, String userId, String sessionId,
+                                              LocalDateTime timestamp) {
+        EnhancedProductEvent event = new EnhancedProductEvent();
+        event.setEventType("VIEW");
+        event.setProductId(productId);
+        event.setUserId(userId);
+        event.setSessionId(sessionId);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
@@ -0,0 +1,196 @@
+package com.ecommerce.product.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Sparse and dense representations of {@link HyperLogLog}, merging and the byte form. Values
+ * are hashed deterministically, so the error bounds are checked at four standard errors to
+ * leave room for changes of the hash rather than for chance.
+ */
+class HyperLogLogTest {
+
+    private static final int PRECISION = 11;
+    private static final double STANDARD_ERROR = 1.04 / Math.sqrt(1 << PRECISION);
+
+    @Test
+    void staysSparseForFewValuesAndSwitchesToDense() {
+        HyperLogLog counter = new HyperLogLog(PRECISION);
+        addRange(counter, 0, 50);
+        assertThat(isDense(counter)).isFalse();
+        assertThat(counter.toByteArray()).hasSizeLessThan(2 + 4 * 64);
+
+        addRange(counter, 50, 1000);
+        assertThat(isDense(counter)).isTrue();
+        assertThat(counter.toByteArray()).hasSize(2 + (1 << PRECISION));
+    }
+
+    @Test
+    void estimateIsContinuousAcrossTheSwitchToDense() {
+        HyperLogLog counter = new HyperLogLog(PRECISION);
+        for (int n = 1; n <= 400; n++) {
+            counter.addHash(HyperLogLog.hash("user-" + (n - 1)));
+            // Linear counting is nearly exact while most registers are empty
+            assertThat((double) counter.estimate()).as("estimate of %d values", n)
+                    .isCloseTo(n, within(Math.max(2, 0.03 * n)));
+        }
+    }
+
+    @Test
+    void estimatesLargeCardinalitiesWithinTheStandardError() {
+        for (int cardinality : new int[] {10_000, 100_000, 1_000_000}) {
+            HyperLogLog counter = new HyperLogLog(PRECISION);
+            addRange(counter, 0, cardinality);
+            assertThat((double) counter.estimate()).as("estimate of %d values", cardinality)
+                    .isCloseTo(cardinality, within(4 * STANDARD_ERROR * cardinality));
+        }
+    }
+
+    @Test
+    void countsRepeatedValuesOnce() {
+        HyperLogLog counter = new HyperLogLog(PRECISION);
+        for (int repeat = 0; repeat < 10; repeat++) {
+            addRange(counter, 0, 5000);
+        }
+        HyperLogLog once = new HyperLogLog(PRECISION);
+        addRange(once, 0, 5000);
+
+        assertThat(counter.toByteArray()).isEqualTo(once.toByteArray());
+    }
+
+    @Test
+    void mergeCountsTheUnion() {
+        HyperLogLog first = new HyperLogLog(PRECISION);
+        HyperLogLog second = new HyperLogLog(PRECISION);
+        addRange(first, 0, 50_000);
+        addRange(second, 25_000, 75_000);
+        HyperLogLog union = new HyperLogLog(PRECISION);
+        addRange(union, 0, 75_000);
+
+        first.merge(second);
+
+        assertThat(first.toByteArray()).isEqualTo(union.toByteArray());
+        assertThat((double) first.estimate()).isCloseTo(75_000, within(4 * STANDARD_ERROR * 75_000));
+    }
+
+    @Test
+    void mergesSparseAndDenseCountersInEitherDirection() {
+        HyperLogLog sparse = new HyperLogLog(PRECISION);
+        addRange(sparse, 0, 40);
+        HyperLogLog dense = new HyperLogLog(PRECISION);
+        addRange(dense, 1000, 6000);
+        HyperLogLog union = new HyperLogLog(PRECISION);
+        addRange(union, 0, 40);
+        addRange(union, 1000, 6000);
+
+        HyperLogLog sparseIntoDense = dense.copy();
+        sparseIntoDense.merge(sparse);
+        HyperLogLog denseIntoSparse = sparse.copy();
+        denseIntoSparse.merge(dense);
+
+        assertThat(sparseIntoDense.toByteArray()).isEqualTo(union.toByteArray());
+        assertThat(denseIntoSparse.toByteArray()).isEqualTo(union.toByteArray());
+        assertThat(isDense(denseIntoSparse)).isTrue();
+    }
+
+    @Test
+    void mergesSparseCountersWithoutSwitchingToDense() {
+        HyperLogLog first = new HyperLogLog(PRECISION);
+        HyperLogLog second = new HyperLogLog(PRECISION);
+        addRange(first, 0, 20);
+        addRange(second, 10, 30);
+        HyperLogLog union = new HyperLogLog(PRECISION);
+        addRange(union, 0, 30);
+
+        first.merge(second);
+
+        assertThat(isDense(first)).isFalse();
+        assertThat(first.estimate()).isEqualTo(union.estimate());
+    }
+
+    @Test
+    void mergeLeavesTheOtherCounterUnchanged() {
+        HyperLogLog first = new HyperLogLog(PRECISION);
+        HyperLogLog second = new HyperLogLog(PRECISION);
+        addRange(first, 0, 5000);
+        addRange(second, 5000, 6000);
+        byte[] before = second.toByteArray();
+
+        first.merge(second);
+
+        assertThat(second.toByteArray()).isEqualTo(before);
+    }
+
+    @Test
+    void refusesToMergeCountersOfAnotherPrecision() {
+        HyperLogLog counter = new HyperLogLog(PRECISION);
+
+        assertThatThrownBy(() -> counter.merge(new HyperLogLog(PRECISION + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void roundTripsTheSparseByteForm() {
+        HyperLogLog counter = new HyperLogLog(PRECISION);
+        addRange(counter, 0, 60);
+
+        HyperLogLog restored = HyperLogLog.fromByteArray(counter.toByteArray());
+
+        assertThat(isDense(restored)).isFalse();
+        assertThat(restored.precision()).isEqualTo(PRECISION);
+        assertThat(restored.estimate()).isEqualTo(counter.estimate());
+        addRange(restored, 60, 5000);
+        addRange(counter, 60, 5000);
+        assertThat(restored.toByteArray()).isEqualTo(counter.toByteArray());
+    }
+
+    @Test
+    void roundTripsTheDenseByteForm() {
+        HyperLogLog counter = new HyperLogLog(PRECISION);
+        addRange(counter, 0, 20_000);
+
+        HyperLogLog restored = HyperLogLog.fromByteArray(counter.toByteArray());
+
+        assertThat(restored.toByteArray()).isEqualTo(counter.toByteArray());
+        assertThat(restored.estimate()).isEqualTo(counter.estimate());
+    }
+
+    @Test
+    void roundTripsAnEmptyCounter() {
+        HyperLogLog restored = HyperLogLog.fromByteArray(new HyperLogLog(PRECISION).toByteArray());
+
+        assertThat(restored.estimate()).isZero();
+    }
+
+    @Test
+    void copyIsIndependentOfTheOriginal() {
+        HyperLogLog counter = new HyperLogLog(PRECISION);
+        addRange(counter, 0, 10);
+        byte[] before = counter.toByteArray();
+        HyperLogLog copy = counter.copy();
+
+        addRange(copy, 10, 5000);
+
+        assertThat(counter.toByteArray()).isEqualTo(before);
+    }
+
+    @Test
+    void rejectsPrecisionOutOfRange() {
+        assertThatThrownBy(() -> new HyperLogLog(3)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HyperLogLog(19)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void addRange(HyperLogLog counter, int from, int to) {
+        for (int i = from; i < to; i++) {
+            counter.addHash(HyperLogLog.hash("user-" + i));
+        }
+    }
+
+    // The second byte of the serialized form tells the representation apart
+    private static boolean isDense(HyperLogLog counter) {
+        return counter.toByteArray()[1] == 1;
+    }
+}
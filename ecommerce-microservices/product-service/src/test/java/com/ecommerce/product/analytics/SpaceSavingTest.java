@@ -0,0 +1,164 @@
+package com.ecommerce.product.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Guarantees of the {@link SpaceSaving} summary over skewed streams of product ids, before and
+ * after merging, and its byte form.
+ */
+class SpaceSavingTest {
+
+    private static final int CAPACITY = 100;
+
+    @Test
+    void countsExactlyWhileCountersAreFree() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        summary.offer(1, 5);
+        summary.offer(2, 9);
+        summary.offer(3, 1);
+        summary.offer(1, 5);
+
+        assertThat(summary.top(10)).containsExactly(
+                new SpaceSaving.Counter(1, 10, 0),
+                new SpaceSaving.Counter(2, 9, 0),
+                new SpaceSaving.Counter(3, 1, 0));
+        assertThat(summary.top(1)).containsExactly(new SpaceSaving.Counter(1, 10, 0));
+        assertThat(summary.minimumCount()).isZero();
+    }
+
+    @Test
+    void newProductTakesOverTheSmallestCounterAndItsCountAsError() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.offer(1, 5);
+        summary.offer(2, 3);
+
+        summary.offer(3, 1);
+
+        assertThat(summary.top(2)).containsExactly(
+                new SpaceSaving.Counter(1, 5, 0),
+                new SpaceSaving.Counter(3, 4, 3));
+        assertThat(summary.minimumCount()).isEqualTo(4);
+    }
+
+    @Test
+    void keepsEveryHeavyHitterWithinTheErrorBound() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        Map<Long, Long> exact = offerSkewedStream(summary, new Random(11), 100_000);
+
+        assertGuarantees(summary, exact, 100_000);
+    }
+
+    @Test
+    void mergeKeepsTheGuaranteesOverTheCombinedStream() {
+        SpaceSaving first = new SpaceSaving(CAPACITY);
+        SpaceSaving second = new SpaceSaving(CAPACITY);
+        Map<Long, Long> exact = offerSkewedStream(first, new Random(21), 60_000);
+        offerSkewedStream(second, new Random(22), 40_000).forEach((item, count) -> exact.merge(item, count, Long::sum));
+
+        first.merge(second);
+
+        assertThat(first.size()).isEqualTo(CAPACITY);
+        assertGuarantees(first, exact, 100_000);
+    }
+
+    @Test
+    void mergeOfSummariesWithFreeCountersIsExact() {
+        SpaceSaving first = new SpaceSaving(CAPACITY);
+        SpaceSaving second = new SpaceSaving(CAPACITY);
+        first.offer(1, 4);
+        first.offer(2, 2);
+        second.offer(2, 3);
+        second.offer(3, 1);
+
+        first.merge(second);
+
+        assertThat(first.top(10)).containsExactly(
+                new SpaceSaving.Counter(2, 5, 0),
+                new SpaceSaving.Counter(1, 4, 0),
+                new SpaceSaving.Counter(3, 1, 0));
+    }
+
+    @Test
+    void refusesToMergeASummaryOfAnotherCapacity() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+
+        assertThatThrownBy(() -> summary.merge(new SpaceSaving(CAPACITY + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void roundTripsThroughABuffer() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        offerSkewedStream(summary, new Random(31), 20_000);
+        ByteBuffer buffer = ByteBuffer.allocate(summary.serializedSize());
+
+        summary.writeTo(buffer);
+        assertThat(buffer.hasRemaining()).isFalse();
+        SpaceSaving restored = SpaceSaving.readFrom(buffer.flip());
+
+        assertThat(restored.capacity()).isEqualTo(CAPACITY);
+        assertThat(restored.top(CAPACITY)).containsExactlyInAnyOrderElementsOf(summary.top(CAPACITY));
+        assertThat(restored.minimumCount()).isEqualTo(summary.minimumCount());
+    }
+
+    @Test
+    void clearFreesEveryCounter() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.offer(1, 1);
+        summary.offer(2, 1);
+
+        summary.clear();
+        summary.offer(3, 2);
+
+        assertThat(summary.size()).isEqualTo(1);
+        assertThat(summary.top(2)).containsExactly(new SpaceSaving.Counter(3, 2, 0));
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThatThrownBy(() -> new SpaceSaving(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Every product above {@code N / m} holds a counter, and every counter overestimates its
+     * product by no more than its error, itself at most {@code N / m}.
+     */
+    private static void assertGuarantees(SpaceSaving summary, Map<Long, Long> exact, long total) {
+        long bound = total / summary.capacity();
+        List<SpaceSaving.Counter> counters = summary.top(summary.capacity());
+        Map<Long, SpaceSaving.Counter> byItem = new HashMap<>();
+        counters.forEach(counter -> byItem.put(counter.item(), counter));
+
+        exact.forEach((item, count) -> {
+            if (count > bound) {
+                assertThat(byItem).as("heavy hitter %d seen %d times", item, count).containsKey(item);
+            }
+        });
+        for (SpaceSaving.Counter counter : counters) {
+            long count = exact.getOrDefault(counter.item(), 0L);
+            assertThat(counter.count()).as("count of %d", counter.item()).isGreaterThanOrEqualTo(count);
+            assertThat(counter.count() - counter.error()).as("lower bound of %d", counter.item())
+                    .isLessThanOrEqualTo(count);
+            assertThat(counter.error()).isLessThanOrEqualTo(bound);
+        }
+    }
+
+    private static Map<Long, Long> offerSkewedStream(SpaceSaving summary, Random random, int events) {
+        Map<Long, Long> exact = new HashMap<>();
+        for (int i = 0; i < events; i++) {
+            long item = CountMinSketchTest.skewedItem(random);
+            summary.offer(item, 1);
+            exact.merge(item, 1L, Long::sum);
+        }
+        return exact;
+    }
+}
@@ -0,0 +1,176 @@
+package com.ecommerce.product.config;
+
+import com.ecommerce.product.event.ProductEvent;
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch fill of the three event streams that write to the brokers side by side: product
+ * events relayed from the outbox and the publisher's product events, both on the
+ * product-updated topic, and enhanced events on the analytics topic. The same paced load is
+ * sent once through a producer per stream, as before the producers were consolidated, and
+ * once through templates on the shared producer of {@link KafkaConfig#producerFactory},
+ * configured as in the dev profile. The separate producers are copies of that factory, so
+ * both runs use its settings and serializer.
+ * <p>
+ * Sharing puts the two product streams in one batch per partition, and the batches of all
+ * three streams in one produce request per linger window. The bounds only require the
+ * shared producer to do better, since the exact fill depends on timing.
+ */
+@SpringBootTest(classes = {KafkaConfig.class, ApplicationFeatureProperties.class, SharedProducerBatchingTest.Metrics.class},
+        properties = {"spring.kafka.enabled=true", "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}"})
+@ActiveProfiles("dev")
+@EmbeddedKafka(partitions = 1, topics = {SharedProducerBatchingTest.PRODUCT_UPDATED, SharedProducerBatchingTest.ANALYTICS})
+class SharedProducerBatchingTest {
+
+    static final String PRODUCT_UPDATED = "product-updated";
+    static final String ANALYTICS = "product-analytics";
+
+    private static final int EVENTS_PER_STREAM = 400;
+
+    @Autowired
+    private ProducerFactory<String, Object> producerFactory;
+
+    @Test
+    void sharedProducerFillsLargerBatchesAndRequests() throws Exception {
+        BatchFill separate = separateProducers();
+        BatchFill shared = sharedProducer();
+
+        assertThat(shared.bytesPerBatch()).isGreaterThan(separate.bytesPerBatch());
+        assertThat(shared.recordsPerRequest()).isGreaterThan(separate.recordsPerRequest());
+        assertThat(shared.requests()).isLessThan(separate.requests());
+    }
+
+    private BatchFill separateProducers() throws Exception {
+        List<DefaultKafkaProducerFactory<String, Object>> factories = List.of(copyOfProducerFactory(),
+                copyOfProducerFactory(), copyOfProducerFactory());
+        try {
+            sendStreams(KafkaConfig.templateOn(factories.get(0), new ProducerListener<>() { }),
+                    KafkaConfig.templateOn(factories.get(1), new ProducerListener<>() { }),
+                    KafkaConfig.templateOn(factories.get(2), new ProducerListener<>() { }));
+            return BatchFill.of(factories);
+        } finally {
+            factories.forEach(DefaultKafkaProducerFactory::destroy);
+        }
+    }
+
+    private DefaultKafkaProducerFactory<String, Object> copyOfProducerFactory() {
+        return (DefaultKafkaProducerFactory<String, Object>) producerFactory.copyWithConfigurationOverride(Map.of());
+    }
+
+    private BatchFill sharedProducer() throws Exception {
+        sendStreams(KafkaConfig.templateOn(producerFactory, new ProducerListener<>() { }),
+                KafkaConfig.templateOn(producerFactory, new ProducerListener<>() { }),
+                KafkaConfig.templateOn(producerFactory, new ProducerListener<>() { }));
+        return BatchFill.of(List.of(producerFactory));
+    }
+
+    /**
+     * Sends one event of each stream per millisecond, as a steady trickle of writes would,
+     * and waits for every acknowledgement.
+     */
+    private void sendStreams(KafkaTemplate<String, ProductEvent> outboxTemplate,
+                             KafkaTemplate<String, com.ecommerce.product.kafka.event.ProductEvent> publisherTemplate,
+                             KafkaTemplate<String, EnhancedProductEvent> analyticsTemplate) throws Exception {
+        List<CompletableFuture<?>> sends = new ArrayList<>(3 * EVENTS_PER_STREAM);
+        for (int i = 0; i < EVENTS_PER_STREAM; i++) {
+            long productId = i % 50 + 1;
+            sends.add(outboxTemplate.send(PRODUCT_UPDATED, 0, String.valueOf(productId), productEvent(productId)));
+            sends.add(publisherTemplate.send(PRODUCT_UPDATED, 0, String.valueOf(productId), publisherEvent(productId)));
+            sends.add(analyticsTemplate.send(ANALYTICS, 0, String.valueOf(productId), analyticsEvent(productId)));
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+    }
+
+    private static ProductEvent productEvent(long productId) {
+        ProductEvent event = new ProductEvent(productId, "Product " + productId, BigDecimal.valueOf(1999, 2),
+                100, ProductEvent.EventType.UPDATED);
+        event.setDescription("Description " + productId);
+        event.setCategoryId(productId % 10);
+        event.setVersion(1L);
+        return event;
+    }
+
+    private static com.ecommerce.product.kafka.event.ProductEvent publisherEvent(long productId) {
+        return com.ecommerce.product.kafka.event.ProductEvent.updated(productId, "Product " + productId,
+                "Description " + productId, BigDecimal.valueOf(1999, 2), 100, "Category", "SKU-" + productId,
+                "user" + productId);
+    }
+
+    private static EnhancedProductEvent analyticsEvent(long productId) {
+        EnhancedProductEvent event = new EnhancedProductEvent();
+        event.setEventId("event-" + productId + "-" + System.nanoTime());
+        event.setEventType("VIEW");
+        event.setProductId(productId);
+        event.setProductName("Product " + productId);
+        event.setUserId("user" + productId);
+        event.setTimestamp(LocalDateTime.now());
+        event.setSessionId("session-" + productId);
+        event.setViewDurationSeconds(30);
+        return event;
+    }
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    /**
+     * Producer metrics over all producers that carried the load. Each separate producer writes
+     * a single partition, so its requests stand in for its batches when averaging batch sizes.
+     */
+    private record BatchFill(double bytesPerBatch, double recordsPerRequest, long requests) {
+
+        static BatchFill of(List<? extends ProducerFactory<String, Object>> factories) {
+            double batchBytes = 0;
+            double records = 0;
+            long requests = 0;
+            for (ProducerFactory<String, Object> factory : factories) {
+                Map<MetricName, ? extends Metric> metrics = factory.createProducer().metrics();
+                long producerRequests = (long) metric(metrics, "request-total");
+                batchBytes += metric(metrics, "batch-size-avg") * producerRequests;
+                records += metric(metrics, "record-send-total");
+                requests += producerRequests;
+            }
+            return new BatchFill(batchBytes / requests, records / requests, requests);
+        }
+
+        private static double metric(Map<MetricName, ? extends Metric> metrics, String name) {
+            return metrics.entrySet().stream()
+                    .filter(entry -> entry.getKey().group().equals("producer-metrics")
+                            && entry.getKey().name().equals(name))
+                    .mapToDouble(entry -> ((Number) entry.getValue().metricValue()).doubleValue())
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.ecommerce.product.index;
+
+import com.ecommerce.product.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price range lookups served by {@link ProductPriceIndex} and hydrated from memory, against
+ * the query {@code findByPriceBetween} runs on an H2 products table, plus the startup build
+ * of the index.
+ * <p>
+ * The cache is stood in for by a map, so the index numbers are for a fully warm cache; the
+ * repository numbers leave out Hibernate's entity handling and are a lower bound for it.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ProductPriceIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductPriceIndexBenchmark {
+
+    private static final String SELECT_BY_PRICE_SQL =
+            "SELECT id, name, description, price, image_url, category_id, stock_quantity, created_at, updated_at "
+                    + "FROM products WHERE price BETWEEN ? AND ?";
+
+    /**
+     * Prices are spread uniformly over 0.01 to 1000.00.
+     */
+    private static final long MAX_PRICE_CENTS = 100_000;
+
+    @Param({"10000", "100000"})
+    private int products;
+
+    /**
+     * Share of the price range a query spans, in basis points.
+     */
+    @Param({"10", "100"})
+    private int rangeBasisPoints;
+
+    private long[] productPrices;
+    private ProductPriceIndex index;
+    private Map<Long, Product> cache;
+    private Connection connection;
+    private PreparedStatement selectByPrice;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        SplittableRandom seeded = new SplittableRandom(42);
+        productPrices = new long[products];
+        index = new ProductPriceIndex();
+        cache = new HashMap<>(products * 2);
+        for (int i = 0; i < products; i++) {
+            long id = i + 1;
+            productPrices[i] = seeded.nextLong(1, MAX_PRICE_CENTS + 1);
+            Product product = new Product("Product " + id, "Description " + id,
+                    BigDecimal.valueOf(productPrices[i], 2), null, id % 50, 100);
+            product.setId(id);
+            index.put(id, product.getPrice());
+            cache.put(id, product);
+        }
+        index.markReady();
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:price_benchmark_" + products, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, name VARCHAR(255), "
+                    + "description VARCHAR(255), price NUMERIC(38, 2), image_url VARCHAR(255), category_id BIGINT, "
+                    + "stock_quantity INTEGER, created_at TIMESTAMP(6), updated_at TIMESTAMP(6))");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO products VALUES (?, ?, ?, ?, NULL, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)")) {
+            for (Product product : cache.values()) {
+                insert.setLong(1, product.getId());
+                insert.setString(2, product.getName());
+                insert.setString(3, product.getDescription());
+                insert.setBigDecimal(4, product.getPrice());
+                insert.setLong(5, product.getCategoryId());
+                insert.setInt(6, product.getStockQuantity());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        selectByPrice = connection.prepareStatement(SELECT_BY_PRICE_SQL);
+        random = new SplittableRandom(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        selectByPrice.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Product> indexThenCache() {
+        BigDecimal[] range = nextRange();
+        long[] ids = index.findIdsInRange(range[0], range[1]).orElseThrow();
+        List<Product> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(cache.get(id));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Product> repositoryQuery() throws SQLException {
+        BigDecimal[] range = nextRange();
+        selectByPrice.setBigDecimal(1, range[0]);
+        selectByPrice.setBigDecimal(2, range[1]);
+        List<Product> result = new ArrayList<>();
+        try (ResultSet rows = selectByPrice.executeQuery()) {
+            while (rows.next()) {
+                Product product = new Product(rows.getString(2), rows.getString(3), rows.getBigDecimal(4),
+                        rows.getString(5), rows.getLong(6), rows.getInt(7));
+                product.setId(rows.getLong(1));
+                product.setCreatedAt(rows.getTimestamp(8).toLocalDateTime());
+                product.setUpdatedAt(rows.getTimestamp(9).toLocalDateTime());
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The startup build: every product put before the index is ready, then one sort.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ProductPriceIndex build() {
+        ProductPriceIndex built = new ProductPriceIndex();
+        for (int i = 0; i < productPrices.length; i++) {
+            built.put((long) i + 1, BigDecimal.valueOf(productPrices[i], 2));
+        }
+        built.markReady();
+        return built;
+    }
+
+    private BigDecimal[] nextRange() {
+        long width = MAX_PRICE_CENTS * rangeBasisPoints / 10_000;
+        long min = random.nextLong(1, MAX_PRICE_CENTS - width + 1);
+        return new BigDecimal[] {BigDecimal.valueOf(min, 2), BigDecimal.valueOf(min + width, 2)};
+    }
+}
@@ -0,0 +1,191 @@
+package com.ecommerce.product.kafka.publish;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Queueing, draining and the blocking, dropping, paused and closed states of
+ * {@link PublishRingBuffer}.
+ */
+class PublishRingBufferTest {
+
+    private static final String TOPIC = "product-analytics";
+    private static final long NO_WAIT = 0;
+    private static final long WAIT = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    void drainsRecordsInOrderUpToABatch() throws Exception {
+        PublishRingBuffer ring = new PublishRingBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            assertThat(ring.offer(TOPIC, "key-" + i, i, NO_WAIT)).isTrue();
+        }
+        PublishRingBuffer.Batch batch = new PublishRingBuffer.Batch(3);
+
+        assertThat(ring.drainTo(batch, NO_WAIT)).isEqualTo(3);
+        assertThat(batch.values).containsExactly(0, 1, 2);
+        assertThat(batch.keys).containsExactly("key-0", "key-1", "key-2");
+        assertThat(batch.topics).containsOnly(TOPIC);
+        assertThat(batch.queuedAt[0]).isLessThanOrEqualTo(batch.queuedAt[1]);
+        assertThat(ring.size()).isEqualTo(2);
+
+        assertThat(ring.drainTo(batch, NO_WAIT)).isEqualTo(2);
+        assertThat(batch.values[0]).isEqualTo(3);
+        assertThat(batch.values[1]).isEqualTo(4);
+        assertThat(ring.drainTo(batch, NO_WAIT)).isZero();
+    }
+
+    @Test
+    void keepsOrderAcrossTheEndOfTheRing() throws Exception {
+        PublishRingBuffer ring = new PublishRingBuffer(4);
+        PublishRingBuffer.Batch batch = new PublishRingBuffer.Batch(3);
+        List<Object> drained = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            assertThat(ring.offer(TOPIC, null, i, NO_WAIT)).isTrue();
+            if (i % 3 == 2) {
+                int count = ring.drainTo(batch, NO_WAIT);
+                for (int j = 0; j < count; j++) {
+                    drained.add(batch.values[j]);
+                }
+                batch.clear(count);
+            }
+        }
+
+        assertThat(drained).hasSize(30);
+        for (int i = 0; i < 30; i++) {
+            assertThat(drained.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void offerGivesUpWhenTheRingStaysFull() throws Exception {
+        PublishRingBuffer ring = new PublishRingBuffer(2);
+        ring.offer(TOPIC, null, 1, NO_WAIT);
+        ring.offer(TOPIC, null, 2, NO_WAIT);
+
+        assertThat(ring.offer(TOPIC, null, 3, NO_WAIT)).isFalse();
+        assertThat(ring.offer(TOPIC, null, 3, TimeUnit.MILLISECONDS.toNanos(20))).isFalse();
+        assertThat(ring.size()).isEqualTo(2);
+    }
+
+    @Test
+    void blockedOfferProceedsOnceTheRingIsDrained() throws Exception {
+        PublishRingBuffer ring = new PublishRingBuffer(1);
+        ring.offer(TOPIC, null, 1, NO_WAIT);
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> offer(ring, 2, WAIT));
+
+        PublishRingBuffer.Batch batch = new PublishRingBuffer.Batch(1);
+        assertThat(ring.drainTo(batch, NO_WAIT)).isEqualTo(1);
+
+        assertThat(blocked.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(ring.drainTo(batch, NO_WAIT)).isEqualTo(1);
+        assertThat(batch.values[0]).isEqualTo(2);
+    }
+
+    @Test
+    void droppingOfferDiscardsTheOldestRecord() throws Exception {
+        PublishRingBuffer ring = new PublishRingBuffer(3);
+
+        assertThat(ring.offerDroppingOldest(TOPIC, null, 1)).isZero();
+        assertThat(ring.offerDroppingOldest(TOPIC, null, 2)).isZero();
+        assertThat(ring.offerDroppingOldest(TOPIC, null, 3)).isZero();
+        assertThat(ring.offerDroppingOldest(TOPIC, null, 4)).isEqualTo(1);
+
+        PublishRingBuffer.Batch batch = new PublishRingBuffer.Batch(3);
+        assertThat(ring.drainTo(batch, NO_WAIT)).isEqualTo(3);
+        assertThat(batch.values).containsExactly(2, 3, 4);
+    }
+
+    @Test
+    void pausedRingRefusesOffersButStillDrains() throws Exception {
+        PublishRingBuffer ring = new PublishRingBuffer(4);
+        ring.offer(TOPIC, null, 1, NO_WAIT);
+
+        ring.pause();
+        assertThat(ring.isPaused()).isTrue();
+        assertThat(ring.offer(TOPIC, null, 2, WAIT)).isFalse();
+        assertThat(ring.drainTo(new PublishRingBuffer.Batch(4), NO_WAIT)).isEqualTo(1);
+
+        ring.resume();
+        assertThat(ring.offer(TOPIC, null, 3, NO_WAIT)).isTrue();
+    }
+
+    @Test
+    void closedRingRefusesOffersAndEndsAfterTheLastRecord() throws Exception {
+        PublishRingBuffer ring = new PublishRingBuffer(4);
+        ring.offer(TOPIC, null, 1, NO_WAIT);
+
+        ring.close();
+
+        assertThat(ring.offer(TOPIC, null, 2, NO_WAIT)).isFalse();
+        assertThat(ring.offerDroppingOldest(TOPIC, null, 2)).isEqualTo(-1);
+        assertThat(ring.awaitRecords(NO_WAIT)).isEqualTo(1);
+        PublishRingBuffer.Batch batch = new PublishRingBuffer.Batch(4);
+        assertThat(ring.drainTo(batch, WAIT)).isEqualTo(1);
+        assertThat(ring.drainTo(batch, WAIT)).isEqualTo(-1);
+        assertThat(ring.awaitRecords(WAIT)).isEqualTo(-1);
+    }
+
+    @Test
+    void closeWakesWaitingThreads() throws Exception {
+        PublishRingBuffer ring = new PublishRingBuffer(1);
+        ring.offer(TOPIC, null, 1, NO_WAIT);
+        PublishRingBuffer empty = new PublishRingBuffer(1);
+        CompletableFuture<Boolean> producer = CompletableFuture.supplyAsync(() -> offer(ring, 2, WAIT));
+        CompletableFuture<Integer> drainer = CompletableFuture.supplyAsync(() -> drain(empty, WAIT));
+
+        ring.close();
+        empty.close();
+
+        assertThat(producer.get(10, TimeUnit.SECONDS)).isFalse();
+        assertThat(drainer.get(10, TimeUnit.SECONDS)).isEqualTo(-1);
+    }
+
+    @Test
+    void awaitRecordsLeavesRecordsQueued() throws Exception {
+        PublishRingBuffer ring = new PublishRingBuffer(2);
+
+        assertThat(ring.awaitRecords(TimeUnit.MILLISECONDS.toNanos(10))).isZero();
+        ring.offer(TOPIC, null, 1, NO_WAIT);
+        assertThat(ring.awaitRecords(NO_WAIT)).isEqualTo(1);
+        assertThat(ring.size()).isEqualTo(1);
+    }
+
+    @Test
+    void batchClearReleasesDrainedValues() throws Exception {
+        PublishRingBuffer ring = new PublishRingBuffer(2);
+        ring.offer(TOPIC, "key", 1, NO_WAIT);
+        PublishRingBuffer.Batch batch = new PublishRingBuffer.Batch(2);
+        int count = ring.drainTo(batch, NO_WAIT);
+
+        batch.clear(count);
+
+        assertThat(batch.topics[0]).isNull();
+        assertThat(batch.keys[0]).isNull();
+        assertThat(batch.values[0]).isNull();
+    }
+
+    private static boolean offer(PublishRingBuffer ring, Object value, long timeoutNanos) {
+        try {
+            return ring.offer(TOPIC, null, value, timeoutNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int drain(PublishRingBuffer ring, long timeoutNanos) {
+        try {
+            return ring.drainTo(new PublishRingBuffer.Batch(1), timeoutNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.ecommerce.product.kafka.serialization;
+
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import com.ecommerce.product.kafka.event.ProductEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Round trips of both event types through the binary serializers and deserializers, the JSON
+ * fallback of the deserializers, and rejection of malformed records.
+ */
+class BinaryEventCodecTest {
+
+    private static final String TOPIC = "product-events";
+
+    private final BinaryProductEventSerializer productSerializer = new BinaryProductEventSerializer();
+    private final BinaryProductEventDeserializer productDeserializer = new BinaryProductEventDeserializer();
+    private final BinaryEnhancedProductEventSerializer enhancedSerializer = new BinaryEnhancedProductEventSerializer();
+    private final BinaryEnhancedProductEventDeserializer enhancedDeserializer = new BinaryEnhancedProductEventDeserializer();
+
+    @Test
+    void roundTripsAProductEventWithEveryField() {
+        ProductEvent event = productEvent();
+
+        byte[] bytes = productSerializer.serialize(TOPIC, event);
+
+        assertThat(bytes[0]).isEqualTo(BinaryEventFormat.MAGIC);
+        assertThat(productDeserializer.deserialize(TOPIC, bytes)).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsAProductEventWithMissingFieldsAndLiteralValues() {
+        ProductEvent event = new ProductEvent();
+        event.setEventType("PRODUCT_ARCHIVED");
+        event.setProductId(Long.MAX_VALUE);
+        event.setPrice(new BigDecimal("-0.000001"));
+        event.setQuantityDelta(Integer.MIN_VALUE);
+
+        assertThat(productDeserializer.deserialize(TOPIC, productSerializer.serialize(TOPIC, event))).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsAnEnhancedEventWithEveryField() {
+        EnhancedProductEvent event = enhancedEvent();
+
+        byte[] bytes = enhancedSerializer.serialize(TOPIC, event);
+
+        assertThat(enhancedDeserializer.deserialize(TOPIC, bytes)).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsEnhancedEventValuesThatCannotBePacked() {
+        EnhancedProductEvent event = enhancedEvent();
+        event.setEventId(UUID.randomUUID().toString().toUpperCase());
+        event.setIpAddress("010.0.0.1");
+        event.setUserAgent("curl/8.0");
+        event.setReferrer("https://example.com/deals");
+        event.setEventType("COMPARE");
+
+        assertThat(enhancedDeserializer.deserialize(TOPIC, enhancedSerializer.serialize(TOPIC, event))).isEqualTo(event);
+
+        event.setEventId("event-17");
+        event.setIpAddress("2001:db8::1");
+        assertThat(enhancedDeserializer.deserialize(TOPIC, enhancedSerializer.serialize(TOPIC, event))).isEqualTo(event);
+    }
+
+    @Test
+    void packsDictionaryValuesUuidsAndAddresses() {
+        EnhancedProductEvent event = enhancedEvent();
+        EnhancedProductEvent literal = enhancedEvent();
+        literal.setEventId("x" + literal.getEventId().substring(1));
+        literal.setIpAddress("192.168.001.20");
+        literal.setUserAgent(literal.getUserAgent() + " ");
+
+        assertThat(enhancedSerializer.serialize(TOPIC, event).length)
+                .isLessThan(enhancedSerializer.serialize(TOPIC, literal).length - 60);
+    }
+
+    @Test
+    void readsJsonRecordsOfEitherType() {
+        try (JsonSerializer<Object> json = new JsonSerializer<>().noTypeInfo()) {
+            ProductEvent productEvent = productEvent();
+            // The JSON timestamp pattern of product events keeps whole seconds
+            productEvent.setTimestamp(productEvent.getTimestamp().withNano(0));
+            EnhancedProductEvent enhancedEvent = enhancedEvent();
+
+            assertThat(productDeserializer.deserialize(TOPIC, json.serialize(TOPIC, productEvent))).isEqualTo(productEvent);
+            assertThat(enhancedDeserializer.deserialize(TOPIC, json.serialize(TOPIC, enhancedEvent))).isEqualTo(enhancedEvent);
+        }
+    }
+
+    @Test
+    void passesNullThrough() {
+        assertThat(productSerializer.serialize(TOPIC, null)).isNull();
+        assertThat(productDeserializer.deserialize(TOPIC, null)).isNull();
+        assertThat(enhancedSerializer.serialize(TOPIC, null)).isNull();
+        assertThat(enhancedDeserializer.deserialize(TOPIC, null)).isNull();
+    }
+
+    @Test
+    void rejectsEveryTruncationOfARecord() {
+        byte[] product = productSerializer.serialize(TOPIC, productEvent());
+        byte[] enhanced = enhancedSerializer.serialize(TOPIC, enhancedEvent());
+
+        for (int length = 1; length < product.length; length++) {
+            byte[] truncated = Arrays.copyOf(product, length);
+            assertThatThrownBy(() -> productDeserializer.deserialize(TOPIC, truncated))
+                    .as("record cut to %d bytes", length)
+                    .isInstanceOf(SerializationException.class);
+        }
+        for (int length = 1; length < enhanced.length; length++) {
+            byte[] truncated = Arrays.copyOf(enhanced, length);
+            assertThatThrownBy(() -> enhancedDeserializer.deserialize(TOPIC, truncated))
+                    .as("record cut to %d bytes", length)
+                    .isInstanceOf(SerializationException.class);
+        }
+    }
+
+    @Test
+    void rejectsLengthPrefixesBeyondTheRecord() {
+        // A string field claiming Integer.MAX_VALUE bytes, then Long.MAX_VALUE bytes
+        byte[] maxInt = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'a', 'b'};
+        byte[] maxLong = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F, 'a'};
+
+        assertThatThrownBy(() -> new BinaryEventReader(maxInt).readString()).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> new BinaryEventReader(maxLong).readBytes()).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void rejectsUnknownSchemaVersionsAndDictionaryCodes() {
+        byte[] record = productSerializer.serialize(TOPIC, productEvent());
+        byte[] futureVersion = record.clone();
+        futureVersion[1] = BinaryEventFormat.SCHEMA_VERSION + 1;
+
+        assertThatThrownBy(() -> productDeserializer.deserialize(TOPIC, futureVersion))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> new BinaryEventReader(new byte[] {0x7F})
+                .readDictionaryString(BinaryEventFormat.PRODUCT_EVENT_TYPES))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void routingSerializerWritesEachTypeInItsConfiguredFormat() {
+        try (EventRoutingSerializer serializer = new EventRoutingSerializer(EventWireFormat.BINARY, EventWireFormat.JSON)) {
+            assertThat(BinaryEventFormat.isBinary(serializer.serialize(TOPIC, productEvent()))).isTrue();
+            assertThat(BinaryEventFormat.isBinary(serializer.serialize(TOPIC, enhancedEvent()))).isFalse();
+            assertThat(new String(serializer.serialize(TOPIC, Map.of("productId", 1))))
+                    .isEqualTo("{\"productId\":1}");
+        }
+    }
+
+    private static ProductEvent productEvent() {
+        return ProductEvent.builder()
+                .eventId(UUID.randomUUID())
+                .eventType("PRODUCT_UPDATED")
+                .productId(1234L)
+                .productName("Espresso Machine")
+                .description("15 bar pump, steam wand")
+                .price(new BigDecimal("349.99"))
+                .quantityAvailable(17)
+                .category("Kitchen")
+                .sku("ESP-1234")
+                .timestamp(LocalDateTime.of(2024, 3, 9, 14, 30, 5, 123_456_789))
+                .userId("user-77")
+                .quantityDelta(-3)
+                .build();
+    }
+
+    private static EnhancedProductEvent enhancedEvent() {
+        EnhancedProductEvent event = new EnhancedProductEvent();
+        event.setEventId(UUID.randomUUID().toString());
+        event.setEventType("PURCHASE");
+        event.setProductId(1234L);
+        event.setProductName("Espresso Machine");
+        event.setUserId("user-77");
+        event.setTimestamp(LocalDateTime.of(2024, 3, 9, 14, 30, 5, 123_456_789));
+        event.setUserAgent("Mozilla/5.0 (Android 10; Mobile) AppleWebKit/537.36");
+        event.setIpAddress("192.168.1.20");
+        event.setSessionId("session-9");
+        event.setReferrer("https://www.google.com");
+        event.setQuantity(2);
+        event.setPrice(349.99);
+        event.setRating(5);
+        event.setComment("Great crema");
+        event.setViewDurationSeconds(42);
+        return event;
+    }
+}
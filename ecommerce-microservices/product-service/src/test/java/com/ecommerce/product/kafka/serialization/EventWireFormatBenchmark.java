@@ -0,0 +1,141 @@
+package com.ecommerce.product.kafka.serialization;
+
+import com.ecommerce.product.kafka.event.EnhancedProductEvent;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per analytics event of each {@link EventWireFormat}: nanoseconds to serialize and to
+ * deserialize through the same serializer and deserializer the producer and consumers use,
+ * and the average record size, printed once per trial as bytes/event.
+ * <p>
+ * Events are drawn like the activity simulator's, so dictionary hits and packed ids and
+ * addresses occur as often as they do on the analytics topic.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=EventWireFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventWireFormatBenchmark {
+
+    private static final int EVENTS = 4096;
+
+    private static final String[] EVENT_TYPES = {
+            "VIEW", "SEARCH", "ADD_TO_CART", "PURCHASE", "REVIEW", "WISHLIST_ADD"
+    };
+
+    private static final String[] USER_AGENTS = {
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15",
+            "Mozilla/5.0 (Android 10; Mobile) AppleWebKit/537.36"
+    };
+
+    private static final String[] IP_ADDRESSES = {
+            "192.168.1.100", "172.16.0.50", "10.0.0.25", "8.8.8.8", "203.0.113.42"
+    };
+
+    private static final String[] REFERRERS = {
+            "https://www.google.com", "https://www.bing.com", "Direct", "Email", "Mobile App"
+    };
+
+    private static final String TOPIC = "product-analytics";
+
+    @Param({"JSON", "BINARY"})
+    private EventWireFormat format;
+
+    private EnhancedProductEvent[] events;
+    private byte[][] records;
+    private Serializer<EnhancedProductEvent> serializer;
+    private Deserializer<EnhancedProductEvent> deserializer;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        serializer = format.serializer(new BinaryEnhancedProductEventSerializer());
+        deserializer = new BinaryEnhancedProductEventDeserializer();
+
+        events = new EnhancedProductEvent[EVENTS];
+        records = new byte[EVENTS][];
+        long totalBytes = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            events[i] = randomEvent(random, start.plusNanos(random.nextLong(86_400_000_000_000L)));
+            records[i] = serializer.serialize(TOPIC, events[i]);
+            totalBytes += records[i].length;
+        }
+        System.out.printf("%n%s: %.1f bytes/event%n", format, (double) totalBytes / EVENTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, events[nextIndex()]);
+    }
+
+    @Benchmark
+    public EnhancedProductEvent deserialize() {
+        return deserializer.deserialize(TOPIC, records[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (EVENTS - 1);
+        return next;
+    }
+
+    private static EnhancedProductEvent randomEvent(SplittableRandom random, LocalDateTime timestamp) {
+        EnhancedProductEvent event = new EnhancedProductEvent();
+        event.setEventId(new UUID((random.nextLong() & ~0xF000L) | 0x4000L,
+                (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L).toString());
+        event.setEventType(EVENT_TYPES[random.nextInt(EVENT_TYPES.length)]);
+        event.setProductId(random.nextLong(1, 100_000));
+        event.setProductName("Product " + event.getProductId());
+        event.setUserId("user" + random.nextInt(10_000));
+        event.setTimestamp(timestamp);
+        event.setUserAgent(USER_AGENTS[random.nextInt(USER_AGENTS.length)]);
+        event.setIpAddress(IP_ADDRESSES[random.nextInt(IP_ADDRESSES.length)]);
+        event.setSessionId("session-" + Integer.toHexString(random.nextInt()));
+        event.setReferrer(REFERRERS[random.nextInt(REFERRERS.length)]);
+        switch (event.getEventType()) {
+            case "VIEW" -> event.setViewDurationSeconds(random.nextInt(5, 305));
+            case "PURCHASE" -> {
+                event.setQuantity(random.nextInt(1, 4));
+                event.setPrice(random.nextInt(100, 100_000) / 100.0);
+            }
+            case "REVIEW" -> {
+                event.setRating(random.nextInt(1, 6));
+                event.setComment("Sample review comment for " + event.getProductName());
+            }
+            case "ADD_TO_CART" -> event.setQuantity(random.nextInt(1, 6));
+            default -> {
+            }
+        }
+        return event;
+    }
+}
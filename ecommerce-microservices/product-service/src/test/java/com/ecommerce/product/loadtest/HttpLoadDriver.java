@@ -0,0 +1,183 @@
+package com.ecommerce.product.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Closed-loop HTTP load driver for comparing the platform-thread and virtual-thread execution
+ * modes. Each of {@code --concurrency} client threads sends one GET at a time, picking a path
+ * at random and filling {@code {id}} with a random id up to {@code --ids}, for the warm-up
+ * and then the measured duration. It prints one CSV line:
+ * {@code label,concurrency,requests,errors,throughput_rps,p50_ms,p99_ms,max_ms}.
+ * <p>
+ * It depends only on the JDK, so it runs from source without a build:
+ * {@code java HttpLoadDriver.java --url http://localhost:8081 --concurrency 800 --duration 30}.
+ * {@code bin/virtual-threads-load-test.sh} runs it against the service in both modes.
+ */
+public final class HttpLoadDriver {
+
+    private HttpLoadDriver() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8081";
+        String label = "run";
+        int concurrency = 200;
+        int durationSeconds = 30;
+        int warmupSeconds = 10;
+        int ids = 1000;
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--url" -> url = value;
+                case "--label" -> label = value;
+                case "--concurrency" -> concurrency = Integer.parseInt(value);
+                case "--duration" -> durationSeconds = Integer.parseInt(value);
+                case "--warmup" -> warmupSeconds = Integer.parseInt(value);
+                case "--ids" -> ids = Integer.parseInt(value);
+                case "--path" -> paths.add(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (paths.isEmpty()) {
+            paths = List.of("/api/products/{id}", "/api/products/page?limit=50");
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Worker[] workers = new Worker[concurrency];
+        Thread[] threads = new Thread[concurrency];
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Worker(client, url, paths, ids, new SplittableRandom(i), measuring, stopped, done);
+            threads[i] = new Thread(workers[i], "load-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+
+        Thread.sleep(warmupSeconds * 1000L);
+        long start = System.nanoTime();
+        measuring.set(true);
+        Thread.sleep(durationSeconds * 1000L);
+        measuring.set(false);
+        long elapsed = System.nanoTime() - start;
+        stopped.set(true);
+        done.await();
+
+        long requests = 0;
+        long errors = 0;
+        int latencyCount = 0;
+        for (Worker worker : workers) {
+            requests += worker.requests;
+            errors += worker.errors;
+            latencyCount += worker.latencyCount;
+        }
+        long[] latencies = new long[latencyCount];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.latencyCount);
+            offset += worker.latencyCount;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f%n", label, concurrency, requests, errors,
+                requests / (elapsed / 1e9), percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.99),
+                latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+
+    /**
+     * One client thread, sending its next request as soon as the previous one is answered.
+     * Latencies of successful requests in the measured window are kept for the percentiles.
+     */
+    private static final class Worker implements Runnable {
+
+        private final HttpClient client;
+        private final String url;
+        private final List<String> paths;
+        private final int ids;
+        private final SplittableRandom random;
+        private final AtomicBoolean measuring;
+        private final AtomicBoolean stopped;
+        private final CountDownLatch done;
+
+        private long[] latencies = new long[1024];
+        private int latencyCount;
+        private long requests;
+        private long errors;
+
+        Worker(HttpClient client, String url, List<String> paths, int ids, SplittableRandom random,
+               AtomicBoolean measuring, AtomicBoolean stopped, CountDownLatch done) {
+            this.client = client;
+            this.url = url;
+            this.paths = paths;
+            this.ids = ids;
+            this.random = random;
+            this.measuring = measuring;
+            this.stopped = stopped;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped.get()) {
+                    String path = paths.get(random.nextInt(paths.size()))
+                            .replace("{id}", Integer.toString(random.nextInt(1, ids + 1)));
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                            .timeout(Duration.ofSeconds(60))
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    boolean ok;
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        ok = response.statusCode() < 500;
+                    } catch (Exception e) {
+                        if (e instanceof InterruptedException) {
+                            return;
+                        }
+                        ok = false;
+                    }
+                    long latency = System.nanoTime() - start;
+                    if (measuring.get()) {
+                        requests++;
+                        if (ok) {
+                            record(latency);
+                        } else {
+                            errors++;
+                        }
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void record(long latency) {
+            if (latencyCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[latencyCount++] = latency;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.healthcare.appointment.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual-thread execution mode, enabled with {@code app.threads.virtual}.
+ * <p>
+ * Tomcat runs every request on a new virtual thread instead of its bounded worker pool, so a
+ * request blocked on JDBC or an outbound HTTP call parks a virtual thread instead of holding
+ * a worker. Concurrency is then bounded by the Hikari pool, with requests waiting up to its
+ * connection timeout. The service is built for Java 17, so virtual threads are looked up
+ * reflectively and the mode only takes effect on Java 21 or later; on older runtimes Tomcat
+ * keeps its worker pool.
+ * <p>
+ * Unless {@code jdk.tracePinnedThreads} is already set, it is set from
+ * {@code app.threads.pinning-diagnostics}, so a virtual thread blocking inside a
+ * {@code synchronized} block is reported with its stack.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+            @Value("${app.threads.pinning-diagnostics:short}") String pinningDiagnostics) {
+        ExecutorService executor = virtualThreadPerTaskExecutor();
+        if (executor == null) {
+            logger.warn("Virtual threads requested but not available on Java {}; using platform threads",
+                    Runtime.version().feature());
+            return protocolHandler -> { };
+        }
+        if (System.getProperty("jdk.tracePinnedThreads") == null && !"off".equals(pinningDiagnostics)) {
+            System.setProperty("jdk.tracePinnedThreads", pinningDiagnostics);
+        }
+        logger.info("Running requests on virtual threads, pinning diagnostics {}",
+                System.getProperty("jdk.tracePinnedThreads", "off"));
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    /**
+     * Executor starting a named virtual thread per task, or null if the JVM has none.
+     */
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "http-virtual-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}